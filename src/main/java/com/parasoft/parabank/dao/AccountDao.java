@@ -1,8 +1,12 @@
 package com.parasoft.parabank.dao;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.BalanceSummary;
 
 /**
  * Interface for accessing Account information from a data source
@@ -15,7 +19,7 @@ public interface AccountDao {
      * @param id the account id to retrieve
      * @return Account object representing the bank account
      */
-    Account getAccount(int id);
+    Account getAccount(long id);
 
     /**
      * Retrieve all accounts for a given customer
@@ -23,7 +27,26 @@ public interface AccountDao {
      * @param customerId the customer id to lookup
      * @return list of accounts belonging to the given customer
      */
-    List<Account> getAccountsForCustomerId(int customerId);
+    List<Account> getAccountsForCustomerId(long customerId);
+
+    /**
+     * Retrieve several bank accounts by id
+     *
+     * @param ids the account ids to retrieve
+     * @return the accounts that exist, in no particular order
+     */
+    List<Account> getAccounts(Collection<Long> ids);
+
+    /**
+     * Retrieve the combined balances of all accounts of a given customer
+     *
+     * The summary is maintained by every method of this interface that creates an account or changes a balance, so
+     * reading it does not touch the individual accounts.
+     *
+     * @param customerId the customer id to lookup
+     * @return the balance summary, with zero accounts if the customer has none
+     */
+    BalanceSummary getBalanceSummary(long customerId);
 
     /**
      * Add a new account to the data source
@@ -33,12 +56,34 @@ public interface AccountDao {
      * @param account the account information to store
      * @return generated account id
      */
-    int createAccount(Account account);
+    long createAccount(Account account);
 
     /**
      * Update stored information for a given account
      *
+     * The update only succeeds if the account has not been changed since it was read, i.e. its version still
+     * matches the stored one. The version of the given account is advanced on success.
+     *
      * @param account the account to update
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the account was changed or removed
      */
     void updateAccount(Account account);
+
+    /**
+     * Atomically add an amount to the balance of an account without reading it first
+     *
+     * @param id the account id
+     * @param amount the amount to add, negative to subtract
+     * @return the new balance
+     * @throws org.springframework.dao.EmptyResultDataAccessException if there is no such account
+     */
+    BigDecimal adjustBalance(long id, BigDecimal amount);
+
+    /**
+     * Atomically add an amount to the balance of each of several accounts in a single batch
+     *
+     * @param amounts the amount to add keyed by account id
+     * @throws org.springframework.dao.EmptyResultDataAccessException if one of the accounts does not exist
+     */
+    void adjustBalances(Map<Long, BigDecimal> amounts);
 }
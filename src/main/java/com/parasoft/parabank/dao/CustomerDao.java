@@ -13,7 +13,7 @@ public interface CustomerDao {
      * @param id the customer id to retrieve
      * @return Customer object representing the bank customer
      */
-    Customer getCustomer(int id);
+    Customer getCustomer(long id);
 
     /**
      * Retrieve a specific bank customer by username and password
@@ -42,7 +42,7 @@ public interface CustomerDao {
      * @param customer the customer information to store
      * @return generated customer id
      */
-    int createCustomer(Customer customer);
+    long createCustomer(Customer customer);
 
     /**
      * Update stored information for a given customer
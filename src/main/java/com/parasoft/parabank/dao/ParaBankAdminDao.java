@@ -0,0 +1,42 @@
+package com.parasoft.parabank.dao;
+
+import java.util.Map;
+
+import com.parasoft.parabank.dao.internal.StorageReport;
+
+/**
+ * Maintenance of the ParaBank database beyond what every data source supports: versioned parameters and the storage
+ * profile of the tables
+ */
+public interface ParaBankAdminDao extends AdminDao {
+
+    /**
+     * Sets the values of several configuration parameters in a single round trip
+     *
+     * @param parameters the parameter values keyed by name
+     * @return the parameter version after the save
+     */
+    long setParameters(Map<String, String> parameters);
+
+    /**
+     * Gets the parameter version, which changes whenever a parameter is saved
+     *
+     * @return the current parameter version
+     */
+    long getParameterVersion();
+
+    /**
+     * Gets how the tables are stored and how much of them is held in memory
+     *
+     * @return the storage report, null if no storage profiles are configured
+     */
+    StorageReport getStorageReport();
+
+    /**
+     * Sets the storage profile of the large tables and converts them right away
+     *
+     * @param profile MEMORY to keep all rows in memory, CACHED to keep them on disk
+     * @throws UnsupportedOperationException if no storage profiles are configured
+     */
+    void setStorageProfile(String profile);
+}
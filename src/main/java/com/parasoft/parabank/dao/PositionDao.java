@@ -4,6 +4,8 @@ import java.util.Date;
 import java.util.List;
 
 import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Position;
 
 /**
@@ -17,7 +19,7 @@ public interface PositionDao {
      * @param positionId the position id to retrieve
      * @return position object representing the position
      */
-    Position getPosition(int positionId);
+    Position getPosition(long positionId);
 
     /**
      * Retrieve all positions for a given customer
@@ -25,7 +27,7 @@ public interface PositionDao {
      * @param customerId the customer id to lookup
      * @return list of positions belonging to the given customer
      */
-    List<Position> getPositionsForCustomerId(int customerId);
+    List<Position> getPositionsForCustomerId(long customerId);
 
     /**
      * Return position history for a given position id
@@ -36,7 +38,30 @@ public interface PositionDao {
      * @param endDate the end date in the date range
      * @return a list of history points
      */
-    List<HistoryPoint> getPositionHistory(int positionId, Date startDate, Date endDate);
+    List<HistoryPoint> getPositionHistory(long positionId, Date startDate, Date endDate);
+
+    /**
+     * Return position history for a given position id and date range at the finest resolution, not finer than the
+     * requested one, that fits into a point budget
+     *
+     * @param positionId the position id
+     * @param startDate the start date in the date range
+     * @param endDate the end date in the date range
+     * @param resolution the finest resolution to return, null for daily prices
+     * @param maxPoints the number of points to return at most unless even the monthly history is longer, null for
+     *            no limit
+     * @return a list of history points, weekly and monthly points hold the opening, high, low and closing price
+     */
+    List<HistoryPoint> getPositionHistory(long positionId, Date startDate, Date endDate, Resolution resolution,
+        Integer maxPoints);
+
+    /**
+     * Value all positions of a given customer at the latest closing price of their symbols
+     *
+     * @param customerId the customer id to lookup
+     * @return cost basis, market value and unrealized gain per position and in total
+     */
+    PortfolioValuation getPortfolioValuation(long customerId);
 
     /**
      * Add a new position to the data source
@@ -46,7 +71,7 @@ public interface PositionDao {
      * @param position the position information to store
      * @return generated position id
      */
-    int createPosition(Position position);
+    long createPosition(Position position);
 
     /**
      * Update stored information for a given position
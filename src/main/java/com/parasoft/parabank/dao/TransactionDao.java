@@ -1,6 +1,8 @@
 package com.parasoft.parabank.dao;
 
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.domain.TransactionCriteria;
@@ -16,7 +18,7 @@ public interface TransactionDao {
      * @param id the transaction id to retrieve
      * @return Transaction object representing the account transaction
      */
-    Transaction getTransaction(int id);
+    Transaction getTransaction(long id);
 
     /**
      * Retrieve all transactions for a given account
@@ -24,7 +26,7 @@ public interface TransactionDao {
      * @param accountId the account id to lookup
      * @return list of transactions for the given account
      */
-    List<Transaction> getTransactionsForAccount(int accountId);
+    List<Transaction> getTransactionsForAccount(long accountId);
 
     /**
      * Retrieve transactions for a given account matching given criteria
@@ -33,7 +35,35 @@ public interface TransactionDao {
      * @param criteria set of criteria that the retrieved transactions must adhere to
      * @return list of matching transactions for the given account
      */
-    List<Transaction> getTransactionsForAccount(int accountId, TransactionCriteria criteria);
+    List<Transaction> getTransactionsForAccount(long accountId, TransactionCriteria criteria);
+
+    /**
+     * Retrieve one page of transactions for a given account in chronological order
+     *
+     * Pages are keyed on (date, id), so the cost of a page does not depend on how many transactions precede it.
+     *
+     * @param accountId the account id to lookup
+     * @param criteria set of criteria that the retrieved transactions must adhere to, or null for all transactions
+     * @param cursor id of the last transaction of the previous page, or null for the first page
+     * @param limit maximum number of transactions to return
+     * @return list of at most limit matching transactions following the cursor
+     */
+    List<Transaction> getTransactionsForAccount(long accountId, TransactionCriteria criteria, Long cursor,
+        int limit);
+
+    /**
+     * Pass every transaction of the given accounts to a consumer as it is read, without building a list
+     *
+     * Transactions are passed in account, date and id order. The consumer must not keep references to them if memory
+     * use is to stay independent of the number of transactions.
+     *
+     * @param accountIds the accounts to export
+     * @param fromDate earliest transaction date to export, or null for no lower bound
+     * @param toDate latest transaction date to export, or null for no upper bound
+     * @param consumer receives each transaction in turn
+     * @return number of transactions passed to the consumer
+     */
+    int exportTransactions(List<Long> accountIds, Date fromDate, Date toDate, Consumer<Transaction> consumer);
 
     /**
      * Add a new transaction to the data source
@@ -43,5 +73,14 @@ public interface TransactionDao {
      * @param transaction the transaction information to store
      * @return generated transaction id
      */
-    int createTransaction(Transaction transaction);
+    long createTransaction(Transaction transaction);
+
+    /**
+     * Add several new transactions to the data source in a single batch
+     *
+     * Note that the transaction ids will be automatically generated and set on the given transactions
+     *
+     * @param transactions the transactions to store
+     */
+    void createTransactions(List<Transaction> transactions);
 }
@@ -0,0 +1,123 @@
+package com.parasoft.parabank.dao.cache;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.parasoft.parabank.dao.AccountDao;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.BalanceSummary;
+
+/**
+ * AccountDao that answers lookups by id from an {@link EntityCache} and invalidates every account it changes
+ */
+public class CachingAccountDao implements AccountDao {
+    private final AccountDao accountDao;
+
+    private final EntityCache<Account> cache;
+
+    public CachingAccountDao(final AccountDao accountDao, final EntityCaches caches) {
+        this.accountDao = accountDao;
+        cache = caches.createCache("account", Account.class, CachingAccountDao::copy);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#adjustBalance(long, java.math.BigDecimal)
+     */
+    @Override
+    public BigDecimal adjustBalance(final long id, final BigDecimal amount) {
+        cache.invalidate(id);
+        return accountDao.adjustBalance(id, amount);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#adjustBalances(java.util.Map)
+     */
+    @Override
+    public void adjustBalances(final Map<Long, BigDecimal> amounts) {
+        amounts.keySet().forEach(cache::invalidate);
+        accountDao.adjustBalances(amounts);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#createAccount(com.parasoft.parabank.domain.Account)
+     */
+    @Override
+    public long createAccount(final Account account) {
+        final long id = accountDao.createAccount(account);
+        cache.invalidate(id);
+        return id;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccount(long)
+     */
+    @Override
+    public Account getAccount(final long id) {
+        return cache.get(id, accountDao::getAccount);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccounts(java.util.Collection)
+     */
+    @Override
+    public List<Account> getAccounts(final Collection<Long> ids) {
+        return accountDao.getAccounts(ids);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccountsForCustomerId(long)
+     */
+    @Override
+    public List<Account> getAccountsForCustomerId(final long customerId) {
+        return accountDao.getAccountsForCustomerId(customerId);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getBalanceSummary(long)
+     */
+    @Override
+    public BalanceSummary getBalanceSummary(final long customerId) {
+        return accountDao.getBalanceSummary(customerId);
+    }
+
+    public EntityCache<Account> getCache() {
+        return cache;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#updateAccount(com.parasoft.parabank.domain.Account)
+     */
+    @Override
+    public void updateAccount(final Account account) {
+        cache.invalidate(account.getId());
+        accountDao.updateAccount(account);
+    }
+
+    private static Account copy(final Account account) {
+        final Account copy = new Account();
+        copy.setId(account.getId());
+        copy.setCustomerId(account.getCustomerId());
+        copy.setType(account.getType());
+        copy.setBalance(account.getBalance());
+        copy.setVersion(account.getVersion());
+        return copy;
+    }
+}
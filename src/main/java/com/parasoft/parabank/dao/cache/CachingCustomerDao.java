@@ -0,0 +1,139 @@
+package com.parasoft.parabank.dao.cache;
+
+import org.springframework.dao.DataAccessException;
+
+import com.parasoft.parabank.dao.CustomerDao;
+import com.parasoft.parabank.domain.Address;
+import com.parasoft.parabank.domain.Customer;
+import com.parasoft.parabank.util.Util;
+
+/**
+ * CustomerDao that answers lookups by id from an {@link EntityCache} and invalidates every customer it changes
+ *
+ * Lookups by credentials are answered from a {@link CredentialCache} holding the id of the matching customer, which
+ * is then read through the id cache. A cached id is only trusted if the customer still has the presented username and
+ * password. Lookups by SSN are not cached and always go to the wrapped DAO.
+ */
+public class CachingCustomerDao implements CustomerDao {
+    private final CustomerDao customerDao;
+
+    private final EntityCache<Customer> cache;
+
+    private final CredentialCache credentials;
+
+    public CachingCustomerDao(final CustomerDao customerDao, final EntityCaches caches) {
+        this.customerDao = customerDao;
+        cache = caches.createCache("customer", Customer.class, CachingCustomerDao::copy);
+        credentials = caches.createCredentialCache("credentials");
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#createCustomer(com.parasoft.parabank.domain.Customer)
+     */
+    @Override
+    public long createCustomer(final Customer customer) {
+        final long id = customerDao.createCustomer(customer);
+        cache.invalidate(id);
+        credentials.invalidate(id);
+        return id;
+    }
+
+    public EntityCache<Customer> getCache() {
+        return cache;
+    }
+
+    public CredentialCache getCredentialCache() {
+        return credentials;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(long)
+     */
+    @Override
+    public Customer getCustomer(final long id) {
+        return cache.get(id, customerDao::getCustomer);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(java.lang.String)
+     */
+    @Override
+    public Customer getCustomer(final String ssn) {
+        return customerDao.getCustomer(ssn);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(java.lang.String, java.lang.String)
+     */
+    @Override
+    public Customer getCustomer(final String username, final String password) {
+        final String key = credentials.key(username, password);
+        final Long id = credentials.lookup(key);
+        if (id != null) {
+            if (id < 0) {
+                return null;
+            }
+            final Customer customer = getCachedCustomer(id);
+            if (customer != null && Util.equals(customer.getUsername(), username)
+                && Util.equals(customer.getPassword(), password)) {
+                return customer;
+            }
+            credentials.remove(key);
+        }
+        final long checkGeneration = credentials.getGeneration();
+        final Customer customer = customerDao.getCustomer(username, password);
+        credentials.put(key, customer != null ? customer.getId() : null, checkGeneration);
+        return customer;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#updateCustomer(com.parasoft.parabank.domain.Customer)
+     */
+    @Override
+    public void updateCustomer(final Customer customer) {
+        cache.invalidate(customer.getId());
+        credentials.invalidate(customer.getId());
+        customerDao.updateCustomer(customer);
+    }
+
+    /**
+     * @return the customer with the given id, or null if it no longer exists
+     */
+    private Customer getCachedCustomer(final long id) {
+        try {
+            return getCustomer(id);
+        } catch (final DataAccessException e) {
+            return null;
+        }
+    }
+
+    private static Customer copy(final Customer customer) {
+        final Customer copy = new Customer();
+        copy.setId(customer.getId());
+        copy.setFirstName(customer.getFirstName());
+        copy.setLastName(customer.getLastName());
+        if (customer.getAddress() != null) {
+            final Address address = new Address();
+            address.setStreet(customer.getAddress().getStreet());
+            address.setCity(customer.getAddress().getCity());
+            address.setState(customer.getAddress().getState());
+            address.setZipCode(customer.getAddress().getZipCode());
+            copy.setAddress(address);
+        }
+        copy.setPhoneNumber(customer.getPhoneNumber());
+        copy.setSsn(customer.getSsn());
+        copy.setUsername(customer.getUsername());
+        copy.setPassword(customer.getPassword());
+        return copy;
+    }
+}
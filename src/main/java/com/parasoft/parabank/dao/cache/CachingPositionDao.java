@@ -0,0 +1,170 @@
+package com.parasoft.parabank.dao.cache;
+
+import java.util.Date;
+import java.util.List;
+
+import com.parasoft.parabank.dao.PositionDao;
+import com.parasoft.parabank.dao.jdbc.StockPriceStore;
+import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
+import com.parasoft.parabank.domain.PortfolioValuation;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.PositionValuation;
+
+/**
+ * PositionDao that answers lookups by id from an {@link EntityCache} and invalidates every position it changes
+ *
+ * Portfolio valuations are cached per customer until a position of the customer changes or, if a
+ * {@link StockPriceStore} is set, until its prices change.
+ */
+public class CachingPositionDao implements PositionDao {
+    private final PositionDao positionDao;
+
+    private final EntityCache<Position> cache;
+
+    private final EntityCache<PortfolioValuation> valuations;
+
+    public CachingPositionDao(final PositionDao positionDao, final EntityCaches caches) {
+        this.positionDao = positionDao;
+        cache = caches.createCache("position", Position.class, CachingPositionDao::copy);
+        valuations = caches.createCache("portfolio", PortfolioValuation.class, CachingPositionDao::copy);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#createPosition(com.parasoft.parabank.domain.Position)
+     */
+    @Override
+    public long createPosition(final Position position) {
+        final long id = positionDao.createPosition(position);
+        cache.invalidate(id);
+        valuations.invalidate(position.getCustomerId());
+        return id;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#deletePosition(com.parasoft.parabank.domain.Position)
+     */
+    @Override
+    public boolean deletePosition(final Position position) {
+        cache.invalidate(position.getPositionId());
+        valuations.invalidate(position.getCustomerId());
+        return positionDao.deletePosition(position);
+    }
+
+    public EntityCache<Position> getCache() {
+        return cache;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPortfolioValuation(long)
+     */
+    @Override
+    public PortfolioValuation getPortfolioValuation(final long customerId) {
+        return valuations.get(customerId, positionDao::getPortfolioValuation);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPosition(long)
+     */
+    @Override
+    public Position getPosition(final long positionId) {
+        return cache.get(positionId, positionDao::getPosition);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionHistory(long, java.util.Date, java.util.Date)
+     */
+    @Override
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate) {
+        return positionDao.getPositionHistory(positionId, startDate, endDate);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionHistory(long, java.util.Date, java.util.Date,
+     * com.parasoft.parabank.domain.HistoryPoint.Resolution, java.lang.Integer)
+     */
+    @Override
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate,
+        final Resolution resolution, final Integer maxPoints) {
+        return positionDao.getPositionHistory(positionId, startDate, endDate, resolution, maxPoints);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionsForCustomerId(long)
+     */
+    @Override
+    public List<Position> getPositionsForCustomerId(final long customerId) {
+        return positionDao.getPositionsForCustomerId(customerId);
+    }
+
+    public EntityCache<PortfolioValuation> getValuationCache() {
+        return valuations;
+    }
+
+    /**
+     * @param stockPriceStore
+     *            the store whose price changes discard all cached valuations
+     */
+    public void setStockPriceStore(final StockPriceStore stockPriceStore) {
+        stockPriceStore.addChangeListener(valuations::clear);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#updatePosition(com.parasoft.parabank.domain.Position)
+     */
+    @Override
+    public boolean updatePosition(final Position position) {
+        cache.invalidate(position.getPositionId());
+        valuations.invalidate(position.getCustomerId());
+        return positionDao.updatePosition(position);
+    }
+
+    private static Position copy(final Position position) {
+        final Position copy = new Position();
+        copy.setPositionId(position.getPositionId());
+        copy.setCustomerId(position.getCustomerId());
+        copy.setName(position.getName());
+        copy.setSymbol(position.getSymbol());
+        copy.setShares(position.getShares());
+        copy.setPurchasePrice(position.getPurchasePrice());
+        return copy;
+    }
+
+    private static PortfolioValuation copy(final PortfolioValuation valuation) {
+        final PortfolioValuation copy = new PortfolioValuation();
+        copy.setCustomerId(valuation.getCustomerId());
+        copy.setCostBasis(valuation.getCostBasis());
+        copy.setMarketValue(valuation.getMarketValue());
+        copy.setUnrealizedGain(valuation.getUnrealizedGain());
+        for (final PositionValuation position : valuation.getPositions()) {
+            final PositionValuation positionCopy = new PositionValuation();
+            positionCopy.setPositionId(position.getPositionId());
+            positionCopy.setSymbol(position.getSymbol());
+            positionCopy.setShares(position.getShares());
+            positionCopy.setPurchasePrice(position.getPurchasePrice());
+            positionCopy.setLatestPrice(position.getLatestPrice());
+            positionCopy.setPriceDate(position.getPriceDate() == null ? null : (Date) position.getPriceDate().clone());
+            positionCopy.setCostBasis(position.getCostBasis());
+            positionCopy.setMarketValue(position.getMarketValue());
+            positionCopy.setUnrealizedGain(position.getUnrealizedGain());
+            copy.getPositions().add(positionCopy);
+        }
+        return copy;
+    }
+}
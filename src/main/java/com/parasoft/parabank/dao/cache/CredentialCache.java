@@ -0,0 +1,196 @@
+package com.parasoft.parabank.dao.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ehcache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers the outcome of recent credential checks
+ *
+ * Entries are keyed by a salted SHA-256 hash of username and password, so neither is kept in memory. Accepted
+ * credentials map to the customer id. Rejected credentials are remembered as well, usually for a shorter time, so
+ * repeated failing attempts are answered without a query.
+ *
+ * A change of a customer removes its accepted credentials and forgets every rejection, since the change may make
+ * rejected credentials valid. Inside a Spring managed transaction the removal is repeated when the transaction
+ * completes, so a check racing with the change cannot leave stale credentials behind.
+ */
+public class CredentialCache {
+    private static final String DIGEST = "SHA-256";
+
+    private final Cache<String, Long> accepted;
+
+    private final Cache<String, Boolean> rejected;
+
+    private final byte[] salt = new byte[16];
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * Bumped on every invalidation so a check that raced with a change is not remembered
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    CredentialCache(final Cache<String, Long> accepted, final Cache<String, Boolean> rejected) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * Remove every entry
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        accepted.clear();
+        rejected.clear();
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #put(String, Long, long)} after the check
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @return the number of checks answered from the cache, accepted or rejected
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of checks that had to go to the data source
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of checks answered from the cache with a rejection
+     */
+    public long getRejectionCount() {
+        return rejections.get();
+    }
+
+    /**
+     * Remove the accepted credentials of a customer and forget every rejection
+     *
+     * @param customerId
+     *            the changed customer
+     */
+    public void invalidate(final long customerId) {
+        evict(customerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    evict(customerId);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param username
+     *            the presented username
+     * @param password
+     *            the presented password
+     * @return the cache key of the credentials
+     */
+    public String key(final String username, final String password) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(DIGEST);
+            digest.update(salt);
+            digest.update(String.valueOf(username).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST + " is not available", e);
+        }
+    }
+
+    /**
+     * @param key
+     *            the cache key of the credentials
+     * @return the customer id if the credentials were accepted, -1 if they were rejected, null if they are unknown
+     */
+    public Long lookup(final String key) {
+        final Long customerId = accepted.get(key);
+        if (customerId != null) {
+            hits.incrementAndGet();
+            return customerId;
+        }
+        if (rejected.get(key) != null) {
+            hits.incrementAndGet();
+            rejections.incrementAndGet();
+            return -1L;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Remember the outcome of a check, unless a customer changed since it started
+     *
+     * @param key
+     *            the cache key of the credentials
+     * @param customerId
+     *            the id of the customer the credentials belong to, null if they were rejected
+     * @param checkGeneration
+     *            the {@link #getGeneration() generation} before the check
+     */
+    public void put(final String key, final Long customerId, final long checkGeneration) {
+        if (generation.get() != checkGeneration) {
+            return;
+        }
+        if (customerId != null) {
+            accepted.put(key, customerId);
+        } else {
+            rejected.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Remove the accepted credentials of a single entry, e.g. when the customer it points to no longer matches
+     *
+     * @param key
+     *            the cache key of the credentials
+     */
+    public void remove(final String key) {
+        generation.incrementAndGet();
+        accepted.remove(key);
+    }
+
+    @Override
+    public String toString() {
+        return "CredentialCache [hits=" + hits + ", misses=" + misses + ", rejections=" + rejections + "]";
+    }
+
+    private void evict(final long customerId) {
+        generation.incrementAndGet();
+        final Set<String> keys = new HashSet<>();
+        for (final Cache.Entry<String, Long> entry : accepted) {
+            if (entry.getValue() == customerId) {
+                keys.add(entry.getKey());
+            }
+        }
+        accepted.removeAll(keys);
+        rejected.clear();
+    }
+}
@@ -0,0 +1,188 @@
+package com.parasoft.parabank.dao.cache;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.function.UnaryOperator;
+
+import org.ehcache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through cache of one kind of entity keyed by its long id
+ *
+ * Callers always get their own copy of a cached entity, so changing a returned object never changes the cache.
+ *
+ * Inside a Spring managed transaction an invalidated id is not cached again until the transaction completes, reads of
+ * it go straight to the data source so the transaction sees its own changes, and the id is invalidated once more
+ * after completion. Entities loaded by a transaction that rolls back are invalidated as well.
+ */
+public class EntityCache<V> {
+    /**
+     * The ids a transaction invalidated and loaded
+     */
+    private final class TransactionState implements TransactionSynchronization {
+        private final Set<Long> invalidated = new HashSet<>();
+
+        private final Set<Long> loaded = new HashSet<>();
+
+        private boolean invalidatedAll;
+
+        @Override
+        public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EntityCache.this);
+            if (invalidatedAll) {
+                clear();
+                return;
+            }
+            invalidated.forEach(EntityCache.this::evict);
+            if (status != STATUS_COMMITTED) {
+                loaded.forEach(EntityCache.this::evict);
+            }
+        }
+    }
+
+    private final String name;
+
+    private final Cache<Long, V> cache;
+
+    private final UnaryOperator<V> copier;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Bumped on every eviction so a load that raced with an invalidation is not cached
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    EntityCache(final String name, final Cache<Long, V> cache, final UnaryOperator<V> copier) {
+        this.name = name;
+        this.cache = cache;
+        this.copier = copier;
+    }
+
+    /**
+     * Remove every entity from the cache
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Return a copy of the cached entity, loading and caching it on a miss
+     *
+     * @param id
+     *            the entity id
+     * @param loader
+     *            loads the entity from the data source
+     * @return the entity as returned by the loader
+     */
+    public V get(final long id, final LongFunction<V> loader) {
+        final TransactionState state = getTransactionState();
+        if (state != null && (state.invalidatedAll || state.invalidated.contains(id))) {
+            misses.incrementAndGet();
+            return loader.apply(id);
+        }
+        final V cached = cache.get(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return copier.apply(cached);
+        }
+        misses.incrementAndGet();
+        final long loadGeneration = generation.get();
+        final V loaded = loader.apply(id);
+        if (loaded != null && generation.get() == loadGeneration) {
+            cache.put(id, copier.apply(loaded));
+            if (state != null) {
+                state.loaded.add(id);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * @return the number of reads answered from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of invalidated ids
+     */
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return the number of reads that went to the data source
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Invalidate an entity that is about to change or has just changed
+     *
+     * @param id
+     *            the entity id
+     */
+    public void invalidate(final long id) {
+        invalidations.incrementAndGet();
+        evict(id);
+        final TransactionState state = getTransactionState();
+        if (state != null) {
+            state.invalidated.add(id);
+        }
+    }
+
+    /**
+     * Invalidate every entity, for changes that cannot be traced to single ids
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        clear();
+        final TransactionState state = getTransactionState();
+        if (state != null) {
+            state.invalidatedAll = true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCache [name=" + name + ", hits=" + hits + ", misses=" + misses + ", invalidations="
+            + invalidations + "]";
+    }
+
+    private void evict(final long id) {
+        generation.incrementAndGet();
+        cache.remove(id);
+    }
+
+    /**
+     * @return the state of the current transaction, or null outside a transaction
+     */
+    private TransactionState getTransactionState() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        TransactionState state = (TransactionState) TransactionSynchronizationManager.getResource(this);
+        if (state == null) {
+            state = new TransactionState();
+            TransactionSynchronizationManager.bindResource(this, state);
+            TransactionSynchronizationManager.registerSynchronization(state);
+        }
+        return state;
+    }
+}
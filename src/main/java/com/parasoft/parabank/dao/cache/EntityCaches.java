@@ -0,0 +1,150 @@
+package com.parasoft.parabank.dao.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.ehcache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Creates and owns the entity caches of the caching DAOs
+ *
+ * Every cache is a heap-only ehcache bounded by {@link #setMaxEntries(long)} whose entries expire
+ * {@link #setTimeToLive(long)} seconds after they were loaded, so a change made behind the DAOs' back is visible after
+ * at most that long. Rejected credentials expire after the usually shorter {@link #setRejectedTimeToLive(long)}.
+ */
+public class EntityCaches implements DisposableBean {
+    public static final long DEFAULT_MAX_ENTRIES = 10000;
+
+    public static final long DEFAULT_TIME_TO_LIVE = 300;
+
+    public static final long DEFAULT_REJECTED_TIME_TO_LIVE = 30;
+
+    private static final Logger log = LoggerFactory.getLogger(EntityCaches.class);
+
+    private final CacheManager cacheManager = CacheManagerBuilder.newCacheManagerBuilder().build(true);
+
+    private final Map<String, EntityCache<?>> caches = new ConcurrentHashMap<>();
+
+    private long maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+    private long rejectedTimeToLive = DEFAULT_REJECTED_TIME_TO_LIVE;
+
+    private final Map<String, CredentialCache> credentialCaches = new ConcurrentHashMap<>();
+
+    /**
+     * Remove every entity from every cache, e.g. after the database was reset
+     */
+    public void clear() {
+        for (final EntityCache<?> cache : caches.values()) {
+            cache.clear();
+            log.info("Cleared {}", cache);
+        }
+        for (final CredentialCache cache : credentialCaches.values()) {
+            cache.clear();
+            log.info("Cleared {}", cache);
+        }
+    }
+
+    /**
+     * Create a cache
+     *
+     * @param name
+     *            the unique cache name
+     * @param type
+     *            the entity type
+     * @param copier
+     *            creates an independent copy of an entity
+     * @return the cache
+     */
+    public <V> EntityCache<V> createCache(final String name, final Class<V> type, final UnaryOperator<V> copier) {
+        final EntityCache<V> cache =
+            new EntityCache<>(name, cacheManager.createCache(name, heap(Long.class, type, timeToLive)), copier);
+        caches.put(name, cache);
+        return cache;
+    }
+
+    /**
+     * Create a cache of credential checks, holding at most {@link #setMaxEntries(long)} accepted and as many rejected
+     * credentials
+     *
+     * @param name
+     *            the unique cache name
+     * @return the cache
+     */
+    public CredentialCache createCredentialCache(final String name) {
+        final CredentialCache cache = new CredentialCache(
+            cacheManager.createCache(name, heap(String.class, Long.class, timeToLive)),
+            cacheManager.createCache(name + ".rejected", heap(String.class, Boolean.class, rejectedTimeToLive)));
+        credentialCaches.put(name, cache);
+        return cache;
+    }
+
+    @Override
+    public void destroy() {
+        for (final EntityCache<?> cache : caches.values()) {
+            log.info("Closing {}", cache);
+        }
+        for (final CredentialCache cache : credentialCaches.values()) {
+            log.info("Closing {}", cache);
+        }
+        cacheManager.close();
+    }
+
+    /**
+     * @return the caches created so far, for their hit and miss statistics
+     */
+    public Collection<EntityCache<?>> getCaches() {
+        return Collections.unmodifiableCollection(caches.values());
+    }
+
+    /**
+     * @return the credential caches created so far, for their hit and miss statistics
+     */
+    public Collection<CredentialCache> getCredentialCaches() {
+        return Collections.unmodifiableCollection(credentialCaches.values());
+    }
+
+    /**
+     * @param maxEntries
+     *            the number of entities each cache holds at most, applies to caches created afterwards
+     */
+    public void setMaxEntries(final long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param rejectedTimeToLive
+     *            seconds rejected credentials are remembered, applies to caches created afterwards
+     */
+    public void setRejectedTimeToLive(final long rejectedTimeToLive) {
+        this.rejectedTimeToLive = rejectedTimeToLive;
+    }
+
+    /**
+     * @param timeToLive
+     *            seconds a cached entity stays valid, applies to caches created afterwards
+     */
+    public void setTimeToLive(final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    private <K, V> CacheConfigurationBuilder<K, V> heap(final Class<K> keyType, final Class<V> valueType,
+        final long seconds) {
+        return CacheConfigurationBuilder
+            .newCacheConfigurationBuilder(keyType, valueType, ResourcePoolsBuilder.heap(maxEntries))
+            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(seconds)));
+    }
+}
@@ -0,0 +1,157 @@
+package com.parasoft.parabank.dao.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How the tables of the database are stored and how much of them is held in the heap
+ *
+ * Every row of a MEMORY table lives in the heap, while rows of CACHED tables live in the data file and at most the
+ * configured number of cache rows are held in the heap at any time.
+ */
+public class StorageReport {
+    /**
+     * Storage type and size of a single table
+     */
+    public static class TableUsage {
+        private final String table;
+
+        private final String type;
+
+        private final long rows;
+
+        public TableUsage(final String table, final String type, final long rows) {
+            this.table = table;
+            this.type = type;
+            this.rows = rows;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * @return MEMORY, CACHED or TEXT
+         */
+        public String getType() {
+            return type;
+        }
+
+        public boolean isCached() {
+            return "CACHED".equals(type);
+        }
+
+        @Override
+        public String toString() {
+            return table + " [" + type + ", rows=" + rows + "]";
+        }
+    }
+
+    private final String profile;
+
+    private final List<TableUsage> tables;
+
+    private final Map<String, String> settings;
+
+    private final long cacheRows;
+
+    private final long heapUsed;
+
+    private final long heapMax;
+
+    public StorageReport(final String profile, final List<TableUsage> tables, final Map<String, String> settings,
+        final long cacheRows) {
+        this.profile = profile;
+        this.tables = Collections.unmodifiableList(tables);
+        this.settings = Collections.unmodifiableMap(settings);
+        this.cacheRows = cacheRows;
+        final Runtime runtime = Runtime.getRuntime();
+        heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        heapMax = runtime.maxMemory();
+    }
+
+    /**
+     * @return the number of rows of CACHED tables that may be held in the heap at the same time
+     */
+    public long getCacheRows() {
+        return cacheRows;
+    }
+
+    /**
+     * @return the number of rows of all CACHED tables
+     */
+    public long getCachedRows() {
+        long rows = 0;
+        for (final TableUsage table : tables) {
+            if (table.isCached()) {
+                rows += table.getRows();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return the maximum heap of the JVM in bytes
+     */
+    public long getHeapMax() {
+        return heapMax;
+    }
+
+    /**
+     * @return the number of rows that may be held in the heap: every row of a MEMORY table and at most
+     *         {@link #getCacheRows()} rows of the CACHED tables
+     */
+    public long getHeapRows() {
+        return getRows() - getCachedRows() + Math.min(getCachedRows(), cacheRows);
+    }
+
+    /**
+     * @return the heap in use when the report was created in bytes
+     */
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    /**
+     * @return the storage profile of the large tables, MEMORY or CACHED
+     */
+    public String getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return the number of rows of all tables
+     */
+    public long getRows() {
+        long rows = 0;
+        for (final TableUsage table : tables) {
+            rows += table.getRows();
+        }
+        return rows;
+    }
+
+    /**
+     * @return the storage related database settings keyed by name
+     */
+    public Map<String, String> getSettings() {
+        return settings;
+    }
+
+    /**
+     * @return every table of the database
+     */
+    public List<TableUsage> getTables() {
+        return tables;
+    }
+
+    @Override
+    public String toString() {
+        return "StorageReport [profile=" + profile + ", rows=" + getRows() + ", heapRows=" + getHeapRows()
+            + ", tables=" + tables + "]";
+    }
+}
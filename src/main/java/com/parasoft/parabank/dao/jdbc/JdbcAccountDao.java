@@ -1,35 +1,86 @@
 package com.parasoft.parabank.dao.jdbc;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcDaoSupport;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.parasoft.parabank.dao.AccountDao;
 import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Account.AccountType;
+import com.parasoft.parabank.domain.BalanceSummary;
 
 /*
  * JDBC implementation of AccountDao
+ *
+ * Inside a transaction the Customer_Balance rows are written once, right before the commit, and in customer id order.
+ * Two transactions that change accounts of the same customers therefore lock the summary rows in the same order,
+ * however their balance changes were interleaved.
  */
 public class JdbcAccountDao extends NamedParameterJdbcDaoSupport implements AccountDao {
+    /**
+     * Summary changes of the current transaction, written before it commits
+     */
+    private static class PendingSummaries {
+        /** amounts added to the balances, keyed by account id */
+        private final Map<Long, BigDecimal> amounts = new LinkedHashMap<>();
+
+        /** customers whose summary is computed again from their accounts */
+        private final Set<Long> refreshed = new HashSet<>();
+
+        boolean isEmpty() {
+            return amounts.isEmpty() && refreshed.isEmpty();
+        }
+    }
+
     private static class AccountMapper implements RowMapper<Account> {
         @Override
         public Account mapRow(final ResultSet rs, final int rowNum) throws SQLException {
             final Account account = new Account();
-            account.setId(rs.getInt("id"));
-            account.setCustomerId(rs.getInt("customer_id"));
+            account.setId(rs.getLong("id"));
+            account.setCustomerId(rs.getLong("customer_id"));
             account.setIntType(rs.getInt("type"));
             final BigDecimal balance = rs.getBigDecimal("balance");
             account.setBalance(balance == null ? null : balance.setScale(2));
+            account.setVersion(rs.getInt("version"));
             return account;
         }
     }
+
+    private static class BalanceSummaryMapper implements RowMapper<BalanceSummary> {
+        @Override
+        public BalanceSummary mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+            final BalanceSummary summary = new BalanceSummary();
+            summary.setCustomerId(rs.getLong("customer_id"));
+            summary.setTotalBalance(rs.getBigDecimal("total_balance").setScale(2));
+            summary.setAvailableBalance(rs.getBigDecimal("available_balance").setScale(2));
+            summary.setAvailableFunds(rs.getBigDecimal("available_funds").setScale(2));
+            summary.setAccountCount(rs.getInt("account_count"));
+            return summary;
+        }
+    }
     // private NamedParameterJdbcTemplate namedJdbcTemplate;
     //
     // /**
@@ -59,6 +110,18 @@ public class JdbcAccountDao extends NamedParameterJdbcDaoSupport implements Acco
 
     private static final Logger log = LoggerFactory.getLogger(JdbcAccountDao.class);
 
+    /**
+     * Largest number of ids bound into a single IN list
+     */
+    private static final int MAX_IN_LIST = 1000;
+
+    /**
+     * The Customer_Balance columns computed from the Account rows of one customer
+     */
+    private static final String SUMMARY_AGGREGATES = "customer_id, COALESCE(SUM(balance), 0) AS total_balance,"
+        + " COALESCE(SUM(GREATEST(balance, 0)), 0) AS available_balance, COALESCE(SUM(CASE WHEN type = "
+        + AccountType.LOAN.ordinal() + " THEN 0 ELSE balance END), 0) AS available_funds, COUNT(*) AS account_count";
+
     private JdbcSequenceDao sequenceDao;
 
     // /** {@inheritDoc} */
@@ -78,17 +141,19 @@ public class JdbcAccountDao extends NamedParameterJdbcDaoSupport implements Acco
      * @see com.parasoft.parabank.dao.AccountDao#createAccount(com.parasoft.parabank. domain.Account)
      */
     @Override
-    public int createAccount(final Account account) {
+    public long createAccount(final Account account) {
         final String SQL =
             "INSERT INTO Account (id, customer_id, type, balance) VALUES (:id, :customerId, :intType, :balance)";
 
-        final int id = sequenceDao.getNextId("Account");
+        final long id = sequenceDao.getNextId("Account");
         account.setId(id);
+        account.setVersion(0);
         final BeanPropertySqlParameterSource source = new BeanPropertySqlParameterSource(account);
         getNamedParameterJdbcTemplate().update(SQL, source);
         // getJdbcTemplate().update(SQL, account.getId(),
         // account.getCustomerId(), account.getIntType(),
         // account.getBalance());
+        refreshBalanceSummaries(Collections.singleton(account.getCustomerId()));
         log.info("Created new account with id = " + id);
 
         return id;
@@ -97,11 +162,11 @@ public class JdbcAccountDao extends NamedParameterJdbcDaoSupport implements Acco
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.dao.AccountDao#getAccount(int)
+     * @see com.parasoft.parabank.dao.AccountDao#getAccount(long)
      */
     @Override
-    public Account getAccount(final int id) {
-        final String SQL = "SELECT id, customer_id, type, balance FROM Account WHERE id = ?";
+    public Account getAccount(final long id) {
+        final String SQL = "SELECT id, customer_id, type, balance, version FROM Account WHERE id = ?";
 
         log.info("Getting account object for id = " + id);
         final Account account = getJdbcTemplate().queryForObject(SQL, new AccountMapper(), id);
@@ -112,11 +177,11 @@ public class JdbcAccountDao extends NamedParameterJdbcDaoSupport implements Acco
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.dao.AccountDao#getAccountsForCustomerId(int)
+     * @see com.parasoft.parabank.dao.AccountDao#getAccountsForCustomerId(long)
      */
     @Override
-    public List<Account> getAccountsForCustomerId(final int customerId) {
-        final String SQL = "SELECT id, customer_id, type, balance FROM Account WHERE customer_id = ?";
+    public List<Account> getAccountsForCustomerId(final long customerId) {
+        final String SQL = "SELECT id, customer_id, type, balance, version FROM Account WHERE customer_id = ?";
 
         final List<Account> accounts = getJdbcTemplate().query(SQL, new AccountMapper(), customerId);
         log.info("Retrieved " + accounts.size() + " accounts for customerId = " + customerId);
@@ -124,6 +189,64 @@ public class JdbcAccountDao extends NamedParameterJdbcDaoSupport implements Acco
         return accounts;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccounts(java.util.Collection)
+     */
+    @Override
+    public List<Account> getAccounts(final Collection<Long> ids) {
+        final String SQL = "SELECT id, customer_id, type, balance, version FROM Account WHERE id IN (:ids)";
+
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<Long> idList = new ArrayList<>(ids);
+        final List<Account> accounts = new ArrayList<>(idList.size());
+        for (int from = 0; from < idList.size(); from += MAX_IN_LIST) {
+            final List<Long> chunk = idList.subList(from, Math.min(from + MAX_IN_LIST, idList.size()));
+            accounts.addAll(getNamedParameterJdbcTemplate().query(SQL, Collections.singletonMap("ids", chunk),
+                new AccountMapper()));
+        }
+        log.info("Retrieved " + accounts.size() + " of " + ids.size() + " requested accounts");
+
+        return accounts;
+    }
+
+    /**
+     * Falls back to aggregating the accounts if the customer has no Customer_Balance row yet, or if the current
+     * transaction has changes that are not in the summary rows yet
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getBalanceSummary(long)
+     */
+    @Override
+    public BalanceSummary getBalanceSummary(final long customerId) {
+        final String SQL = "SELECT customer_id, total_balance, available_balance, available_funds, account_count"
+            + " FROM Customer_Balance WHERE customer_id = ?";
+
+        final PendingSummaries pending = getPendingSummaries(false);
+        if (pending == null || pending.isEmpty()) {
+            final List<BalanceSummary> summaries =
+                getJdbcTemplate().query(SQL, new BalanceSummaryMapper(), customerId);
+            if (!summaries.isEmpty()) {
+                return summaries.get(0);
+            }
+            log.info("No balance summary stored for customerId = " + customerId + ", aggregating accounts");
+        }
+        final List<BalanceSummary> aggregated = getJdbcTemplate().query(
+            "SELECT " + SUMMARY_AGGREGATES + " FROM Account WHERE customer_id = ? GROUP BY customer_id",
+            new BalanceSummaryMapper(), customerId);
+        if (!aggregated.isEmpty()) {
+            return aggregated.get(0);
+        }
+        final BalanceSummary summary = new BalanceSummary();
+        summary.setCustomerId(customerId);
+        summary.setTotalBalance(BigDecimal.ZERO.setScale(2));
+        summary.setAvailableBalance(BigDecimal.ZERO.setScale(2));
+        summary.setAvailableFunds(BigDecimal.ZERO.setScale(2));
+        return summary;
+    }
+
     public void setSequenceDao(final JdbcSequenceDao sequenceDao) {
         this.sequenceDao = sequenceDao;
     }
@@ -135,14 +258,216 @@ public class JdbcAccountDao extends NamedParameterJdbcDaoSupport implements Acco
      */
     @Override
     public void updateAccount(final Account account) {
-        final String SQL =
-            "UPDATE Account SET customer_id = :customerId, type = :intType, balance = :balance WHERE id = :id";
+        final String SQL = "UPDATE Account SET customer_id = :customerId, type = :intType, balance = :balance,"
+            + " version = version + 1 WHERE id = :id AND version = :version";
 
         final BeanPropertySqlParameterSource source = new BeanPropertySqlParameterSource(account);
-        getNamedParameterJdbcTemplate().update(SQL, source);
+        // the account may move to another customer, whose previous owner's summary changes as well
+        final List<Long> owners = getJdbcTemplate().queryForList("SELECT customer_id FROM Account WHERE id = ?",
+            Long.class, account.getId());
+        if (getNamedParameterJdbcTemplate().update(SQL, source) < 1) {
+            throw new OptimisticLockingFailureException(
+                "Account with id = " + account.getId() + " was changed or removed since it was read");
+        }
+        account.setVersion(account.getVersion() + 1);
+        final Set<Long> customerIds = new HashSet<>(owners);
+        customerIds.add(account.getCustomerId());
+        refreshBalanceSummaries(customerIds);
         // getJdbcTemplate().update(SQL, account.getCustomerId(),
         // account.getIntType(), account.getBalance(),
         // account.getId());
         log.info("Updated information for account with id = " + account.getId());
     }
+
+    /**
+     * The new balance is returned as a generated column of the UPDATE itself, so the adjustment is a single
+     * statement and concurrent adjustments of the same account cannot lose each other's changes
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#adjustBalance(long, java.math.BigDecimal)
+     */
+    @Override
+    public BigDecimal adjustBalance(final long id, final BigDecimal amount) {
+        final String SQL = "UPDATE Account SET balance = balance + ?, version = version + 1 WHERE id = ?";
+
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        final int rows = getJdbcTemplate().update(con -> {
+            final PreparedStatement ps = con.prepareStatement(SQL, new String[] { "BALANCE" });
+            ps.setBigDecimal(1, amount);
+            ps.setLong(2, id);
+            return ps;
+        }, keyHolder);
+        if (rows < 1) {
+            throw new EmptyResultDataAccessException("No account with id = " + id, 1);
+        }
+        adjustBalanceSummaries(Collections.singletonMap(id, amount));
+        final BigDecimal balance = keyHolder.getKeyAs(BigDecimal.class);
+        log.info("Adjusted balance of account with id = " + id + " by " + amount);
+
+        return balance == null ? null : balance.setScale(2);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#adjustBalances(java.util.Map)
+     */
+    @Override
+    public void adjustBalances(final Map<Long, BigDecimal> amounts) {
+        final String SQL = "UPDATE Account SET balance = balance + ?, version = version + 1 WHERE id = ?";
+
+        final List<Object[]> batch = new ArrayList<>(amounts.size());
+        for (final Map.Entry<Long, BigDecimal> entry : amounts.entrySet()) {
+            batch.add(new Object[] { entry.getValue(), entry.getKey() });
+        }
+        final int[] rows = getJdbcTemplate().batchUpdate(SQL, batch);
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == 0) {
+                throw new EmptyResultDataAccessException("No account with id = " + batch.get(i)[1], 1);
+            }
+        }
+        adjustBalanceSummaries(amounts);
+        log.info("Adjusted balances of " + batch.size() + " accounts");
+    }
+
+    /**
+     * Apply balance changes that were just made to the Customer_Balance rows of the accounts' owners, right away or
+     * right before the current transaction commits
+     *
+     * @param amounts
+     *            the amounts added to the balances, keyed by account id
+     */
+    private void adjustBalanceSummaries(final Map<Long, BigDecimal> amounts) {
+        final PendingSummaries pending = getPendingSummaries(true);
+        if (pending == null) {
+            final PendingSummaries now = new PendingSummaries();
+            now.amounts.putAll(amounts);
+            writeSummaries(now);
+            return;
+        }
+        for (final Map.Entry<Long, BigDecimal> entry : amounts.entrySet()) {
+            pending.amounts.merge(entry.getKey(), entry.getValue(), BigDecimal::add);
+        }
+    }
+
+    /**
+     * Compute the Customer_Balance rows of customers again from their accounts, right away or right before the
+     * current transaction commits
+     */
+    private void refreshBalanceSummaries(final Set<Long> customerIds) {
+        final PendingSummaries pending = getPendingSummaries(true);
+        if (pending == null) {
+            final PendingSummaries now = new PendingSummaries();
+            now.refreshed.addAll(customerIds);
+            writeSummaries(now);
+            return;
+        }
+        pending.refreshed.addAll(customerIds);
+    }
+
+    /**
+     * @param create
+     *            whether to start collecting the changes of the current transaction
+     * @return the changes of the current transaction, null if there is none
+     */
+    private PendingSummaries getPendingSummaries(final boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingSummaries pending = (PendingSummaries) TransactionSynchronizationManager.getResource(this);
+        if (pending == null && create) {
+            final PendingSummaries created = new PendingSummaries();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(final boolean readOnly) {
+                    writeSummaries(created);
+                    created.amounts.clear();
+                    created.refreshed.clear();
+                }
+
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(JdbcAccountDao.this);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    /**
+     * Write summary changes customer by customer in customer id order
+     *
+     * The available balance delta is derived from the new balance, so this must run after the Account updates in the
+     * same transaction. A customer without a summary row gets one built from its accounts.
+     */
+    private void writeSummaries(final PendingSummaries pending) {
+        final String SQL = "UPDATE Customer_Balance SET total_balance = total_balance + ?,"
+            + " available_balance = available_balance"
+            + " + (SELECT GREATEST(balance, 0) - GREATEST(balance - ?, 0) FROM Account WHERE id = ?),"
+            + " available_funds = available_funds + (SELECT CASE WHEN type = " + AccountType.LOAN.ordinal()
+            + " THEN 0 ELSE CAST(? AS DECIMAL(19,4)) END FROM Account WHERE id = ?)"
+            + " WHERE customer_id = ?";
+
+        final Map<Long, Map<Long, BigDecimal>> byCustomer = new TreeMap<>();
+        for (final Long customerId : pending.refreshed) {
+            byCustomer.put(customerId, null);
+        }
+        if (!pending.amounts.isEmpty()) {
+            final List<Long> ids = new ArrayList<>(pending.amounts.keySet());
+            for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+                final List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+                getNamedParameterJdbcTemplate().query("SELECT id, customer_id FROM Account WHERE id IN (:ids)",
+                    Collections.singletonMap("ids", chunk), rs -> {
+                        final long customerId = rs.getLong("customer_id");
+                        if (!pending.refreshed.contains(customerId)) {
+                            byCustomer.computeIfAbsent(customerId, key -> new TreeMap<>())
+                                .put(rs.getLong("id"), pending.amounts.get(rs.getLong("id")));
+                        }
+                    });
+            }
+        }
+        for (final Map.Entry<Long, Map<Long, BigDecimal>> customer : byCustomer.entrySet()) {
+            final long customerId = customer.getKey();
+            if (customer.getValue() == null) {
+                refreshBalanceSummary(customerId);
+                continue;
+            }
+            final List<Object[]> batch = new ArrayList<>(customer.getValue().size());
+            for (final Map.Entry<Long, BigDecimal> entry : customer.getValue().entrySet()) {
+                final BigDecimal amount = entry.getValue();
+                batch.add(new Object[] { amount, amount, entry.getKey(), amount, entry.getKey(), customerId });
+            }
+            final int[] rows = getJdbcTemplate().batchUpdate(SQL, batch);
+            if (rows.length > 0 && rows[0] == 0) {
+                // no row to add to, built from the accounts which already carry the changes
+                refreshBalanceSummary(customerId);
+            }
+        }
+    }
+
+    /**
+     * Compute the Customer_Balance row of a customer from its accounts
+     *
+     * A transaction that finds no row inserts one; if another transaction inserted it first, the row is updated.
+     */
+    private void refreshBalanceSummary(final long customerId) {
+        final String SQL = "UPDATE Customer_Balance SET"
+            + " total_balance = (SELECT COALESCE(SUM(balance), 0) FROM Account WHERE customer_id = ?),"
+            + " available_balance = (SELECT COALESCE(SUM(GREATEST(balance, 0)), 0) FROM Account WHERE customer_id = ?),"
+            + " available_funds = (SELECT COALESCE(SUM(CASE WHEN type = " + AccountType.LOAN.ordinal()
+            + " THEN 0 ELSE balance END), 0) FROM Account WHERE customer_id = ?),"
+            + " account_count = (SELECT COUNT(*) FROM Account WHERE customer_id = ?) WHERE customer_id = ?";
+
+        if (getJdbcTemplate().update(SQL, customerId, customerId, customerId, customerId, customerId) > 0) {
+            return;
+        }
+        try {
+            getJdbcTemplate().update("INSERT INTO Customer_Balance"
+                + " (customer_id, total_balance, available_balance, available_funds, account_count) SELECT "
+                + SUMMARY_AGGREGATES + " FROM Account WHERE customer_id = ? GROUP BY customer_id", customerId);
+        } catch (final DuplicateKeyException e) {
+            getJdbcTemplate().update(SQL, customerId, customerId, customerId, customerId, customerId);
+        }
+    }
 }
@@ -4,26 +4,54 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.parasoft.parabank.dao.AdminDao;
+import com.parasoft.parabank.dao.ParaBankAdminDao;
 import com.parasoft.parabank.dao.internal.DynamicDataInserter;
+import com.parasoft.parabank.dao.internal.StorageReport;
+import com.parasoft.parabank.dao.jdbc.internal.DatabaseSnapshot;
+import com.parasoft.parabank.dao.jdbc.internal.SchemaMigrator;
+import com.parasoft.parabank.dao.jdbc.internal.SqlDialect;
+import com.parasoft.parabank.dao.jdbc.internal.TableStorage;
 
 /*
  * JDBC implementation of AdminDao
+ *
+ * The first initializeDB and the first reset of cleanDB run their scripts and data inserters and then capture the
+ * resulting content of the database in a DatabaseSnapshot. Later calls restore that snapshot as a bulk load instead,
+ * and fall back to the scripts if the restore fails, e.g. because the schema was changed behind the application's back.
+ * The seed data is dated relative to the current day, so a snapshot captured on another day is replaced by running the
+ * scripts again. The tables filled by the data inserters are not held in the snapshot but generated again after each
+ * restore, which keeps the large price history out of the heap.
+ *
+ * create.sql creates every table as a MEMORY table. The storage profile of the TableStorage, if one is set, is applied
+ * right after the scripts and migrations, so with the CACHED profile the generated data is written to the data file and not the heap.
  */
-public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
+public class JdbcAdminDao extends JdbcDaoSupport implements ParaBankAdminDao {
     private static final Logger log = LoggerFactory.getLogger(JdbcAdminDao.class);
 
     private static final String SQL_PACKAGE = "com/parasoft/parabank/dao/jdbc/sql/";
@@ -34,8 +62,39 @@ public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
 
     private static final Resource RESET_RESOURCE = new ClassPathResource(SQL_PACKAGE + "reset.sql");
 
+    /**
+     * The tables rewritten by reset.sql
+     */
+    private static final List<String> RESET_TABLES = Arrays.asList("Customer", "Account", "Transaction", "Positions",
+        "Company", "Stock", "Customer_Balance", "Sequence", "Transfer_Outbox", "Transfer_Inbox", "Journal_Outbox");
+
+    /**
+     * The tables filled by the data inserters, generated again instead of captured by initializeDB
+     */
+    private static final List<String> GENERATED_TABLES = Collections.singletonList("Stock");
+
+    private SqlDialect dialect = SqlDialect.HSQLDB;
+
+    private Clock clock = Clock.systemDefaultZone();
+
     private List<DynamicDataInserter> inserters;
 
+    private JdbcSequenceDao sequenceDao;
+
+    private SchemaMigrator schemaMigrator;
+
+    private StockPriceStore stockPriceStore;
+
+    private TableStorage tableStorage;
+
+    private TransactionTemplate transactionTemplate;
+
+    private boolean snapshotsEnabled = true;
+
+    private volatile DatabaseSnapshot initializedSnapshot;
+
+    private volatile DatabaseSnapshot resetSnapshot;
+
     /*
      * (non-Javadoc)
      *
@@ -50,8 +109,8 @@ public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
         try {
             con  = getConnection();
             final DatabaseMetaData md = con.getMetaData();
-            try (ResultSet rs = md.getTables("PUBLIC", "PUBLIC", "STOCK", null)) {
-                initializeDb = !rs.last();
+            try (ResultSet rs = md.getTables(dialect.getCatalog(), dialect.getSchema(), "STOCK", null)) {
+                initializeDb = !rs.next();
             }
             resetDb = true;
         } catch (final CannotGetJdbcConnectionException | SQLException ex) {
@@ -63,6 +122,9 @@ public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
         }
         if (initializeDb) {
             initializeDB();
+        } else if (resetDb) {
+            migrateSchema();
+            applyStorageProfile();
         }
         if (resetDb) {
             performReset();
@@ -81,6 +143,18 @@ public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
         return getJdbcTemplate().queryForObject(SQL, String.class, name);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#getParameterVersion()
+     */
+    @Override
+    public long getParameterVersion() {
+        final Long version =
+            getJdbcTemplate().queryForObject("SELECT MAX(version) FROM Parameter_Version", Long.class);
+        return version != null ? version : 0;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -106,6 +180,12 @@ public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
      */
     @Override
     public synchronized void initializeDB() {
+        final long start = System.nanoTime();
+        if (restoreSnapshot(initializedSnapshot)) {
+            insertDynamicData();
+            log.info("Database initialized from snapshot in {} ms", elapsedMillis(start));
+            return;
+        }
         log.info("Initializing parabank database...");
 
         Connection con = null;
@@ -119,16 +199,47 @@ public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
                 releaseConnection(con);
             }
         }
+        discardSequenceBlocks();
+        discardStockPrices();
+        // before the storage profile, a migration may rebuild the tables it changes
+        migrateSchema();
+        applyStorageProfile();
         //JdbcTestUtils.executeSqlScript(getJdbcTemplate(), CREATE_RESOURCE, false);
         //JdbcTestUtils.executeSqlScript(getJdbcTemplate(), INSERT_RESOURCE, false);
 
-        log.info("Running Dynamic Data inserters...");
-        for (final DynamicDataInserter inserter : inserters) {
-            inserter.insertData();
-        }
+        insertDynamicData();
+        initializedSnapshot = captureSnapshot(null, GENERATED_TABLES);
+
+        log.info("Database initialized & populated in {} ms", elapsedMillis(start));
+    }
+
+    /**
+     * @return the database content restored by initializeDB, null if not captured yet
+     */
+    public DatabaseSnapshot getInitializedSnapshot() {
+        return initializedSnapshot;
+    }
 
-        log.info("Database initialized & populated");
+    /**
+     * @return the database content restored by cleanDB, null if not captured yet
+     */
+    public DatabaseSnapshot getResetSnapshot() {
+        return resetSnapshot;
+    }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#getStorageReport()
+     */
+    @Override
+    public StorageReport getStorageReport() {
+        if (tableStorage == null) {
+            return null;
+        }
+        final StorageReport report = tableStorage.getReport();
+        log.debug("{}", report);
+        return report;
     }
 
     /**
@@ -140,6 +251,11 @@ public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
      * </DL>
      */
     private synchronized void performReset() {
+        final long start = System.nanoTime();
+        if (restoreSnapshot(resetSnapshot)) {
+            log.info("Database parabank reset from snapshot in {} ms", elapsedMillis(start));
+            return;
+        }
         log.info("Resetting parabank database...");
         Connection con = null;
         try {
@@ -150,14 +266,165 @@ public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
                 releaseConnection(con);
             }
         }
+        discardSequenceBlocks();
+        discardStockPrices();
         //JdbcTestUtils.executeSqlScript(getJdbcTemplate(), resource, true);
-        log.info("Database parabank reset");
+        resetSnapshot = captureSnapshot(RESET_TABLES, Collections.<String> emptyList());
+        log.info("Database parabank reset in {} ms", elapsedMillis(start));
+    }
+
+    /**
+     * @param tables
+     *            the tables to capture, null for all
+     * @param emptied
+     *            the tables to capture without their rows
+     * @return the snapshot, null if snapshots are disabled or the capture failed
+     */
+    private DatabaseSnapshot captureSnapshot(final Collection<String> tables, final Collection<String> emptied) {
+        if (!snapshotsEnabled) {
+            return null;
+        }
+        try {
+            final DatabaseSnapshot snapshot = DatabaseSnapshot.capture(getJdbcTemplate(), tables, emptied);
+            log.info("Captured {}", snapshot);
+            return snapshot;
+        } catch (final DataAccessException e) {
+            log.warn("Could not capture database snapshot, will replay scripts", e);
+            return null;
+        }
+    }
+
+    /**
+     * Restore a snapshot, as part of the current transaction if there is one
+     *
+     * @return true if the snapshot was restored, false if there is none or the scripts have to be replayed
+     */
+    private boolean restoreSnapshot(final DatabaseSnapshot snapshot) {
+        if (snapshot == null || !snapshotsEnabled) {
+            return false;
+        }
+        if (!snapshot.getCaptureDate().equals(LocalDate.now(clock))) {
+            log.info("{} is out of date, replaying scripts", snapshot);
+            return false;
+        }
+        try {
+            snapshot.restore(getJdbcTemplate(), dialect, !TransactionSynchronizationManager.isActualTransactionActive());
+        } catch (final DataAccessException e) {
+            log.warn("Could not restore {}, replaying scripts", snapshot, e);
+            return false;
+        }
+        discardSequenceBlocks();
+        discardStockPrices();
+        return true;
+    }
+
+    private void insertDynamicData() {
+        log.info("Running Dynamic Data inserters...");
+        for (final DynamicDataInserter inserter : inserters) {
+            inserter.insertData();
+        }
+    }
+
+    private static long elapsedMillis(final long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Store the large tables the way the storage profile asks for
+     */
+    private void applyStorageProfile() {
+        if (tableStorage != null) {
+            tableStorage.apply();
+        }
+    }
+
+    /**
+     * Bring the schema of an existing database up to date without re-initializing it
+     */
+    private void migrateSchema() {
+        if (schemaMigrator != null) {
+            schemaMigrator.migrate();
+        }
+    }
+
+    /**
+     * Prices held before the Stock table was rewritten are no longer valid
+     */
+    private void discardStockPrices() {
+        if (stockPriceStore != null) {
+            stockPriceStore.reset();
+        }
+    }
+
+    /**
+     * Ids reserved before the Sequence table was rewritten are no longer valid
+     */
+    private void discardSequenceBlocks() {
+        if (sequenceDao != null) {
+            sequenceDao.reset();
+        }
+    }
+
+    /**
+     * @param clock
+     *            the clock telling the current day, which a snapshot has to be captured on to be restored
+     */
+    public void setClock(final Clock clock) {
+        this.clock = clock;
+    }
+
+    public void setDialect(final SqlDialect dialect) {
+        this.dialect = dialect;
     }
 
     public void setInserters(final List<DynamicDataInserter> inserters) {
         this.inserters = inserters;
     }
 
+    public void setSchemaMigrator(final SchemaMigrator schemaMigrator) {
+        this.schemaMigrator = schemaMigrator;
+    }
+
+    public void setSequenceDao(final JdbcSequenceDao sequenceDao) {
+        this.sequenceDao = sequenceDao;
+    }
+
+    /**
+     * @param snapshotsEnabled
+     *            false to always replay the scripts
+     */
+    public void setSnapshotsEnabled(final boolean snapshotsEnabled) {
+        this.snapshotsEnabled = snapshotsEnabled;
+        if (!snapshotsEnabled) {
+            initializedSnapshot = null;
+            resetSnapshot = null;
+        }
+    }
+
+    public void setStockPriceStore(final StockPriceStore stockPriceStore) {
+        this.stockPriceStore = stockPriceStore;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#setStorageProfile(java.lang.String)
+     */
+    @Override
+    public synchronized void setStorageProfile(final String profile) {
+        if (tableStorage == null) {
+            throw new UnsupportedOperationException("Storage profiles are not configured");
+        }
+        final long start = System.nanoTime();
+        tableStorage.setProfile(TableStorage.Profile.valueOf(String.valueOf(profile).trim().toUpperCase(Locale.ROOT)));
+        tableStorage.apply();
+        log.info("Storage profile {} applied in {} ms", tableStorage.getProfile(), elapsedMillis(start));
+    }
+
+    public void setTableStorage(final TableStorage tableStorage) {
+        this.tableStorage = tableStorage;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -165,13 +432,42 @@ public class JdbcAdminDao extends JdbcDaoSupport implements AdminDao {
      */
     @Override
     public void setParameter(final String name, final String value) {
-        final String SQL = "UPDATE Parameter SET value = ? WHERE name = ?";
-        final String INSERT_SQL = "INSERT INTO Parameter (name,value) VALUES(?,?)";
+        setParameters(Collections.singletonMap(name, value));
+    }
 
-        int rows = getJdbcTemplate().update(SQL, value, name);
-        if (rows < 1) {
-            log.warn("Parameter {} does not exist adding ...", name);
-            rows = getJdbcTemplate().update(INSERT_SQL, name, value);
+    /**
+     * Parameters are upserted with one batched statement and the version is bumped in the same transaction, so a reader
+     * that sees the new version also sees every new value
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#setParameters(java.util.Map)
+     */
+    @Override
+    public long setParameters(final Map<String, String> parameters) {
+        final Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("name", "VARCHAR(50)");
+        columns.put("value", "VARCHAR(255)");
+        final String SQL = dialect.upsert("Parameter", "name", columns);
+
+        final List<Object[]> batch = new ArrayList<>(parameters.size());
+        for (final Map.Entry<String, String> entry : parameters.entrySet()) {
+            batch.add(new Object[] { entry.getKey(), entry.getValue() });
         }
+        return transactionTemplate.execute(status -> {
+            if (!batch.isEmpty()) {
+                getJdbcTemplate().batchUpdate(SQL, batch);
+            }
+            if (getJdbcTemplate().update("UPDATE Parameter_Version SET version = version + 1") < 1) {
+                getJdbcTemplate().update("INSERT INTO Parameter_Version (version) VALUES (1)");
+            }
+            final long version = getParameterVersion();
+            log.debug("Saved {} parameter(s), parameter version is now {}", batch.size(), version);
+            return version;
+        });
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initDao() throws Exception {
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(getDataSource()));
     }
 }
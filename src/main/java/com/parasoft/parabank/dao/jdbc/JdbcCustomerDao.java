@@ -22,7 +22,7 @@ public class JdbcCustomerDao extends NamedParameterJdbcDaoSupport implements Cus
         @Override
         public Customer mapRow(final ResultSet rs, final int rowNum) throws SQLException {
             final Customer customer = new Customer();
-            customer.setId(rs.getInt("id"));
+            customer.setId(rs.getLong("id"));
             customer.setFirstName(rs.getString("first_name"));
             customer.setLastName(rs.getString("last_name"));
             final Address address = new Address();
@@ -52,11 +52,11 @@ public class JdbcCustomerDao extends NamedParameterJdbcDaoSupport implements Cus
      * @see com.parasoft.parabank.dao.CustomerDao#createCustomer(com.parasoft. parabank.domain.Customer)
      */
     @Override
-    public int createCustomer(final Customer customer) {
+    public long createCustomer(final Customer customer) {
         final String SQL =
             "INSERT INTO Customer (id, first_name, last_name, address, city, state, zip_code, phone_number, ssn, username, password) VALUES (:id, :firstName, :lastName, :address.street, :address.city, :address.state, :address.zipCode, :phoneNumber, :ssn, :username, :password)";
 
-        final int id = sequenceDao.getNextId("Customer");
+        final long id = sequenceDao.getNextId("Customer");
         customer.setId(id);
         final BeanPropertySqlParameterSource source = new BeanPropertySqlParameterSource(customer);
         getNamedParameterJdbcTemplate().update(SQL, source);
@@ -71,10 +71,10 @@ public class JdbcCustomerDao extends NamedParameterJdbcDaoSupport implements Cus
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(int)
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(long)
      */
     @Override
-    public Customer getCustomer(final int id) {
+    public Customer getCustomer(final long id) {
         final String SQL = BASE_QUERY_SQL + " WHERE id = ?";
 
         log.info("Getting customer object for id = " + id);
@@ -3,17 +3,25 @@ package com.parasoft.parabank.dao.jdbc;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcDaoSupport;
 
 import com.parasoft.parabank.dao.PositionDao;
 import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.logic.PortfolioValuator;
 
 /*
  * JDBC implementation of PositionDao
@@ -34,8 +42,8 @@ public class JdbcPositionDao extends NamedParameterJdbcDaoSupport implements Pos
         @Override
         public Position mapRow(final ResultSet rs, final int rowNum) throws SQLException {
             final Position position = new Position();
-            position.setPositionId(rs.getInt("position_id"));
-            position.setCustomerId(rs.getInt("customer_id"));
+            position.setPositionId(rs.getLong("position_id"));
+            position.setCustomerId(rs.getLong("customer_id"));
             position.setName(rs.getString("name"));
             position.setSymbol(rs.getString("symbol"));
             position.setShares(rs.getInt("shares"));
@@ -51,17 +59,19 @@ public class JdbcPositionDao extends NamedParameterJdbcDaoSupport implements Pos
 
     private JdbcSequenceDao sequenceDao;
 
+    private StockPriceStore stockPriceStore;
+
     /*
      * (non-Javadoc)
      *
      * @see com.parasoft.parabank.dao.PositionDao#createPosition(com.parasoft. parabank.domain.Position)
      */
     @Override
-    public int createPosition(final Position position) {
+    public long createPosition(final Position position) {
         final String SQL =
             "INSERT INTO Positions (position_id, customer_id, name, symbol, shares, purchase_price) VALUES (:positionId, :customerId, :name, :symbol, :shares, :purchasePrice)";
 
-        final int position_id = sequenceDao.getNextId("Position");
+        final long position_id = sequenceDao.getNextId("Position");
         position.setPositionId(position_id);
         final BeanPropertySqlParameterSource source = new BeanPropertySqlParameterSource(position);
         getNamedParameterJdbcTemplate().update(SQL, source);
@@ -94,10 +104,10 @@ public class JdbcPositionDao extends NamedParameterJdbcDaoSupport implements Pos
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.dao.PositionDao#getPosition(int)
+     * @see com.parasoft.parabank.dao.PositionDao#getPosition(long)
      */
     @Override
-    public Position getPosition(final int position_id) {
+    public Position getPosition(final long position_id) {
         final String SQL = BASE_QUERY_SQL + " WHERE position_id = ?";
 
         log.info("Getting position object for position id = " + position_id);
@@ -106,22 +116,68 @@ public class JdbcPositionDao extends NamedParameterJdbcDaoSupport implements Pos
         return position;
     }
 
+    /**
+     * The positions are read with one query and valued in a single pass in fixed point arithmetic, taking the latest
+     * prices from the {@link StockPriceStore}, or from one query on the Stock table if there is no store or it cannot
+     * see the current transaction's prices yet. A position without any closing price is valued at its cost basis.
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPortfolioValuation(long)
+     */
+    @Override
+    public PortfolioValuation getPortfolioValuation(final long customerId) {
+        final List<Position> positions = getPositionsForCustomerId(customerId);
+        final Map<String, long[]> latestPrices;
+        if (stockPriceStore != null && !stockPriceStore.hasPendingChanges()) {
+            final Set<String> symbols = new HashSet<>();
+            for (final Position position : positions) {
+                symbols.add(position.getSymbol());
+            }
+            latestPrices = stockPriceStore.getLatestPrices(symbols);
+        } else {
+            latestPrices = getLatestPrices(customerId);
+        }
+
+        final PortfolioValuation valuation = PortfolioValuator.value(customerId, positions, latestPrices);
+
+        log.info("Valued " + positions.size() + " positions for customer id = " + customerId);
+        return valuation;
+    }
+
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.dao.PositionDao#getPositionHistory(int, java.util.Date, java.util.Date)
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionHistory(long, java.util.Date, java.util.Date)
      */
     @Override
-    public List<HistoryPoint> getPositionHistory(final int positionId, final Date startDate, final Date endDate) {
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate) {
+        return getPositionHistory(positionId, startDate, endDate, Resolution.DAILY, null);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionHistory(long, java.util.Date, java.util.Date,
+     * com.parasoft.parabank.domain.HistoryPoint.Resolution, java.lang.Integer)
+     */
+    @Override
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate,
+        final Resolution resolution, final Integer maxPoints) {
         final String SQL = "SELECT * FROM Stock WHERE symbol = :symbol " + "AND date BETWEEN :endDate AND :startDate";
 
         final String symbol = getPosition(positionId).getSymbol();
 
-        final List<HistoryPoint> history =
-            getJdbcTemplate().query(SQL, new HistoryPointMapper(), symbol, startDate, endDate);
+        final List<HistoryPoint> history;
+        if (stockPriceStore != null && !stockPriceStore.hasPendingChanges()) {
+            history = stockPriceStore.getHistory(symbol, startDate, endDate, resolution, maxPoints);
+        } else {
+            final List<HistoryPoint> daily =
+                getJdbcTemplate().query(SQL, new HistoryPointMapper(), symbol, startDate, endDate);
+            history = (resolution == null || resolution == Resolution.DAILY) && maxPoints == null ? daily
+                : StockPriceStore.rollUp(symbol, daily, startDate, endDate, resolution, maxPoints);
+        }
 
-        log.info("Retrieved position history for position #" + positionId + " and date range " + startDate + " to "
-            + endDate);
+        log.info("Retrieved " + history.size() + " history points for position #" + positionId + " and date range "
+            + startDate + " to " + endDate);
 
         return history;
     }
@@ -129,10 +185,10 @@ public class JdbcPositionDao extends NamedParameterJdbcDaoSupport implements Pos
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.dao.PositionDao#getPositionsForCustomerId(int)
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionsForCustomerId(long)
      */
     @Override
-    public List<Position> getPositionsForCustomerId(final int customer_id) {
+    public List<Position> getPositionsForCustomerId(final long customer_id) {
         final String SQL = BASE_QUERY_SQL + " WHERE customer_id = ?";
 
         final List<Position> positions = getJdbcTemplate().query(SQL, new PositionMapper(), customer_id);
@@ -141,10 +197,34 @@ public class JdbcPositionDao extends NamedParameterJdbcDaoSupport implements Pos
         return positions;
     }
 
+    /**
+     * @return the epoch day and fixed point price of the latest closing price of every symbol the customer holds
+     */
+    private Map<String, long[]> getLatestPrices(final long customerId) {
+        final String SQL = "SELECT s.symbol, s.date, s.closing_price FROM Stock s"
+            + " WHERE s.symbol IN (SELECT symbol FROM Positions WHERE customer_id = ?)"
+            + " AND s.date = (SELECT MAX(date) FROM Stock WHERE symbol = s.symbol)";
+
+        final Map<String, long[]> latestPrices = new HashMap<>();
+        getJdbcTemplate().query(SQL, (RowCallbackHandler) rs -> latestPrices.put(rs.getString("symbol"),
+            new long[] { rs.getDate("date").toLocalDate().toEpochDay(),
+                StockPriceStore.toFixedPoint(rs.getBigDecimal("closing_price")) }),
+            customerId);
+        return latestPrices;
+    }
+
     public void setSequenceDao(final JdbcSequenceDao sequenceDao) {
         this.sequenceDao = sequenceDao;
     }
 
+    /**
+     * @param stockPriceStore
+     *            answers position history queries from memory, the Stock table is queried if not set
+     */
+    public void setStockPriceStore(final StockPriceStore stockPriceStore) {
+        this.stockPriceStore = stockPriceStore;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -1,17 +1,96 @@
 package com.parasoft.parabank.dao.jdbc;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Manages sequences to automatically generate ids for new entities
+ *
+ * Ids are reserved from the Sequence table in blocks. A block is reserved with a single atomic
+ * {@code UPDATE ... SET next_id = next_id + ?} and then handed out from memory, still spaced by
+ * {@link #OFFSET}. A block size of 1 (the default) reserves every id inside the caller's transaction,
+ * so a rollback also returns the id. Larger blocks are reserved in their own transaction so that a
+ * rollback can never hand out the same range twice.
+ *
+ * Ids are 64 bit. In {@link #setInt32Compatible(boolean) 32-bit compatible} mode a sequence refuses to go beyond the
+ * range of an int, for deployments that still serve clients which parse ids as 32-bit integers.
  */
 public class JdbcSequenceDao extends JdbcDaoSupport {
+    /**
+     * A range of reserved ids [next, limit) handed out in OFFSET steps
+     */
+    private static final class IdBlock {
+        private final AtomicLong next;
+
+        private final long limit;
+
+        IdBlock(final long next, final long limit) {
+            this.next = new AtomicLong(next);
+            this.limit = limit;
+        }
+
+        /**
+         * @return the next id of this block or -1 once the block is exhausted
+         */
+        long take() {
+            long id;
+            do {
+                id = next.get();
+                if (id >= limit) {
+                    return -1;
+                }
+            } while (!next.compareAndSet(id, id + OFFSET));
+            return id;
+        }
+    }
+
+    private static final class SequenceState {
+        private final AtomicReference<IdBlock> block = new AtomicReference<>(EMPTY_BLOCK);
+
+        private final AtomicLong hits = new AtomicLong();
+
+        private final AtomicLong refills = new AtomicLong();
+    }
+
     public static final int OFFSET = 111;
 
-    public int getCurrentId(final String name) {
+    public static final int DEFAULT_BLOCK_SIZE = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcSequenceDao.class);
+
+    private static final IdBlock EMPTY_BLOCK = new IdBlock(0, 0);
+
+    private final ConcurrentMap<String, SequenceState> states = new ConcurrentHashMap<>();
+
+    private Map<String, Integer> blockSizes = Collections.emptyMap();
+
+    private int defaultBlockSize = DEFAULT_BLOCK_SIZE;
+
+    private boolean int32Compatible;
+
+    private TransactionTemplate joinTransaction;
+
+    private TransactionTemplate newTransaction;
+
+    public long getCurrentId(final String name) {
         final Number number = getJdbcTemplate().queryForObject("SELECT next_id FROM Sequence WHERE name = ?",
-            new Object[] { name }, Integer.class);
-        final int nextId = number != null ? number.intValue() : 0;
+            new Object[] { name }, Long.class);
+        final long nextId = number != null ? number.longValue() : 0;
         // int nextId = getJdbcTemplate().queryForInt("SELECT next_id FROM
         // Sequence WHERE name = ?", name);
         // getJdbcTemplate().update("UPDATE Sequence SET next_id = ? WHERE name
@@ -26,22 +105,157 @@ public class JdbcSequenceDao extends JdbcDaoSupport {
      *            the name of the database table to generate an id
      * @return a new id value to be used for a new entity object
      */
-    public int getNextId(final String name) {
-        final Number number = getJdbcTemplate().queryForObject("SELECT next_id FROM Sequence WHERE name = ?",
-            new Object[] { name }, Integer.class);
-        final int nextId = number != null ? number.intValue() : 0;
-        // int nextId = getJdbcTemplate().queryForInt("SELECT next_id FROM
-        // Sequence WHERE name = ?", name);
-        getJdbcTemplate().update("UPDATE Sequence SET next_id = ? WHERE name = ?", nextId + OFFSET, name);
-        return nextId;
+    public long getNextId(final String name) {
+        final SequenceState state = getState(name);
+        long id = state.block.get().take();
+        if (id < 0) {
+            synchronized (state) {
+                id = state.block.get().take();
+                if (id < 0) {
+                    final int blockSize = getBlockSize(name);
+                    id = reserveBlock(name, blockSize, blockSize > 1 ? newTransaction : joinTransaction);
+                    state.block.set(new IdBlock(id + OFFSET, id + blockSize * OFFSET));
+                    state.refills.incrementAndGet();
+                    log.debug("Reserved {} {} ids starting at {}", blockSize, name, id);
+                    return id;
+                }
+            }
+        }
+        state.hits.incrementAndGet();
+        return id;
+    }
+
+    /**
+     * Reserve a contiguous range of ids with a single round trip, bypassing the ids reserved in memory
+     *
+     * The range joins the caller's transaction if there is one, so a rollback returns it together with the rows that
+     * use it.
+     *
+     * @param name
+     *            the name of the database table to generate ids for
+     * @param count
+     *            the number of ids to reserve
+     * @return the first reserved id, the others follow in {@link #OFFSET} steps
+     */
+    public long reserveIds(final String name, final int count) {
+        getState(name);
+        final long id = reserveBlock(name, count, joinTransaction);
+        log.debug("Reserved a range of {} {} ids starting at {}", count, name, id);
+        return id;
     }
 
-    public int setNextId(final String name, final int nextId) {
+    public long setNextId(final String name, final long nextId) {
         getJdbcTemplate().update("UPDATE Sequence SET next_id = ? WHERE name = ?", nextId + OFFSET, name);
+        if (name != null) {
+            getState(name).block.set(EMPTY_BLOCK);
+        }
         final Number number = getJdbcTemplate().queryForObject("SELECT next_id FROM Sequence WHERE name = ?",
-            new Object[] { name }, Integer.class);
-        final int newNextId = number != null ? number.intValue() : 0;
+            new Object[] { name }, Long.class);
+        final long newNextId = number != null ? number.longValue() : 0;
         return newNextId;
     }
 
+    /**
+     * Discard all ids reserved in memory, e.g. after the Sequence table has been reset
+     */
+    public void reset() {
+        states.clear();
+        log.info("Discarded reserved sequence blocks");
+    }
+
+    /**
+     * @param name
+     *            the sequence name
+     * @return the number of ids for the given sequence served from memory without a database round trip
+     */
+    public long getHitCount(final String name) {
+        final SequenceState state = name == null ? null : states.get(name);
+        return state == null ? 0 : state.hits.get();
+    }
+
+    /**
+     * @param name
+     *            the sequence name
+     * @return the number of blocks reserved from the database for the given sequence
+     */
+    public long getRefillCount(final String name) {
+        final SequenceState state = name == null ? null : states.get(name);
+        return state == null ? 0 : state.refills.get();
+    }
+
+    public int getBlockSize(final String name) {
+        final Integer blockSize = blockSizes.get(name);
+        return blockSize != null && blockSize > 0 ? blockSize : defaultBlockSize;
+    }
+
+    /**
+     * @param blockSizes
+     *            number of ids to reserve per round trip, keyed by sequence name
+     */
+    public void setBlockSizes(final Map<String, Integer> blockSizes) {
+        this.blockSizes = blockSizes == null ? Collections.emptyMap() : new HashMap<>(blockSizes);
+    }
+
+    public boolean isInt32Compatible() {
+        return int32Compatible;
+    }
+
+    public void setDefaultBlockSize(final int defaultBlockSize) {
+        this.defaultBlockSize = Math.max(1, defaultBlockSize);
+    }
+
+    /**
+     * @param int32Compatible
+     *            true to never hand out an id beyond {@link Integer#MAX_VALUE}
+     */
+    public void setInt32Compatible(final boolean int32Compatible) {
+        this.int32Compatible = int32Compatible;
+    }
+
+    /**
+     * @return the largest id this sequence may hand out
+     */
+    protected long getMaxId() {
+        return int32Compatible ? Integer.MAX_VALUE : Long.MAX_VALUE;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initDao() throws Exception {
+        final DataSourceTransactionManager txManager = new DataSourceTransactionManager(getDataSource());
+        joinTransaction = new TransactionTemplate(txManager);
+        newTransaction = new TransactionTemplate(txManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private SequenceState getState(final String name) {
+        if (name == null) {
+            throw new InvalidDataAccessApiUsageException("A sequence name is required");
+        }
+        return states.computeIfAbsent(name, key -> new SequenceState());
+    }
+
+    /**
+     * Atomically advance the named sequence by a whole block
+     *
+     * @return the first id of the reserved block
+     */
+    private long reserveBlock(final String name, final int blockSize, final TransactionTemplate template) {
+        final Long first = template.execute(status -> {
+            final long increment = (long) blockSize * OFFSET;
+            final int rows =
+                getJdbcTemplate().update("UPDATE Sequence SET next_id = next_id + ? WHERE name = ?", increment, name);
+            if (rows != 1) {
+                throw new EmptyResultDataAccessException("No sequence named " + name, 1);
+            }
+            final long next =
+                getJdbcTemplate().queryForObject("SELECT next_id FROM Sequence WHERE name = ?", Long.class, name);
+            if (next - OFFSET > getMaxId()) {
+                // rolls the update back
+                throw new DataIntegrityViolationException("Sequence " + name + " exceeds its largest id " + getMaxId());
+            }
+            return next - increment;
+        });
+        return first;
+    }
 }
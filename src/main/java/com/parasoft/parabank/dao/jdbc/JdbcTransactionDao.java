@@ -4,15 +4,22 @@ import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcDaoSupport;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 
 import com.parasoft.parabank.dao.TransactionDao;
+import com.parasoft.parabank.dao.jdbc.internal.SqlDialect;
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.domain.TransactionCriteria;
 
@@ -21,38 +28,56 @@ import com.parasoft.parabank.domain.TransactionCriteria;
  */
 public class JdbcTransactionDao extends NamedParameterJdbcDaoSupport implements TransactionDao {
     private static class TransactionMapper implements RowMapper<Transaction> {
+        private final TransactionDescriptions descriptions;
+
+        TransactionMapper(final TransactionDescriptions descriptions) {
+            this.descriptions = descriptions;
+        }
+
         @Override
         public Transaction mapRow(final ResultSet rs, final int rowNum) throws SQLException {
             final Transaction transaction = new Transaction();
-            transaction.setId(rs.getInt("id"));
-            transaction.setAccountId(rs.getInt("account_id"));
+            transaction.setId(rs.getLong("id"));
+            transaction.setAccountId(rs.getLong("account_id"));
             transaction.setIntType(rs.getInt("type"));
             transaction.setDate(rs.getDate("date"));
             final BigDecimal amount = rs.getBigDecimal("amount");
             transaction.setAmount(amount == null ? null : amount.setScale(2));
-            transaction.setDescription(rs.getString("description"));
+            transaction.setDescription(descriptions.getDescription(rs));
             return transaction;
         }
     }
 
+    public static final int DEFAULT_EXPORT_FETCH_SIZE = 500;
+
     protected static final Logger log = LoggerFactory.getLogger(JdbcTransactionDao.class);
 
     private JdbcSequenceDao sequenceDao;
 
+    private int exportFetchSize = DEFAULT_EXPORT_FETCH_SIZE;
+
+    private NamedParameterJdbcTemplate exportTemplate;
+
+    private SqlDialect dialect = SqlDialect.HSQLDB;
+
+    private TransactionDescriptions transactionDescriptions;
+
+    private TransactionMapper transactionMapper;
+
     /*
      * (non-Javadoc)
      *
      * @see com.parasoft.parabank.dao.TransactionDao#createTransaction(com.parasoft. parabank.domain.Transaction)
      */
     @Override
-    public int createTransaction(final Transaction transaction) {
+    public long createTransaction(final Transaction transaction) {
         final String SQL =
-            "INSERT INTO Transaction (id, account_id, type, date, amount, description) VALUES (:id, :accountId, :intType, :date, :amount, :description)";
+            "INSERT INTO Transaction (id, account_id, type, date, amount, description, description_id, description_arg)"
+                + " VALUES (:id, :accountId, :intType, :date, :amount, :description, :descriptionId, :descriptionArg)";
 
-        final int id = sequenceDao.getNextId("Transaction");
+        final long id = sequenceDao.getNextId("Transaction");
         transaction.setId(id);
-        final BeanPropertySqlParameterSource source = new BeanPropertySqlParameterSource(transaction);
-        getNamedParameterJdbcTemplate().update(SQL, source);
+        getNamedParameterJdbcTemplate().update(SQL, getParameters(transaction));
 
         // getJdbcTemplate().update(SQL, new
         // BeanPropertySqlParameterSource(transaction));
@@ -64,15 +89,38 @@ public class JdbcTransactionDao extends NamedParameterJdbcDaoSupport implements
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.dao.TransactionDao#getTransaction(int)
+     * @see com.parasoft.parabank.dao.TransactionDao#createTransactions(java.util.List)
      */
     @Override
-    public Transaction getTransaction(final int id) {
+    public void createTransactions(final List<Transaction> transactions) {
         final String SQL =
-            "SELECT id, account_id, type, date, amount, description FROM Transaction WHERE id = ? ORDER BY date";
+            "INSERT INTO Transaction (id, account_id, type, date, amount, description, description_id, description_arg)"
+                + " VALUES (:id, :accountId, :intType, :date, :amount, :description, :descriptionId, :descriptionArg)";
+
+        for (final Transaction transaction : transactions) {
+            transaction.setId(sequenceDao.getNextId("Transaction"));
+        }
+        final SqlParameterSource[] batch = new SqlParameterSource[transactions.size()];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = getParameters(transactions.get(i));
+        }
+        getNamedParameterJdbcTemplate().batchUpdate(SQL, batch);
+        log.info("Created " + transactions.size() + " new transactions");
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransaction(long)
+     */
+    @Override
+    public Transaction getTransaction(final long id) {
+        final String SQL =
+            "SELECT id, account_id, type, date, amount, description, description_id, description_arg"
+                + " FROM Transaction WHERE id = ? ORDER BY date";
 
         log.info("Getting transaction object for id = " + id);
-        final Transaction transaction = getJdbcTemplate().queryForObject(SQL, new TransactionMapper(), id);
+        final Transaction transaction = getJdbcTemplate().queryForObject(SQL, transactionMapper, id);
 
         return transaction;
     }
@@ -80,15 +128,16 @@ public class JdbcTransactionDao extends NamedParameterJdbcDaoSupport implements
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(int)
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long)
      */
     @Override
-    public List<Transaction> getTransactionsForAccount(final int accountId) {
+    public List<Transaction> getTransactionsForAccount(final long accountId) {
         // Return in chronological order.
         final String SQL =
-            "SELECT id, account_id, type, date, amount, description FROM Transaction WHERE account_id = ? ORDER BY date, id";
+            "SELECT id, account_id, type, date, amount, description, description_id, description_arg"
+                + " FROM Transaction WHERE account_id = ? ORDER BY date, id";
 
-        final List<Transaction> transactions = getJdbcTemplate().query(SQL, new TransactionMapper(), accountId);
+        final List<Transaction> transactions = getJdbcTemplate().query(SQL, transactionMapper, accountId);
         log.info("Retrieved " + transactions.size() + " transactions for accountId = " + accountId);
 
         return transactions;
@@ -97,13 +146,14 @@ public class JdbcTransactionDao extends NamedParameterJdbcDaoSupport implements
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(int,
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long,
      * com.parasoft.parabank.domain.TransactionCriteria)
      */
     @Override
-    public List<Transaction> getTransactionsForAccount(final int accountId, final TransactionCriteria criteria) {
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria) {
         String SQL =
-            "SELECT id, account_id, type, date, amount, description, MONTH(date) as month FROM Transaction WHERE account_id = ?";
+            "SELECT id, account_id, type, date, amount, description, description_id, description_arg"
+                + " FROM Transaction WHERE account_id = ?";
 
         final List<Object> params = new ArrayList<>();
         params.add(accountId);
@@ -113,18 +163,142 @@ public class JdbcTransactionDao extends NamedParameterJdbcDaoSupport implements
         // Return in chronological order.
         SQL += " ORDER BY date, id";
 
-        final List<Transaction> transactions = getJdbcTemplate().query(SQL, new TransactionMapper(), params.toArray());
+        final List<Transaction> transactions = getJdbcTemplate().query(SQL, transactionMapper, params.toArray());
         log.info("Retrieved " + transactions.size() + " transactions for accountId = " + accountId
             + " with search type = " + criteria.getSearchType());
 
         return transactions;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long,
+     * com.parasoft.parabank.domain.TransactionCriteria, java.lang.Long, int)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria,
+        final Long cursor, final int limit) {
+        String SQL = "SELECT id, account_id, type, date, amount, description, description_id, description_arg"
+            + " FROM Transaction WHERE account_id = ?";
+
+        final List<Object> params = new ArrayList<>();
+        params.add(accountId);
+
+        if (criteria != null) {
+            SQL += getRestrictions(criteria, params);
+        }
+
+        if (cursor != null) {
+            // continue after the (date, id) of the last transaction on the previous page
+            final java.sql.Date cursorDate =
+                getJdbcTemplate().queryForObject("SELECT date FROM Transaction WHERE id = ? AND account_id = ?",
+                    java.sql.Date.class, cursor, accountId);
+            SQL += " AND (date > ? OR (date = ? AND id > ?))";
+            params.add(cursorDate);
+            params.add(cursorDate);
+            params.add(cursor);
+        }
+
+        // Return in chronological order.
+        SQL = getDialect().limit(SQL + " ORDER BY date, id");
+        params.add(limit);
+
+        final List<Transaction> transactions = getJdbcTemplate().query(SQL, transactionMapper, params.toArray());
+        log.info("Retrieved " + transactions.size() + " transactions for accountId = " + accountId + " after cursor = "
+            + cursor);
+
+        return transactions;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#exportTransactions(java.util.List, java.util.Date,
+     * java.util.Date, java.util.function.Consumer)
+     */
+    @Override
+    public int exportTransactions(final List<Long> accountIds, final Date fromDate, final Date toDate,
+        final Consumer<Transaction> consumer) {
+        if (accountIds == null || accountIds.isEmpty()) {
+            return 0;
+        }
+        String SQL =
+            "SELECT id, account_id, type, date, amount, description, description_id, description_arg"
+                + " FROM Transaction WHERE account_id IN (:accountIds)";
+
+        final MapSqlParameterSource params = new MapSqlParameterSource("accountIds", accountIds);
+        if (fromDate != null) {
+            SQL += " AND date >= :fromDate";
+            params.addValue("fromDate", fromDate);
+        }
+        if (toDate != null) {
+            SQL += " AND date <= :toDate";
+            params.addValue("toDate", toDate);
+        }
+        SQL += " ORDER BY account_id, date, id";
+
+        // rows are handed over one at a time while the driver fetches the result in blocks of exportFetchSize
+        final int[] count = { 0 };
+        exportTemplate.query(SQL, params, (RowCallbackHandler) rs -> consumer.accept(transactionMapper.mapRow(rs, count[0]++)));
+        log.info("Exported " + count[0] + " transactions for accountIds = " + accountIds);
+
+        return count[0];
+    }
+
+    public void setExportFetchSize(final int exportFetchSize) {
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initDao() throws Exception {
+        super.initDao();
+        final JdbcTemplate template = new JdbcTemplate(getDataSource());
+        template.setFetchSize(exportFetchSize);
+        exportTemplate = new NamedParameterJdbcTemplate(template);
+        if (transactionDescriptions == null) {
+            transactionDescriptions = new TransactionDescriptions();
+            transactionDescriptions.setDataSource(getDataSource());
+            transactionDescriptions.afterPropertiesSet();
+        }
+        transactionMapper = new TransactionMapper(transactionDescriptions);
+    }
+
+    protected SqlDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * @return the columns of a Transaction row, with the description stored as a template id and argument when it
+     *         matches one
+     */
+    protected SqlParameterSource getParameters(final Transaction transaction) {
+        final TransactionDescriptions.Encoded description =
+            transactionDescriptions.encode(transaction.getDescription());
+        return new MapSqlParameterSource("id", transaction.getId()).addValue("accountId", transaction.getAccountId())
+            .addValue("intType", transaction.getIntType()).addValue("date", transaction.getDate())
+            .addValue("amount", transaction.getAmount()).addValue("description", description.getText())
+            .addValue("descriptionId", description.getId()).addValue("descriptionArg", description.getArgument());
+    }
+
     protected String getRestrictions(final TransactionCriteria criteria, final List<Object> params) {
-        return new JdbcTransactionQueryRestrictor().getRestrictions(criteria, params);
+        return new JdbcTransactionQueryRestrictor(dialect).getRestrictions(criteria, params);
+    }
+
+    public void setDialect(final SqlDialect dialect) {
+        this.dialect = dialect;
     }
 
     public void setSequenceDao(final JdbcSequenceDao sequenceDao) {
         this.sequenceDao = sequenceDao;
     }
+
+    /**
+     * @param transactionDescriptions
+     *            the description dictionary of the database, one is created on the DAO's DataSource if not set
+     */
+    public void setTransactionDescriptions(final TransactionDescriptions transactionDescriptions) {
+        this.transactionDescriptions = transactionDescriptions;
+    }
 }
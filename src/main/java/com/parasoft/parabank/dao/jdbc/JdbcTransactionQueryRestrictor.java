@@ -9,6 +9,7 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.parasoft.parabank.dao.jdbc.internal.SqlDialect;
 import com.parasoft.parabank.domain.Transaction.TransactionType;
 import com.parasoft.parabank.domain.TransactionCriteria;
 
@@ -18,6 +19,12 @@ import com.parasoft.parabank.domain.TransactionCriteria;
 class JdbcTransactionQueryRestrictor {
     private static final Logger log = LoggerFactory.getLogger(JdbcTransactionQueryRestrictor.class);
 
+    private final SqlDialect dialect;
+
+    JdbcTransactionQueryRestrictor(final SqlDialect dialect) {
+        this.dialect = dialect;
+    }
+
     private String getActivityRestrictions(final TransactionCriteria criteria, final List<Object> params) {
         String restrictionsSql = getCommonActivityRestrictions(criteria, params);
 
@@ -43,7 +50,7 @@ class JdbcTransactionQueryRestrictor {
                 final Date date = new SimpleDateFormat("MMM").parse(criteria.getMonth());
                 final Calendar cal = Calendar.getInstance();
                 cal.setTime(date);
-                restrictionsSql += " AND MONTH(date) = ?";
+                restrictionsSql += " AND " + dialect.month("date") + " = ?";
                 params.add(cal.get(Calendar.MONTH) + 1);
             } catch (final ParseException e) {
                 log.error("Could not parse supplied month value: " + criteria.getMonth(), e);
@@ -17,7 +17,7 @@ public class SecureJdbcTransactionDao extends JdbcTransactionDao {
 
     @Override
     protected String getRestrictions(final TransactionCriteria criteria, final List<Object> params) {
-        JdbcTransactionQueryRestrictor transQueryRestrictor = new JdbcTransactionQueryRestrictor();
+        JdbcTransactionQueryRestrictor transQueryRestrictor = new JdbcTransactionQueryRestrictor(getDialect());
         if (criteria.getSearchType() == SearchType.ACTIVITY) {
             return getActivityRestrictions(transQueryRestrictor, criteria, params);
         }
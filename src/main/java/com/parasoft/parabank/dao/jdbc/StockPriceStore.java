@@ -0,0 +1,594 @@
+package com.parasoft.parabank.dao.jdbc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
+import com.parasoft.parabank.domain.logic.PortfolioValuator;
+
+/**
+ * Read-optimized copy of the Stock table for closing price history queries
+ *
+ * Every symbol is held as a sorted {@code int[]} of epoch days and a parallel {@code long[]} of closing prices in
+ * fixed point at the column's scale of {@value #SCALE} decimals, along with weekly and monthly open, high, low and
+ * close rollups of them. A date range is found by binary search and returned as a view of the arrays, so a
+ * {@link HistoryPoint} is only created when an element of the result is read, e.g. while it is serialized.
+ *
+ * The rollups are computed when a symbol is loaded. Merging in prices recomputes them from the period of the earliest
+ * added day, so appending recent prices only touches the last periods.
+ *
+ * The store is loaded from the Stock table at startup, or on first use if the table did not exist yet or the store was
+ * {@link #reset()}, and rows inserted through {@link #add(String, int[], long[])} are merged in. Rows added inside a
+ * transaction become visible once it commits; until then {@link #hasPendingChanges()} tells the caller to query the
+ * table instead.
+ */
+public class StockPriceStore extends JdbcDaoSupport {
+    /**
+     * The closing prices of one symbol, sorted by day, and their weekly and monthly rollups
+     */
+    private static final class Series {
+        private final int[] days;
+
+        private final long[] prices;
+
+        private final Rollup weekly;
+
+        private final Rollup monthly;
+
+        Series(final int[] days, final long[] prices) {
+            this(days, prices, null, days.length == 0 ? 0 : days[0]);
+        }
+
+        /**
+         * @param previous
+         *            the series before prices were merged in, its rollups are kept up to the period of the first
+         *            merged day
+         * @param firstChangedDay
+         *            the earliest day whose price was added
+         */
+        Series(final int[] days, final long[] prices, final Series previous, final int firstChangedDay) {
+            this.days = days;
+            this.prices = prices;
+            weekly = new Rollup(Resolution.WEEKLY, this, previous == null ? null : previous.weekly, firstChangedDay);
+            monthly = new Rollup(Resolution.MONTHLY, this, previous == null ? null : previous.monthly, firstChangedDay);
+        }
+
+        int count(final Resolution resolution, final int startDay, final int endDay) {
+            if (resolution == Resolution.DAILY) {
+                return Math.max(0, lowerBound(days, endDay + 1) - lowerBound(days, startDay));
+            }
+            final Rollup rollup = rollup(resolution);
+            return Math.max(0,
+                lowerBound(rollup.periods, endDay + 1) - lowerBound(rollup.periods, periodStart(resolution, startDay)));
+        }
+
+        List<HistoryPoint> history(final String symbol, final Resolution resolution, final int startDay,
+            final int endDay) {
+            final int from;
+            final int to;
+            if (resolution == Resolution.DAILY) {
+                from = lowerBound(days, startDay);
+                to = lowerBound(days, endDay + 1);
+            } else {
+                final int[] periods = rollup(resolution).periods;
+                from = lowerBound(periods, periodStart(resolution, startDay));
+                to = lowerBound(periods, endDay + 1);
+            }
+            return from < to ? new HistoryView(symbol, this, rollup(resolution), from, to) : Collections.emptyList();
+        }
+
+        /**
+         * @return the finest resolution not finer than the requested one whose history fits into the point budget
+         */
+        Resolution resolve(final Resolution resolution, final int startDay, final int endDay, final Integer maxPoints) {
+            final Resolution[] resolutions = Resolution.values();
+            int r = resolution == null ? 0 : resolution.ordinal();
+            while (r < resolutions.length - 1 && maxPoints != null
+                && count(resolutions[r], startDay, endDay) > maxPoints) {
+                r++;
+            }
+            return resolutions[r];
+        }
+
+        Rollup rollup(final Resolution resolution) {
+            switch (resolution) {
+            case WEEKLY:
+                return weekly;
+            case MONTHLY:
+                return monthly;
+            default:
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Opening, highest, lowest and closing price of a series per week or month
+     */
+    private static final class Rollup {
+        /**
+         * The first day of every period
+         */
+        private final int[] periods;
+
+        private final long[] open;
+
+        private final long[] high;
+
+        private final long[] low;
+
+        private final long[] close;
+
+        /**
+         * Keep the periods of a previous rollup before the first changed day and compute the remaining ones
+         */
+        Rollup(final Resolution resolution, final Series series, final Rollup previous, final int firstChangedDay) {
+            final int firstChangedPeriod = periodStart(resolution, firstChangedDay);
+            final int kept = previous == null ? 0 : lowerBound(previous.periods, firstChangedPeriod);
+            final int from = lowerBound(series.days, firstChangedPeriod);
+            final int capacity = kept + series.days.length - from;
+            final int[] periods = new int[capacity];
+            final long[] open = new long[capacity];
+            final long[] high = new long[capacity];
+            final long[] low = new long[capacity];
+            final long[] close = new long[capacity];
+            if (kept > 0) {
+                System.arraycopy(previous.periods, 0, periods, 0, kept);
+                System.arraycopy(previous.open, 0, open, 0, kept);
+                System.arraycopy(previous.high, 0, high, 0, kept);
+                System.arraycopy(previous.low, 0, low, 0, kept);
+                System.arraycopy(previous.close, 0, close, 0, kept);
+            }
+            int size = kept;
+            for (int i = from; i < series.days.length; i++) {
+                final int period = periodStart(resolution, series.days[i]);
+                final long price = series.prices[i];
+                if (size == kept || periods[size - 1] != period) {
+                    periods[size] = period;
+                    open[size] = price;
+                    high[size] = price;
+                    low[size] = price;
+                    size++;
+                } else {
+                    high[size - 1] = Math.max(high[size - 1], price);
+                    low[size - 1] = Math.min(low[size - 1], price);
+                }
+                close[size - 1] = price;
+            }
+            this.periods = Arrays.copyOf(periods, size);
+            this.open = Arrays.copyOf(open, size);
+            this.high = Arrays.copyOf(high, size);
+            this.low = Arrays.copyOf(low, size);
+            this.close = Arrays.copyOf(close, size);
+        }
+    }
+
+    /**
+     * A range of a series or of one of its rollups, creating history points as they are read
+     */
+    private static final class HistoryView extends AbstractList<HistoryPoint> implements RandomAccess {
+        private final String symbol;
+
+        private final Series series;
+
+        private final Rollup rollup;
+
+        private final int from;
+
+        private final int to;
+
+        HistoryView(final String symbol, final Series series, final Rollup rollup, final int from, final int to) {
+            this.symbol = symbol;
+            this.series = series;
+            this.rollup = rollup;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public HistoryPoint get(final int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            final int i = from + index;
+            final HistoryPoint historyPoint = new HistoryPoint();
+            historyPoint.setSymbol(symbol);
+            if (rollup == null) {
+                historyPoint.setDate(toDate(series.days[i]));
+                historyPoint.setClosingPrice(BigDecimal.valueOf(series.prices[i], SCALE));
+            } else {
+                historyPoint.setDate(toDate(rollup.periods[i]));
+                historyPoint.setOpeningPrice(BigDecimal.valueOf(rollup.open[i], SCALE));
+                historyPoint.setHighPrice(BigDecimal.valueOf(rollup.high[i], SCALE));
+                historyPoint.setLowPrice(BigDecimal.valueOf(rollup.low[i], SCALE));
+                historyPoint.setClosingPrice(BigDecimal.valueOf(rollup.close[i], SCALE));
+            }
+            return historyPoint;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        private static java.sql.Date toDate(final int day) {
+            return java.sql.Date.valueOf(LocalDate.ofEpochDay(day));
+        }
+    }
+
+    public static final int SCALE = PortfolioValuator.SCALE;
+
+    private static final Logger log = LoggerFactory.getLogger(StockPriceStore.class);
+
+    private volatile Map<String, Series> series = Collections.emptyMap();
+
+    private volatile boolean loaded;
+
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Merge inserted rows into the store, once the current transaction commits if there is one
+     *
+     * @param symbol
+     *            the stock symbol
+     * @param days
+     *            the epoch day of every row, in any order
+     * @param prices
+     *            the closing price of every row, see {@link #toFixedPoint(BigDecimal)}
+     */
+    public void add(final String symbol, final int[] days, final long[] prices) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            merge(symbol, days, prices);
+            return;
+        }
+        if (!TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(StockPriceStore.this);
+                }
+            });
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                merge(symbol, days, prices);
+            }
+        });
+    }
+
+    /**
+     * @param listener
+     *            called after every change of the store's prices
+     */
+    public void addChangeListener(final Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Remove every price, e.g. after the Stock table was emptied
+     */
+    public void clear() {
+        synchronized (this) {
+            series = Collections.emptyMap();
+            loaded = true;
+        }
+        fireChanged();
+    }
+
+    /**
+     * Discard every price and load the Stock table again on next use, e.g. after the database was rewritten
+     */
+    public void reset() {
+        synchronized (this) {
+            series = Collections.emptyMap();
+            loaded = false;
+        }
+        log.info("Discarded stock prices");
+        fireChanged();
+    }
+
+    /**
+     * Return the closing prices of a symbol within a date range
+     *
+     * @param symbol
+     *            the stock symbol
+     * @param startDate
+     *            the first day of the range
+     * @param endDate
+     *            the last day of the range
+     * @return the history points sorted by date, created as they are read
+     */
+    public List<HistoryPoint> getHistory(final String symbol, final Date startDate, final Date endDate) {
+        return getHistory(symbol, startDate, endDate, Resolution.DAILY, null);
+    }
+
+    /**
+     * Return the price history of a symbol within a date range at the finest resolution that fits a point budget
+     *
+     * @param symbol
+     *            the stock symbol
+     * @param startDate
+     *            the first day of the range
+     * @param endDate
+     *            the last day of the range
+     * @param resolution
+     *            the finest resolution to return, null for daily prices
+     * @param maxPoints
+     *            the number of points to return at most unless even the monthly history is longer, null for no limit
+     * @return the history points sorted by date, weekly and monthly points cover every period overlapping the range
+     */
+    public List<HistoryPoint> getHistory(final String symbol, final Date startDate, final Date endDate,
+        final Resolution resolution, final Integer maxPoints) {
+        ensureLoaded();
+        final Series prices = series.get(symbol);
+        if (prices == null) {
+            return Collections.emptyList();
+        }
+        return getHistory(symbol, prices, toEpochDay(startDate), toEpochDay(endDate), resolution, maxPoints);
+    }
+
+    /**
+     * Return the latest closing price of each of the given symbols
+     *
+     * @param symbols
+     *            the stock symbols
+     * @return the epoch day and the fixed point price of the latest closing price, keyed by symbol, symbols without a
+     *         price are left out
+     */
+    public Map<String, long[]> getLatestPrices(final Collection<String> symbols) {
+        ensureLoaded();
+        final Map<String, Series> current = series;
+        final Map<String, long[]> latest = new HashMap<>();
+        for (final String symbol : symbols) {
+            final Series prices = current.get(symbol);
+            if (prices != null && prices.days.length > 0) {
+                final int last = prices.days.length - 1;
+                latest.put(symbol, new long[] { prices.days[last], prices.prices[last] });
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * @return the number of prices held
+     */
+    public int getPriceCount() {
+        ensureLoaded();
+        int count = 0;
+        for (final Series prices : series.values()) {
+            count += prices.days.length;
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the current transaction added prices that are not visible in the store yet
+     */
+    public boolean hasPendingChanges() {
+        return TransactionSynchronizationManager.hasResource(this);
+    }
+
+    /**
+     * Replace the store's content with the Stock table
+     */
+    public void reload() {
+        final String SQL = "SELECT symbol, date, closing_price FROM Stock ORDER BY symbol, date";
+
+        final Map<String, int[]> days = new HashMap<>();
+        final Map<String, long[]> prices = new HashMap<>();
+        final Map<String, Integer> counts = new HashMap<>();
+        getJdbcTemplate().query(SQL, (RowCallbackHandler) rs -> {
+            final String symbol = rs.getString("symbol");
+            final int count = counts.getOrDefault(symbol, 0);
+            int[] symbolDays = days.get(symbol);
+            long[] symbolPrices = prices.get(symbol);
+            if (symbolDays == null || count == symbolDays.length) {
+                final int capacity = symbolDays == null ? 1024 : symbolDays.length * 2;
+                symbolDays = symbolDays == null ? new int[capacity] : Arrays.copyOf(symbolDays, capacity);
+                symbolPrices = symbolPrices == null ? new long[capacity] : Arrays.copyOf(symbolPrices, capacity);
+                days.put(symbol, symbolDays);
+                prices.put(symbol, symbolPrices);
+            }
+            symbolDays[count] = (int) rs.getDate("date").toLocalDate().toEpochDay();
+            symbolPrices[count] = toFixedPoint(rs.getBigDecimal("closing_price"));
+            counts.put(symbol, count + 1);
+        });
+
+        final Map<String, Series> loadedSeries = new HashMap<>();
+        int rows = 0;
+        for (final Map.Entry<String, Integer> entry : counts.entrySet()) {
+            final String symbol = entry.getKey();
+            final int count = entry.getValue();
+            loadedSeries.put(symbol,
+                new Series(Arrays.copyOf(days.get(symbol), count), Arrays.copyOf(prices.get(symbol), count)));
+            rows += count;
+        }
+        synchronized (this) {
+            series = loadedSeries;
+            loaded = true;
+        }
+        log.info("Loaded {} stock prices for {} symbols", rows, loadedSeries.size());
+        fireChanged();
+    }
+
+    /**
+     * Return the price history of daily prices read elsewhere, like {@link #getHistory(String, Date, Date, Resolution,
+     * Integer)}
+     *
+     * @param symbol
+     *            the stock symbol
+     * @param daily
+     *            the daily prices of the symbol within the range, in any order
+     * @param startDate
+     *            the first day of the range
+     * @param endDate
+     *            the last day of the range
+     * @param resolution
+     *            the finest resolution to return, null for daily prices
+     * @param maxPoints
+     *            the number of points to return at most, null for no limit
+     * @return the history points sorted by date
+     */
+    public static List<HistoryPoint> rollUp(final String symbol, final List<HistoryPoint> daily, final Date startDate,
+        final Date endDate, final Resolution resolution, final Integer maxPoints) {
+        final long[] order = new long[daily.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (long) toEpochDay(daily.get(i).getDate()) << 32 | i;
+        }
+        Arrays.sort(order);
+        final int[] days = new int[order.length];
+        final long[] prices = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            days[i] = (int) (order[i] >> 32);
+            prices[i] = toFixedPoint(daily.get((int) order[i]).getClosingPrice());
+        }
+        return getHistory(symbol, new Series(days, prices), toEpochDay(startDate), toEpochDay(endDate), resolution,
+            maxPoints);
+    }
+
+    /**
+     * @param price
+     *            a closing price
+     * @return the price in fixed point with {@value #SCALE} decimals
+     */
+    public static long toFixedPoint(final BigDecimal price) {
+        return PortfolioValuator.toFixedPoint(price);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initDao() throws Exception {
+        try {
+            reload();
+        } catch (final DataAccessException e) {
+            log.info("Stock prices not loaded yet, will load on first use: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private void fireChanged() {
+        for (final Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    private void merge(final String symbol, final int[] days, final long[] prices) {
+        synchronized (this) {
+            if (!loaded) {
+                // a full load will pick up the committed rows
+                return;
+            }
+            mergeLoaded(symbol, days, prices);
+        }
+        fireChanged();
+    }
+
+    private void mergeLoaded(final String symbol, final int[] days, final long[] prices) {
+        if (days.length == 0) {
+            return;
+        }
+        final long[] order = new long[days.length];
+        for (int i = 0; i < days.length; i++) {
+            order[i] = (long) days[i] << 32 | i;
+        }
+        Arrays.sort(order);
+
+        final Series existing = series.get(symbol);
+        final int existingLength = existing == null ? 0 : existing.days.length;
+        final int[] mergedDays = new int[existingLength + days.length];
+        final long[] mergedPrices = new long[mergedDays.length];
+        int e = 0;
+        int a = 0;
+        for (int m = 0; m < mergedDays.length; m++) {
+            final int added = a < order.length ? (int) order[a] : -1;
+            if (added < 0 || e < existingLength && existing.days[e] <= days[added]) {
+                mergedDays[m] = existing.days[e];
+                mergedPrices[m] = existing.prices[e++];
+            } else {
+                mergedDays[m] = days[added];
+                mergedPrices[m] = prices[added];
+                a++;
+            }
+        }
+
+        final Map<String, Series> updated = new HashMap<>(series);
+        updated.put(symbol, existing == null ? new Series(mergedDays, mergedPrices)
+            : new Series(mergedDays, mergedPrices, existing, days[(int) order[0]]));
+        series = updated;
+    }
+
+    private static List<HistoryPoint> getHistory(final String symbol, final Series prices, final int startDay,
+        final int endDay, final Resolution resolution, final Integer maxPoints) {
+        return prices.history(symbol, prices.resolve(resolution, startDay, endDay, maxPoints), startDay, endDay);
+    }
+
+    /**
+     * @return the index of the first value not less than the given one
+     */
+    private static int lowerBound(final int[] values, final int value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = low + high >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the first day of the week, starting on Monday, or of the month containing the given day
+     */
+    private static int periodStart(final Resolution resolution, final int day) {
+        switch (resolution) {
+        case WEEKLY:
+            // the epoch day 0 was a Thursday
+            return day - Math.floorMod(day + 3, 7);
+        case MONTHLY:
+            return (int) LocalDate.ofEpochDay(day).withDayOfMonth(1).toEpochDay();
+        default:
+            return day;
+        }
+    }
+
+    private static int toEpochDay(final Date date) {
+        if (date instanceof java.sql.Date) {
+            return (int) ((java.sql.Date) date).toLocalDate().toEpochDay();
+        }
+        return (int) date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+}
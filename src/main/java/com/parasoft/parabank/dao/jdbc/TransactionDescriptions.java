@@ -0,0 +1,227 @@
+package com.parasoft.parabank.dao.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.support.JdbcDaoSupport;
+
+/**
+ * In-memory copy of the Transaction_Description dictionary
+ *
+ * The descriptions written by the application are a handful of templates, some of them with a single {@value #ARG}
+ * placeholder like "Bill Payment to %s". A Transaction row refers to its template by description_id and keeps the
+ * placeholder's value in description_arg; only descriptions that match no template are stored as text in the
+ * description column.
+ *
+ * Decoding a template without a placeholder returns the same String for every row. The dictionary is read on first
+ * use and again when a row refers to an id it does not know yet.
+ */
+public class TransactionDescriptions extends JdbcDaoSupport {
+    /**
+     * How one description is stored in a Transaction row
+     */
+    public static final class Encoded {
+        private final Integer id;
+
+        private final String argument;
+
+        private final String text;
+
+        Encoded(final Integer id, final String argument, final String text) {
+            this.id = id;
+            this.argument = argument;
+            this.text = text;
+        }
+
+        /**
+         * @return the value of the placeholder, null if the template has none
+         */
+        public String getArgument() {
+            return argument;
+        }
+
+        /**
+         * @return the id of the template, null if the description matches none
+         */
+        public Integer getId() {
+            return id;
+        }
+
+        /**
+         * @return the description as text, null if it is stored as a template
+         */
+        public String getText() {
+            return text;
+        }
+    }
+
+    private static final class Template {
+        private final int id;
+
+        private final String template;
+
+        private final String prefix;
+
+        private final String suffix;
+
+        Template(final int id, final String template) {
+            this.id = id;
+            this.template = template.intern();
+            final int arg = template.indexOf(ARG);
+            prefix = arg < 0 ? null : template.substring(0, arg);
+            suffix = arg < 0 ? null : template.substring(arg + ARG.length());
+        }
+
+        String format(final String argument) {
+            return prefix == null ? template : prefix + (argument == null ? "" : argument) + suffix;
+        }
+
+        String match(final String description) {
+            if (description.length() >= prefix.length() + suffix.length() && description.startsWith(prefix)
+                && description.endsWith(suffix)) {
+                return description.substring(prefix.length(), description.length() - suffix.length());
+            }
+            return null;
+        }
+    }
+
+    private static final class Dictionary {
+        private final Template[] byId;
+
+        private final Map<String, Template> fixed = new HashMap<>();
+
+        private final List<Template> templated = new ArrayList<>();
+
+        Dictionary(final List<Template> templates) {
+            int max = -1;
+            for (final Template template : templates) {
+                max = Math.max(max, template.id);
+            }
+            byId = new Template[max + 1];
+            for (final Template template : templates) {
+                byId[template.id] = template;
+                if (template.prefix == null) {
+                    fixed.put(template.template, template);
+                } else {
+                    templated.add(template);
+                }
+            }
+        }
+
+        Template get(final int id) {
+            return id >= 0 && id < byId.length ? byId[id] : null;
+        }
+    }
+
+    /**
+     * The placeholder of a templated description
+     */
+    public static final String ARG = "%s";
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionDescriptions.class);
+
+    private static final Encoded NONE = new Encoded(null, null, null);
+
+    private volatile Dictionary dictionary;
+
+    /**
+     * @param id
+     *            the description_id of a row, null if it has none
+     * @param argument
+     *            the description_arg of the row
+     * @param text
+     *            the description of the row
+     * @return the description of the row
+     */
+    public String decode(final Integer id, final String argument, final String text) {
+        if (id == null) {
+            return text;
+        }
+        Template template = getDictionary().get(id);
+        if (template == null) {
+            // added to the table since it was read
+            reload();
+            template = getDictionary().get(id);
+            if (template == null) {
+                log.warn("Unknown transaction description id {}", id);
+                return text;
+            }
+        }
+        return template.format(argument);
+    }
+
+    /**
+     * @param description
+     *            the description of a transaction
+     * @return how to store it
+     */
+    public Encoded encode(final String description) {
+        if (description == null) {
+            return NONE;
+        }
+        final Dictionary current = getDictionary();
+        final Template fixed = current.fixed.get(description);
+        if (fixed != null) {
+            return new Encoded(fixed.id, null, null);
+        }
+        for (final Template template : current.templated) {
+            final String argument = template.match(description);
+            if (argument != null) {
+                return new Encoded(template.id, argument, null);
+            }
+        }
+        return new Encoded(null, null, description);
+    }
+
+    /**
+     * Read the description of the current row of a result set with description, description_id and description_arg
+     * columns
+     */
+    public String getDescription(final ResultSet rs) throws SQLException {
+        final int id = rs.getInt("description_id");
+        if (rs.wasNull()) {
+            return rs.getString("description");
+        }
+        return decode(id, rs.getString("description_arg"), rs.getString("description"));
+    }
+
+    /**
+     * Read the dictionary again on next use
+     */
+    public void reset() {
+        dictionary = null;
+    }
+
+    private Dictionary getDictionary() {
+        Dictionary current = dictionary;
+        if (current == null) {
+            current = reload();
+        }
+        return current;
+    }
+
+    private synchronized Dictionary reload() {
+        final List<Template> templates = new ArrayList<>();
+        try {
+            getJdbcTemplate().query("SELECT id, template FROM Transaction_Description",
+                (RowCallbackHandler) rs -> templates.add(new Template(rs.getInt("id"), rs.getString("template"))));
+        } catch (final DataAccessException e) {
+            // not migrated yet, every description is stored as text until it is
+            log.info("Transaction descriptions not loaded: {}", e.getMessage());
+            return new Dictionary(Collections.emptyList());
+        }
+        final Dictionary loaded = new Dictionary(templates);
+        dictionary = loaded;
+        log.info("Loaded {} transaction descriptions", templates.size());
+        return loaded;
+    }
+}
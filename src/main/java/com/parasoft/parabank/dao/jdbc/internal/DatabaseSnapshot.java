@@ -0,0 +1,237 @@
+package com.parasoft.parabank.dao.jdbc.internal;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+/**
+ * The content of a set of tables, captured once and restored as a bulk load
+ *
+ * Tables are captured and restored in foreign key order, so every referenced row exists before the rows referring to
+ * it are inserted and is removed after them. Restoring empties every table with the truncate statement of the
+ * dialect when not inside a transaction, otherwise or if the dialect has none with {@code DELETE} so the restore
+ * becomes part of the caller's transaction, and reinserts the captured rows with JDBC batches.
+ *
+ * Tables whose rows are generated again after a restore can be captured empty: they are emptied in foreign key order
+ * with the others, but their rows are never held in memory.
+ */
+public final class DatabaseSnapshot {
+    /**
+     * The captured rows of one table
+     */
+    private static final class TableData {
+        private final String table;
+
+        private final String insertSql;
+
+        private final int[] types;
+
+        private final List<Object[]> rows;
+
+        TableData(final String table, final String insertSql, final int[] types, final List<Object[]> rows) {
+            this.table = table;
+            this.insertSql = insertSql;
+            this.types = types;
+            this.rows = rows;
+        }
+    }
+
+    public static final int BATCH_SIZE = 1000;
+
+    private final List<TableData> tables;
+
+    private final int rowCount;
+
+    private final LocalDate captureDate = LocalDate.now();
+
+    private DatabaseSnapshot(final List<TableData> tables) {
+        this.tables = tables;
+        int rows = 0;
+        for (final TableData table : tables) {
+            rows += table.rows.size();
+        }
+        rowCount = rows;
+    }
+
+    /**
+     * Capture the content of the given tables as seen by the current connection
+     *
+     * @param jdbcTemplate
+     *            the template to read the tables with
+     * @param tables
+     *            the names of the tables to capture, null for every table of the PUBLIC schema
+     * @return the snapshot
+     */
+    public static DatabaseSnapshot capture(final JdbcTemplate jdbcTemplate, final Collection<String> tables) {
+        return capture(jdbcTemplate, tables, Collections.<String> emptySet());
+    }
+
+    /**
+     * Capture the content of the given tables as seen by the current connection, leaving out the rows of some
+     *
+     * @param jdbcTemplate
+     *            the template to read the tables with
+     * @param tables
+     *            the names of the tables to capture, null for every table of the PUBLIC schema
+     * @param emptied
+     *            the names of captured tables to restore empty
+     * @return the snapshot
+     */
+    public static DatabaseSnapshot capture(final JdbcTemplate jdbcTemplate, final Collection<String> tables,
+        final Collection<String> emptied) {
+        final Set<String> emptyTables = new HashSet<>();
+        for (final String table : emptied) {
+            emptyTables.add(table.toUpperCase(Locale.ROOT));
+        }
+        final List<String> ordered = jdbcTemplate.execute((ConnectionCallback<List<String>>) con -> {
+            final DatabaseMetaData md = con.getMetaData();
+            final Set<String> names = new LinkedHashSet<>();
+            if (tables == null) {
+                try (ResultSet rs = md.getTables(null, "PUBLIC", "%", new String[] { "TABLE" })) {
+                    while (rs.next()) {
+                        names.add(rs.getString("TABLE_NAME"));
+                    }
+                }
+            } else {
+                for (final String table : tables) {
+                    names.add(table.toUpperCase(Locale.ROOT));
+                }
+            }
+            final Map<String, Set<String>> parents = new HashMap<>();
+            for (final String name : names) {
+                final Set<String> referenced = new HashSet<>();
+                try (ResultSet rs = md.getImportedKeys(null, "PUBLIC", name)) {
+                    while (rs.next()) {
+                        referenced.add(rs.getString("PKTABLE_NAME"));
+                    }
+                }
+                referenced.retainAll(names);
+                referenced.remove(name);
+                parents.put(name, referenced);
+            }
+            return sortParentsFirst(names, parents);
+        });
+
+        final List<TableData> data = new ArrayList<>(ordered.size());
+        for (final String table : ordered) {
+            final String sql = "SELECT * FROM " + table + (emptyTables.contains(table) ? " WHERE 1 = 0" : "");
+            data.add(jdbcTemplate.query(sql, (ResultSetExtractor<TableData>) rs -> {
+                final ResultSetMetaData md = rs.getMetaData();
+                final int columns = md.getColumnCount();
+                final int[] types = new int[columns];
+                final StringBuilder names = new StringBuilder();
+                final StringBuilder values = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    types[i - 1] = md.getColumnType(i);
+                    names.append(i > 1 ? ", " : "").append(md.getColumnName(i));
+                    values.append(i > 1 ? ", ?" : "?");
+                }
+                final List<Object[]> rows = new ArrayList<>();
+                while (rs.next()) {
+                    final Object[] row = new Object[columns];
+                    for (int i = 1; i <= columns; i++) {
+                        row[i - 1] = rs.getObject(i);
+                    }
+                    rows.add(row);
+                }
+                return new TableData(table,
+                    "INSERT INTO " + table + " (" + names + ") VALUES (" + values + ")", types, rows);
+            }));
+        }
+        return new DatabaseSnapshot(data);
+    }
+
+    /**
+     * @return the day the snapshot was captured on
+     */
+    public LocalDate getCaptureDate() {
+        return captureDate;
+    }
+
+    /**
+     * @return the number of captured rows over all tables
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the names of the captured tables, referenced tables first
+     */
+    public List<String> getTables() {
+        final List<String> names = new ArrayList<>(tables.size());
+        for (final TableData table : tables) {
+            names.add(table.table);
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Replace the content of the captured tables with the captured rows
+     *
+     * @param jdbcTemplate
+     *            the template to write the tables with
+     * @param dialect
+     *            the dialect of the database
+     * @param truncate
+     *            true to empty the tables with TRUNCATE, which commits, false to DELETE their rows
+     */
+    public void restore(final JdbcTemplate jdbcTemplate, final SqlDialect dialect, final boolean truncate) {
+        for (int i = tables.size() - 1; i >= 0; i--) {
+            final String table = tables.get(i).table;
+            final String truncateSql = truncate ? dialect.truncate(table) : null;
+            jdbcTemplate.update(truncateSql != null ? truncateSql : "DELETE FROM " + table);
+        }
+        for (final TableData table : tables) {
+            final List<Object[]> rows = table.rows;
+            for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(table.insertSql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())),
+                    table.types);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseSnapshot [tables=" + getTables() + ", rows=" + rowCount + ", captured=" + captureDate + "]";
+    }
+
+    private static List<String> sortParentsFirst(final Set<String> names, final Map<String, Set<String>> parents) {
+        final List<String> ordered = new ArrayList<>(names.size());
+        final Set<String> done = new HashSet<>();
+        while (ordered.size() < names.size()) {
+            boolean progress = false;
+            for (final String name : names) {
+                if (!done.contains(name) && done.containsAll(parents.get(name))) {
+                    ordered.add(name);
+                    done.add(name);
+                    progress = true;
+                }
+            }
+            if (!progress) {
+                // a cycle, keep the remaining tables in their given order
+                for (final String name : names) {
+                    if (done.add(name)) {
+                        ordered.add(name);
+                    }
+                }
+            }
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,362 @@
+package com.parasoft.parabank.dao.jdbc.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Applies versioned migration scripts on top of the base schema.
+ *
+ * Scripts are named {@code V<version>__<description>.sql} and applied in version order. Every applied script is
+ * recorded in the Schema_History table together with a checksum of its content, so each script runs exactly once
+ * per database and a script that was changed after it was applied is reported instead of silently skipped.
+ *
+ * A script runs statement by statement. After each statement the number of statements done is stored in the
+ * Schema_Progress table, so a migration that failed part way resumes after its last completed statement when it is
+ * applied again instead of starting over. A statement commits together with its progress unless it commits by itself,
+ * as DDL does; such a statement runs again if the process stops right after it, which is why scripts guard their DDL
+ * with IF EXISTS and IF NOT EXISTS.
+ *
+ * A script may start with a {@code -- apply if: <query>} comment. When the query returns a count of 0, the database
+ * already has what the script would do, e.g. because create.sql made it, and the script is recorded as applied
+ * without running it.
+ *
+ * A script changed after its release, e.g. to guard its DDL, lists the checksum of its earlier content in a
+ * {@code -- replaces checksum: <checksum>} comment. A database that applied the earlier content records the new
+ * checksum instead of reporting the script as modified.
+ */
+public class SchemaMigrator extends JdbcDaoSupport {
+    /**
+     * A single migration script
+     */
+    public static final class Migration {
+        private final int version;
+
+        private final String description;
+
+        private final long checksum;
+
+        private final Set<Long> replacedChecksums;
+
+        private final Resource resource;
+
+        Migration(final int version, final String description, final long checksum,
+                final Set<Long> replacedChecksums, final Resource resource) {
+            this.version = version;
+            this.description = description;
+            this.checksum = checksum;
+            this.replacedChecksums = replacedChecksums;
+            this.resource = resource;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * @return the checksums of earlier content of the script that a database may have applied
+         */
+        public Set<Long> getReplacedChecksums() {
+            return replacedChecksums;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final Pattern CONDITION = Pattern.compile("\\A-- apply if: (.+?)\\s*$", Pattern.MULTILINE);
+
+    private static final Pattern REPLACED_CHECKSUM =
+        Pattern.compile("^-- replaces checksum: (\\d+)", Pattern.MULTILINE);
+
+    private static final String DEFAULT_LOCATION = "classpath*:com/parasoft/parabank/dao/jdbc/sql/migration/V*__*.sql";
+
+    private static final String CREATE_HISTORY_SQL = "CREATE TABLE IF NOT EXISTS Schema_History ("
+        + "version INTEGER NOT NULL PRIMARY KEY, description VARCHAR(100) NOT NULL, checksum BIGINT NOT NULL, "
+        + "installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL)";
+
+    private static final String CREATE_PROGRESS_SQL = "CREATE TABLE IF NOT EXISTS Schema_Progress ("
+        + "version INTEGER NOT NULL PRIMARY KEY, checksum BIGINT NOT NULL, statements INTEGER NOT NULL)";
+
+    private String location = DEFAULT_LOCATION;
+
+    /**
+     * @return the migrations found at the configured location, in the order they are applied
+     */
+    public List<Migration> getMigrations() {
+        final List<Migration> migrations = new ArrayList<>();
+        try {
+            for (final Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+                final Matcher matcher = SCRIPT_NAME.matcher(String.valueOf(resource.getFilename()));
+                if (!matcher.matches()) {
+                    log.warn("Ignoring migration script with unexpected name {}", resource.getFilename());
+                    continue;
+                }
+                final String script;
+                try (InputStream in = resource.getInputStream()) {
+                    script = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+                }
+                final Set<Long> replacedChecksums = new HashSet<>();
+                final Matcher replaced = REPLACED_CHECKSUM.matcher(script);
+                while (replaced.find()) {
+                    replacedChecksums.add(Long.valueOf(replaced.group(1)));
+                }
+                migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '),
+                    checksum(script), replacedChecksums, resource));
+            }
+        } catch (final IOException ex) {
+            throw new InvalidDataAccessResourceUsageException("Unable to read migration scripts from " + location, ex);
+        }
+        migrations.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).getVersion() == migrations.get(i - 1).getVersion()) {
+                throw new InvalidDataAccessResourceUsageException(
+                    "Duplicate migration version " + migrations.get(i).getVersion());
+            }
+        }
+        return migrations;
+    }
+
+    /**
+     * @return the checksum of every applied migration keyed by version
+     */
+    public Map<Integer, Long> getAppliedMigrations() {
+        getJdbcTemplate().execute(CREATE_HISTORY_SQL);
+        return getJdbcTemplate().query("SELECT version, checksum FROM Schema_History",
+            (ResultSetExtractor<Map<Integer, Long>>) rs -> {
+                final Map<Integer, Long> applied = new HashMap<>();
+                while (rs.next()) {
+                    applied.put(rs.getInt("version"), rs.getLong("checksum"));
+                }
+                return applied;
+            });
+    }
+
+    /**
+     * Apply every migration that has not been applied to the database yet
+     *
+     * @return the number of migrations applied
+     */
+    public synchronized int migrate() {
+        final Map<Integer, Long> applied = getAppliedMigrations();
+        int count = 0;
+        for (final Migration migration : getMigrations()) {
+            final Long checksum = applied.get(migration.getVersion());
+            if (checksum != null) {
+                if (migration.getReplacedChecksums().contains(checksum)) {
+                    log.info("Migration V{} ({}) was replaced after it was applied, recording its new checksum",
+                        migration.getVersion(), migration.getDescription());
+                    getJdbcTemplate().update("UPDATE Schema_History SET checksum = ? WHERE version = ?",
+                        migration.getChecksum(), migration.getVersion());
+                } else if (checksum != migration.getChecksum()) {
+                    throw new InvalidDataAccessResourceUsageException("Migration V" + migration.getVersion()
+                        + " (" + migration.getDescription() + ") was modified after it was applied");
+                }
+                continue;
+            }
+            apply(migration);
+            count++;
+        }
+        log.info("Database schema is up to date, {} migration(s) applied", count);
+        return count;
+    }
+
+    /**
+     * @param location
+     *            resource pattern of the migration scripts
+     */
+    public void setLocation(final String location) {
+        this.location = location;
+    }
+
+    /**
+     * Run the statements of a migration not run yet and record it as applied
+     */
+    private void apply(final Migration migration) {
+        final String script;
+        try (InputStream in = migration.resource.getInputStream()) {
+            script = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (final IOException ex) {
+            throw new InvalidDataAccessResourceUsageException("Unable to read migration V" + migration.getVersion(),
+                ex);
+        }
+        getJdbcTemplate().execute(CREATE_PROGRESS_SQL);
+        final List<Map<String, Object>> progress = getJdbcTemplate()
+            .queryForList("SELECT checksum, statements FROM Schema_Progress WHERE version = ?", migration.getVersion());
+        List<String> statements = splitStatements(script);
+        int done = 0;
+        final Matcher condition = CONDITION.matcher(script);
+        if (progress.isEmpty() && condition.find()
+            && getJdbcTemplate().queryForObject(condition.group(1), Long.class) == 0) {
+            log.info("Migration V{} ({}) is not needed, recording it as applied", migration.getVersion(),
+                migration.getDescription());
+            statements = new ArrayList<>();
+        } else if (progress.isEmpty()) {
+            log.info("Applying migration V{} ({})", migration.getVersion(), migration.getDescription());
+        } else {
+            if (((Number) progress.get(0).get("checksum")).longValue() != migration.getChecksum()) {
+                throw new InvalidDataAccessResourceUsageException("Migration V" + migration.getVersion() + " ("
+                    + migration.getDescription() + ") was modified after it was partly applied");
+            }
+            done = ((Number) progress.get(0).get("statements")).intValue();
+            log.info("Resuming migration V{} ({}) after statement {} of {}", migration.getVersion(),
+                migration.getDescription(), done, statements.size());
+        }
+
+        final Connection con = getConnection();
+        // inside a managed transaction the statements commit with it
+        final boolean managed = DataSourceUtils.isConnectionTransactional(con, getDataSource());
+        String sql = null;
+        try {
+            final boolean autoCommit = con.getAutoCommit();
+            if (!managed) {
+                con.setAutoCommit(false);
+            }
+            try (Statement stmt = con.createStatement()) {
+                for (int i = done; i < statements.size(); i++) {
+                    sql = statements.get(i);
+                    stmt.execute(sql);
+                    sql = null;
+                    recordProgress(con, migration, i + 1);
+                    if (!managed) {
+                        con.commit();
+                    }
+                }
+                try (PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO Schema_History (version, description, checksum) VALUES (?, ?, ?)")) {
+                    ps.setInt(1, migration.getVersion());
+                    ps.setString(2, migration.getDescription());
+                    ps.setLong(3, migration.getChecksum());
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = con.prepareStatement("DELETE FROM Schema_Progress WHERE version = ?")) {
+                    ps.setInt(1, migration.getVersion());
+                    ps.executeUpdate();
+                }
+                if (!managed) {
+                    con.commit();
+                }
+            } catch (final SQLException ex) {
+                if (!managed) {
+                    con.rollback();
+                }
+                throw ex;
+            } finally {
+                if (!managed) {
+                    con.setAutoCommit(autoCommit);
+                }
+            }
+        } catch (final SQLException ex) {
+            throw getExceptionTranslator().translate("Migration V" + migration.getVersion(), sql, ex);
+        } finally {
+            releaseConnection(con);
+        }
+    }
+
+    /**
+     * Store how many statements of a migration are done
+     */
+    private static void recordProgress(final Connection con, final Migration migration, final int statements)
+        throws SQLException {
+        try (PreparedStatement ps =
+            con.prepareStatement("UPDATE Schema_Progress SET statements = ? WHERE version = ?")) {
+            ps.setInt(1, statements);
+            ps.setInt(2, migration.getVersion());
+            if (ps.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement ps =
+            con.prepareStatement("INSERT INTO Schema_Progress (version, checksum, statements) VALUES (?, ?, ?)")) {
+            ps.setInt(1, migration.getVersion());
+            ps.setLong(2, migration.getChecksum());
+            ps.setInt(3, statements);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Split a script into statements at the semicolons outside of quotes and comments, leaving out the comments
+     */
+    static List<String> splitStatements(final String script) {
+        final List<String> statements = new ArrayList<>();
+        final StringBuilder statement = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < script.length(); i++) {
+            final char c = script.charAt(i);
+            if (quote != 0) {
+                statement.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                statement.append(c);
+                quote = c;
+            } else if (script.startsWith("--", i)) {
+                final int end = script.indexOf('\n', i);
+                i = end < 0 ? script.length() : end;
+                statement.append('\n');
+            } else if (script.startsWith("/*", i)) {
+                final int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? script.length() : end + 1;
+                statement.append(' ');
+            } else if (c == ';') {
+                addStatement(statements, statement);
+            } else {
+                statement.append(c);
+            }
+        }
+        addStatement(statements, statement);
+        return statements;
+    }
+
+    private static void addStatement(final List<String> statements, final StringBuilder statement) {
+        final String sql = statement.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        statement.setLength(0);
+    }
+
+    /**
+     * Line endings are ignored so a checkout with different line endings does not look like a modified script
+     */
+    private static long checksum(final String script) {
+        final CRC32 crc = new CRC32();
+        crc.update(script.replace("\r", "").getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
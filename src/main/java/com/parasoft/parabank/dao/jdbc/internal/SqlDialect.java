@@ -0,0 +1,193 @@
+package com.parasoft.parabank.dao.jdbc.internal;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The SQL that differs between the database engines ParaBank runs on
+ *
+ * The DAOs build every statement that is not plain standard SQL through the dialect of their database, which is
+ * selected with the {@code jdbc.dialect} property. The create, insert and reset scripts, the schema migrations and the
+ * JDBC batch inserts are shared by all dialects.
+ */
+public abstract class SqlDialect {
+    /**
+     * HSQLDB, the default database of ParaBank
+     */
+    public static final SqlDialect HSQLDB = new HsqldbDialect();
+
+    /**
+     * H2 in embedded or server mode, connected with {@code NON_KEYWORDS=VALUE} since Parameter has a VALUE column
+     */
+    public static final SqlDialect H2 = new H2Dialect();
+
+    /**
+     * @param name
+     *            hsqldb or h2 in any case, null or empty for hsqldb
+     * @return the dialect of the given name
+     * @throws IllegalArgumentException
+     *             if there is no dialect of that name
+     */
+    public static SqlDialect forName(final String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return HSQLDB;
+        }
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "hsqldb":
+                return HSQLDB;
+            case "h2":
+                return H2;
+            default:
+                throw new IllegalArgumentException("Unknown SQL dialect: " + name);
+        }
+    }
+
+    /**
+     * @return the catalog to look up tables in through the JDBC metadata, null for any
+     */
+    public String getCatalog() {
+        return null;
+    }
+
+    /**
+     * @return the lower case name of the dialect
+     */
+    public abstract String getName();
+
+    /**
+     * @return the schema holding the ParaBank tables
+     */
+    public String getSchema() {
+        return "PUBLIC";
+    }
+
+    /**
+     * @param sql
+     *            a query
+     * @return the query restricted to the number of rows given by an additional trailing parameter
+     */
+    public String limit(final String sql) {
+        return sql + " FETCH FIRST ? ROWS ONLY";
+    }
+
+    /**
+     * @param expression
+     *            a DATE expression
+     * @return an expression for the month, 1 to 12, of the date
+     */
+    public String month(final String expression) {
+        return "EXTRACT(MONTH FROM " + expression + ")";
+    }
+
+    /**
+     * @return true if tables can be switched between MEMORY and CACHED storage
+     */
+    public boolean supportsCachedTables() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    /**
+     * @param table
+     *            the table to empty
+     * @return a statement that empties the table regardless of foreign keys referencing it, null if the rows have to
+     *         be deleted instead
+     */
+    public String truncate(final String table) {
+        return null;
+    }
+
+    /**
+     * @param table
+     *            the table to insert into or update
+     * @param key
+     *            the primary key column
+     * @param columns
+     *            the SQL type of every column including the key, in parameter order
+     * @return a statement that inserts a row or updates the row with the same key, with one parameter per column
+     */
+    public abstract String upsert(String table, String key, Map<String, String> columns);
+
+    /**
+     * HSQLDB
+     */
+    private static final class HsqldbDialect extends SqlDialect {
+        @Override
+        public String getCatalog() {
+            return "PUBLIC";
+        }
+
+        @Override
+        public String getName() {
+            return "hsqldb";
+        }
+
+        @Override
+        public String limit(final String sql) {
+            return sql + " LIMIT ?";
+        }
+
+        @Override
+        public String month(final String expression) {
+            return "MONTH(" + expression + ")";
+        }
+
+        @Override
+        public boolean supportsCachedTables() {
+            return true;
+        }
+
+        @Override
+        public String truncate(final String table) {
+            return "TRUNCATE TABLE " + table + " AND COMMIT NO CHECK";
+        }
+
+        @Override
+        public String upsert(final String table, final String key, final Map<String, String> columns) {
+            final StringBuilder values = new StringBuilder();
+            final StringBuilder names = new StringBuilder();
+            final StringBuilder updates = new StringBuilder();
+            final StringBuilder inserts = new StringBuilder();
+            for (final Map.Entry<String, String> column : columns.entrySet()) {
+                final String name = column.getKey();
+                final String separator = names.length() > 0 ? ", " : "";
+                values.append(separator).append("CAST(? AS ").append(column.getValue()).append(')');
+                names.append(separator).append(name);
+                inserts.append(separator).append("v.").append(name);
+                if (!name.equalsIgnoreCase(key)) {
+                    updates.append(updates.length() > 0 ? ", " : "").append("t.").append(name).append(" = v.")
+                        .append(name);
+                }
+            }
+            return "MERGE INTO " + table + " t USING (VALUES (" + values + ")) AS v (" + names + ")"
+                + " ON t." + key + " = v." + key
+                + (updates.length() > 0 ? " WHEN MATCHED THEN UPDATE SET " + updates : "")
+                + " WHEN NOT MATCHED THEN INSERT (" + names + ") VALUES (" + inserts + ")";
+        }
+    }
+
+    /**
+     * H2
+     */
+    private static final class H2Dialect extends SqlDialect {
+        @Override
+        public String getName() {
+            return "h2";
+        }
+
+        @Override
+        public String upsert(final String table, final String key, final Map<String, String> columns) {
+            final StringBuilder names = new StringBuilder();
+            final StringBuilder values = new StringBuilder();
+            for (final String name : columns.keySet()) {
+                names.append(names.length() > 0 ? ", " : "").append(name);
+                values.append(values.length() > 0 ? ", ?" : "?");
+            }
+            return "MERGE INTO " + table + " (" + names + ") KEY (" + key + ") VALUES (" + values + ")";
+        }
+    }
+}
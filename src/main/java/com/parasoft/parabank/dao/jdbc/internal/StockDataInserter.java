@@ -1,33 +1,87 @@
 package com.parasoft.parabank.dao.jdbc.internal;
 
-import java.text.SimpleDateFormat;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.parasoft.parabank.dao.internal.DynamicDataInserter;
 import com.parasoft.parabank.dao.jdbc.JdbcSequenceDao;
-
+import com.parasoft.parabank.dao.jdbc.StockPriceStore;
+
+/**
+ * Inserts a closing price history for every company
+ *
+ * The ids of all rows are reserved from the Stock sequence in one block. The price series are generated in parallel,
+ * one task per symbol on a pool of at most {@link #setThreads(int)} threads, and every task inserts its rows with
+ * parameterized JDBC batches of {@link #setBatchSize(int)} rows, each committed on its own. The inserted prices are
+ * added to the {@link StockPriceStore} if one is set.
+ *
+ * Other threads cannot see the uncommitted changes of a transaction, so when the caller is inside one the series are
+ * still generated in parallel but all rows are inserted on the caller's thread as part of its transaction.
+ */
 public class StockDataInserter extends JdbcDaoSupport implements DynamicDataInserter {
-    private static final Logger log = LoggerFactory.getLogger(StockDataInserter.class);
+    /**
+     * The generated rows of one symbol, also as primitive columns for the {@link StockPriceStore}
+     */
+    private static final class Series {
+        private final List<Object[]> rows = new ArrayList<>(DAYS);
+
+        private final int[] days = new int[DAYS];
 
-    private final SimpleDateFormat dateFormatter;
+        private final long[] prices = new long[DAYS];
+    }
 
-    private final Random random;
+    /**
+     * Timings of the insert, summed over all tasks
+     */
+    private static final class Timings {
+        private final AtomicLong generateNanos = new AtomicLong();
 
-    private JdbcSequenceDao sequenceDao;
+        private final AtomicLong insertNanos = new AtomicLong();
 
-    public StockDataInserter() {
-        dateFormatter = new SimpleDateFormat("yyyy-MM-dd");
-        random = new Random(System.currentTimeMillis());
+        private final AtomicLong rows = new AtomicLong();
     }
 
+    public static final int DAYS = 1825;
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO Stock (id, symbol, date, closing_price) VALUES (?, ?, ?, ?)";
+
+    private static final int[] INSERT_TYPES = { Types.BIGINT, Types.VARCHAR, Types.DATE, Types.DECIMAL };
+
+    private static final Logger log = LoggerFactory.getLogger(StockDataInserter.class);
+
+    private JdbcSequenceDao sequenceDao;
+
+    private StockPriceStore stockPriceStore;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private TransactionTemplate transactionTemplate;
+
     /** {@inheritDoc} */
     @Override
     public int getDataCount() {
@@ -36,11 +90,9 @@ public class StockDataInserter extends JdbcDaoSupport implements DynamicDataInse
 
     }
 
-    private String getPrice() {
-        final String priceDollars = String.valueOf(random.nextInt(90));
-        String priceCents = String.valueOf(random.nextInt(100));
-        priceCents = priceCents.length() == 1 ? "0" + priceCents : priceCents;
-        return priceDollars + "." + priceCents;
+    private static BigDecimal getPrice() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return BigDecimal.valueOf(random.nextInt(90) * 100 + random.nextInt(100), 2);
     }
 
     public List<String> getSymbols() {
@@ -58,57 +110,136 @@ public class StockDataInserter extends JdbcDaoSupport implements DynamicDataInse
     /** {@inheritDoc} */
     @Override
     public void insertData() {
-        // TODO clean prior to inserting
-
-        // final String SQL = "INSERT INTO Stock (id, symbol, date,
-        // closing_price) " +
-        //
-        // // commented in order to make it database agnostic
-        // // the below syntax is HSQL specific and so it is being replaced to a
-        // // generic format
-        // // "VALUES (:id, :symbol, :date, :closingPrice)";
-        // "VALUES (?,?, ?, ?)";
-        final String SQL_FMT = "INSERT INTO Stock (id, symbol, date, closing_price) VALUES (%1$d, \'%2$s\', \'%3$s\', \'%4$s\');";
-        int nextId = sequenceDao.getNextId("Stock");
-        log.debug("First Stock id = {}", nextId);
-
-        nextId -= JdbcSequenceDao.OFFSET; // I need to this so there are no gaps in Ids
-        int rows = 0;
-        int totalRows = 0;
-        int lastId = nextId;
-        for (final String symbol : getSymbols()) {
-            final Calendar calendar = Calendar.getInstance();
-            final StringBuilder sb = new StringBuilder();
-            final String price = getPrice();
-            for (int i = -1; i > -1826; i--) {
-                calendar.add(Calendar.DAY_OF_MONTH, -1);
-                // getJdbcTemplate().update(SQL, sequenceDao.getNextId("Stock"), symbol,
-                // dateFormatter.format(calendar.getTime()), getPrice());
-                nextId += JdbcSequenceDao.OFFSET;
-                sb.append(String.format(SQL_FMT, nextId, symbol, dateFormatter.format(calendar.getTime()), price));
+        final long start = System.nanoTime();
+        final List<String> symbols = getSymbols();
+        if (symbols.isEmpty()) {
+            return;
+        }
+        final long firstId = sequenceDao.reserveIds("Stock", symbols.size() * DAYS);
+        final long reserved = System.nanoTime();
+        log.debug("First Stock id = {}", firstId);
+
+        final boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        final int poolSize = Math.max(1, Math.min(threads, symbols.size()));
+        final Timings timings = new Timings();
+        final ExecutorService executor =
+            Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("stock-inserter-"));
+        try {
+            final List<Future<Series>> series = new ArrayList<>(symbols.size());
+            for (int i = 0; i < symbols.size(); i++) {
+                final String symbol = symbols.get(i);
+                final long symbolFirstId = firstId + (long) i * DAYS * JdbcSequenceDao.OFFSET;
+                series.add(executor.submit(() -> {
+                    final Series rows = generate(symbol, symbolFirstId, timings);
+                    if (inTransaction) {
+                        return rows;
+                    }
+                    insert(symbol, rows, timings);
+                    return null;
+                }));
             }
-
-            log.debug("processing stock {}", symbol);
-            final String sql = sb.toString();
-            rows = (nextId - lastId) / JdbcSequenceDao.OFFSET;
-            totalRows += rows;
-            getJdbcTemplate().update(sql);
-            log.debug("Last {} Stock id = {}, inserted rows/total {}/{}", symbol, nextId, rows, nextId / JdbcSequenceDao.OFFSET);
-            lastId = nextId;
-            nextId = sequenceDao.setNextId("Stock", nextId); // this will catch up the Sequence
-            nextId -= JdbcSequenceDao.OFFSET; // walk one back (we add it back just before insert)
-            log.debug("done processing stock {}", symbol);
-            if (log.isTraceEnabled()) {
-                log.trace("First row: {}", sql.substring(0, sql.indexOf("INSERT", "INSERT".length())));
-                log.trace("Last row : {}", sql.substring(sql.lastIndexOf("INSERT")));
+            for (int i = 0; i < symbols.size(); i++) {
+                final Series rows = await(series.set(i, null));
+                if (inTransaction) {
+                    insert(symbols.get(i), rows, timings);
+                }
             }
+        } finally {
+            executor.shutdownNow();
         }
-        if (log.isTraceEnabled()) {
-            log.trace("insertData added {} of {} rows", totalRows, getDataCount());
-        }
+
+        log.info("Inserted {} Stock rows for {} symbols in {} ms on {} thread(s)"
+            + " (reserve ids {} ms, generate {} ms, insert {} ms)", timings.rows, symbols.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), inTransaction ? 1 : poolSize,
+            TimeUnit.NANOSECONDS.toMillis(reserved - start),
+            TimeUnit.NANOSECONDS.toMillis(timings.generateNanos.get()),
+            TimeUnit.NANOSECONDS.toMillis(timings.insertNanos.get()));
+    }
+
+    /**
+     * @param batchSize
+     *            the number of rows per JDBC batch and commit
+     */
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
     }
 
     public void setSequenceDao(final JdbcSequenceDao sequenceDao) {
         this.sequenceDao = sequenceDao;
     }
+
+    /**
+     * @param stockPriceStore
+     *            receives the inserted prices
+     */
+    public void setStockPriceStore(final StockPriceStore stockPriceStore) {
+        this.stockPriceStore = stockPriceStore;
+    }
+
+    /**
+     * @param threads
+     *            the maximum number of symbols processed at the same time, less than 1 for the number of processors
+     */
+    public void setThreads(final int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initDao() throws Exception {
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(getDataSource()));
+    }
+
+    private static <T> T await(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while inserting Stock data", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DataAccessResourceFailureException("Could not insert Stock data", cause);
+        }
+    }
+
+    /**
+     * @return one row per day, going back {@link #DAYS} days from yesterday
+     */
+    private static Series generate(final String symbol, final long firstId, final Timings timings) {
+        final long start = System.nanoTime();
+        final BigDecimal price = getPrice();
+        final long fixedPointPrice = StockPriceStore.toFixedPoint(price);
+        final LocalDate today = LocalDate.now();
+        final Series series = new Series();
+        for (int i = 0; i < DAYS; i++) {
+            final LocalDate date = today.minusDays(i + 1);
+            series.rows.add(new Object[] { firstId + (long) i * JdbcSequenceDao.OFFSET, symbol, Date.valueOf(date), price });
+            series.days[i] = (int) date.toEpochDay();
+            series.prices[i] = fixedPointPrice;
+        }
+        timings.generateNanos.addAndGet(System.nanoTime() - start);
+        return series;
+    }
+
+    private void insert(final String symbol, final Series series, final Timings timings) {
+        final long start = System.nanoTime();
+        final List<Object[]> rows = series.rows;
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            final List<Object[]> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            transactionTemplate
+                .executeWithoutResult(status -> getJdbcTemplate().batchUpdate(INSERT_SQL, batch, INSERT_TYPES));
+        }
+        if (stockPriceStore != null) {
+            stockPriceStore.add(symbol, series.days, series.prices);
+        }
+        timings.insertNanos.addAndGet(System.nanoTime() - start);
+        timings.rows.addAndGet(rows.size());
+        log.debug("Inserted {} rows for stock {}", rows.size(), symbol);
+    }
 }
@@ -0,0 +1,265 @@
+package com.parasoft.parabank.dao.jdbc.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.parasoft.parabank.dao.internal.StorageReport;
+
+/**
+ * Storage profile of the tables that grow with the generated data
+ *
+ * With the MEMORY profile Transaction, Stock and Positions are MEMORY tables like every other table, so all of their
+ * rows are held in the heap and replayed from the log on startup. With the CACHED profile they are converted to
+ * CACHED tables, which keep their rows in the data file and only up to {@link #setCacheRows(int)} of them in the heap.
+ *
+ * The cache, NIO data file and checkpoint settings are applied together with the profile. Settings that are not
+ * configured keep the value stored in the database.
+ *
+ * Only HSQLDB has table types, with any other {@link SqlDialect} the profile is never applied and there is no report.
+ */
+public class TableStorage extends JdbcDaoSupport implements DisposableBean {
+    /**
+     * How the large tables are stored
+     */
+    public enum Profile {
+        MEMORY, CACHED;
+    }
+
+    /**
+     * The tables converted by the CACHED profile
+     */
+    public static final List<String> LARGE_TABLES =
+        Collections.unmodifiableList(Arrays.asList("TRANSACTION", "STOCK", "POSITIONS"));
+
+    private static final Logger log = LoggerFactory.getLogger(TableStorage.class);
+
+    private static final List<String> REPORTED_SETTINGS = Arrays.asList("hsqldb.cache_rows", "hsqldb.cache_size",
+        "hsqldb.nio_data_file", "hsqldb.nio_max_size", "hsqldb.log_size", "hsqldb.write_delay_millis");
+
+    private SqlDialect dialect = SqlDialect.HSQLDB;
+
+    private volatile Profile profile = Profile.MEMORY;
+
+    private int cacheRows;
+
+    private int cacheSize;
+
+    private Boolean nioDataFile;
+
+    private int nioMaxSize;
+
+    private int logSize;
+
+    private int checkpointInterval;
+
+    private ScheduledExecutorService checkpointScheduler;
+
+    /**
+     * Apply the settings and convert the existing large tables to the table type of the profile
+     *
+     * Conversions and settings are DDL, which commits the current transaction, so nothing is executed for tables that
+     * already have the right type and settings that are not configured.
+     */
+    public synchronized void apply() {
+        if (!dialect.supportsCachedTables()) {
+            log.debug("Storage profiles are not supported by {}", dialect);
+            return;
+        }
+        applySetting("CACHE ROWS", cacheRows > 0 ? String.valueOf(cacheRows) : null);
+        applySetting("CACHE SIZE", cacheSize > 0 ? String.valueOf(cacheSize) : null);
+        applySetting("NIO", nioDataFile != null ? nioDataFile.toString().toUpperCase(Locale.ROOT) : null);
+        applySetting("NIO SIZE", nioMaxSize > 0 ? String.valueOf(nioMaxSize) : null);
+        applySetting("LOG SIZE", logSize > 0 ? String.valueOf(logSize) : null);
+
+        final Map<String, String> types = getTableTypes();
+        for (final String table : LARGE_TABLES) {
+            final String type = types.get(table);
+            if (type != null && !profile.name().equals(type)) {
+                final long start = System.nanoTime();
+                getJdbcTemplate().execute("SET TABLE " + table + " TYPE " + profile);
+                log.info("Converted table {} from {} to {} in {} ms", table, type, profile,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+    }
+
+    /**
+     * Write all changes to the data file and start a new log
+     */
+    public void checkpoint() {
+        final long start = System.nanoTime();
+        getJdbcTemplate().execute("CHECKPOINT");
+        log.debug("Checkpoint completed in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Override
+    public void destroy() {
+        if (checkpointScheduler != null) {
+            checkpointScheduler.shutdownNow();
+            checkpointScheduler = null;
+        }
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return the storage type and row count of every table together with the storage settings of the database, null
+     *         if the dialect has no table types
+     */
+    public StorageReport getReport() {
+        if (!dialect.supportsCachedTables()) {
+            return null;
+        }
+        final List<StorageReport.TableUsage> tables = getJdbcTemplate().query(
+            "SELECT TABLE_NAME, TABLE_TYPE, CARDINALITY FROM INFORMATION_SCHEMA.SYSTEM_TABLESTATS"
+                + " WHERE TABLE_SCHEMA = 'PUBLIC' ORDER BY CARDINALITY DESC, TABLE_NAME",
+            (rs, rowNum) -> new StorageReport.TableUsage(rs.getString("TABLE_NAME"), rs.getString("TABLE_TYPE"),
+                rs.getLong("CARDINALITY")));
+        final Map<String, String> properties = getJdbcTemplate().query(
+            "SELECT PROPERTY_NAME, PROPERTY_VALUE FROM INFORMATION_SCHEMA.SYSTEM_PROPERTIES",
+            (ResultSetExtractor<Map<String, String>>) rs -> {
+                final Map<String, String> values = new HashMap<>();
+                while (rs.next()) {
+                    values.put(rs.getString("PROPERTY_NAME"), rs.getString("PROPERTY_VALUE"));
+                }
+                return values;
+            });
+        final Map<String, String> settings = new LinkedHashMap<>();
+        for (final String name : REPORTED_SETTINGS) {
+            settings.put(name, properties.get(name));
+        }
+        settings.put("checkpoint.interval", String.valueOf(checkpointInterval));
+        long cacheRowLimit = 0;
+        try {
+            cacheRowLimit = Long.parseLong(String.valueOf(properties.get("hsqldb.cache_rows")));
+        } catch (final NumberFormatException e) {
+            log.debug("Unknown cache rows {}", properties.get("hsqldb.cache_rows"));
+        }
+        return new StorageReport(profile.name(), tables, settings, cacheRowLimit);
+    }
+
+    /**
+     * @param cacheRows
+     *            the number of rows of CACHED tables held in the heap at most, 0 to keep the database's setting
+     */
+    public void setCacheRows(final int cacheRows) {
+        this.cacheRows = cacheRows;
+    }
+
+    /**
+     * @param cacheSize
+     *            the total size of the rows of CACHED tables held in the heap at most in KB, 0 to keep the
+     *            database's setting
+     */
+    public void setCacheSize(final int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * @param checkpointInterval
+     *            seconds between checkpoints, 0 to only checkpoint when the log reaches {@link #setLogSize(int)}
+     */
+    public void setCheckpointInterval(final int checkpointInterval) {
+        this.checkpointInterval = Math.max(0, checkpointInterval);
+    }
+
+    public void setDialect(final SqlDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * @param logSize
+     *            the size of the log in MB that triggers a checkpoint, 0 to keep the database's setting
+     */
+    public void setLogSize(final int logSize) {
+        this.logSize = logSize;
+    }
+
+    /**
+     * @param nioDataFile
+     *            true to access the data file through memory mapped NIO, null to keep the database's setting
+     */
+    public void setNioDataFile(final Boolean nioDataFile) {
+        this.nioDataFile = nioDataFile;
+    }
+
+    /**
+     * @param nioMaxSize
+     *            the size of the data file in MB up to which NIO is used, 0 to keep the database's setting
+     */
+    public void setNioMaxSize(final int nioMaxSize) {
+        this.nioMaxSize = nioMaxSize;
+    }
+
+    /**
+     * @param profile
+     *            MEMORY or CACHED, applied on the next {@link #apply()}
+     */
+    public void setProfile(final Profile profile) {
+        this.profile = profile != null ? profile : Profile.MEMORY;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initDao() throws Exception {
+        if (checkpointInterval > 0 && dialect.supportsCachedTables()) {
+            checkpointScheduler =
+                Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("storage-checkpoint-"));
+            checkpointScheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    checkpoint();
+                } catch (final DataAccessException e) {
+                    log.warn("Scheduled checkpoint failed", e);
+                }
+            }, checkpointInterval, checkpointInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Settings are skipped with a warning where they do not apply, e.g. to an in-memory database
+     */
+    private void applySetting(final String setting, final String value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            getJdbcTemplate().execute("SET FILES " + setting + " " + value);
+            log.info("Database setting {} set to {}", setting, value);
+        } catch (final DataAccessException e) {
+            log.warn("Could not set {} to {}", setting, value, e);
+        }
+    }
+
+    /**
+     * @return the type of every table keyed by upper case name
+     */
+    private Map<String, String> getTableTypes() {
+        return getJdbcTemplate().query(
+            "SELECT TABLE_NAME, HSQLDB_TYPE FROM INFORMATION_SCHEMA.SYSTEM_TABLES WHERE TABLE_SCHEM = 'PUBLIC'",
+            (ResultSetExtractor<Map<String, String>>) rs -> {
+                final Map<String, String> types = new HashMap<>();
+                while (rs.next()) {
+                    types.put(rs.getString("TABLE_NAME"), rs.getString("HSQLDB_TYPE"));
+                }
+                return types;
+            });
+    }
+}
@@ -0,0 +1,342 @@
+package com.parasoft.parabank.dao.jdbc.routing;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.parasoft.parabank.dao.jdbc.internal.DatabaseSnapshot;
+import com.parasoft.parabank.dao.jdbc.internal.SchemaMigrator;
+import com.parasoft.parabank.dao.jdbc.internal.SqlDialect;
+
+/**
+ * Keeps replica databases in sync with the primary by shipping a log of the statements committed on it
+ *
+ * A {@link ShippingDataSource} in front of the primary appends the write statements of every committed transaction to
+ * the log, and the replicator replays them on every replica in commit order every {@link #setShipInterval(long)}
+ * milliseconds. A replica is seeded with a {@link DatabaseSnapshot} of the primary when shipping starts, and reseeded
+ * if a statement fails on it.
+ *
+ * This is meant for running replicas of the same engine in-process, e.g. for local scale testing. Commits on the
+ * primary are serialized to keep the log in commit order, and statements executed with auto-commit are logged right
+ * after they complete, so their order relative to concurrent conflicting transactions is not guaranteed.
+ */
+public class LogShippingReplicator implements ReplicaLag, InitializingBean, DisposableBean {
+    /**
+     * A write statement with its parameters
+     */
+    static final class Write {
+        private final String sql;
+
+        private final Object[] args;
+
+        Write(final String sql, final Object[] args) {
+            this.sql = sql;
+            this.args = args;
+        }
+    }
+
+    /**
+     * The writes of one committed transaction
+     */
+    private static final class LogEntry {
+        private final long committedAt = System.currentTimeMillis();
+
+        private final List<Write> writes;
+
+        LogEntry(final List<Write> writes) {
+            this.writes = writes;
+        }
+    }
+
+    private static final long STALE = -1;
+
+    private static final Logger log = LoggerFactory.getLogger(LogShippingReplicator.class);
+
+    private static final Resource CREATE_RESOURCE =
+        new ClassPathResource("com/parasoft/parabank/dao/jdbc/sql/create.sql");
+
+    private final Object commitLock = new Object();
+
+    private final NavigableMap<Long, LogEntry> entries = new ConcurrentSkipListMap<>();
+
+    private long lastSequence;
+
+    private DataSource primary;
+
+    private List<DataSource> replicas = Collections.emptyList();
+
+    private SqlDialect dialect = SqlDialect.HSQLDB;
+
+    private boolean enabled;
+
+    private long shipInterval = 200;
+
+    private AtomicLongArray applied = new AtomicLongArray(0);
+
+    private ScheduledExecutorService shipper;
+
+    /** {@inheritDoc} */
+    @Override
+    public void afterPropertiesSet() {
+        applied = new AtomicLongArray(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            applied.set(i, STALE);
+        }
+        if (!isShipping()) {
+            return;
+        }
+        ship();
+        if (shipInterval > 0) {
+            shipper = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("log-shipping-"));
+            shipper.scheduleWithFixedDelay(() -> {
+                try {
+                    ship();
+                } catch (final RuntimeException e) {
+                    log.warn("Log shipping failed", e);
+                }
+            }, shipInterval, shipInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (shipper != null) {
+            shipper.shutdownNow();
+            shipper = null;
+        }
+    }
+
+    /**
+     * @return the number of committed transactions not yet applied by every replica
+     */
+    public int getBacklog() {
+        return entries.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getLag(final int replica) {
+        if (!isShipping()) {
+            return 0;
+        }
+        final long sequence = applied.get(replica);
+        if (sequence == STALE) {
+            return Long.MAX_VALUE;
+        }
+        final Map.Entry<Long, LogEntry> next = entries.higherEntry(sequence);
+        return next != null ? Math.max(0, System.currentTimeMillis() - next.getValue().committedAt) : 0;
+    }
+
+    /**
+     * @return true if the writes on the primary are logged and shipped to the replicas
+     */
+    public boolean isShipping() {
+        return enabled && !replicas.isEmpty();
+    }
+
+    public void setDialect(final SqlDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * @param enabled
+     *            true to ship the log, false if the replicas are kept in sync by other means
+     */
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param primary
+     *            the primary database itself, not the {@link ShippingDataSource} in front of it
+     */
+    public void setPrimary(final DataSource primary) {
+        this.primary = primary;
+    }
+
+    public void setReplicas(final List<DataSource> replicas) {
+        this.replicas = replicas != null ? new ArrayList<>(replicas) : Collections.<DataSource> emptyList();
+    }
+
+    /**
+     * @param shipInterval
+     *            milliseconds between shipping rounds, 0 to only ship on {@link #ship()}
+     */
+    public void setShipInterval(final long shipInterval) {
+        this.shipInterval = shipInterval;
+    }
+
+    /**
+     * Apply the log to every replica, seeding those that are stale
+     */
+    public synchronized void ship() {
+        for (int i = 0; i < replicas.size(); i++) {
+            final long sequence = applied.get(i);
+            try {
+                if (sequence == STALE) {
+                    seed(i);
+                } else {
+                    apply(i, sequence);
+                }
+            } catch (final DataAccessException e) {
+                log.warn("Replica {} is out of sync and will be reseeded", i, e);
+                applied.set(i, STALE);
+            }
+        }
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            if (applied.get(i) != STALE) {
+                oldest = Math.min(oldest, applied.get(i));
+            }
+        }
+        // stale replicas are reseeded, so they do not need the log
+        entries.headMap(oldest, true).clear();
+    }
+
+    /**
+     * Commit a transaction on the primary and log its writes, in the same order for every transaction
+     */
+    void commit(final Connection connection, final List<Write> writes) throws SQLException {
+        synchronized (commitLock) {
+            connection.commit();
+            append(writes);
+        }
+    }
+
+    /**
+     * Log the writes of a committed transaction
+     */
+    void append(final List<Write> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        synchronized (commitLock) {
+            entries.put(++lastSequence, new LogEntry(new ArrayList<>(writes)));
+        }
+    }
+
+    /**
+     * @return true if the statement changes the database and has to be shipped
+     */
+    static boolean isWrite(final String sql) {
+        if (sql == null) {
+            return false;
+        }
+        final String trimmed = sql.trim();
+        final int end = trimmed.indexOf(' ');
+        switch ((end < 0 ? trimmed : trimmed.substring(0, end)).toUpperCase(Locale.ROOT)) {
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "MERGE":
+            case "TRUNCATE":
+            case "CREATE":
+            case "ALTER":
+            case "DROP":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void apply(final int replica, final long sequence) {
+        final List<LogEntry> pending = new ArrayList<>(entries.tailMap(sequence, false).values());
+        if (pending.isEmpty()) {
+            return;
+        }
+        final long last = sequence + pending.size();
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(replicas.get(replica));
+        new TransactionTemplate(new DataSourceTransactionManager(replicas.get(replica))).executeWithoutResult(
+            status -> {
+                for (final LogEntry entry : pending) {
+                    replay(jdbcTemplate, entry.writes);
+                }
+            });
+        applied.set(replica, last);
+        log.debug("Shipped {} transaction(s) to replica {}", pending.size(), replica);
+    }
+
+    /**
+     * Consecutive executions of the same statement are replayed as one batch
+     */
+    private static void replay(final JdbcTemplate jdbcTemplate, final List<Write> writes) {
+        int from = 0;
+        while (from < writes.size()) {
+            final String sql = writes.get(from).sql;
+            int to = from + 1;
+            while (to < writes.size() && sql.equals(writes.get(to).sql)) {
+                to++;
+            }
+            if (to - from == 1 && writes.get(from).args.length == 0) {
+                jdbcTemplate.update(sql);
+            } else {
+                final List<Object[]> batch = new ArrayList<>(to - from);
+                for (final Write write : writes.subList(from, to)) {
+                    batch.add(write.args);
+                }
+                jdbcTemplate.batchUpdate(sql, batch);
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Create the schema of the replica if it has none and copy every table of the primary to it, while no
+     * transaction can commit on the primary
+     */
+    private void seed(final int replica) {
+        final DataSource dataSource = replicas.get(replica);
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        final Boolean hasSchema = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            try (ResultSet rs = con.getMetaData().getTables(dialect.getCatalog(), dialect.getSchema(), "STOCK", null)) {
+                return rs.next();
+            }
+        });
+        if (!Boolean.TRUE.equals(hasSchema)) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                ScriptUtils.executeSqlScript(con, CREATE_RESOURCE);
+                return null;
+            });
+        }
+        final SchemaMigrator migrator = new SchemaMigrator();
+        migrator.setDataSource(dataSource);
+        migrator.afterPropertiesSet();
+        migrator.migrate();
+
+        final long start = System.nanoTime();
+        synchronized (commitLock) {
+            final DatabaseSnapshot snapshot = DatabaseSnapshot.capture(new JdbcTemplate(primary), null);
+            snapshot.restore(jdbcTemplate, dialect, true);
+            applied.set(replica, lastSequence);
+            log.info("Seeded replica {} with {} in {} ms", replica, snapshot,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+}
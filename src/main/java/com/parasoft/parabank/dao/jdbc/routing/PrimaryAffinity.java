@@ -0,0 +1,69 @@
+package com.parasoft.parabank.dao.jdbc.routing;
+
+/**
+ * Remembers when the current thread last wrote to the primary database
+ *
+ * Reads shortly after a write are routed to the primary, so a user sees their own changes even if the replicas have
+ * not caught up yet. The web layer binds the time of the session's last write to the request thread and stores it back
+ * in the session afterwards.
+ *
+ * Writes are only recorded while a scope is bound with {@link #setLastWrite(Long)}, so threads nobody clears, e.g. web
+ * service requests and background jobs, never keep a stale affinity.
+ */
+public final class PrimaryAffinity {
+    private static final class Scope {
+        private Long lastWrite;
+    }
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private PrimaryAffinity() {
+    }
+
+    /**
+     * Unbind the scope of the current thread and forget its last write
+     */
+    public static void clear() {
+        SCOPE.remove();
+    }
+
+    /**
+     * @return the time of the last write of the current thread in milliseconds, null if there was none
+     */
+    public static Long getLastWrite() {
+        final Scope scope = SCOPE.get();
+        return scope != null ? scope.lastWrite : null;
+    }
+
+    /**
+     * @param millis
+     *            the duration of the affinity in milliseconds
+     * @return true if the current thread wrote to the primary less than the given duration ago
+     */
+    public static boolean isBound(final long millis) {
+        final Long lastWrite = getLastWrite();
+        return lastWrite != null && millis > 0 && System.currentTimeMillis() - lastWrite < millis;
+    }
+
+    /**
+     * Record a write of the current thread, ignored if no scope is bound
+     */
+    public static void markWrite() {
+        final Scope scope = SCOPE.get();
+        if (scope != null) {
+            scope.lastWrite = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Bind a scope to the current thread, to be unbound with {@link #clear()}
+     *
+     * @param lastWrite
+     *            the time of the last write in milliseconds, e.g. as stored in the session, null for none
+     */
+    public static void setLastWrite(final Long lastWrite) {
+        final Scope scope = new Scope();
+        scope.lastWrite = lastWrite;
+        SCOPE.set(scope);
+    }
+}
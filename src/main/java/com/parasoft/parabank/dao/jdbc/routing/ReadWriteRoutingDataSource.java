@@ -0,0 +1,115 @@
+package com.parasoft.parabank.dao.jdbc.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes read-only transactions to the replicas and everything else to the primary
+ *
+ * Replicas are used round robin and skipped while they lag more than {@link #setMaxReplicaLag(long)} behind the
+ * primary. A thread that wrote less than {@link #setStickyPrimary(long)} ago reads from the primary, see
+ * {@link PrimaryAffinity}. Without usable replicas every connection comes from the primary.
+ *
+ * The read-only flag of the transaction is only known once it has begun, so the routing DataSource has to be wrapped
+ * in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which fetches the connection on the
+ * first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String PRIMARY = "primary";
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private DataSource primary;
+
+    private List<DataSource> replicas = Collections.emptyList();
+
+    private ReplicaLag replicaLag;
+
+    private long maxReplicaLag = 1000;
+
+    private long stickyPrimary = 5000;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /** {@inheritDoc} */
+    @Override
+    public void afterPropertiesSet() {
+        final Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        super.afterPropertiesSet();
+        log.info("Routing read-only transactions to {} replica(s)", replicas.size());
+    }
+
+    /**
+     * @param maxReplicaLag
+     *            milliseconds a replica may lag behind the primary and still serve reads
+     */
+    public void setMaxReplicaLag(final long maxReplicaLag) {
+        this.maxReplicaLag = maxReplicaLag;
+    }
+
+    public void setPrimary(final DataSource primary) {
+        this.primary = primary;
+    }
+
+    /**
+     * @param replicaLag
+     *            the lag of the replicas, null to consider them up to date
+     */
+    public void setReplicaLag(final ReplicaLag replicaLag) {
+        this.replicaLag = replicaLag;
+    }
+
+    public void setReplicas(final List<DataSource> replicas) {
+        this.replicas = replicas != null ? new ArrayList<>(replicas) : Collections.<DataSource> emptyList();
+    }
+
+    /**
+     * @param stickyPrimary
+     *            milliseconds reads go to the primary after a write of the same session, 0 to never stick
+     */
+    public void setStickyPrimary(final long stickyPrimary) {
+        this.stickyPrimary = stickyPrimary;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                PrimaryAffinity.markWrite();
+            }
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || PrimaryAffinity.isBound(stickyPrimary)) {
+            return PRIMARY;
+        }
+        final int start = nextReplica.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            final int replica = Math.floorMod(start + i, replicas.size());
+            final long lag = replicaLag != null ? replicaLag.getLag(replica) : 0;
+            if (lag <= maxReplicaLag) {
+                return replica;
+            }
+            log.debug("Skipping replica {} lagging {} ms behind", replica, lag);
+        }
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,14 @@
+package com.parasoft.parabank.dao.jdbc.routing;
+
+/**
+ * Tells how far each replica is behind the primary
+ */
+public interface ReplicaLag {
+    /**
+     * @param replica
+     *            the index of the replica in the configured replica list
+     * @return the age in milliseconds of the oldest change the replica has not applied yet, 0 if it is up to date and
+     *         {@link Long#MAX_VALUE} if it cannot be used at all
+     */
+    long getLag(int replica);
+}
@@ -0,0 +1,83 @@
+package com.parasoft.parabank.dao.jdbc.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Connection pools of the replica databases, one per configured URL
+ */
+public class ReplicaSet implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private final List<BasicDataSource> dataSources = new ArrayList<>();
+
+    private String driverClassName;
+
+    private String username;
+
+    private String password;
+
+    @Override
+    public void afterPropertiesSet() {
+        for (final BasicDataSource dataSource : dataSources) {
+            dataSource.setDriverClassName(driverClassName);
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (final BasicDataSource dataSource : dataSources) {
+            dataSource.close();
+        }
+        dataSources.clear();
+    }
+
+    /**
+     * @return the pools of the replicas in the order of their URLs
+     */
+    public List<DataSource> getDataSources() {
+        return Collections.unmodifiableList(new ArrayList<DataSource>(dataSources));
+    }
+
+    public void setDriverClassName(final String driverClassName) {
+        this.driverClassName = driverClassName;
+    }
+
+    public void setPassword(final String password) {
+        this.password = password;
+    }
+
+    /**
+     * @param urls
+     *            comma separated JDBC URLs of the replicas, empty for none
+     */
+    public void setUrls(final String urls) {
+        dataSources.clear();
+        if (urls == null) {
+            return;
+        }
+        for (final String url : urls.split(",")) {
+            if (!url.trim().isEmpty()) {
+                final BasicDataSource dataSource = new BasicDataSource();
+                dataSource.setUrl(url.trim());
+                dataSources.add(dataSource);
+                log.info("Replica {} at {}", dataSources.size() - 1, url.trim());
+            }
+        }
+    }
+
+    public void setUsername(final String username) {
+        this.username = username;
+    }
+}
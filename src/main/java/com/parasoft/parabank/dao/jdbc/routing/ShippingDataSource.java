@@ -0,0 +1,217 @@
+package com.parasoft.parabank.dao.jdbc.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.parasoft.parabank.dao.jdbc.routing.LogShippingReplicator.Write;
+
+/**
+ * The primary database as seen by the application, logging every committed write for the
+ * {@link LogShippingReplicator}
+ *
+ * Connections are handed out unchanged while the replicator is not shipping.
+ */
+public class ShippingDataSource extends DelegatingDataSource {
+    /**
+     * Buffers the writes of the current transaction and logs them on commit
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private final List<Write> pending = new ArrayList<>();
+
+        private Connection proxy;
+
+        ConnectionHandler(final Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statement(PreparedStatement.class, (Statement) call(method, args), (String) args[0]);
+                case "createStatement":
+                    return statement(Statement.class, (Statement) call(method, args), null);
+                case "commit":
+                    replicator.commit(target, pending);
+                    pending.clear();
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        pending.clear();
+                    }
+                    return call(method, args);
+                case "setAutoCommit":
+                    final boolean commits = (Boolean) args[0] && !target.getAutoCommit();
+                    call(method, args);
+                    if (commits) {
+                        replicator.append(pending);
+                        pending.clear();
+                    }
+                    return null;
+                case "close":
+                    // an unfinished transaction is rolled back when the connection is returned
+                    pending.clear();
+                    return call(method, args);
+                default:
+                    return call(method, args);
+            }
+        }
+
+        /**
+         * Statements the database has executed
+         */
+        void executed(final List<Write> writes) throws SQLException {
+            if (writes.isEmpty()) {
+                return;
+            }
+            if (target.getAutoCommit()) {
+                replicator.append(writes);
+            } else {
+                pending.addAll(writes);
+            }
+        }
+
+        private Object call(final Method method, final Object[] args) throws Throwable {
+            return invokeTarget(target, method, args);
+        }
+
+        private <T extends Statement> T statement(final Class<T> type, final Statement statement, final String sql) {
+            return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type },
+                new StatementHandler(this, statement, sql)));
+        }
+    }
+
+    /**
+     * Collects the parameters of a statement and reports its writes once they have been executed
+     */
+    private static final class StatementHandler implements InvocationHandler {
+        private final ConnectionHandler connection;
+
+        private final Statement target;
+
+        private final String sql;
+
+        private Object[] params = new Object[0];
+
+        private final List<Write> batch = new ArrayList<>();
+
+        StatementHandler(final ConnectionHandler connection, final Statement target, final String sql) {
+            this.connection = connection;
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            if (sql != null && name.startsWith("set") && args != null && args.length >= 2
+                && args[0] instanceof Integer) {
+                setParameter((Integer) args[0], "setNull".equals(name)
+                    ? new SqlParameterValue((Integer) args[1], null) : args[1]);
+                return invokeTarget(target, method, args);
+            }
+            switch (name) {
+                case "clearParameters":
+                    params = new Object[0];
+                    break;
+                case "addBatch":
+                    final String batchSql = args != null ? (String) args[0] : sql;
+                    if (LogShippingReplicator.isWrite(batchSql)) {
+                        batch.add(new Write(batchSql, args != null ? new Object[0] : params.clone()));
+                    }
+                    break;
+                case "clearBatch":
+                    batch.clear();
+                    break;
+                case "executeBatch":
+                case "executeLargeBatch":
+                    final Object counts = invokeTarget(target, method, args);
+                    connection.executed(new ArrayList<>(batch));
+                    batch.clear();
+                    return counts;
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    final Object result = invokeTarget(target, method, args);
+                    final boolean prepared = args == null || args.length == 0;
+                    final String executed = prepared ? sql : (String) args[0];
+                    if (LogShippingReplicator.isWrite(executed)) {
+                        connection.executed(Collections.singletonList(
+                            new Write(executed, prepared ? params.clone() : new Object[0])));
+                    }
+                    return result;
+                case "getConnection":
+                    return connection.proxy;
+                default:
+                    break;
+            }
+            return invokeTarget(target, method, args);
+        }
+
+        private void setParameter(final int index, final Object value) {
+            if (index > params.length) {
+                params = Arrays.copyOf(params, index);
+            }
+            params[index - 1] = value;
+        }
+    }
+
+    private LogShippingReplicator replicator;
+
+    public ShippingDataSource() {
+    }
+
+    public ShippingDataSource(final DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    public void setReplicator(final LogShippingReplicator replicator) {
+        this.replicator = replicator;
+    }
+
+    private Connection wrap(final Connection connection) {
+        if (replicator == null || !replicator.isShipping()) {
+            return connection;
+        }
+        final ConnectionHandler handler = new ConnectionHandler(connection);
+        handler.proxy = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { Connection.class }, handler);
+        return handler.proxy;
+    }
+
+    private static Object invokeTarget(final Object target, final Method method, final Object[] args)
+        throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.parasoft.parabank.dao.AccountDao;
+import com.parasoft.parabank.dao.AdminDao;
+import com.parasoft.parabank.dao.CustomerDao;
+import com.parasoft.parabank.dao.PositionDao;
+import com.parasoft.parabank.dao.TransactionDao;
+import com.parasoft.parabank.dao.jdbc.JdbcSequenceDao;
+
+/**
+ * One database of a {@link ShardSet} together with the DAOs working on it
+ */
+public final class Shard {
+    private final int index;
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JdbcSequenceDao sequenceDao;
+
+    private final CustomerDao customerDao;
+
+    private final AccountDao accountDao;
+
+    private final PositionDao positionDao;
+
+    private final TransactionDao transactionDao;
+
+    private final AdminDao adminDao;
+
+    Shard(final int index, final DataSource dataSource, final JdbcSequenceDao sequenceDao,
+        final CustomerDao customerDao, final AccountDao accountDao, final PositionDao positionDao,
+        final TransactionDao transactionDao, final AdminDao adminDao) {
+        this.index = index;
+        this.dataSource = dataSource;
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        this.sequenceDao = sequenceDao;
+        this.customerDao = customerDao;
+        this.accountDao = accountDao;
+        this.positionDao = positionDao;
+        this.transactionDao = transactionDao;
+        this.adminDao = adminDao;
+    }
+
+    public AccountDao getAccountDao() {
+        return accountDao;
+    }
+
+    /**
+     * @return the DAO that creates and resets this shard's tables, null for shard 0 whose tables belong to the
+     *         application's own AdminDao
+     */
+    public AdminDao getAdminDao() {
+        return adminDao;
+    }
+
+    public CustomerDao getCustomerDao() {
+        return customerDao;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public PositionDao getPositionDao() {
+        return positionDao;
+    }
+
+    public JdbcSequenceDao getSequenceDao() {
+        return sequenceDao;
+    }
+
+    public TransactionDao getTransactionDao() {
+        return transactionDao;
+    }
+
+    /**
+     * @return true if the row with the given id belongs to this shard and not only a copy of a fixture
+     */
+    public boolean owns(final long id) {
+        return ShardIds.getShard(id) == index;
+    }
+
+    @Override
+    public String toString() {
+        return "Shard " + index;
+    }
+}
@@ -0,0 +1,63 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+/**
+ * Ids that carry the shard of their row
+ *
+ * The shard index is stored in bits 26 to 30 of every id generated by a {@link ShardSequenceDao}, so the owner of a
+ * customer, account, position or transaction is known from its id alone. The low 26 bits of the id within the shard
+ * stay below the shard index and the bits above them move up to bit 31 and higher, so every id that fits into an int
+ * keeps the layout it had when ids were 32 bit. Shard 0 leaves ids below 2^26 untouched, which makes every id created
+ * before sharding was enabled, including the fixtures of insert.sql, an id of shard 0.
+ */
+public final class ShardIds {
+    /**
+     * Number of low bits holding the id within its shard
+     */
+    public static final int SHIFT = 26;
+
+    public static final int MAX_SHARDS = 1 << (31 - SHIFT);
+
+    /**
+     * The largest id within a shard
+     */
+    public static final long MAX_LOCAL_ID = (1L << (63 - (31 - SHIFT))) - 1;
+
+    /**
+     * The largest id within a shard whose composed id still fits into an int
+     */
+    public static final int MAX_INT32_LOCAL_ID = (1 << SHIFT) - 1;
+
+    private ShardIds() {
+    }
+
+    /**
+     * @param shard
+     *            the index of the shard
+     * @param localId
+     *            an id generated by the Sequence table of the shard
+     * @return the id carrying the shard
+     */
+    public static long compose(final int shard, final long localId) {
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard " + shard + " is not between 0 and " + (MAX_SHARDS - 1));
+        }
+        if (localId < 0 || localId > MAX_LOCAL_ID) {
+            throw new IllegalStateException("Id " + localId + " exceeds the " + MAX_LOCAL_ID + " ids of a shard");
+        }
+        return (localId >>> SHIFT) << 31 | (long) shard << SHIFT | localId & MAX_INT32_LOCAL_ID;
+    }
+
+    /**
+     * @return the id within its shard
+     */
+    public static long getLocalId(final long id) {
+        return (id >>> 31) << SHIFT | id & MAX_INT32_LOCAL_ID;
+    }
+
+    /**
+     * @return the index of the shard that owns the id
+     */
+    public static int getShard(final long id) {
+        return (int) (id >>> SHIFT) & MAX_SHARDS - 1;
+    }
+}
@@ -0,0 +1,71 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring placing keys on shards
+ *
+ * Every shard owns a number of virtual nodes spread over the ring and a key belongs to the shard of the first node at
+ * or after its hash. Adding a shard only moves the keys that now hash to one of its nodes, about 1/N of them, all
+ * other keys keep their shard.
+ */
+public final class ShardRing {
+    public static final int DEFAULT_VIRTUAL_NODES = 64;
+
+    private final NavigableMap<Long, Integer> nodes = new TreeMap<>();
+
+    private final int shards;
+
+    /**
+     * @param shards
+     *            the number of shards
+     * @param virtualNodes
+     *            the number of nodes of each shard, more nodes spread the keys more evenly
+     */
+    public ShardRing(final int shards, final int virtualNodes) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("A ring needs at least one shard");
+        }
+        this.shards = shards;
+        final int replicas = Math.max(1, virtualNodes);
+        for (int shard = 0; shard < shards; shard++) {
+            for (int node = 0; node < replicas; node++) {
+                nodes.putIfAbsent(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    /**
+     * @param key
+     *            the key to place, e.g. a username
+     * @return the index of the shard the key belongs to
+     */
+    public int getShard(final String key) {
+        final Map.Entry<Long, Integer> node = nodes.ceilingEntry(hash(key));
+        return node != null ? node.getValue() : nodes.firstEntry().getValue();
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * 64 bit FNV-1a of the UTF-8 bytes, finished with the MurmurHash3 mix so similar keys land far apart
+     */
+    static long hash(final String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : String.valueOf(key).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,52 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import com.parasoft.parabank.dao.jdbc.JdbcSequenceDao;
+
+/**
+ * Sequence of one shard, handing out ids that carry the shard
+ *
+ * The Sequence table of every shard counts the ids within the shard, the shard index is added on top, see
+ * {@link ShardIds}. Ids reserved as a range stay {@link #OFFSET} apart as long as their local ids share the bits above
+ * the shard, a range that would cross into the next 2^26 local ids is reserved again behind it.
+ */
+public class ShardSequenceDao extends JdbcSequenceDao {
+    private int shard;
+
+    public int getShard() {
+        return shard;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getNextId(final String name) {
+        return ShardIds.compose(shard, super.getNextId(name));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long reserveIds(final String name, final int count) {
+        long first = super.reserveIds(name, count);
+        final long span = (count - 1L) * OFFSET;
+        if (first >>> ShardIds.SHIFT != (first + span) >>> ShardIds.SHIFT) {
+            first = super.reserveIds(name, count);
+            if (first >>> ShardIds.SHIFT != (first + span) >>> ShardIds.SHIFT) {
+                throw new IllegalArgumentException("Cannot reserve " + count + " ids of " + name + " in one range");
+            }
+        }
+        // fails if the last id of the range no longer fits into the shard
+        ShardIds.compose(shard, first + span);
+        return ShardIds.compose(shard, first);
+    }
+
+    public void setShard(final int shard) {
+        // fails for an index outside of 0 .. MAX_SHARDS - 1
+        ShardIds.compose(shard, 0);
+        this.shard = shard;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected long getMaxId() {
+        return isInt32Compatible() ? ShardIds.MAX_INT32_LOCAL_ID : ShardIds.MAX_LOCAL_ID;
+    }
+}
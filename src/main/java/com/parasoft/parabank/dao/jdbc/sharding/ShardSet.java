@@ -0,0 +1,300 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.parasoft.parabank.dao.jdbc.JdbcAccountDao;
+import com.parasoft.parabank.dao.jdbc.JdbcAdminDao;
+import com.parasoft.parabank.dao.jdbc.JdbcCustomerDao;
+import com.parasoft.parabank.dao.jdbc.JdbcPositionDao;
+import com.parasoft.parabank.dao.jdbc.JdbcSequenceDao;
+import com.parasoft.parabank.dao.jdbc.JdbcTransactionDao;
+import com.parasoft.parabank.dao.jdbc.StockPriceStore;
+import com.parasoft.parabank.dao.jdbc.internal.SchemaMigrator;
+import com.parasoft.parabank.dao.jdbc.internal.SqlDialect;
+
+/**
+ * The databases customers are spread over
+ *
+ * Shard 0 is the application's own DataSource, which also keeps everything that is not owned by a customer, like
+ * parameters, news and market data. Every further shard is a connection pool for one of the configured URLs with a
+ * complete copy of the schema and fixtures, created and reset by its own {@link JdbcAdminDao}.
+ *
+ * New customers are placed on the shard the {@link ShardRing} picks for their username. Their accounts, positions and
+ * transactions are created on the same shard, and every id carries its shard, see {@link ShardIds}.
+ */
+public class ShardSet implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ShardSet.class);
+
+    private final List<BasicDataSource> pools = new ArrayList<>();
+
+    private List<Shard> shards = Collections.emptyList();
+
+    private ShardRing ring;
+
+    private DataSource dataSource;
+
+    private JdbcSequenceDao sequenceDao;
+
+    private SqlDialect dialect = SqlDialect.HSQLDB;
+
+    private StockPriceStore stockPriceStore;
+
+    private Map<String, Integer> blockSizes = Collections.emptyMap();
+
+    private int virtualNodes = ShardRing.DEFAULT_VIRTUAL_NODES;
+
+    private String driverClassName;
+
+    private String username;
+
+    private String password;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (dataSource == null || sequenceDao == null) {
+            throw new IllegalArgumentException("The dataSource and sequenceDao of shard 0 are required");
+        }
+        if (pools.size() >= ShardIds.MAX_SHARDS) {
+            throw new IllegalArgumentException("At most " + ShardIds.MAX_SHARDS + " shards are supported");
+        }
+        final List<Shard> created = new ArrayList<>(pools.size() + 1);
+        created.add(createShard(0, dataSource, sequenceDao, null));
+        for (final BasicDataSource pool : pools) {
+            pool.setDriverClassName(driverClassName);
+            pool.setUsername(username);
+            pool.setPassword(password);
+
+            final int index = created.size();
+            final LazyConnectionDataSourceProxy shardDataSource = new LazyConnectionDataSourceProxy(pool);
+            final ShardSequenceDao shardSequenceDao = new ShardSequenceDao();
+            shardSequenceDao.setShard(index);
+            shardSequenceDao.setDataSource(shardDataSource);
+            shardSequenceDao.setBlockSizes(blockSizes);
+            shardSequenceDao.setInt32Compatible(sequenceDao.isInt32Compatible());
+            shardSequenceDao.afterPropertiesSet();
+
+            final SchemaMigrator schemaMigrator = new SchemaMigrator();
+            schemaMigrator.setDataSource(shardDataSource);
+            schemaMigrator.afterPropertiesSet();
+            final JdbcAdminDao adminDao = new JdbcAdminDao();
+            adminDao.setDataSource(shardDataSource);
+            adminDao.setDialect(dialect);
+            adminDao.setSequenceDao(shardSequenceDao);
+            adminDao.setSchemaMigrator(schemaMigrator);
+            adminDao.setInserters(Collections.emptyList());
+            adminDao.afterPropertiesSet();
+
+            created.add(createShard(index, shardDataSource, shardSequenceDao, adminDao));
+        }
+        shards = Collections.unmodifiableList(created);
+        ring = new ShardRing(shards.size(), virtualNodes);
+        log.info("Spreading customers over {} shard(s)", shards.size());
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (final BasicDataSource pool : pools) {
+            pool.close();
+        }
+        pools.clear();
+    }
+
+    /**
+     * @return the DataSources of all shards in the order of their index
+     */
+    public List<DataSource> getDataSources() {
+        final List<DataSource> dataSources = new ArrayList<>(shards.size());
+        for (final Shard shard : shards) {
+            dataSources.add(shard.getDataSource());
+        }
+        return dataSources;
+    }
+
+    /**
+     * @return the shard owning the row with the given id
+     * @throws EmptyResultDataAccessException
+     *             if the id belongs to a shard that is not configured, so no row with that id can exist
+     */
+    public Shard getShard(final long id) {
+        final int index = ShardIds.getShard(id);
+        if (index >= shards.size()) {
+            throw new EmptyResultDataAccessException("Id " + id + " belongs to unknown shard " + index, 1);
+        }
+        return shards.get(index);
+    }
+
+    /**
+     * @return the shard new customers with the given username are created on
+     */
+    public Shard getShardForKey(final String key) {
+        return shards.get(ring.getShard(key));
+    }
+
+    /**
+     * @return all shards in the order of their index
+     */
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    /**
+     * Split items by the shard owning them
+     *
+     * @param items
+     *            the items to split
+     * @param id
+     *            the id of an item that identifies its shard
+     * @return the items of every shard that owns any, in the order of the shard index and the given order within a
+     *         shard
+     */
+    public <T> Map<Shard, List<T>> groupByShard(final Collection<T> items, final ToLongFunction<T> id) {
+        final Map<Integer, List<T>> groups = new HashMap<>();
+        for (final T item : items) {
+            groups.computeIfAbsent(getShard(id.applyAsLong(item)).getIndex(), index -> new ArrayList<>()).add(item);
+        }
+        final Map<Shard, List<T>> grouped = new LinkedHashMap<>();
+        for (final Shard shard : shards) {
+            final List<T> group = groups.get(shard.getIndex());
+            if (group != null) {
+                grouped.put(shard, group);
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * @return all shards, the one the key is placed on first, for lookups by a key that is not part of the id
+     */
+    public List<Shard> inLookupOrder(final String key) {
+        final Shard first = getShardForKey(key);
+        final List<Shard> ordered = new ArrayList<>(shards.size());
+        ordered.add(first);
+        for (final Shard shard : shards) {
+            if (shard != first) {
+                ordered.add(shard);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * @param blockSizes
+     *            number of ids to reserve per round trip on every further shard, keyed by sequence name
+     */
+    public void setBlockSizes(final Map<String, Integer> blockSizes) {
+        this.blockSizes = blockSizes == null ? Collections.emptyMap() : new HashMap<>(blockSizes);
+    }
+
+    /**
+     * @param dataSource
+     *            the application's DataSource, shard 0
+     */
+    public void setDataSource(final DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void setDialect(final SqlDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    public void setDriverClassName(final String driverClassName) {
+        this.driverClassName = driverClassName;
+    }
+
+    public void setPassword(final String password) {
+        this.password = password;
+    }
+
+    /**
+     * @param sequenceDao
+     *            the application's sequence, which generates the ids of shard 0; the sequences of the further
+     *            shards follow its {@link JdbcSequenceDao#setInt32Compatible(boolean) 32-bit compatible} mode
+     */
+    public void setSequenceDao(final JdbcSequenceDao sequenceDao) {
+        this.sequenceDao = sequenceDao;
+    }
+
+    /**
+     * @param stockPriceStore
+     *            closing prices of shard 0, used for the positions of every shard
+     */
+    public void setStockPriceStore(final StockPriceStore stockPriceStore) {
+        this.stockPriceStore = stockPriceStore;
+    }
+
+    /**
+     * @param urls
+     *            comma separated JDBC URLs of the shards after shard 0, empty for none
+     */
+    public void setUrls(final String urls) {
+        pools.clear();
+        if (urls == null) {
+            return;
+        }
+        for (final String url : urls.split(",")) {
+            if (!url.trim().isEmpty()) {
+                final BasicDataSource pool = new BasicDataSource();
+                pool.setUrl(url.trim());
+                pools.add(pool);
+                log.info("Shard {} at {}", pools.size(), url.trim());
+            }
+        }
+    }
+
+    public void setUsername(final String username) {
+        this.username = username;
+    }
+
+    /**
+     * @param virtualNodes
+     *            nodes of every shard on the ring
+     */
+    public void setVirtualNodes(final int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    private Shard createShard(final int index, final DataSource shardDataSource,
+        final JdbcSequenceDao shardSequenceDao, final JdbcAdminDao adminDao) {
+        final JdbcCustomerDao customerDao = new JdbcCustomerDao();
+        customerDao.setDataSource(shardDataSource);
+        customerDao.setSequenceDao(shardSequenceDao);
+        customerDao.afterPropertiesSet();
+
+        final JdbcAccountDao accountDao = new JdbcAccountDao();
+        accountDao.setDataSource(shardDataSource);
+        accountDao.setSequenceDao(shardSequenceDao);
+        accountDao.afterPropertiesSet();
+
+        final JdbcPositionDao positionDao = new JdbcPositionDao();
+        positionDao.setDataSource(shardDataSource);
+        positionDao.setSequenceDao(shardSequenceDao);
+        positionDao.setStockPriceStore(stockPriceStore);
+        positionDao.afterPropertiesSet();
+
+        final JdbcTransactionDao transactionDao = new JdbcTransactionDao();
+        transactionDao.setDataSource(shardDataSource);
+        transactionDao.setSequenceDao(shardSequenceDao);
+        transactionDao.setDialect(dialect);
+        transactionDao.afterPropertiesSet();
+
+        return new Shard(index, shardDataSource, shardSequenceDao, customerDao, accountDao, positionDao, transactionDao,
+            adminDao);
+    }
+}
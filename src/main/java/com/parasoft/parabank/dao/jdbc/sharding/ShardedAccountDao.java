@@ -0,0 +1,117 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.parasoft.parabank.dao.AccountDao;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.BalanceSummary;
+
+/**
+ * AccountDao that keeps every account on the shard of its customer
+ *
+ * Changes of several accounts are split by shard. They commit together with the caller's transaction, which only
+ * spans shards under the {@link ShardedTransactionManager}.
+ */
+public class ShardedAccountDao implements AccountDao {
+    private final ShardSet shardSet;
+
+    public ShardedAccountDao(final ShardSet shardSet) {
+        this.shardSet = shardSet;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#adjustBalance(long, java.math.BigDecimal)
+     */
+    @Override
+    public BigDecimal adjustBalance(final long id, final BigDecimal amount) {
+        return shardSet.getShard(id).getAccountDao().adjustBalance(id, amount);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#adjustBalances(java.util.Map)
+     */
+    @Override
+    public void adjustBalances(final Map<Long, BigDecimal> amounts) {
+        for (final Map.Entry<Shard, List<Long>> group : shardSet.groupByShard(amounts.keySet(), id -> id)
+            .entrySet()) {
+            final Map<Long, BigDecimal> shardAmounts = new LinkedHashMap<>();
+            for (final Long id : group.getValue()) {
+                shardAmounts.put(id, amounts.get(id));
+            }
+            group.getKey().getAccountDao().adjustBalances(shardAmounts);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#createAccount(com.parasoft.parabank.domain.Account)
+     */
+    @Override
+    public long createAccount(final Account account) {
+        return shardSet.getShard(account.getCustomerId()).getAccountDao().createAccount(account);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccount(long)
+     */
+    @Override
+    public Account getAccount(final long id) {
+        return shardSet.getShard(id).getAccountDao().getAccount(id);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccounts(java.util.Collection)
+     */
+    @Override
+    public List<Account> getAccounts(final Collection<Long> ids) {
+        final List<Account> accounts = new ArrayList<>(ids.size());
+        for (final Map.Entry<Shard, List<Long>> group : shardSet.groupByShard(ids, id -> id).entrySet()) {
+            accounts.addAll(group.getKey().getAccountDao().getAccounts(group.getValue()));
+        }
+        return accounts;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccountsForCustomerId(long)
+     */
+    @Override
+    public List<Account> getAccountsForCustomerId(final long customerId) {
+        return shardSet.getShard(customerId).getAccountDao().getAccountsForCustomerId(customerId);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getBalanceSummary(long)
+     */
+    @Override
+    public BalanceSummary getBalanceSummary(final long customerId) {
+        return shardSet.getShard(customerId).getAccountDao().getBalanceSummary(customerId);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#updateAccount(com.parasoft.parabank.domain.Account)
+     */
+    @Override
+    public void updateAccount(final Account account) {
+        shardSet.getShard(account.getId()).getAccountDao().updateAccount(account);
+    }
+}
@@ -0,0 +1,129 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import java.util.Map;
+
+import com.parasoft.parabank.dao.ParaBankAdminDao;
+import com.parasoft.parabank.dao.internal.StorageReport;
+
+/**
+ * AdminDao that initializes and resets every shard
+ *
+ * Parameters and storage settings belong to the application and stay on shard 0, so everything else is answered by
+ * the AdminDao of shard 0.
+ */
+public class ShardedAdminDao implements ParaBankAdminDao {
+    private final ParaBankAdminDao adminDao;
+
+    private final ShardSet shardSet;
+
+    /**
+     * @param adminDao
+     *            the AdminDao of shard 0
+     * @param shardSet
+     *            the shards
+     */
+    public ShardedAdminDao(final ParaBankAdminDao adminDao, final ShardSet shardSet) {
+        this.adminDao = adminDao;
+        this.shardSet = shardSet;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#cleanDB()
+     */
+    @Override
+    public void cleanDB() {
+        adminDao.cleanDB();
+        for (final Shard shard : shardSet.getShards()) {
+            if (shard.getAdminDao() != null) {
+                shard.getAdminDao().cleanDB();
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#getParameter(java.lang.String)
+     */
+    @Override
+    public String getParameter(final String name) {
+        return adminDao.getParameter(name);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#getParameters()
+     */
+    @Override
+    public Map<String, String> getParameters() {
+        return adminDao.getParameters();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#getParameterVersion()
+     */
+    @Override
+    public long getParameterVersion() {
+        return adminDao.getParameterVersion();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#getStorageReport()
+     */
+    @Override
+    public StorageReport getStorageReport() {
+        return adminDao.getStorageReport();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#initializeDB()
+     */
+    @Override
+    public void initializeDB() {
+        adminDao.initializeDB();
+        for (final Shard shard : shardSet.getShards()) {
+            if (shard.getAdminDao() != null) {
+                shard.getAdminDao().initializeDB();
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#setParameter(java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setParameter(final String name, final String value) {
+        adminDao.setParameter(name, value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#setParameters(java.util.Map)
+     */
+    @Override
+    public long setParameters(final Map<String, String> parameters) {
+        return adminDao.setParameters(parameters);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#setStorageProfile(java.lang.String)
+     */
+    @Override
+    public void setStorageProfile(final String profile) {
+        adminDao.setStorageProfile(profile);
+    }
+}
@@ -0,0 +1,80 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import com.parasoft.parabank.dao.CustomerDao;
+import com.parasoft.parabank.domain.Customer;
+
+/**
+ * CustomerDao that creates every customer on the shard of its username and finds it by the shard of its id
+ *
+ * Lookups by credentials or SSN do not know the shard. They ask the shard of the username first and then all others,
+ * and skip the copies of the fixtures every shard holds, so a customer is only ever returned by its owning shard.
+ */
+public class ShardedCustomerDao implements CustomerDao {
+    private final ShardSet shardSet;
+
+    public ShardedCustomerDao(final ShardSet shardSet) {
+        this.shardSet = shardSet;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#createCustomer(com.parasoft.parabank.domain.Customer)
+     */
+    @Override
+    public long createCustomer(final Customer customer) {
+        return shardSet.getShardForKey(customer.getUsername()).getCustomerDao().createCustomer(customer);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(long)
+     */
+    @Override
+    public Customer getCustomer(final long id) {
+        return shardSet.getShard(id).getCustomerDao().getCustomer(id);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(java.lang.String)
+     */
+    @Override
+    public Customer getCustomer(final String ssn) {
+        for (final Shard shard : shardSet.getShards()) {
+            final Customer customer = shard.getCustomerDao().getCustomer(ssn);
+            if (customer != null && shard.owns(customer.getId())) {
+                return customer;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(java.lang.String, java.lang.String)
+     */
+    @Override
+    public Customer getCustomer(final String username, final String password) {
+        for (final Shard shard : shardSet.inLookupOrder(username)) {
+            final Customer customer = shard.getCustomerDao().getCustomer(username, password);
+            if (customer != null && shard.owns(customer.getId())) {
+                return customer;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#updateCustomer(com.parasoft.parabank.domain.Customer)
+     */
+    @Override
+    public void updateCustomer(final Customer customer) {
+        shardSet.getShard(customer.getId()).getCustomerDao().updateCustomer(customer);
+    }
+}
@@ -0,0 +1,104 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import java.util.Date;
+import java.util.List;
+
+import com.parasoft.parabank.dao.PositionDao;
+import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
+import com.parasoft.parabank.domain.PortfolioValuation;
+import com.parasoft.parabank.domain.Position;
+
+/**
+ * PositionDao that keeps every position on the shard of its customer
+ */
+public class ShardedPositionDao implements PositionDao {
+    private final ShardSet shardSet;
+
+    public ShardedPositionDao(final ShardSet shardSet) {
+        this.shardSet = shardSet;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#createPosition(com.parasoft.parabank.domain.Position)
+     */
+    @Override
+    public long createPosition(final Position position) {
+        return shardSet.getShard(position.getCustomerId()).getPositionDao().createPosition(position);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#deletePosition(com.parasoft.parabank.domain.Position)
+     */
+    @Override
+    public boolean deletePosition(final Position position) {
+        return shardSet.getShard(position.getPositionId()).getPositionDao().deletePosition(position);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPortfolioValuation(long)
+     */
+    @Override
+    public PortfolioValuation getPortfolioValuation(final long customerId) {
+        return shardSet.getShard(customerId).getPositionDao().getPortfolioValuation(customerId);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPosition(long)
+     */
+    @Override
+    public Position getPosition(final long positionId) {
+        return shardSet.getShard(positionId).getPositionDao().getPosition(positionId);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionHistory(long, java.util.Date, java.util.Date)
+     */
+    @Override
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate) {
+        return shardSet.getShard(positionId).getPositionDao().getPositionHistory(positionId, startDate, endDate);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionHistory(long, java.util.Date, java.util.Date,
+     * com.parasoft.parabank.domain.HistoryPoint.Resolution, java.lang.Integer)
+     */
+    @Override
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate,
+        final Resolution resolution, final Integer maxPoints) {
+        return shardSet.getShard(positionId).getPositionDao().getPositionHistory(positionId, startDate, endDate,
+            resolution, maxPoints);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionsForCustomerId(long)
+     */
+    @Override
+    public List<Position> getPositionsForCustomerId(final long customerId) {
+        return shardSet.getShard(customerId).getPositionDao().getPositionsForCustomerId(customerId);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#updatePosition(com.parasoft.parabank.domain.Position)
+     */
+    @Override
+    public boolean updatePosition(final Position position) {
+        return shardSet.getShard(position.getPositionId()).getPositionDao().updatePosition(position);
+    }
+}
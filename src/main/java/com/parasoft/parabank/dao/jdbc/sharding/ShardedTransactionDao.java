@@ -0,0 +1,109 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.parasoft.parabank.dao.TransactionDao;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.TransactionCriteria;
+
+/**
+ * TransactionDao that keeps every transaction on the shard of its account
+ */
+public class ShardedTransactionDao implements TransactionDao {
+    private final ShardSet shardSet;
+
+    public ShardedTransactionDao(final ShardSet shardSet) {
+        this.shardSet = shardSet;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#createTransaction(com.parasoft.parabank.domain.Transaction)
+     */
+    @Override
+    public long createTransaction(final Transaction transaction) {
+        return shardSet.getShard(transaction.getAccountId()).getTransactionDao().createTransaction(transaction);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#createTransactions(java.util.List)
+     */
+    @Override
+    public void createTransactions(final List<Transaction> transactions) {
+        for (final Map.Entry<Shard, List<Transaction>> group : shardSet
+            .groupByShard(transactions, Transaction::getAccountId).entrySet()) {
+            group.getKey().getTransactionDao().createTransactions(group.getValue());
+        }
+    }
+
+    /**
+     * The shard index is the high part of every account id, so exporting shard by shard keeps the rows ordered by
+     * account
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#exportTransactions(java.util.List, java.util.Date,
+     *      java.util.Date, java.util.function.Consumer)
+     */
+    @Override
+    public int exportTransactions(final List<Long> accountIds, final Date fromDate, final Date toDate,
+        final Consumer<Transaction> consumer) {
+        if (accountIds == null) {
+            return 0;
+        }
+        int count = 0;
+        for (final Map.Entry<Shard, List<Long>> group : shardSet.groupByShard(accountIds, id -> id).entrySet()) {
+            count += group.getKey().getTransactionDao().exportTransactions(group.getValue(), fromDate, toDate,
+                consumer);
+        }
+        return count;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransaction(long)
+     */
+    @Override
+    public Transaction getTransaction(final long id) {
+        return shardSet.getShard(id).getTransactionDao().getTransaction(id);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId) {
+        return shardSet.getShard(accountId).getTransactionDao().getTransactionsForAccount(accountId);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long,
+     * com.parasoft.parabank.domain.TransactionCriteria)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria) {
+        return shardSet.getShard(accountId).getTransactionDao().getTransactionsForAccount(accountId, criteria);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long,
+     * com.parasoft.parabank.domain.TransactionCriteria, java.lang.Long, int)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria,
+        final Long cursor, final int limit) {
+        return shardSet.getShard(accountId).getTransactionDao().getTransactionsForAccount(accountId, criteria,
+            cursor, limit);
+    }
+}
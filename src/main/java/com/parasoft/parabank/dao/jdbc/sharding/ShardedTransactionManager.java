@@ -0,0 +1,237 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.HeuristicCompletionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transaction manager spanning all shards of a {@link ShardSet}
+ *
+ * Every transaction binds a connection for each shard, so the DAOs of a shard join the transaction like they join a
+ * DataSourceTransactionManager's. The shards' DataSources are {@link LazyConnectionDataSourceProxy LazyConnection
+ * proxies}, so only the shards that are actually used open a physical connection and do any work on commit.
+ *
+ * The shards commit one after the other, which is atomic as long as a transaction only writes to one shard. Transfers
+ * between customers of different shards are therefore split into local transactions, see
+ * {@link ShardedTransferOutbox}. If a later shard fails to commit after an earlier one committed, a
+ * {@link HeuristicCompletionException} reports the mixed outcome.
+ */
+public class ShardedTransactionManager extends AbstractPlatformTransactionManager implements InitializingBean {
+    /**
+     * Holder of a shard's connection, active from the start so DataSourceTransactionManagers of the shard join it
+     */
+    private static final class ShardConnectionHolder extends ConnectionHolder {
+        ShardConnectionHolder(final Connection connection) {
+            super(connection);
+            setTransactionActive(true);
+        }
+    }
+
+    /**
+     * The connections of one transaction, one per shard
+     */
+    private static final class ShardedTransaction implements SmartTransactionObject {
+        private List<ConnectionHolder> holders;
+
+        private Integer[] isolationLevels;
+
+        private boolean[] readOnly;
+
+        @Override
+        public void flush() {
+            // nothing is buffered
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            for (final ConnectionHolder holder : holders) {
+                if (holder.isRollbackOnly()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedTransactionManager.class);
+
+    private transient ShardSet shardSet;
+
+    private transient List<DataSource> dataSources;
+
+    public ShardedTransactionManager() {
+        setNestedTransactionAllowed(false);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (shardSet == null) {
+            throw new IllegalArgumentException("Property 'shardSet' is required");
+        }
+        dataSources = shardSet.getDataSources();
+    }
+
+    public void setShardSet(final ShardSet shardSet) {
+        this.shardSet = shardSet;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doBegin(final Object transaction, final TransactionDefinition definition) {
+        final ShardedTransaction tx = (ShardedTransaction) transaction;
+        final List<ConnectionHolder> holders = new ArrayList<>(dataSources.size());
+        tx.isolationLevels = new Integer[dataSources.size()];
+        tx.readOnly = new boolean[dataSources.size()];
+        try {
+            for (int i = 0; i < dataSources.size(); i++) {
+                final Connection con = dataSources.get(i).getConnection();
+                final ConnectionHolder holder = new ShardConnectionHolder(con);
+                holders.add(holder);
+                tx.isolationLevels[i] = DataSourceUtils.prepareConnectionForTransaction(con, definition);
+                tx.readOnly[i] = definition.isReadOnly();
+                con.setAutoCommit(false);
+                holder.setSynchronizedWithTransaction(true);
+                final int timeout = determineTimeout(definition);
+                if (timeout != TransactionDefinition.TIMEOUT_DEFAULT) {
+                    holder.setTimeoutInSeconds(timeout);
+                }
+            }
+        } catch (final SQLException | RuntimeException e) {
+            for (final ConnectionHolder holder : holders) {
+                DataSourceUtils.releaseConnection(holder.getConnection(), null);
+            }
+            throw new CannotCreateTransactionException("Could not open connections to the shards", e);
+        }
+        for (int i = 0; i < holders.size(); i++) {
+            TransactionSynchronizationManager.bindResource(dataSources.get(i), holders.get(i));
+        }
+        TransactionSynchronizationManager.bindResource(this, holders);
+        tx.holders = holders;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doCleanupAfterCompletion(final Object transaction) {
+        final ShardedTransaction tx = (ShardedTransaction) transaction;
+        TransactionSynchronizationManager.unbindResource(this);
+        for (int i = 0; i < tx.holders.size(); i++) {
+            TransactionSynchronizationManager.unbindResource(dataSources.get(i));
+            final ConnectionHolder holder = tx.holders.get(i);
+            final Connection con = holder.getConnection();
+            try {
+                con.setAutoCommit(true);
+                DataSourceUtils.resetConnectionAfterTransaction(con, tx.isolationLevels[i], tx.readOnly[i]);
+            } catch (final SQLException e) {
+                log.debug("Could not reset connection of shard {} after transaction", i, e);
+            }
+            DataSourceUtils.releaseConnection(con, dataSources.get(i));
+            holder.clear();
+        }
+        tx.holders = null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doCommit(final DefaultTransactionStatus status) {
+        final ShardedTransaction tx = (ShardedTransaction) status.getTransaction();
+        for (int i = 0; i < tx.holders.size(); i++) {
+            try {
+                tx.holders.get(i).getConnection().commit();
+            } catch (final SQLException e) {
+                final TransactionSystemException failure =
+                    new TransactionSystemException("Could not commit shard " + i, e);
+                if (i > 0) {
+                    throw new HeuristicCompletionException(HeuristicCompletionException.STATE_MIXED, failure);
+                }
+                throw failure;
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Object doGetTransaction() {
+        final ShardedTransaction tx = new ShardedTransaction();
+        @SuppressWarnings("unchecked")
+        final List<ConnectionHolder> holders =
+            (List<ConnectionHolder>) TransactionSynchronizationManager.getResource(this);
+        tx.holders = holders;
+        return tx;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doResume(final Object transaction, final Object suspendedResources) {
+        @SuppressWarnings("unchecked")
+        final List<ConnectionHolder> holders = (List<ConnectionHolder>) suspendedResources;
+        for (int i = 0; i < holders.size(); i++) {
+            TransactionSynchronizationManager.bindResource(dataSources.get(i), holders.get(i));
+        }
+        TransactionSynchronizationManager.bindResource(this, holders);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doRollback(final DefaultTransactionStatus status) {
+        final ShardedTransaction tx = (ShardedTransaction) status.getTransaction();
+        SQLException failure = null;
+        for (final ConnectionHolder holder : tx.holders) {
+            try {
+                holder.getConnection().rollback();
+            } catch (final SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw new TransactionSystemException("Could not roll back all shards", failure);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doSetRollbackOnly(final DefaultTransactionStatus status) {
+        // the holders are shared with the transaction that began, a flag on this participant would be lost
+        for (final ConnectionHolder holder : ((ShardedTransaction) status.getTransaction()).holders) {
+            holder.setRollbackOnly();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Object doSuspend(final Object transaction) {
+        final ShardedTransaction tx = (ShardedTransaction) transaction;
+        tx.holders = null;
+        for (final DataSource dataSource : dataSources) {
+            TransactionSynchronizationManager.unbindResource(dataSource);
+        }
+        return TransactionSynchronizationManager.unbindResource(this);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isExistingTransaction(final Object transaction) {
+        return ((ShardedTransaction) transaction).holders != null;
+    }
+}
@@ -0,0 +1,357 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.parasoft.parabank.dao.AccountDao;
+import com.parasoft.parabank.dao.TransactionDao;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+import com.parasoft.parabank.domain.logic.TransferOutbox;
+import com.parasoft.parabank.util.StripedLockManager;
+import com.parasoft.parabank.util.StripedLockManager.Locked;
+
+/**
+ * Transfers between accounts of different shards in two phases
+ *
+ * In the first phase the caller debits the source account and {@link #send} records the transfer in the
+ * Transfer_Outbox table of the source shard, both in the caller's transaction on that shard. Once it committed, the
+ * second phase credits the target account and records the transfer in the Transfer_Inbox table of the target shard in
+ * one local transaction, and then marks the outbox row as delivered.
+ *
+ * The inbox makes the credit idempotent: a transfer that is already in the inbox is not credited again, so a
+ * delivery that failed or was interrupted anywhere in the second phase can simply be repeated. Undelivered rows are
+ * repeated by {@link #relay()}, every {@link #setRelayInterval(int)} seconds.
+ *
+ * {@link #send} rejects a transfer to an account that does not exist. Should the target account be gone by the time
+ * the transfer is delivered, the transfer is marked as returned and the amount credited back to the source account,
+ * which ends its delivery for good.
+ */
+public class ShardedTransferOutbox implements TransferOutbox, InitializingBean, DisposableBean {
+    /**
+     * A row of the Transfer_Outbox table
+     */
+    static final class Transfer {
+        private final long id;
+
+        private final long fromAccountId;
+
+        private final long toAccountId;
+
+        private final BigDecimal amount;
+
+        private final String description;
+
+        Transfer(final long id, final long fromAccountId, final long toAccountId, final BigDecimal amount,
+            final String description) {
+            this.id = id;
+            this.fromAccountId = fromAccountId;
+            this.toAccountId = toAccountId;
+            this.amount = amount;
+            this.description = description;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return "Transfer " + id + " of " + amount + " from account " + fromAccountId + " to account "
+                + toAccountId;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedTransferOutbox.class);
+
+    private static final RowMapper<Transfer> TRANSFER_MAPPER = (rs, rowNum) -> new Transfer(rs.getLong("id"),
+        rs.getLong("from_account_id"), rs.getLong("to_account_id"), rs.getBigDecimal("amount"),
+        rs.getString("description"));
+
+    private ShardSet shardSet;
+
+    private PlatformTransactionManager transactionManager;
+
+    private AccountDao accountDao;
+
+    private TransactionDao transactionDao;
+
+    private StripedLockManager lockManager;
+
+    private int relayInterval = 10;
+
+    private long relayDelay = 1000;
+
+    private TransactionTemplate localTransaction;
+
+    private ScheduledExecutorService relayScheduler;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (shardSet == null || transactionManager == null || accountDao == null || transactionDao == null) {
+            throw new IllegalArgumentException(
+                "Properties 'shardSet', 'transactionManager', 'accountDao' and 'transactionDao' are required");
+        }
+        localTransaction = new TransactionTemplate(transactionManager);
+        localTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (relayInterval > 0) {
+            relayScheduler =
+                Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("transfer-relay-"));
+            relayScheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    relay();
+                } catch (final DataAccessException e) {
+                    log.warn("Relaying transfers failed", e);
+                }
+            }, relayInterval, relayInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (relayScheduler != null) {
+            relayScheduler.shutdownNow();
+            relayScheduler = null;
+        }
+    }
+
+    /**
+     * @return the number of transfers of all shards that have not been delivered yet
+     */
+    public int getPendingCount() {
+        int pending = 0;
+        for (final Shard shard : shardSet.getShards()) {
+            pending += shard.getJdbcTemplate()
+                .queryForObject("SELECT COUNT(*) FROM Transfer_Outbox WHERE delivered IS NULL AND returned IS NULL",
+                    Integer.class);
+        }
+        return pending;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.TransferOutbox#isRequired(long, long)
+     */
+    @Override
+    public boolean isRequired(final long fromAccountId, final long toAccountId) {
+        return ShardIds.getShard(fromAccountId) != ShardIds.getShard(toAccountId);
+    }
+
+    /**
+     * Deliver every transfer that is still undelivered {@link #setRelayDelay(long)} after it was sent
+     *
+     * @return the number of transfers delivered
+     */
+    public int relay() {
+        final Timestamp sentBefore = new Timestamp(System.currentTimeMillis() - relayDelay);
+        int delivered = 0;
+        for (final Shard shard : shardSet.getShards()) {
+            final List<Transfer> pending = shard.getJdbcTemplate().query(
+                "SELECT id, from_account_id, to_account_id, amount, description FROM Transfer_Outbox"
+                    + " WHERE delivered IS NULL AND returned IS NULL AND created <= ? ORDER BY id",
+                TRANSFER_MAPPER, sentBefore);
+            for (final Transfer transfer : pending) {
+                try {
+                    deliver(transfer);
+                    delivered++;
+                } catch (final DataAccessException e) {
+                    log.warn("{} is still undelivered", transfer, e);
+                }
+            }
+        }
+        if (delivered > 0) {
+            log.info("Relayed {} transfer(s)", delivered);
+        }
+        return delivered;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.TransferOutbox#send(long, long, java.math.BigDecimal, java.lang.String)
+     */
+    @Override
+    public void send(final long fromAccountId, final long toAccountId, final BigDecimal amount,
+        final String description) {
+        final Shard source = shardSet.getShard(fromAccountId);
+        // fails before anything is written if the target account belongs to no shard or does not exist on it
+        if (!accountExists(shardSet.getShard(toAccountId), toAccountId)) {
+            throw new EmptyResultDataAccessException("No account with id = " + toAccountId, 1);
+        }
+        final Transfer transfer = new Transfer(source.getSequenceDao().getNextId("Transaction"), fromAccountId,
+            toAccountId, amount, description);
+        source.getJdbcTemplate().update(
+            "INSERT INTO Transfer_Outbox (id, from_account_id, to_account_id, amount, description, created)"
+                + " VALUES (?, ?, ?, ?, ?, ?)",
+            transfer.id, fromAccountId, toAccountId, amount, description, new Timestamp(System.currentTimeMillis()));
+        log.info("Sent {}", transfer);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliverOrLeave(transfer);
+                }
+            });
+        } else {
+            deliverOrLeave(transfer);
+        }
+    }
+
+    /**
+     * @param accountDao
+     *            the DAO crediting the target accounts, the one the BankManager uses so its caches stay current
+     */
+    public void setAccountDao(final AccountDao accountDao) {
+        this.accountDao = accountDao;
+    }
+
+    /**
+     * @param lockManager
+     *            the locks of the BankManager, held on the target account while it is credited, null for none
+     */
+    public void setLockManager(final StripedLockManager lockManager) {
+        this.lockManager = lockManager;
+    }
+
+    /**
+     * @param relayDelay
+     *            milliseconds a transfer is left to the delivery after its commit before it is relayed
+     */
+    public void setRelayDelay(final long relayDelay) {
+        this.relayDelay = Math.max(0, relayDelay);
+    }
+
+    /**
+     * @param relayInterval
+     *            seconds between relays of undelivered transfers, 0 to only relay on {@link #relay()}
+     */
+    public void setRelayInterval(final int relayInterval) {
+        this.relayInterval = Math.max(0, relayInterval);
+    }
+
+    public void setShardSet(final ShardSet shardSet) {
+        this.shardSet = shardSet;
+    }
+
+    public void setTransactionDao(final TransactionDao transactionDao) {
+        this.transactionDao = transactionDao;
+    }
+
+    /**
+     * @param transactionManager
+     *            the {@link ShardedTransactionManager} of the shards
+     */
+    public void setTransactionManager(final PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Credit the target account unless the inbox shows it already was, then mark the transfer as delivered
+     *
+     * A transfer to an account that does not exist is returned to the source account instead.
+     *
+     * @return true if the target account was credited by this call
+     */
+    boolean deliver(final Transfer transfer) {
+        final Shard target = shardSet.getShard(transfer.toAccountId);
+        final Boolean credited = localTransaction.execute(status -> {
+            final Integer received = target.getJdbcTemplate()
+                .queryForObject("SELECT COUNT(*) FROM Transfer_Inbox WHERE id = ?", Integer.class, transfer.id);
+            if (received != null && received > 0) {
+                return false;
+            }
+            if (!accountExists(target, transfer.toAccountId)) {
+                return null;
+            }
+            // a concurrent delivery of the same transfer fails on the primary key and rolls back its credit
+            target.getJdbcTemplate().update("INSERT INTO Transfer_Inbox (id, received) VALUES (?, ?)", transfer.id,
+                new Timestamp(System.currentTimeMillis()));
+            try (Locked locked = lockManager != null ? lockManager.lock(transfer.toAccountId) : null) {
+                accountDao.adjustBalance(transfer.toAccountId, transfer.amount);
+                final Transaction credit = new Transaction();
+                credit.setAccountId(transfer.toAccountId);
+                credit.setType(TransactionType.Credit);
+                credit.setDate(new Date());
+                credit.setAmount(transfer.amount);
+                credit.setDescription(transfer.description);
+                transactionDao.createTransaction(credit);
+            }
+            return true;
+        });
+        if (credited == null) {
+            returnToSender(transfer);
+            return false;
+        }
+        localTransaction.executeWithoutResult(status -> shardSet.getShard(transfer.fromAccountId).getJdbcTemplate()
+            .update("UPDATE Transfer_Outbox SET delivered = ? WHERE id = ? AND delivered IS NULL",
+                new Timestamp(System.currentTimeMillis()), transfer.id));
+        log.info(credited ? "Delivered {}" : "{} was already delivered", transfer);
+        return credited;
+    }
+
+    private static boolean accountExists(final Shard shard, final long accountId) {
+        final Integer accounts = shard.getJdbcTemplate()
+            .queryForObject("SELECT COUNT(*) FROM Account WHERE id = ?", Integer.class, accountId);
+        return accounts != null && accounts > 0;
+    }
+
+    /**
+     * Mark the transfer as returned and credit the amount back to the source account in one local transaction
+     */
+    private void returnToSender(final Transfer transfer) {
+        final boolean returned = localTransaction.execute(status -> {
+            final int rows = shardSet.getShard(transfer.fromAccountId).getJdbcTemplate().update(
+                "UPDATE Transfer_Outbox SET returned = ? WHERE id = ? AND delivered IS NULL AND returned IS NULL",
+                new Timestamp(System.currentTimeMillis()), transfer.id);
+            if (rows == 0) {
+                return false;
+            }
+            try (Locked locked = lockManager != null ? lockManager.lock(transfer.fromAccountId) : null) {
+                accountDao.adjustBalance(transfer.fromAccountId, transfer.amount);
+                final Transaction refund = new Transaction();
+                refund.setAccountId(transfer.fromAccountId);
+                refund.setType(TransactionType.Credit);
+                refund.setDate(new Date());
+                refund.setAmount(transfer.amount);
+                refund.setDescription("Funds Transfer Returned");
+                transactionDao.createTransaction(refund);
+            }
+            return true;
+        });
+        if (returned) {
+            log.warn("Returned {}, the target account does not exist", transfer);
+        }
+    }
+
+    /**
+     * A failed delivery is left in the outbox for the relay, the sender's transaction has committed already
+     */
+    private void deliverOrLeave(final Transfer transfer) {
+        try {
+            deliver(transfer);
+        } catch (final DataAccessException e) {
+            log.warn("{} could not be delivered, leaving it to the relay", transfer, e);
+        }
+    }
+}
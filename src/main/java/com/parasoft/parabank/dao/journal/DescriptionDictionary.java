@@ -0,0 +1,138 @@
+package com.parasoft.parabank.dao.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * The distinct transaction descriptions of a {@link TransactionJournal}, each stored once and referenced by its index
+ *
+ * Descriptions are appended to a file as modified UTF-8 strings the first time they are seen, before the first record
+ * referencing them is written. Reads return the one interned string of an id.
+ */
+final class DescriptionDictionary {
+    static final int NONE = -1;
+
+    private static final Logger log = LoggerFactory.getLogger(DescriptionDictionary.class);
+
+    private final File file;
+
+    private final List<String> descriptions = new ArrayList<>();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private FileChannel channel;
+
+    DescriptionDictionary(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Read the descriptions written so far, cutting off a description that was only partly written
+     */
+    void open() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        final DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+        long valid = 0;
+        try {
+            while (valid < channel.size()) {
+                add(in.readUTF());
+                valid = channel.position();
+            }
+        } catch (final EOFException | UTFDataFormatException e) {
+            log.warn("Ignoring the incomplete description at the end of {}", file);
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+    }
+
+    /**
+     * Remove every description
+     */
+    synchronized void clear() {
+        try {
+            channel.truncate(0);
+            channel.position(0);
+        } catch (final IOException e) {
+            throw new DataAccessResourceFailureException("Could not clear " + file, e);
+        }
+        descriptions.clear();
+        ids.clear();
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            log.warn("Could not close " + file, e);
+        }
+    }
+
+    /**
+     * Write the added descriptions to disk
+     */
+    void force() {
+        try {
+            channel.force(false);
+        } catch (final IOException e) {
+            throw new DataAccessResourceFailureException("Could not write " + file, e);
+        }
+    }
+
+    synchronized String get(final int id) {
+        return id == NONE ? null : descriptions.get(id);
+    }
+
+    /**
+     * @return the id of the description, added to the dictionary if it is new
+     */
+    synchronized int getId(final String description) {
+        if (description == null) {
+            return NONE;
+        }
+        final Integer id = ids.get(description);
+        if (id != null) {
+            return id;
+        }
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(description.length() + 2);
+            new DataOutputStream(bytes).writeUTF(description);
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (final IOException e) {
+            throw new DataAccessResourceFailureException("Could not write " + file, e);
+        }
+        return add(description);
+    }
+
+    synchronized int size() {
+        return descriptions.size();
+    }
+
+    private int add(final String description) {
+        final int id = descriptions.size();
+        final String interned = description.intern();
+        descriptions.add(interned);
+        ids.put(interned, id);
+        return id;
+    }
+}
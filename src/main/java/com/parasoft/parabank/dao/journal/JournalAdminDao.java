@@ -0,0 +1,207 @@
+package com.parasoft.parabank.dao.journal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.support.JdbcDaoSupport;
+
+import com.parasoft.parabank.dao.ParaBankAdminDao;
+import com.parasoft.parabank.dao.internal.StorageReport;
+import com.parasoft.parabank.dao.jdbc.TransactionDescriptions;
+import com.parasoft.parabank.domain.Transaction;
+
+/**
+ * AdminDao that fills a {@link TransactionJournal} from the Transaction table
+ *
+ * initializeDB and cleanDB reset the database through the JDBC AdminDao and then replace the journal's content with
+ * the rows of the Transaction table. An empty journal is filled from the table on startup, and committed transactions
+ * that {@link JournalTransactionDao} left in the Journal_Outbox table are appended.
+ */
+public class JournalAdminDao extends JdbcDaoSupport implements ParaBankAdminDao {
+    private static final Logger log = LoggerFactory.getLogger(JournalAdminDao.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ParaBankAdminDao adminDao;
+
+    private final TransactionJournal journal;
+
+    /**
+     * @param adminDao
+     *            the AdminDao of the database
+     * @param journal
+     *            the journal to fill
+     */
+    public JournalAdminDao(final ParaBankAdminDao adminDao, final TransactionJournal journal) {
+        this.adminDao = adminDao;
+        this.journal = journal;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#cleanDB()
+     */
+    @Override
+    public void cleanDB() {
+        adminDao.cleanDB();
+        load();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#getParameter(java.lang.String)
+     */
+    @Override
+    public String getParameter(final String name) {
+        return adminDao.getParameter(name);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#getParameters()
+     */
+    @Override
+    public Map<String, String> getParameters() {
+        return adminDao.getParameters();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#getParameterVersion()
+     */
+    @Override
+    public long getParameterVersion() {
+        return adminDao.getParameterVersion();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#getStorageReport()
+     */
+    @Override
+    public StorageReport getStorageReport() {
+        return adminDao.getStorageReport();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#initializeDB()
+     */
+    @Override
+    public void initializeDB() {
+        adminDao.initializeDB();
+        load();
+    }
+
+    /**
+     * Replace the content of the journal with the rows of the Transaction table
+     */
+    public void load() {
+        journal.reset();
+        final TransactionDescriptions descriptions = new TransactionDescriptions();
+        descriptions.setJdbcTemplate(getJdbcTemplate());
+        final List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        getJdbcTemplate().query(
+            "SELECT id, account_id, type, date, amount, description, description_id, description_arg FROM Transaction"
+                + " ORDER BY id",
+            (RowCallbackHandler) rs -> {
+                final Transaction transaction = new Transaction();
+                transaction.setId(rs.getLong("id"));
+                transaction.setAccountId(rs.getLong("account_id"));
+                transaction.setIntType(rs.getInt("type"));
+                transaction.setDate(rs.getDate("date"));
+                transaction.setAmount(rs.getBigDecimal("amount"));
+                transaction.setDescription(descriptions.getDescription(rs));
+                batch.add(transaction);
+                if (batch.size() == BATCH_SIZE) {
+                    journal.append(batch);
+                    batch.clear();
+                }
+            });
+        journal.append(batch);
+        log.info("Loaded {} transactions into the journal", journal.getCount());
+    }
+
+    /**
+     * Append the transactions in the Journal_Outbox table that the journal does not hold yet and empty the table
+     *
+     * @return the number of transactions appended
+     */
+    public int recover() {
+        final List<Transaction> missing = new ArrayList<>();
+        getJdbcTemplate().query("SELECT id, account_id, type, date, amount, description FROM Journal_Outbox ORDER BY id",
+            (RowCallbackHandler) rs -> {
+                if (journal.get(rs.getLong("id")) != null) {
+                    return;
+                }
+                final Transaction transaction = new Transaction();
+                transaction.setId(rs.getLong("id"));
+                transaction.setAccountId(rs.getLong("account_id"));
+                transaction.setIntType(rs.getInt("type"));
+                transaction.setDate(rs.getDate("date"));
+                transaction.setAmount(rs.getBigDecimal("amount"));
+                transaction.setDescription(rs.getString("description"));
+                missing.add(transaction);
+            });
+        journal.append(missing);
+        getJdbcTemplate().update("DELETE FROM Journal_Outbox");
+        if (!missing.isEmpty()) {
+            log.warn("Recovered {} committed transactions missing from the journal", missing.size());
+        }
+        return missing.size();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#setParameter(java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setParameter(final String name, final String value) {
+        adminDao.setParameter(name, value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#setParameters(java.util.Map)
+     */
+    @Override
+    public long setParameters(final Map<String, String> parameters) {
+        return adminDao.setParameters(parameters);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#setStorageProfile(java.lang.String)
+     */
+    @Override
+    public void setStorageProfile(final String profile) {
+        adminDao.setStorageProfile(profile);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initDao() {
+        try {
+            if (journal.isEmpty()) {
+                load();
+            }
+            recover();
+        } catch (final DataAccessException e) {
+            log.info("Database not initialized yet, the journal is filled by initializeDB: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.parasoft.parabank.dao.journal;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+
+/**
+ * A movable view of one record of a {@link TransactionJournal}
+ *
+ * A scan moves the same view from record to record and every getter reads the field from the mapped segment, so
+ * filtering and serializing records creates no objects. The view is only valid inside the callback it was passed to.
+ */
+public final class JournalRecord {
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final DescriptionDictionary dictionary;
+
+    private JournalSegment segment;
+
+    private int slot;
+
+    JournalRecord(final DescriptionDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public long getAccountId() {
+        return segment.getAccountId(slot);
+    }
+
+    /**
+     * @return the amount in cents, {@link Long#MIN_VALUE} if it has none
+     */
+    public long getAmountCents() {
+        return segment.getAmountCents(slot);
+    }
+
+    /**
+     * @return the interned description, the same instance for every record with this description
+     */
+    public String getDescription() {
+        return dictionary.get(segment.getDescriptionId(slot));
+    }
+
+    /**
+     * @return the epoch day of the transaction date, {@link Integer#MIN_VALUE} if it has none
+     */
+    public int getEpochDay() {
+        return segment.getEpochDay(slot);
+    }
+
+    public long getId() {
+        return segment.getId(slot);
+    }
+
+    public TransactionType getType() {
+        final int type = segment.getType(slot);
+        return type < 0 ? null : TYPES[type];
+    }
+
+    /**
+     * Copy the record into a transaction, e.g. one that is reused for every record of an export
+     *
+     * @return the given transaction
+     */
+    public Transaction into(final Transaction transaction) {
+        transaction.setId(getId());
+        transaction.setAccountId(getAccountId());
+        transaction.setType(getType());
+        final int day = getEpochDay();
+        transaction.setDate(day == JournalSegment.NO_DATE ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(day)));
+        final long cents = getAmountCents();
+        transaction.setAmount(cents == JournalSegment.NO_AMOUNT ? null : BigDecimal.valueOf(cents, 2));
+        transaction.setDescription(getDescription());
+        return transaction;
+    }
+
+    JournalRecord moveTo(final JournalSegment segment, final int slot) {
+        this.segment = segment;
+        this.slot = slot;
+        return this;
+    }
+}
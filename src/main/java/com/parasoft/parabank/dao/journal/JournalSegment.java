@@ -0,0 +1,267 @@
+package com.parasoft.parabank.dao.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One file of a {@link TransactionJournal}, mapped into memory as a whole
+ *
+ * A segment is a header followed by room for a fixed number of fixed-width records:
+ *
+ * <pre>
+ * offset  size  field
+ *      0     8  transaction id
+ *      8     8  account id
+ *     16     4  epoch day of the date, {@link #NO_DATE} for none
+ *     20     4  description dictionary id, {@link DescriptionDictionary#NONE} for none
+ *     24     8  amount in cents, {@link #NO_AMOUNT} for none
+ *     32     1  type ordinal, -1 for none
+ * </pre>
+ *
+ * Segments of version 1, written while ids were 32 bit, are not opened; the journal is then loaded again from the
+ * database, see {@link JournalAdminDao}.
+ *
+ * The record count in the header is written after the record, so a record only becomes part of the segment once it
+ * is complete. Records are appended by one thread at a time; readers use absolute reads of the shared buffer.
+ *
+ * Segments written by a compaction carry its generation and the number of segments it wrote, see
+ * {@link TransactionJournal#compact()}. Appended segments have generation 0.
+ */
+final class JournalSegment {
+    static final int RECORD_SIZE = 36;
+
+    static final int HEADER_SIZE = 32;
+
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    static final long NO_AMOUNT = Long.MIN_VALUE;
+
+    private static final int MAGIC = 0x50424a4c;
+
+    private static final int VERSION = 2;
+
+    private static final int COUNT_OFFSET = 16;
+
+    private final File file;
+
+    private final int number;
+
+    private final int capacity;
+
+    private final int generation;
+
+    private final int setSize;
+
+    private final MappedByteBuffer buffer;
+
+    private volatile int count;
+
+    /**
+     * Slots sorted by the id of their record for lookups by id
+     */
+    private int[] byId;
+
+    private int byIdSize;
+
+    private JournalSegment(final File file, final int number, final MappedByteBuffer buffer) {
+        this.file = file;
+        this.number = number;
+        this.buffer = buffer;
+        capacity = buffer.getInt(12);
+        count = buffer.getInt(COUNT_OFFSET);
+        generation = buffer.getInt(20);
+        setSize = buffer.getInt(24);
+        byId = new int[Math.max(16, count)];
+    }
+
+    /**
+     * Create and map an empty segment file
+     *
+     * @param generation
+     *            the generation of the compaction writing the segment, 0 for a segment that is appended to
+     * @param setSize
+     *            the number of segments written by the compaction
+     */
+    static JournalSegment create(final File file, final int number, final int capacity, final int generation,
+        final int setSize) throws IOException {
+        final MappedByteBuffer buffer = map(file, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.putInt(12, capacity);
+        buffer.putInt(COUNT_OFFSET, 0);
+        buffer.putInt(20, generation);
+        buffer.putInt(24, setSize);
+        return new JournalSegment(file, number, buffer);
+    }
+
+    /**
+     * Map an existing segment file and index its records by id
+     *
+     * @throws IOException
+     *             if the file is not a segment of this format
+     */
+    static JournalSegment open(final File file, final int number) throws IOException {
+        final long length = file.length();
+        if (length < HEADER_SIZE) {
+            throw new IOException(file + " is too short for a journal segment");
+        }
+        final MappedByteBuffer buffer = map(file, length);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_SIZE) {
+            throw new IOException(file + " is not a journal segment of version " + VERSION);
+        }
+        final int capacity = buffer.getInt(12);
+        final int count = buffer.getInt(COUNT_OFFSET);
+        if (capacity < 0 || count < 0 || count > capacity || HEADER_SIZE + (long) capacity * RECORD_SIZE > length) {
+            throw new IOException(file + " has a damaged header");
+        }
+        final JournalSegment segment = new JournalSegment(file, number, buffer);
+        final long[] ids = new long[count];
+        final Integer[] slots = new Integer[count];
+        for (int slot = 0; slot < count; slot++) {
+            ids[slot] = segment.getId(slot);
+            slots[slot] = slot;
+        }
+        Arrays.sort(slots, (a, b) -> Long.compare(ids[a], ids[b]));
+        for (int i = 0; i < count; i++) {
+            segment.byId[i] = slots[i];
+        }
+        segment.byIdSize = count;
+        return segment;
+    }
+
+    private static MappedByteBuffer map(final File file, final long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * @return the slot of the appended record
+     */
+    int append(final long id, final long accountId, final int type, final int epochDay, final long amountCents,
+        final int descriptionId) {
+        final int slot = count;
+        final int offset = offset(slot);
+        buffer.putLong(offset, id);
+        buffer.putLong(offset + 8, accountId);
+        buffer.putInt(offset + 16, epochDay);
+        buffer.putInt(offset + 20, descriptionId);
+        buffer.putLong(offset + 24, amountCents);
+        buffer.put(offset + 32, (byte) type);
+        buffer.putInt(COUNT_OFFSET, slot + 1);
+        count = slot + 1;
+
+        // ids are handed out in ascending order, so this is an append unless commits overtook each other
+        if (byIdSize == byId.length) {
+            byId = Arrays.copyOf(byId, byIdSize * 2);
+        }
+        int index = byIdSize;
+        while (index > 0 && getId(byId[index - 1]) > id) {
+            index--;
+        }
+        System.arraycopy(byId, index, byId, index + 1, byIdSize - index);
+        byId[index] = slot;
+        byIdSize++;
+        return slot;
+    }
+
+    /**
+     * Append a record of another segment byte for byte, without indexing it by id
+     */
+    void copy(final JournalSegment source, final int slot) {
+        final int from = source.offset(slot);
+        final int to = offset(count);
+        for (int i = 0; i < RECORD_SIZE; i += 4) {
+            buffer.putInt(to + i, source.buffer.getInt(from + i));
+        }
+        buffer.putInt(COUNT_OFFSET, count + 1);
+        count++;
+    }
+
+    /**
+     * @return the slot of the record with the given id, -1 if there is none
+     */
+    int find(final long id) {
+        int low = 0;
+        int high = byIdSize - 1;
+        while (low <= high) {
+            final int mid = low + high >>> 1;
+            final long midId = getId(byId[mid]);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return byId[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Write the mapped pages to disk
+     */
+    void force() {
+        buffer.force();
+    }
+
+    long getAccountId(final int slot) {
+        return buffer.getLong(offset(slot) + 8);
+    }
+
+    long getAmountCents(final int slot) {
+        return buffer.getLong(offset(slot) + 24);
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getDescriptionId(final int slot) {
+        return buffer.getInt(offset(slot) + 20);
+    }
+
+    int getEpochDay(final int slot) {
+        return buffer.getInt(offset(slot) + 16);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    long getId(final int slot) {
+        return buffer.getLong(offset(slot));
+    }
+
+    int getNumber() {
+        return number;
+    }
+
+    int getSetSize() {
+        return setSize;
+    }
+
+    int getType(final int slot) {
+        return buffer.get(offset(slot) + 32);
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    private static int offset(final int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,330 @@
+package com.parasoft.parabank.dao.journal;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.parasoft.parabank.dao.TransactionDao;
+import com.parasoft.parabank.dao.jdbc.JdbcSequenceDao;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+import com.parasoft.parabank.domain.TransactionCriteria;
+
+/**
+ * TransactionDao on a {@link TransactionJournal}
+ *
+ * Ids still come from the Sequence table. Transactions created inside a database transaction are also written to the
+ * Journal_Outbox table of that transaction, so they commit or roll back together with the balances they belong to.
+ * They are appended to the journal once the transaction commits and are not visible to reads until then. Rows of
+ * appended transactions are deleted from the outbox by the next database transaction that creates transactions. Should
+ * the process stop or the append fail in between, {@link JournalAdminDao} appends whatever the outbox still holds on
+ * the next start; an append that fails is logged and retried after the next commit rather than thrown at a caller
+ * whose transaction already committed.
+ *
+ * Amounts are stored in cents, see {@link TransactionJournal#append(List)}.
+ *
+ * Exports move one {@link Transaction} from record to record instead of creating one per record.
+ */
+public class JournalTransactionDao extends JdbcDaoSupport implements TransactionDao {
+    private static final Logger log = LoggerFactory.getLogger(JournalTransactionDao.class);
+
+    private static final String INSERT_OUTBOX_SQL =
+        "INSERT INTO Journal_Outbox (id, account_id, type, date, amount, description) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final TransactionJournal journal;
+
+    /**
+     * Committed transactions that could not be appended yet
+     */
+    private final ConcurrentLinkedQueue<Transaction> undelivered = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Ids of appended transactions whose outbox rows are not deleted yet
+     */
+    private final ConcurrentLinkedQueue<Long> delivered = new ConcurrentLinkedQueue<>();
+
+    private final JdbcSequenceDao sequenceDao;
+
+    public JournalTransactionDao(final TransactionJournal journal, final JdbcSequenceDao sequenceDao) {
+        this.journal = journal;
+        this.sequenceDao = sequenceDao;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#createTransaction(com.parasoft.parabank.domain.Transaction)
+     */
+    @Override
+    public long createTransaction(final Transaction transaction) {
+        final long id = sequenceDao.getNextId("Transaction");
+        transaction.setId(id);
+        append(transaction);
+        log.info("Created new transaction with id = " + id);
+
+        return id;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#createTransactions(java.util.List)
+     */
+    @Override
+    public void createTransactions(final List<Transaction> transactions) {
+        for (final Transaction transaction : transactions) {
+            transaction.setId(sequenceDao.getNextId("Transaction"));
+        }
+        append(transactions.toArray(new Transaction[0]));
+        log.info("Created " + transactions.size() + " new transactions");
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#exportTransactions(java.util.List, java.util.Date,
+     * java.util.Date, java.util.function.Consumer)
+     */
+    @Override
+    public int exportTransactions(final List<Long> accountIds, final Date fromDate, final Date toDate,
+        final Consumer<Transaction> consumer) {
+        if (accountIds == null || accountIds.isEmpty()) {
+            return 0;
+        }
+        final Transaction row = new Transaction();
+        int count = 0;
+        // in account order like the JDBC export
+        for (final Long accountId : new TreeSet<>(accountIds)) {
+            count += journal.scan(accountId, fromDate, toDate, null, Integer.MAX_VALUE, null,
+                record -> consumer.accept(record.into(row)));
+        }
+        log.info("Exported " + count + " transactions for accountIds = " + accountIds);
+
+        return count;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransaction(long)
+     */
+    @Override
+    public Transaction getTransaction(final long id) {
+        final Transaction transaction = journal.get(id);
+        if (transaction == null) {
+            throw new EmptyResultDataAccessException("No transaction with id = " + id, 1);
+        }
+        return transaction;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId) {
+        return getTransactionsForAccount(accountId, null, null, Integer.MAX_VALUE);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long,
+     * com.parasoft.parabank.domain.TransactionCriteria)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria) {
+        return getTransactionsForAccount(accountId, criteria, null, Integer.MAX_VALUE);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long,
+     * com.parasoft.parabank.domain.TransactionCriteria, java.lang.Long, int)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria,
+        final Long cursor, final int limit) {
+        Date fromDate = null;
+        Date toDate = null;
+        Predicate<JournalRecord> filter = null;
+        if (criteria != null && criteria.getSearchType() != null) {
+            switch (criteria.getSearchType()) {
+                case ACTIVITY:
+                    filter = getActivityFilter(criteria);
+                    break;
+                case ID:
+                    final Long transactionId = criteria.getTransactionId();
+                    filter = record -> transactionId != null && record.getId() == transactionId;
+                    break;
+                case DATE:
+                    if (criteria.getOnDate() == null) {
+                        return new ArrayList<>();
+                    }
+                    fromDate = criteria.getOnDate();
+                    toDate = criteria.getOnDate();
+                    break;
+                case DATE_RANGE:
+                    if (criteria.getFromDate() == null || criteria.getToDate() == null) {
+                        return new ArrayList<>();
+                    }
+                    fromDate = criteria.getFromDate();
+                    toDate = criteria.getToDate();
+                    break;
+                case AMOUNT:
+                    final BigDecimal amount = criteria.getAmount();
+                    final long cents = amount == null ? 0
+                        : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                    filter = record -> amount != null && record.getAmountCents() == cents;
+                    break;
+            }
+        }
+        final List<Transaction> transactions = new ArrayList<>();
+        journal.scan(accountId, fromDate, toDate, cursor, limit, filter,
+            record -> transactions.add(record.into(new Transaction())));
+        log.info("Retrieved " + transactions.size() + " transactions for accountId = " + accountId);
+
+        return transactions;
+    }
+
+    /**
+     * Append to the journal now, or write to the outbox and append once the current transaction commits if there is
+     * one
+     */
+    private void append(final Transaction... transactions) {
+        final List<Transaction> copies = new ArrayList<>(transactions.length);
+        for (final Transaction transaction : transactions) {
+            TransactionJournal.toCents(transaction.getAmount());
+            final Transaction copy = new Transaction();
+            copy.setId(transaction.getId());
+            copy.setAccountId(transaction.getAccountId());
+            copy.setType(transaction.getType());
+            copy.setDate(transaction.getDate());
+            copy.setAmount(transaction.getAmount());
+            copy.setDescription(transaction.getDescription());
+            copies.add(copy);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            journal.append(copies);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Transaction> pending = (List<Transaction>) TransactionSynchronizationManager.getResource(journal);
+        if (pending == null) {
+            final List<Transaction> created = new ArrayList<>();
+            final List<Long> deleted = deleteDelivered();
+            TransactionSynchronizationManager.bindResource(journal, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(created);
+                }
+
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(journal);
+                    if (status != STATUS_COMMITTED) {
+                        delivered.addAll(deleted);
+                    }
+                }
+            });
+            pending = created;
+        }
+        getJdbcTemplate().batchUpdate(INSERT_OUTBOX_SQL, copies, copies.size(), (ps, transaction) -> {
+            ps.setLong(1, transaction.getId());
+            ps.setLong(2, transaction.getAccountId());
+            ps.setInt(3, transaction.getIntType());
+            ps.setDate(4, transaction.getDate() == null ? null : new java.sql.Date(transaction.getDate().getTime()));
+            ps.setBigDecimal(5, transaction.getAmount());
+            ps.setString(6, transaction.getDescription());
+        });
+        pending.addAll(copies);
+    }
+
+    /**
+     * Append committed transactions, after any that failed before
+     */
+    private void deliver(final List<Transaction> committed) {
+        final List<Transaction> batch = new ArrayList<>();
+        for (Transaction transaction; (transaction = undelivered.poll()) != null;) {
+            batch.add(transaction);
+        }
+        batch.addAll(committed);
+        try {
+            journal.append(batch);
+        } catch (final RuntimeException e) {
+            log.error("Could not append " + batch.size() + " committed transactions to the journal, retrying after the"
+                + " next commit", e);
+            undelivered.addAll(batch);
+            return;
+        }
+        for (final Transaction transaction : batch) {
+            delivered.add(transaction.getId());
+        }
+    }
+
+    /**
+     * Delete the outbox rows of appended transactions in the current database transaction
+     *
+     * @return the ids deleted, to be deleted again if the transaction does not commit
+     */
+    private List<Long> deleteDelivered() {
+        final List<Long> ids = new ArrayList<>();
+        for (Long id; (id = delivered.poll()) != null;) {
+            ids.add(id);
+        }
+        if (!ids.isEmpty()) {
+            getJdbcTemplate().batchUpdate("DELETE FROM Journal_Outbox WHERE id = ?", ids, ids.size(),
+                (ps, id) -> ps.setLong(1, id));
+        }
+        return ids;
+    }
+
+    /**
+     * @return the month and type restrictions of an activity search
+     */
+    private static Predicate<JournalRecord> getActivityFilter(final TransactionCriteria criteria) {
+        Predicate<JournalRecord> filter = record -> true;
+        if (criteria.getMonth() != null && !"All".equals(criteria.getMonth())) {
+            try {
+                final Calendar cal = Calendar.getInstance();
+                cal.setTime(new SimpleDateFormat("MMM").parse(criteria.getMonth()));
+                final int month = cal.get(Calendar.MONTH) + 1;
+                filter = filter.and(record -> record.getEpochDay() != Integer.MIN_VALUE
+                    && LocalDate.ofEpochDay(record.getEpochDay()).getMonthValue() == month);
+            } catch (final ParseException e) {
+                log.error("Could not parse supplied month value: " + criteria.getMonth(), e);
+            }
+        }
+        if (criteria.getTransactionType() != null && !"All".equals(criteria.getTransactionType())) {
+            TransactionType type = null;
+            try {
+                type = TransactionType.valueOf(criteria.getTransactionType());
+            } catch (final IllegalArgumentException e) {
+                log.warn("Unknown transaction type: " + criteria.getTransactionType());
+            }
+            final TransactionType wanted = type;
+            filter = filter.and(record -> wanted != null && record.getType() == wanted);
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,663 @@
+package com.parasoft.parabank.dao.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.parasoft.parabank.domain.Transaction;
+
+/**
+ * Append-only store of transactions in segment files that are mapped into memory
+ *
+ * Every transaction is a fixed-width record, see {@link JournalSegment}, appended to the active segment; a full
+ * segment is sealed and a new one started. Descriptions are stored once in a {@link DescriptionDictionary}.
+ *
+ * Each account has an index of the positions of its records sorted by date and id, the order of the JDBC queries.
+ * Date ranges and pages are found by binary search in it, and scans read the records in place through a
+ * {@link JournalRecord} view. Each segment indexes its records by id for single lookups.
+ *
+ * A compaction rewrites the sealed segments into new segments holding the records in account, date and id order, so
+ * the history of an account becomes one sequential run. The new segments carry a generation, the number of the active
+ * segment at the time, and replace every segment numbered below it once all of them are on disk. On startup the newest
+ * complete generation wins: older segments it replaces and segments of an interrupted compaction are deleted.
+ */
+public class TransactionJournal implements InitializingBean, DisposableBean {
+    /**
+     * Positions of the records of one account, sorted by date and id
+     */
+    private final class AccountIndex {
+        private long[] positions = new long[8];
+
+        private int size;
+
+        void add(final long position) {
+            final JournalSegment segment = getSegment(position);
+            final int epochDay = segment.getEpochDay((int) position);
+            final long id = segment.getId((int) position);
+            int index = size;
+            // transactions mostly arrive in date order, so this is usually an append
+            if (index > 0 && compareTo(positions[index - 1], epochDay, id) > 0) {
+                index = upperBound(epochDay, id);
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            System.arraycopy(positions, index, positions, index + 1, size - index);
+            positions[index] = position;
+            size++;
+        }
+
+        /**
+         * @return the index of the first position whose record comes after the given day and id
+         */
+        int upperBound(final int epochDay, final long id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                final int mid = low + high >>> 1;
+                if (compareTo(positions[mid], epochDay, id) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionJournal.class);
+
+    private static final Pattern SEGMENT = Pattern.compile("journal-(\\d+)\\.seg");
+
+    /**
+     * Records copied out of the account index per read lock, so long scans do not hold up appends
+     */
+    private static final int CHUNK = 1024;
+
+    private static final int MAX_CAPACITY =
+        (Integer.MAX_VALUE - JournalSegment.HEADER_SIZE) / JournalSegment.RECORD_SIZE;
+
+    private String directory;
+
+    private int segmentCapacity = 1 << 20;
+
+    private boolean sync = true;
+
+    private int compactInterval = 3600;
+
+    private File dir;
+
+    private DescriptionDictionary dictionary;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, JournalSegment> segments = new ConcurrentHashMap<>();
+
+    private Map<Long, AccountIndex> accounts = new HashMap<>();
+
+    private JournalSegment active;
+
+    private int nextNumber = 1;
+
+    private ScheduledExecutorService compactScheduler;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        for (final File tmp : dir.listFiles((d, name) -> name.endsWith(".tmp"))) {
+            delete(tmp);
+        }
+        dictionary = new DescriptionDictionary(new File(dir, "descriptions.dat"));
+        dictionary.open();
+
+        final TreeMap<Integer, JournalSegment> found = new TreeMap<>();
+        for (final File file : dir.listFiles()) {
+            final Matcher matcher = SEGMENT.matcher(file.getName());
+            if (matcher.matches()) {
+                final int number = Integer.parseInt(matcher.group(1));
+                nextNumber = Math.max(nextNumber, number + 1);
+                try {
+                    found.put(number, JournalSegment.open(file, number));
+                } catch (final IOException e) {
+                    log.warn("Ignoring {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        final int generation = getCompleteGeneration(found.values());
+        for (final JournalSegment segment : found.values()) {
+            if (segment.getGeneration() == 0 ? segment.getNumber() < generation
+                : segment.getGeneration() != generation) {
+                delete(segment.getFile());
+            } else {
+                segments.put(segment.getNumber(), segment);
+                if (segment.getGeneration() == 0 && !segment.isFull()) {
+                    active = segment;
+                }
+            }
+        }
+        final List<JournalSegment> ordered = new ArrayList<>(segments.values());
+        ordered.sort((a, b) -> Integer.compare(a.getNumber(), b.getNumber()));
+        for (final JournalSegment segment : ordered) {
+            index(accounts, segment);
+        }
+        if (active == null) {
+            roll();
+        }
+        log.info("Opened {} transactions of {} accounts in {} segments of {}", getCount(), accounts.size(),
+            segments.size(), dir);
+
+        if (compactInterval > 0) {
+            compactScheduler =
+                Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("journal-compact-"));
+            compactScheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    compact();
+                } catch (final RuntimeException e) {
+                    log.warn("Compacting the journal failed", e);
+                }
+            }, compactInterval, compactInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (compactScheduler != null) {
+            compactScheduler.shutdownNow();
+            compactScheduler = null;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!sync && active != null) {
+                dictionary.force();
+                active.force();
+            }
+            dictionary.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Append transactions that were given ids already
+     *
+     * Amounts are stored in cents, an amount with more than 2 decimals is rejected. Dates are stored as days.
+     *
+     * @throws InvalidDataAccessApiUsageException
+     *             if an amount has more than 2 decimals, nothing is appended in that case
+     */
+    public void append(final List<Transaction> transactions) {
+        for (final Transaction transaction : transactions) {
+            toCents(transaction.getAmount());
+        }
+        final Set<JournalSegment> written = new LinkedHashSet<>();
+        lock.writeLock().lock();
+        try {
+            for (final Transaction transaction : transactions) {
+                if (active.isFull()) {
+                    roll();
+                }
+                final int slot = active.append(transaction.getId(), transaction.getAccountId(),
+                    transaction.getType() == null ? -1 : transaction.getType().ordinal(),
+                    toEpochDay(transaction.getDate()), toCents(transaction.getAmount()),
+                    dictionary.getId(transaction.getDescription()));
+                accounts.computeIfAbsent(transaction.getAccountId(), id -> new AccountIndex())
+                    .add(position(active, slot));
+                written.add(active);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (sync) {
+            dictionary.force();
+            for (final JournalSegment segment : written) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Rewrite the sealed segments in account, date and id order
+     *
+     * @return false if no segment was sealed since the last compaction
+     */
+    public synchronized boolean compact() {
+        final int generation;
+        final List<JournalSegment> sealed = new ArrayList<>();
+        final int firstNumber;
+        final int setSize;
+        lock.writeLock().lock();
+        try {
+            if (active.isFull()) {
+                roll();
+            }
+            generation = active.getNumber();
+            long records = 0;
+            boolean appended = false;
+            for (final JournalSegment segment : segments.values()) {
+                if (segment.getNumber() < generation) {
+                    sealed.add(segment);
+                    records += segment.getCount();
+                    appended |= segment.getGeneration() == 0;
+                }
+            }
+            if (!appended) {
+                return false;
+            }
+            setSize = (int) Math.max(1, (records + segmentCapacity - 1) / segmentCapacity);
+            firstNumber = nextNumber;
+            nextNumber += setSize;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        final List<JournalSegment> written = writeClustered(sealed, generation, firstNumber, setSize);
+
+        // index the new segments on the side, the sealed ones keep serving reads until the swap
+        final Map<Long, AccountIndex> fresh = new HashMap<>();
+        for (final JournalSegment segment : written) {
+            segments.put(segment.getNumber(), segment);
+            index(fresh, segment);
+        }
+        lock.writeLock().lock();
+        try {
+            for (final JournalSegment segment : sealed) {
+                segments.remove(segment.getNumber());
+            }
+            for (final JournalSegment segment : segments.values()) {
+                if (segment.getGeneration() != generation) {
+                    index(fresh, segment);
+                }
+            }
+            accounts = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (final JournalSegment segment : sealed) {
+            delete(segment.getFile());
+        }
+        log.info("Compacted {} segments of {} into {}", sealed.size(), dir, setSize);
+        return true;
+    }
+
+    /**
+     * @return the transaction with the given id, or null if there is none
+     */
+    public Transaction get(final long id) {
+        lock.readLock().lock();
+        try {
+            final JournalRecord record = find(id);
+            return record == null ? null : record.into(new Transaction());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of transactions in the journal
+     */
+    public int getCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (final AccountIndex index : accounts.values()) {
+                count += index.size;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return getCount() == 0;
+    }
+
+    /**
+     * Delete every transaction
+     */
+    public synchronized void reset() {
+        lock.writeLock().lock();
+        try {
+            for (final JournalSegment segment : segments.values()) {
+                delete(segment.getFile());
+            }
+            segments.clear();
+            accounts = new HashMap<>();
+            dictionary.clear();
+            active = null;
+            roll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Pass the records of an account in date and id order to a consumer
+     *
+     * @param accountId
+     *            the account whose records to read
+     * @param fromDate
+     *            earliest date to read, or null for no lower bound
+     * @param toDate
+     *            latest date to read, or null for no upper bound
+     * @param cursor
+     *            id of the record to continue after, or null to start at the beginning
+     * @param limit
+     *            maximum number of records to pass
+     * @param filter
+     *            records to pass, or null for all
+     * @param consumer
+     *            receives the same view moved to each record in turn
+     * @return the number of records passed to the consumer
+     * @throws EmptyResultDataAccessException
+     *             if the cursor is not a transaction of the account
+     */
+    public int scan(final long accountId, final Date fromDate, final Date toDate, final Long cursor, final int limit,
+        final Predicate<JournalRecord> filter, final Consumer<JournalRecord> consumer) {
+        // the records passed come after (afterDay, afterId) and up to (lastDay, Long.MAX_VALUE)
+        int afterDay = fromDate == null ? Integer.MIN_VALUE : toEpochDay(fromDate);
+        long afterId = Long.MIN_VALUE;
+        final int lastDay = toDate == null ? Integer.MAX_VALUE : toEpochDay(toDate);
+        final JournalSegment[] chunkSegments = new JournalSegment[CHUNK];
+        final int[] chunkSlots = new int[CHUNK];
+        if (cursor != null) {
+            lock.readLock().lock();
+            try {
+                final JournalRecord position = find(cursor);
+                if (position == null || position.getAccountId() != accountId) {
+                    throw new EmptyResultDataAccessException(
+                        "No transaction with id = " + cursor + " for account id = " + accountId, 1);
+                }
+                if (compare(position.getEpochDay(), position.getId(), afterDay, afterId) > 0) {
+                    afterDay = position.getEpochDay();
+                    afterId = position.getId();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        final JournalRecord record = new JournalRecord(dictionary);
+        int count = 0;
+        while (count < limit) {
+            final int length;
+            lock.readLock().lock();
+            try {
+                final AccountIndex index = accounts.get(accountId);
+                if (index == null) {
+                    return count;
+                }
+                final int start = index.upperBound(afterDay, afterId);
+                length = Math.min(CHUNK, index.upperBound(lastDay, Long.MAX_VALUE) - start);
+                for (int i = 0; i < length; i++) {
+                    final long position = index.positions[start + i];
+                    chunkSegments[i] = getSegment(position);
+                    chunkSlots[i] = (int) position;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (int i = 0; i < length && count < limit; i++) {
+                record.moveTo(chunkSegments[i], chunkSlots[i]);
+                afterDay = record.getEpochDay();
+                afterId = record.getId();
+                if (filter == null || filter.test(record)) {
+                    consumer.accept(record);
+                    count++;
+                }
+            }
+            if (length < CHUNK) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param compactInterval
+     *            seconds between compactions, 0 to never compact
+     */
+    public void setCompactInterval(final int compactInterval) {
+        this.compactInterval = Math.max(0, compactInterval);
+    }
+
+    /**
+     * @param directory
+     *            where the segments and the description dictionary are kept
+     */
+    public void setDirectory(final String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param segmentCapacity
+     *            records per segment file
+     */
+    public void setSegmentCapacity(final int segmentCapacity) {
+        this.segmentCapacity = Math.max(1, Math.min(MAX_CAPACITY, segmentCapacity));
+    }
+
+    /**
+     * @param sync
+     *            whether an append only returns once it was forced to disk, false leaves that to the operating system
+     */
+    public void setSync(final boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * @return the record with the given id, call with the read or write lock held
+     */
+    private JournalRecord find(final long id) {
+        for (final JournalSegment segment : segments.values()) {
+            final int slot = segment.find(id);
+            if (slot >= 0) {
+                return new JournalRecord(dictionary).moveTo(segment, slot);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the generation of the newest compaction whose segments are all present, 0 if there is none
+     */
+    private static int getCompleteGeneration(final Collection<JournalSegment> found) {
+        final Map<Integer, Integer> present = new TreeMap<>(Collections.reverseOrder());
+        final Map<Integer, Integer> expected = new HashMap<>();
+        for (final JournalSegment segment : found) {
+            if (segment.getGeneration() > 0) {
+                present.merge(segment.getGeneration(), 1, Integer::sum);
+                expected.put(segment.getGeneration(), segment.getSetSize());
+            }
+        }
+        for (final Map.Entry<Integer, Integer> entry : present.entrySet()) {
+            if (entry.getValue().equals(expected.get(entry.getKey()))) {
+                return entry.getKey();
+            }
+        }
+        return 0;
+    }
+
+    private void index(final Map<Long, AccountIndex> target, final JournalSegment segment) {
+        for (int slot = 0; slot < segment.getCount(); slot++) {
+            target.computeIfAbsent(segment.getAccountId(slot), id -> new AccountIndex()).add(position(segment, slot));
+        }
+    }
+
+    /**
+     * Order records by day, then by id
+     */
+    private static int compare(final int epochDay, final long id, final int otherEpochDay, final long otherId) {
+        final int byDay = Integer.compare(epochDay, otherEpochDay);
+        return byDay != 0 ? byDay : Long.compare(id, otherId);
+    }
+
+    /**
+     * Compare the record at the given position to a day and id
+     */
+    private int compareTo(final long position, final int epochDay, final long id) {
+        final JournalSegment segment = getSegment(position);
+        final int slot = (int) position;
+        return compare(segment.getEpochDay(slot), segment.getId(slot), epochDay, id);
+    }
+
+    private JournalSegment getSegment(final long position) {
+        return segments.get((int) (position >>> 32));
+    }
+
+    private static long position(final JournalSegment segment, final int slot) {
+        return (long) segment.getNumber() << 32 | slot;
+    }
+
+    /**
+     * Start a new active segment, call with the write lock held
+     */
+    private void roll() {
+        final int number = nextNumber++;
+        try {
+            active = JournalSegment.create(new File(dir, String.format("journal-%08d.seg", number)), number,
+                segmentCapacity, 0, 0);
+        } catch (final IOException e) {
+            throw new DataAccessResourceFailureException("Could not create journal segment " + number, e);
+        }
+        segments.put(number, active);
+    }
+
+    /**
+     * Copy the records of the sealed segments account by account into new segments, forced to disk before they get
+     * their final names
+     */
+    private List<JournalSegment> writeClustered(final List<JournalSegment> sealed, final int generation,
+        final int firstNumber, final int setSize) {
+        final Set<Integer> sealedNumbers = new LinkedHashSet<>();
+        for (final JournalSegment segment : sealed) {
+            sealedNumbers.add(segment.getNumber());
+        }
+        final List<Long> accountIds;
+        lock.readLock().lock();
+        try {
+            accountIds = new ArrayList<>(accounts.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.sort(accountIds);
+
+        final List<File> files = new ArrayList<>();
+        final List<JournalSegment> written = new ArrayList<>();
+        try {
+            JournalSegment out = null;
+            for (final Long accountId : accountIds) {
+                final long[] positions;
+                lock.readLock().lock();
+                try {
+                    // the sealed segments no longer change, only their positions need the lock
+                    final AccountIndex index = accounts.get(accountId);
+                    positions = Arrays.copyOf(index.positions, index.size);
+                } finally {
+                    lock.readLock().unlock();
+                }
+                for (final long position : positions) {
+                    final int number = (int) (position >>> 32);
+                    if (!sealedNumbers.contains(number)) {
+                        continue;
+                    }
+                    if (out == null || out.isFull()) {
+                        final int outNumber = firstNumber + written.size();
+                        final File file = new File(dir, String.format("journal-%08d.seg", outNumber));
+                        files.add(file);
+                        out = JournalSegment.create(new File(file.getPath() + ".tmp"), outNumber, segmentCapacity,
+                            generation, setSize);
+                        written.add(out);
+                    }
+                    out.copy(segments.get(number), (int) position);
+                }
+            }
+            final List<JournalSegment> opened = new ArrayList<>();
+            for (int i = 0; i < written.size(); i++) {
+                written.get(i).force();
+                Files.move(written.get(i).getFile().toPath(), files.get(i).toPath(), StandardCopyOption.ATOMIC_MOVE);
+                opened.add(JournalSegment.open(files.get(i), written.get(i).getNumber()));
+            }
+            return opened;
+        } catch (final IOException e) {
+            for (final JournalSegment segment : written) {
+                delete(segment.getFile());
+            }
+            for (final File file : files) {
+                delete(file);
+            }
+            throw new DataAccessResourceFailureException("Could not compact " + dir, e);
+        }
+    }
+
+    private static void delete(final File file) {
+        if (file.exists() && !file.delete()) {
+            log.warn("Could not delete {}", file);
+        }
+    }
+
+    /**
+     * @return the amount in cents
+     * @throws InvalidDataAccessApiUsageException
+     *             if the amount has more than 2 decimals
+     */
+    static long toCents(final BigDecimal amount) {
+        if (amount == null) {
+            return JournalSegment.NO_AMOUNT;
+        }
+        try {
+            return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (final ArithmeticException e) {
+            throw new InvalidDataAccessApiUsageException("The journal stores amounts in cents, not " + amount, e);
+        }
+    }
+
+    /**
+     * @return the epoch day of a date in the local time zone, like a DATE column stores it
+     */
+    static int toEpochDay(final Date date) {
+        if (date == null) {
+            return JournalSegment.NO_DATE;
+        }
+        if (date instanceof java.sql.Date) {
+            return (int) ((java.sql.Date) date).toLocalDate().toEpochDay();
+        }
+        return (int) date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+}
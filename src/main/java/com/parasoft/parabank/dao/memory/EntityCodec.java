@@ -0,0 +1,304 @@
+package com.parasoft.parabank.dao.memory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Map;
+
+import com.parasoft.parabank.dao.memory.MemoryStore.Table;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Account.AccountType;
+import com.parasoft.parabank.domain.Address;
+import com.parasoft.parabank.domain.Customer;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+
+/**
+ * Copies the rows of a {@link MemoryStore} and writes them to and reads them from its log and snapshots
+ *
+ * A row is written as its table, its id, whether it is present and, if so, its fields. A deleted row is not present.
+ * Ids are written as longs; logs and snapshots written while ids were 32 bit are still read, with int ids.
+ */
+final class EntityCodec {
+    /**
+     * Receives the rows read back
+     */
+    interface RowHandler {
+        /**
+         * @param row
+         *            the row, null if it was deleted
+         */
+        void accept(Table table, long id, Object row);
+    }
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    /**
+     * Starts a commit written with long ids, a commit written with int ids starts with its row count instead
+     */
+    private static final int LONG_IDS = -2;
+
+    private EntityCodec() {
+    }
+
+    static Object copy(final Object row) {
+        if (row instanceof Transaction) {
+            final Transaction transaction = (Transaction) row;
+            final Transaction copy = new Transaction();
+            copy.setId(transaction.getId());
+            copy.setAccountId(transaction.getAccountId());
+            copy.setType(transaction.getType());
+            copy.setDate(transaction.getDate());
+            copy.setAmount(transaction.getAmount());
+            copy.setDescription(transaction.getDescription());
+            return copy;
+        } else if (row instanceof Account) {
+            final Account account = (Account) row;
+            final Account copy = new Account();
+            copy.setId(account.getId());
+            copy.setCustomerId(account.getCustomerId());
+            copy.setType(account.getType());
+            copy.setBalance(account.getBalance());
+            copy.setVersion(account.getVersion());
+            return copy;
+        } else if (row instanceof Customer) {
+            final Customer customer = (Customer) row;
+            final Customer copy = new Customer();
+            copy.setId(customer.getId());
+            copy.setFirstName(customer.getFirstName());
+            copy.setLastName(customer.getLastName());
+            if (customer.getAddress() != null) {
+                final Address address = new Address();
+                address.setStreet(customer.getAddress().getStreet());
+                address.setCity(customer.getAddress().getCity());
+                address.setState(customer.getAddress().getState());
+                address.setZipCode(customer.getAddress().getZipCode());
+                copy.setAddress(address);
+            }
+            copy.setPhoneNumber(customer.getPhoneNumber());
+            copy.setSsn(customer.getSsn());
+            copy.setUsername(customer.getUsername());
+            copy.setPassword(customer.getPassword());
+            return copy;
+        } else if (row instanceof Position) {
+            final Position position = (Position) row;
+            final Position copy = new Position();
+            copy.setPositionId(position.getPositionId());
+            copy.setCustomerId(position.getCustomerId());
+            copy.setName(position.getName());
+            copy.setSymbol(position.getSymbol());
+            copy.setShares(position.getShares());
+            copy.setPurchasePrice(position.getPurchasePrice());
+            return copy;
+        }
+        throw new IllegalArgumentException("Not a row of the memory store: " + row);
+    }
+
+    /**
+     * @return the rows of one commit in the format of {@link #decode(byte[], RowHandler)}
+     */
+    static byte[] encode(final Map<Long, Object> writes) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * writes.size());
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(LONG_IDS);
+            out.writeInt(writes.size());
+            for (final Map.Entry<Long, Object> entry : writes.entrySet()) {
+                final Object row = entry.getValue();
+                write(out, MemoryStore.getTable(entry.getKey()), MemoryStore.getId(entry.getKey()),
+                    row == MemoryTransaction.DELETED ? null : row);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static void decode(final byte[] payload, final RowHandler handler) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int count = in.readInt();
+        final boolean longIds = count == LONG_IDS;
+        if (longIds) {
+            count = in.readInt();
+        }
+        for (int i = 0; i < count; i++) {
+            read(in, handler, longIds);
+        }
+    }
+
+    static long getId(final Object row) {
+        if (row instanceof Transaction) {
+            return ((Transaction) row).getId();
+        } else if (row instanceof Account) {
+            return ((Account) row).getId();
+        } else if (row instanceof Customer) {
+            return ((Customer) row).getId();
+        }
+        return ((Position) row).getPositionId();
+    }
+
+    /**
+     * @return the day of the date in the default time zone, the way a DATE column stores it
+     */
+    static java.sql.Date toDay(final Date date) {
+        if (date == null) {
+            return null;
+        }
+        return java.sql.Date.valueOf(new java.sql.Date(date.getTime()).toLocalDate());
+    }
+
+    /**
+     * @param longIds
+     *            false for a row written while ids were 32 bit
+     */
+    static void read(final DataInput in, final RowHandler handler, final boolean longIds) throws IOException {
+        final Table table = Table.values()[in.readByte()];
+        final long id = readId(in, longIds);
+        if (!in.readBoolean()) {
+            handler.accept(table, id, null);
+            return;
+        }
+        switch (table) {
+            case CUSTOMER:
+                final Customer customer = new Customer();
+                customer.setId(id);
+                customer.setFirstName(readString(in));
+                customer.setLastName(readString(in));
+                if (in.readBoolean()) {
+                    final Address address = new Address();
+                    address.setStreet(readString(in));
+                    address.setCity(readString(in));
+                    address.setState(readString(in));
+                    address.setZipCode(readString(in));
+                    customer.setAddress(address);
+                }
+                customer.setPhoneNumber(readString(in));
+                customer.setSsn(readString(in));
+                customer.setUsername(readString(in));
+                customer.setPassword(readString(in));
+                handler.accept(table, id, customer);
+                break;
+            case ACCOUNT:
+                final Account account = new Account();
+                account.setId(id);
+                account.setCustomerId(readId(in, longIds));
+                final int accountType = in.readByte();
+                account.setType(accountType < 0 ? null : AccountType.values()[accountType]);
+                account.setBalance(readDecimal(in));
+                account.setVersion(in.readInt());
+                handler.accept(table, id, account);
+                break;
+            case POSITION:
+                final Position position = new Position();
+                position.setPositionId(id);
+                position.setCustomerId(readId(in, longIds));
+                position.setName(readString(in));
+                position.setSymbol(readString(in));
+                position.setShares(in.readInt());
+                position.setPurchasePrice(readDecimal(in));
+                handler.accept(table, id, position);
+                break;
+            case TRANSACTION:
+                final Transaction transaction = new Transaction();
+                transaction.setId(id);
+                transaction.setAccountId(readId(in, longIds));
+                final int transactionType = in.readByte();
+                transaction.setType(transactionType < 0 ? null : TransactionType.values()[transactionType]);
+                final long day = in.readLong();
+                transaction.setDate(day == NO_DATE ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(day)));
+                transaction.setAmount(readDecimal(in));
+                transaction.setDescription(readString(in));
+                handler.accept(table, id, transaction);
+                break;
+        }
+    }
+
+    /**
+     * @param row
+     *            the row, null if it was deleted
+     */
+    static void write(final DataOutput out, final Table table, final long id, final Object row) throws IOException {
+        out.writeByte(table.ordinal());
+        out.writeLong(id);
+        out.writeBoolean(row != null);
+        if (row == null) {
+            return;
+        }
+        switch (table) {
+            case CUSTOMER:
+                final Customer customer = (Customer) row;
+                writeString(out, customer.getFirstName());
+                writeString(out, customer.getLastName());
+                final Address address = customer.getAddress();
+                out.writeBoolean(address != null);
+                if (address != null) {
+                    writeString(out, address.getStreet());
+                    writeString(out, address.getCity());
+                    writeString(out, address.getState());
+                    writeString(out, address.getZipCode());
+                }
+                writeString(out, customer.getPhoneNumber());
+                writeString(out, customer.getSsn());
+                writeString(out, customer.getUsername());
+                writeString(out, customer.getPassword());
+                break;
+            case ACCOUNT:
+                final Account account = (Account) row;
+                out.writeLong(account.getCustomerId());
+                out.writeByte(account.getType() == null ? -1 : account.getType().ordinal());
+                writeDecimal(out, account.getBalance());
+                out.writeInt(account.getVersion());
+                break;
+            case POSITION:
+                final Position position = (Position) row;
+                out.writeLong(position.getCustomerId());
+                writeString(out, position.getName());
+                writeString(out, position.getSymbol());
+                out.writeInt(position.getShares());
+                writeDecimal(out, position.getPurchasePrice());
+                break;
+            case TRANSACTION:
+                final Transaction transaction = (Transaction) row;
+                out.writeLong(transaction.getAccountId());
+                out.writeByte(transaction.getType() == null ? -1 : transaction.getType().ordinal());
+                out.writeLong(transaction.getDate() == null ? NO_DATE
+                    : toDay(transaction.getDate()).toLocalDate().toEpochDay());
+                writeDecimal(out, transaction.getAmount());
+                writeString(out, transaction.getDescription());
+                break;
+        }
+    }
+
+    private static BigDecimal readDecimal(final DataInput in) throws IOException {
+        final String value = readString(in);
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private static long readId(final DataInput in, final boolean longIds) throws IOException {
+        return longIds ? in.readLong() : in.readInt();
+    }
+
+    private static String readString(final DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDecimal(final DataOutput out, final BigDecimal value) throws IOException {
+        writeString(out, value == null ? null : value.toString());
+    }
+
+    private static void writeString(final DataOutput out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.parasoft.parabank.dao.memory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.parasoft.parabank.dao.AccountDao;
+import com.parasoft.parabank.dao.memory.MemoryStore.Table;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Account.AccountType;
+import com.parasoft.parabank.domain.BalanceSummary;
+
+/**
+ * AccountDao on a {@link MemoryStore}
+ *
+ * Balances are kept as they were written and returned with two decimals like the JDBC implementation returns them.
+ * Balance summaries are aggregated from the customer's accounts on every call.
+ */
+public class MemoryAccountDao implements AccountDao {
+    private static final Logger log = LoggerFactory.getLogger(MemoryAccountDao.class);
+
+    private final MemoryStore store;
+
+    public MemoryAccountDao(final MemoryStore store) {
+        this.store = store;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#adjustBalance(long, java.math.BigDecimal)
+     */
+    @Override
+    public BigDecimal adjustBalance(final long id, final BigDecimal amount) {
+        final Account account = store.update(Table.ACCOUNT, id, (final Account existing) -> {
+            existing.setBalance(existing.getBalance() == null ? null : existing.getBalance().add(amount));
+            existing.setVersion(existing.getVersion() + 1);
+            return existing;
+        });
+        if (account == null) {
+            throw new EmptyResultDataAccessException("No account with id = " + id, 1);
+        }
+        log.info("Adjusted balance of account with id = " + id + " by " + amount);
+
+        return scale(account.getBalance());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#adjustBalances(java.util.Map)
+     */
+    @Override
+    public void adjustBalances(final Map<Long, BigDecimal> amounts) {
+        store.execute(tx -> {
+            for (final Map.Entry<Long, BigDecimal> entry : amounts.entrySet()) {
+                adjustBalance(entry.getKey(), entry.getValue());
+            }
+            return null;
+        });
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#createAccount(com.parasoft.parabank.domain.Account)
+     */
+    @Override
+    public long createAccount(final Account account) {
+        final long id = store.nextId(Table.ACCOUNT);
+        account.setId(id);
+        account.setVersion(0);
+        store.put(Table.ACCOUNT, id, account);
+        log.info("Created new account with id = " + id);
+
+        return id;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccount(long)
+     */
+    @Override
+    public Account getAccount(final long id) {
+        final Account account = store.get(Table.ACCOUNT, id);
+        if (account == null) {
+            throw new EmptyResultDataAccessException("No account with id = " + id, 1);
+        }
+        return scale(account);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccounts(java.util.Collection)
+     */
+    @Override
+    public List<Account> getAccounts(final Collection<Long> ids) {
+        final List<Account> accounts = new ArrayList<>(ids.size());
+        for (final Long id : ids) {
+            final Account account = store.get(Table.ACCOUNT, id);
+            if (account != null) {
+                accounts.add(scale(account));
+            }
+        }
+        return accounts;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getAccountsForCustomerId(long)
+     */
+    @Override
+    public List<Account> getAccountsForCustomerId(final long customerId) {
+        final List<Account> accounts = store.getAccountsForCustomer(customerId);
+        for (final Account account : accounts) {
+            scale(account);
+        }
+        return accounts;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#getBalanceSummary(long)
+     */
+    @Override
+    public BalanceSummary getBalanceSummary(final long customerId) {
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal available = BigDecimal.ZERO;
+        BigDecimal funds = BigDecimal.ZERO;
+        final List<Account> accounts = store.getAccountsForCustomer(customerId);
+        for (final Account account : accounts) {
+            final BigDecimal balance = account.getBalance();
+            if (balance != null) {
+                total = total.add(balance);
+                available = available.add(balance.max(BigDecimal.ZERO));
+                if (account.getType() != AccountType.LOAN) {
+                    funds = funds.add(balance);
+                }
+            }
+        }
+        final BalanceSummary summary = new BalanceSummary();
+        summary.setCustomerId(customerId);
+        summary.setTotalBalance(scale(total));
+        summary.setAvailableBalance(scale(available));
+        summary.setAvailableFunds(scale(funds));
+        summary.setAccountCount(accounts.size());
+        return summary;
+    }
+
+    /**
+     * Fails like the JDBC implementation if the account changed since it was read
+     *
+     * @see com.parasoft.parabank.dao.AccountDao#updateAccount(com.parasoft.parabank.domain.Account)
+     */
+    @Override
+    public void updateAccount(final Account account) {
+        final Account updated = store.update(Table.ACCOUNT, account.getId(), (final Account existing) -> {
+            if (existing.getVersion() != account.getVersion()) {
+                return null;
+            }
+            existing.setCustomerId(account.getCustomerId());
+            existing.setType(account.getType());
+            existing.setBalance(account.getBalance());
+            existing.setVersion(existing.getVersion() + 1);
+            return existing;
+        });
+        if (updated == null) {
+            throw new OptimisticLockingFailureException(
+                "Account with id = " + account.getId() + " was changed or removed since it was read");
+        }
+        account.setVersion(updated.getVersion());
+        log.info("Updated information for account with id = " + account.getId());
+    }
+
+    private static Account scale(final Account account) {
+        account.setBalance(scale(account.getBalance()));
+        return account;
+    }
+
+    private static BigDecimal scale(final BigDecimal amount) {
+        return amount == null ? null : amount.setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,229 @@
+package com.parasoft.parabank.dao.memory;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.support.JdbcDaoSupport;
+
+import com.parasoft.parabank.dao.ParaBankAdminDao;
+import com.parasoft.parabank.dao.internal.StorageReport;
+import com.parasoft.parabank.dao.jdbc.TransactionDescriptions;
+import com.parasoft.parabank.dao.memory.MemoryStore.Table;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Address;
+import com.parasoft.parabank.domain.Customer;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.Transaction;
+
+/**
+ * AdminDao that fills a {@link MemoryStore} from the database
+ *
+ * The database keeps its role for everything the store does not hold: initializeDB and cleanDB reset it through the
+ * JDBC AdminDao and then replace the store's content with its customers, accounts, positions and transactions, and
+ * parameters, stock prices and storage settings stay in it. An empty store is filled from the database on startup.
+ */
+public class MemoryAdminDao extends JdbcDaoSupport implements ParaBankAdminDao {
+    private static final Logger log = LoggerFactory.getLogger(MemoryAdminDao.class);
+
+    private final ParaBankAdminDao adminDao;
+
+    private final MemoryStore store;
+
+    /**
+     * @param adminDao
+     *            the AdminDao of the database
+     * @param store
+     *            the store to fill
+     */
+    public MemoryAdminDao(final ParaBankAdminDao adminDao, final MemoryStore store) {
+        this.adminDao = adminDao;
+        this.store = store;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#cleanDB()
+     */
+    @Override
+    public void cleanDB() {
+        adminDao.cleanDB();
+        load();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#getParameter(java.lang.String)
+     */
+    @Override
+    public String getParameter(final String name) {
+        return adminDao.getParameter(name);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#getParameters()
+     */
+    @Override
+    public Map<String, String> getParameters() {
+        return adminDao.getParameters();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#getParameterVersion()
+     */
+    @Override
+    public long getParameterVersion() {
+        return adminDao.getParameterVersion();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#getStorageReport()
+     */
+    @Override
+    public StorageReport getStorageReport() {
+        return adminDao.getStorageReport();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#initializeDB()
+     */
+    @Override
+    public void initializeDB() {
+        adminDao.initializeDB();
+        load();
+    }
+
+    /**
+     * Replace the content of the store with the rows of the database
+     */
+    public void load() {
+        final Map<Table, List<?>> tables = new EnumMap<>(Table.class);
+        final TransactionDescriptions descriptions = new TransactionDescriptions();
+        descriptions.setJdbcTemplate(getJdbcTemplate());
+        tables.put(Table.CUSTOMER, getJdbcTemplate().query(
+            "SELECT id, first_name, last_name, address, city, state, zip_code, phone_number, ssn, username, password"
+                + " FROM Customer",
+            (rs, rowNum) -> {
+                final Customer customer = new Customer();
+                customer.setId(rs.getLong("id"));
+                customer.setFirstName(rs.getString("first_name"));
+                customer.setLastName(rs.getString("last_name"));
+                final Address address = new Address();
+                address.setStreet(rs.getString("address"));
+                address.setCity(rs.getString("city"));
+                address.setState(rs.getString("state"));
+                address.setZipCode(rs.getString("zip_code"));
+                customer.setAddress(address);
+                customer.setPhoneNumber(rs.getString("phone_number"));
+                customer.setSsn(rs.getString("ssn"));
+                customer.setUsername(rs.getString("username"));
+                customer.setPassword(rs.getString("password"));
+                return customer;
+            }));
+        tables.put(Table.ACCOUNT,
+            getJdbcTemplate().query("SELECT id, customer_id, type, balance, version FROM Account", (rs, rowNum) -> {
+                final Account account = new Account();
+                account.setId(rs.getLong("id"));
+                account.setCustomerId(rs.getLong("customer_id"));
+                account.setIntType(rs.getInt("type"));
+                account.setBalance(rs.getBigDecimal("balance"));
+                account.setVersion(rs.getInt("version"));
+                return account;
+            }));
+        tables.put(Table.POSITION, getJdbcTemplate().query(
+            "SELECT position_id, customer_id, name, symbol, shares, purchase_price FROM Positions", (rs, rowNum) -> {
+                final Position position = new Position();
+                position.setPositionId(rs.getLong("position_id"));
+                position.setCustomerId(rs.getLong("customer_id"));
+                position.setName(rs.getString("name"));
+                position.setSymbol(rs.getString("symbol"));
+                position.setShares(rs.getInt("shares"));
+                position.setPurchasePrice(rs.getBigDecimal("purchase_price"));
+                return position;
+            }));
+        tables.put(Table.TRANSACTION, getJdbcTemplate().query(
+            "SELECT id, account_id, type, date, amount, description, description_id, description_arg FROM Transaction",
+            (rs, rowNum) -> {
+                final Transaction transaction = new Transaction();
+                transaction.setId(rs.getLong("id"));
+                transaction.setAccountId(rs.getLong("account_id"));
+                transaction.setIntType(rs.getInt("type"));
+                transaction.setDate(rs.getDate("date"));
+                transaction.setAmount(rs.getBigDecimal("amount"));
+                transaction.setDescription(descriptions.getDescription(rs));
+                return transaction;
+            }));
+
+        // continue where the Sequence table would
+        final Map<Table, Long> ids = new EnumMap<>(Table.class);
+        getJdbcTemplate().query("SELECT name, next_id FROM Sequence", (RowCallbackHandler) rs -> {
+            for (final Table table : Table.values()) {
+                if (table.name().equalsIgnoreCase(rs.getString("name"))) {
+                    ids.put(table, rs.getLong("next_id") - 1);
+                }
+            }
+        });
+
+        store.replace(tables, ids);
+        log.info("Loaded {} customers, {} accounts, {} positions and {} transactions into the memory store",
+            tables.get(Table.CUSTOMER).size(), tables.get(Table.ACCOUNT).size(), tables.get(Table.POSITION).size(),
+            tables.get(Table.TRANSACTION).size());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.AdminDao#setParameter(java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setParameter(final String name, final String value) {
+        adminDao.setParameter(name, value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#setParameters(java.util.Map)
+     */
+    @Override
+    public long setParameters(final Map<String, String> parameters) {
+        return adminDao.setParameters(parameters);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.ParaBankAdminDao#setStorageProfile(java.lang.String)
+     */
+    @Override
+    public void setStorageProfile(final String profile) {
+        adminDao.setStorageProfile(profile);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initDao() {
+        if (!store.isEmpty()) {
+            return;
+        }
+        try {
+            load();
+        } catch (final DataAccessException e) {
+            log.info("Database not initialized yet, the memory store is filled by initializeDB: {}", e.getMessage());
+        }
+    }
+}
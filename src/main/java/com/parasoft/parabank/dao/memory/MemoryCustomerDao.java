@@ -0,0 +1,96 @@
+package com.parasoft.parabank.dao.memory;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import com.parasoft.parabank.dao.CustomerDao;
+import com.parasoft.parabank.dao.memory.MemoryStore.Table;
+import com.parasoft.parabank.domain.Customer;
+
+/**
+ * CustomerDao on a {@link MemoryStore}, looking customers up by its username and SSN indexes
+ */
+public class MemoryCustomerDao implements CustomerDao {
+    private static final Logger log = LoggerFactory.getLogger(MemoryCustomerDao.class);
+
+    private final MemoryStore store;
+
+    public MemoryCustomerDao(final MemoryStore store) {
+        this.store = store;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#createCustomer(com.parasoft.parabank.domain.Customer)
+     */
+    @Override
+    public long createCustomer(final Customer customer) {
+        final long id = store.nextId(Table.CUSTOMER);
+        customer.setId(id);
+        store.put(Table.CUSTOMER, id, customer);
+        log.info("Created new customer with id = " + id);
+
+        return id;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(long)
+     */
+    @Override
+    public Customer getCustomer(final long id) {
+        final Customer customer = store.get(Table.CUSTOMER, id);
+        if (customer == null) {
+            throw new EmptyResultDataAccessException("No customer with id = " + id, 1);
+        }
+        return customer;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(java.lang.String)
+     */
+    @Override
+    public Customer getCustomer(final String ssn) {
+        final List<Customer> customers = store.getCustomersBySsn(ssn);
+        if (customers.size() != 1) {
+            log.warn("Invalid customer lookup attempt with ssn = " + ssn);
+            return null;
+        }
+        return customers.get(0);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#getCustomer(java.lang.String, java.lang.String)
+     */
+    @Override
+    public Customer getCustomer(final String username, final String password) {
+        for (final Customer customer : store.getCustomersByUsername(username)) {
+            if (password != null && password.equals(customer.getPassword())) {
+                return customer;
+            }
+        }
+        log.warn("Invalid login attempt with username = " + username);
+        return null;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.CustomerDao#updateCustomer(com.parasoft.parabank.domain.Customer)
+     */
+    @Override
+    public void updateCustomer(final Customer customer) {
+        if (store.update(Table.CUSTOMER, customer.getId(), existing -> customer) != null) {
+            log.info("Updated information for customer with id = " + customer.getId());
+        }
+    }
+}
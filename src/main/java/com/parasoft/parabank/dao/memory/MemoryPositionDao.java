@@ -0,0 +1,143 @@
+package com.parasoft.parabank.dao.memory;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import com.parasoft.parabank.dao.PositionDao;
+import com.parasoft.parabank.dao.jdbc.StockPriceStore;
+import com.parasoft.parabank.dao.memory.MemoryStore.Table;
+import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
+import com.parasoft.parabank.domain.PortfolioValuation;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.logic.PortfolioValuator;
+
+/**
+ * PositionDao on a {@link MemoryStore}, answering history queries and valuations from a {@link StockPriceStore}
+ */
+public class MemoryPositionDao implements PositionDao {
+    private static final Logger log = LoggerFactory.getLogger(MemoryPositionDao.class);
+
+    private final MemoryStore store;
+
+    private final StockPriceStore stockPriceStore;
+
+    public MemoryPositionDao(final MemoryStore store, final StockPriceStore stockPriceStore) {
+        this.store = store;
+        this.stockPriceStore = stockPriceStore;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#createPosition(com.parasoft.parabank.domain.Position)
+     */
+    @Override
+    public long createPosition(final Position position) {
+        final long id = store.nextId(Table.POSITION);
+        position.setPositionId(id);
+        store.put(Table.POSITION, id, position);
+        log.info("Created new position with position id = " + id);
+
+        return id;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#deletePosition(com.parasoft.parabank.domain.Position)
+     */
+    @Override
+    public boolean deletePosition(final Position position) {
+        final boolean deleted = store.delete(Table.POSITION, position.getPositionId());
+        log.info("Deleted position with position id = " + position.getPositionId());
+        return deleted;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPortfolioValuation(long)
+     */
+    @Override
+    public PortfolioValuation getPortfolioValuation(final long customerId) {
+        final List<Position> positions = getPositionsForCustomerId(customerId);
+        final Set<String> symbols = new HashSet<>();
+        for (final Position position : positions) {
+            symbols.add(position.getSymbol());
+        }
+        final PortfolioValuation valuation =
+            PortfolioValuator.value(customerId, positions, stockPriceStore.getLatestPrices(symbols));
+        log.info("Valued " + positions.size() + " positions for customer id = " + customerId);
+
+        return valuation;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPosition(long)
+     */
+    @Override
+    public Position getPosition(final long positionId) {
+        final Position position = store.get(Table.POSITION, positionId);
+        if (position == null) {
+            throw new EmptyResultDataAccessException("No position with position id = " + positionId, 1);
+        }
+        return position;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionHistory(long, java.util.Date, java.util.Date)
+     */
+    @Override
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate) {
+        return getPositionHistory(positionId, startDate, endDate, Resolution.DAILY, null);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionHistory(long, java.util.Date, java.util.Date,
+     * com.parasoft.parabank.domain.HistoryPoint.Resolution, java.lang.Integer)
+     */
+    @Override
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate,
+        final Resolution resolution, final Integer maxPoints) {
+        return stockPriceStore.getHistory(getPosition(positionId).getSymbol(), startDate, endDate, resolution,
+            maxPoints);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#getPositionsForCustomerId(long)
+     */
+    @Override
+    public List<Position> getPositionsForCustomerId(final long customerId) {
+        return store.getPositionsForCustomer(customerId);
+    }
+
+    /**
+     * Only the shares are updated, like in the JDBC implementation
+     *
+     * @see com.parasoft.parabank.dao.PositionDao#updatePosition(com.parasoft.parabank.domain.Position)
+     */
+    @Override
+    public boolean updatePosition(final Position position) {
+        final Position updated = store.update(Table.POSITION, position.getPositionId(), (final Position existing) -> {
+            existing.setShares(position.getShares());
+            return existing;
+        });
+        log.info("Updated shares information for position with position id = " + position.getPositionId());
+        return updated != null;
+    }
+}
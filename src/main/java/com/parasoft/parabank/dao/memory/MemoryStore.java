@@ -0,0 +1,822 @@
+package com.parasoft.parabank.dao.memory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Customer;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.Transaction;
+
+/**
+ * Customers, accounts, positions and transactions held in concurrent maps by id, with the indexes the DAOs of this
+ * package look them up by: accounts and positions by customer, transactions by account sorted by date and id, and
+ * customers by username and by SSN
+ *
+ * Changes are made in a {@link MemoryTransaction}, bound to the thread by the {@link MemoryTransactionManager} or
+ * created for the single change of a DAO called outside of one. A transaction locks every row it writes until it
+ * completes, other writers of the row wait up to {@link #setLockTimeout(long)} milliseconds. Its changes stay
+ * private to it until it commits; then they are appended to the {@link WriteAheadLog} as one frame and published to
+ * the maps and indexes. Readers never lock and see the committed rows plus their own transaction's changes.
+ *
+ * If a directory is set, the store recovers on startup by loading the latest snapshot and replaying the log segments
+ * written since. Every {@link #setSnapshotInterval(int)} seconds the log moves on to a new segment and the store is
+ * written to a snapshot of that segment, after which the older segments and snapshots are deleted. The snapshot is
+ * taken while commits continue; it may contain changes of the new segment, which the replay simply writes again.
+ */
+public class MemoryStore implements InitializingBean, DisposableBean {
+    /**
+     * The tables of the store, the ordinal is part of the log format
+     */
+    enum Table {
+        CUSTOMER, ACCOUNT, POSITION, TRANSACTION
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryStore.class);
+
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.dat");
+
+    /**
+     * Snapshots written while ids were 32 bit, still read on recovery
+     */
+    private static final int SNAPSHOT_MAGIC_INT_IDS = 0x50424d53;
+
+    private static final int SNAPSHOT_MAGIC = 0x50424d4c;
+
+    /**
+     * Bits of a lock or write key holding the row id, the table is stored above them
+     */
+    private static final int ID_BITS = 60;
+
+    /**
+     * Lock keys of usernames are beyond those of the tables' rows
+     */
+    private static final long USERNAME_LOCKS = (long) Table.values().length << ID_BITS;
+
+    /**
+     * Chronological order of the transactions of an account
+     */
+    static final Comparator<Transaction> BY_DATE = Comparator
+        .comparing(Transaction::getDate, Comparator.nullsFirst(Comparator.<Date> naturalOrder()))
+        .thenComparingLong(Transaction::getId);
+
+    private static final NavigableSet<Transaction> NO_TRANSACTIONS =
+        Collections.unmodifiableNavigableSet(new TreeSet<>(BY_DATE));
+
+    private final Map<Table, Map<Long, Object>> rows = new EnumMap<>(Table.class);
+
+    private final Map<Table, AtomicLong> lastIds = new EnumMap<>(Table.class);
+
+    private final Map<Long, Set<Long>> accountsByCustomer = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> positionsByCustomer = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Transaction>> transactionsByAccount = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Long>> customersByUsername = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Long>> customersBySsn = new ConcurrentHashMap<>();
+
+    private final Map<Long, MemoryTransaction> rowLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Held shared while a commit is appended and published, exclusively while the log moves to a new segment
+     */
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+
+    private String directory;
+
+    private boolean sync = true;
+
+    private int snapshotInterval = 300;
+
+    private long lockTimeout = 5000;
+
+    private WriteAheadLog writeAheadLog;
+
+    private ScheduledExecutorService snapshotScheduler;
+
+    public MemoryStore() {
+        for (final Table table : Table.values()) {
+            rows.put(table, new ConcurrentHashMap<>());
+            lastIds.put(table, new AtomicLong());
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!StringUtils.hasText(directory)) {
+            log.info("Memory store without a directory, changes are lost on shutdown");
+            return;
+        }
+        final File dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        final long segment = loadSnapshot(dir);
+        writeAheadLog = new WriteAheadLog(dir, sync);
+        final int frames = writeAheadLog.open(segment, payload -> {
+            try {
+                EntityCodec.decode(payload, this::apply);
+            } catch (final IOException e) {
+                throw new DataAccessResourceFailureException("Could not replay the write-ahead log", e);
+            }
+        });
+        log.info("Recovered {} customers, {} accounts and {} transactions from {}, replaying {} commits",
+            rows.get(Table.CUSTOMER).size(), rows.get(Table.ACCOUNT).size(), rows.get(Table.TRANSACTION).size(), dir,
+            frames);
+        if (snapshotInterval > 0) {
+            snapshotScheduler =
+                Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("memory-snapshot-"));
+            snapshotScheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    snapshot();
+                } catch (final RuntimeException e) {
+                    log.warn("Taking a snapshot failed", e);
+                }
+            }, snapshotInterval, snapshotInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Take a last snapshot so the next start does not need to replay the log
+     */
+    @Override
+    public void destroy() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            snapshotScheduler = null;
+        }
+        if (writeAheadLog != null) {
+            try {
+                snapshot();
+            } catch (final RuntimeException e) {
+                log.warn("Taking the final snapshot failed, the log is replayed on the next start", e);
+            }
+            writeAheadLog.close();
+            writeAheadLog = null;
+        }
+    }
+
+    int getRowCount(final Table table) {
+        return rows.get(table).size();
+    }
+
+    public boolean isEmpty() {
+        for (final Map<Long, Object> table : rows.values()) {
+            if (!table.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param directory
+     *            where the log and the snapshots are kept, empty to keep the store in the heap only
+     */
+    public void setDirectory(final String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param lockTimeout
+     *            milliseconds a change waits for the transaction holding the row to complete
+     */
+    public void setLockTimeout(final long lockTimeout) {
+        this.lockTimeout = Math.max(0, lockTimeout);
+    }
+
+    /**
+     * @param snapshotInterval
+     *            seconds between snapshots, 0 to only take one on shutdown
+     */
+    public void setSnapshotInterval(final int snapshotInterval) {
+        this.snapshotInterval = Math.max(0, snapshotInterval);
+    }
+
+    /**
+     * @param sync
+     *            whether a commit only returns once it was forced to disk, false leaves that to the operating system
+     */
+    public void setSync(final boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * Write the store to a snapshot and delete the log segments and snapshots it replaces
+     *
+     * @return false if there was nothing new to write
+     */
+    public synchronized boolean snapshot() {
+        if (writeAheadLog == null) {
+            return false;
+        }
+        final long segment;
+        segmentLock.writeLock().lock();
+        try {
+            if (writeAheadLog.isSegmentEmpty()) {
+                return false;
+            }
+            segment = writeAheadLog.rotate();
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+        writeSnapshot(segment);
+        return true;
+    }
+
+    /**
+     * Replace the whole content of the store, e.g. with the data of a database that was just reset
+     *
+     * @param tables
+     *            the rows of each table
+     * @param ids
+     *            the last id handed out for each table, ids below the largest row id are ignored
+     */
+    synchronized void replace(final Map<Table, ? extends Collection<?>> tables, final Map<Table, Long> ids) {
+        segmentLock.writeLock().lock();
+        try {
+            for (final Table table : Table.values()) {
+                rows.get(table).clear();
+                lastIds.get(table).set(ids.getOrDefault(table, 0L));
+            }
+            accountsByCustomer.clear();
+            positionsByCustomer.clear();
+            transactionsByAccount.clear();
+            customersByUsername.clear();
+            customersBySsn.clear();
+            for (final Map.Entry<Table, ? extends Collection<?>> entry : tables.entrySet()) {
+                for (final Object row : entry.getValue()) {
+                    apply(entry.getKey(), EntityCodec.getId(row), EntityCodec.copy(row));
+                }
+            }
+            if (writeAheadLog != null) {
+                writeSnapshot(writeAheadLog.rotate());
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- reads
+
+    /**
+     * @return a copy of the row, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(final Table table, final long id) {
+        final Object row = getRow(currentTransaction(), table, id);
+        return row == null ? null : (T) EntityCodec.copy(row);
+    }
+
+    List<Account> getAccountsForCustomer(final long customerId) {
+        return select(Table.ACCOUNT, accountsByCustomer.get(customerId),
+            (final Account account) -> account.getCustomerId() == customerId);
+    }
+
+    List<Customer> getCustomersBySsn(final String ssn) {
+        return select(Table.CUSTOMER, ssn == null ? null : customersBySsn.get(ssn),
+            (final Customer customer) -> ssn != null && ssn.equals(customer.getSsn()));
+    }
+
+    List<Customer> getCustomersByUsername(final String username) {
+        return select(Table.CUSTOMER, username == null ? null : customersByUsername.get(username),
+            (final Customer customer) -> username != null && username.equals(customer.getUsername()));
+    }
+
+    List<Position> getPositionsForCustomer(final long customerId) {
+        return select(Table.POSITION, positionsByCustomer.get(customerId),
+            (final Position position) -> position.getCustomerId() == customerId);
+    }
+
+    /**
+     * @param fromDate
+     *            the first day of the transactions, null for no limit
+     * @param toDate
+     *            the last day of the transactions, null for no limit
+     * @param cursor
+     *            id of the transaction of the account to continue after, null to start with the first
+     * @param limit
+     *            largest number of transactions returned
+     * @param filter
+     *            restriction of the transactions in the date range
+     * @return copies of the transactions of the account in chronological order
+     */
+    List<Transaction> getTransactionsForAccount(final long accountId, final Date fromDate, final Date toDate,
+        final Long cursor, final int limit, final Predicate<Transaction> filter) {
+        final MemoryTransaction tx = currentTransaction();
+        NavigableSet<Transaction> transactions =
+            (NavigableSet<Transaction>) transactionsByAccount.getOrDefault(accountId, NO_TRANSACTIONS);
+        if (tx != null) {
+            NavigableSet<Transaction> merged = null;
+            for (final Map.Entry<Long, Object> write : tx.getWrites().entrySet()) {
+                if (getTable(write.getKey()) == Table.TRANSACTION
+                    && ((Transaction) write.getValue()).getAccountId() == accountId) {
+                    if (merged == null) {
+                        merged = new TreeSet<>(BY_DATE);
+                        merged.addAll(transactions);
+                    }
+                    merged.add((Transaction) write.getValue());
+                }
+            }
+            if (merged != null) {
+                transactions = merged;
+            }
+        }
+        // a view of a view fails for bounds outside of it, so the range is narrowed once
+        Transaction lower = fromDate == null ? null : probe(fromDate, Long.MIN_VALUE);
+        boolean lowerInclusive = true;
+        if (cursor != null) {
+            final Transaction after = (Transaction) getRow(tx, Table.TRANSACTION, cursor);
+            if (after == null || after.getAccountId() != accountId) {
+                throw new EmptyResultDataAccessException(
+                    "No transaction with id = " + cursor + " for account id = " + accountId, 1);
+            }
+            if (lower == null || BY_DATE.compare(after, lower) >= 0) {
+                lower = after;
+                lowerInclusive = false;
+            }
+        }
+        final Transaction upper = toDate == null ? null : probe(toDate, Long.MAX_VALUE);
+        if (lower != null && upper != null) {
+            transactions = BY_DATE.compare(lower, upper) > 0 ? NO_TRANSACTIONS
+                : transactions.subSet(lower, lowerInclusive, upper, true);
+        } else if (lower != null) {
+            transactions = transactions.tailSet(lower, lowerInclusive);
+        } else if (upper != null) {
+            transactions = transactions.headSet(upper, true);
+        }
+        final List<Transaction> result = new ArrayList<>();
+        for (final Transaction transaction : transactions) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (filter == null || filter.test(transaction)) {
+                result.add((Transaction) EntityCodec.copy(transaction));
+            }
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------------- writes
+
+    /**
+     * Run the changes in the current transaction, or in one of their own that commits when they are done and is
+     * bound to the thread meanwhile
+     */
+    <T> T execute(final Function<MemoryTransaction, T> changes) {
+        final MemoryTransaction current = currentTransaction();
+        if (current != null) {
+            return changes.apply(current);
+        }
+        final MemoryTransaction tx = new MemoryTransaction();
+        TransactionSynchronizationManager.bindResource(this, tx);
+        try {
+            final T result;
+            try {
+                result = changes.apply(tx);
+            } catch (final RuntimeException | Error e) {
+                rollback(tx);
+                throw e;
+            }
+            commit(tx);
+            return result;
+        } finally {
+            TransactionSynchronizationManager.unbindResource(this);
+        }
+    }
+
+    /**
+     * Add a row, or replace the row of the same id
+     */
+    void put(final Table table, final long id, final Object row) {
+        execute(tx -> {
+            final Object copy = EntityCodec.copy(row);
+            if (table == Table.CUSTOMER) {
+                checkUsername(tx, id, ((Customer) copy).getUsername());
+            }
+            lock(tx, key(table, id));
+            tx.write(key(table, id), copy);
+            return null;
+        });
+    }
+
+    /**
+     * @return false if there was no such row
+     */
+    boolean delete(final Table table, final long id) {
+        return execute(tx -> {
+            lock(tx, key(table, id));
+            if (getRow(tx, table, id) == null) {
+                return false;
+            }
+            tx.write(key(table, id), MemoryTransaction.DELETED);
+            return true;
+        });
+    }
+
+    /**
+     * @return the next id of the table
+     */
+    long nextId(final Table table) {
+        return lastIds.get(table).incrementAndGet();
+    }
+
+    /**
+     * Change a row while holding its lock
+     *
+     * @param change
+     *            receives a copy of the row and returns the new row, or null to leave it unchanged
+     * @return a copy of the new row, null if there was no such row or it was left unchanged
+     */
+    @SuppressWarnings("unchecked")
+    <T> T update(final Table table, final long id, final UnaryOperator<T> change) {
+        return execute(tx -> {
+            lock(tx, key(table, id));
+            final Object row = getRow(tx, table, id);
+            if (row == null) {
+                return null;
+            }
+            final T result = change.apply((T) EntityCodec.copy(row));
+            if (result == null) {
+                return null;
+            }
+            final Object changed = EntityCodec.copy(result);
+            if (table == Table.CUSTOMER) {
+                checkUsername(tx, id, ((Customer) changed).getUsername());
+            }
+            tx.write(key(table, id), changed);
+            return (T) EntityCodec.copy(changed);
+        });
+    }
+
+    // ---------------------------------------------------------------- transactions
+
+    /**
+     * Append the changes of the transaction to the log, publish them and release its locks
+     */
+    void commit(final MemoryTransaction tx) {
+        try {
+            if (!tx.getWrites().isEmpty()) {
+                segmentLock.readLock().lock();
+                try {
+                    if (writeAheadLog != null) {
+                        writeAheadLog.append(EntityCodec.encode(tx.getWrites()));
+                    }
+                    for (final Map.Entry<Long, Object> write : tx.getWrites().entrySet()) {
+                        final Object row = write.getValue();
+                        apply(getTable(write.getKey()), getId(write.getKey()),
+                            row == MemoryTransaction.DELETED ? null : row);
+                    }
+                } finally {
+                    segmentLock.readLock().unlock();
+                }
+            }
+        } finally {
+            release(tx);
+        }
+    }
+
+    /**
+     * Discard the changes of the transaction and release its locks
+     */
+    void rollback(final MemoryTransaction tx) {
+        tx.getWrites().clear();
+        release(tx);
+    }
+
+    static long getId(final long key) {
+        return key & (1L << ID_BITS) - 1;
+    }
+
+    static Table getTable(final long key) {
+        return Table.values()[(int) (key >>> ID_BITS)];
+    }
+
+    static long key(final Table table, final long id) {
+        if (id >>> ID_BITS != 0) {
+            throw new IllegalArgumentException("Id " + id + " is beyond the ids of the memory store");
+        }
+        return (long) table.ordinal() << ID_BITS | id;
+    }
+
+    // ---------------------------------------------------------------- internals
+
+    /**
+     * Publish a committed, replayed or loaded row and update the indexes
+     *
+     * @param row
+     *            the new row, null to remove it
+     */
+    private void apply(final Table table, final long id, final Object row) {
+        final Object old = row == null ? rows.get(table).remove(id) : rows.get(table).put(id, row);
+        lastIds.get(table).accumulateAndGet(id, Math::max);
+        switch (table) {
+            case CUSTOMER:
+                final Customer oldCustomer = (Customer) old;
+                final Customer customer = (Customer) row;
+                if (oldCustomer != null) {
+                    unindex(customersByUsername, oldCustomer.getUsername(), id);
+                    unindex(customersBySsn, oldCustomer.getSsn(), id);
+                }
+                if (customer != null) {
+                    index(customersByUsername, customer.getUsername(), id, ConcurrentSkipListSet::new);
+                    index(customersBySsn, customer.getSsn(), id, ConcurrentSkipListSet::new);
+                }
+                break;
+            case ACCOUNT:
+                if (old != null) {
+                    unindex(accountsByCustomer, ((Account) old).getCustomerId(), id);
+                }
+                if (row != null) {
+                    index(accountsByCustomer, ((Account) row).getCustomerId(), id, ConcurrentSkipListSet::new);
+                }
+                break;
+            case POSITION:
+                if (old != null) {
+                    unindex(positionsByCustomer, ((Position) old).getCustomerId(), id);
+                }
+                if (row != null) {
+                    index(positionsByCustomer, ((Position) row).getCustomerId(), id, ConcurrentSkipListSet::new);
+                }
+                break;
+            case TRANSACTION:
+                if (old != null) {
+                    unindex(transactionsByAccount, ((Transaction) old).getAccountId(), (Transaction) old);
+                }
+                if (row != null) {
+                    index(transactionsByAccount, ((Transaction) row).getAccountId(), (Transaction) row,
+                        () -> new ConcurrentSkipListSet<>(BY_DATE));
+                }
+                break;
+        }
+    }
+
+    /**
+     * Lock the username and fail if another customer has it, like the unique constraint of the Customer table
+     */
+    private void checkUsername(final MemoryTransaction tx, final long id, final String username) {
+        if (username == null) {
+            return;
+        }
+        lock(tx, USERNAME_LOCKS | username.hashCode() & 0xffffffffL);
+        for (final Customer other : select(Table.CUSTOMER, customersByUsername.get(username),
+            (final Customer customer) -> username.equals(customer.getUsername()))) {
+            if (other.getId() != id) {
+                throw new DuplicateKeyException("Username " + username + " is taken by customer id = " + other.getId());
+            }
+        }
+    }
+
+    private MemoryTransaction currentTransaction() {
+        return (MemoryTransaction) TransactionSynchronizationManager.getResource(this);
+    }
+
+    /**
+     * @return the row as the transaction sees it, null if there is none
+     */
+    private Object getRow(final MemoryTransaction tx, final Table table, final long id) {
+        if (tx != null) {
+            final Object row = tx.getWrite(key(table, id));
+            if (row != null) {
+                return row == MemoryTransaction.DELETED ? null : row;
+            }
+        }
+        return rows.get(table).get(id);
+    }
+
+    private static <K, V> void index(final Map<K, Set<V>> index, final K key, final V value,
+        final Supplier<Set<V>> newSet) {
+        if (key != null) {
+            index.compute(key, (k, values) -> {
+                final Set<V> set = values != null ? values : newSet.get();
+                set.add(value);
+                return set;
+            });
+        }
+    }
+
+    /**
+     * The snapshot of the given segment contains everything committed before the segment was started
+     *
+     * @return the segment of the snapshot loaded, 0 if there was none
+     */
+    private long loadSnapshot(final File dir) {
+        final TreeMap<Long, File> snapshots = listSnapshots(dir);
+        for (final Map.Entry<Long, File> snapshot : snapshots.descendingMap().entrySet()) {
+            final CRC32 crc = new CRC32();
+            try (DataInputStream in = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(new FileInputStream(snapshot.getValue())), crc))) {
+                final int magic = in.readInt();
+                if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_INT_IDS) {
+                    throw new IOException("not a snapshot");
+                }
+                final boolean longIds = magic == SNAPSHOT_MAGIC;
+                for (final Table table : Table.values()) {
+                    lastIds.get(table).set(longIds ? in.readLong() : in.readInt());
+                }
+                long count = 0;
+                while (in.readBoolean()) {
+                    EntityCodec.read(in, this::apply, longIds);
+                    count++;
+                }
+                final long checksum = crc.getValue();
+                if (in.readLong() != checksum) {
+                    throw new IOException("checksum mismatch");
+                }
+                log.info("Loaded {} rows from {}", count, snapshot.getValue());
+                return snapshot.getKey();
+            } catch (final IOException | RuntimeException e) {
+                log.error("Could not load {}, trying an older snapshot", snapshot.getValue(), e);
+                replace(Collections.emptyMap(), Collections.emptyMap());
+            }
+        }
+        return 0;
+    }
+
+    private static TreeMap<Long, File> listSnapshots(final File dir) {
+        final TreeMap<Long, File> snapshots = new TreeMap<>();
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                final Matcher matcher = SNAPSHOT.matcher(file.getName());
+                if (matcher.matches()) {
+                    snapshots.put(Long.parseLong(matcher.group(1)), file);
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    private void lock(final MemoryTransaction tx, final long key) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockTimeout);
+        while (true) {
+            final MemoryTransaction owner = rowLocks.putIfAbsent(key, tx);
+            if (owner == null) {
+                tx.addLock(key);
+                return;
+            }
+            if (owner == tx) {
+                return;
+            }
+            try {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !owner.awaitCompletion(remaining)) {
+                    throw new CannotAcquireLockException(
+                        "Timed out after " + lockTimeout + " ms waiting for the lock of row " + describe(key));
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotAcquireLockException("Interrupted waiting for the lock of row " + describe(key), e);
+            }
+        }
+    }
+
+    private void release(final MemoryTransaction tx) {
+        for (final Long key : tx.getLocks()) {
+            rowLocks.remove(key, tx);
+        }
+        tx.getLocks().clear();
+        tx.complete();
+    }
+
+    private static <K, V> void unindex(final Map<K, Set<V>> index, final K key, final V value) {
+        if (key != null) {
+            index.computeIfPresent(key, (k, values) -> {
+                values.remove(value);
+                return values.isEmpty() ? null : values;
+            });
+        }
+    }
+
+    /**
+     * @return copies of the rows, among the indexed ones and the transaction's own, that match the filter
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> select(final Table table, final Collection<Long> indexed, final Predicate<T> filter) {
+        final MemoryTransaction tx = currentTransaction();
+        final Set<Long> ids = new TreeSet<>();
+        if (indexed != null) {
+            ids.addAll(indexed);
+        }
+        if (tx != null) {
+            for (final Long key : tx.getWrites().keySet()) {
+                if (getTable(key) == table) {
+                    ids.add(getId(key));
+                }
+            }
+        }
+        final List<T> result = new ArrayList<>(ids.size());
+        for (final Long id : ids) {
+            final T row = (T) getRow(tx, table, id);
+            if (row != null && filter.test(row)) {
+                result.add((T) EntityCodec.copy(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write a snapshot of the given segment and delete what it replaces
+     */
+    private void writeSnapshot(final long segment) {
+        final File dir = new File(directory);
+        final File snapshot = new File(dir, String.format("snapshot-%016d.dat", segment));
+        final File temp = new File(dir, snapshot.getName() + ".tmp");
+        final CRC32 crc = new CRC32();
+        long count = 0;
+        try (FileOutputStream file = new FileOutputStream(temp)) {
+            final DataOutputStream out =
+                new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+            out.writeInt(SNAPSHOT_MAGIC);
+            for (final Table table : Table.values()) {
+                out.writeLong(lastIds.get(table).get());
+            }
+            for (final Table table : Table.values()) {
+                for (final Map.Entry<Long, Object> row : rows.get(table).entrySet()) {
+                    out.writeBoolean(true);
+                    EntityCodec.write(out, table, row.getKey(), row.getValue());
+                    count++;
+                }
+            }
+            out.writeBoolean(false);
+            out.writeLong(crc.getValue());
+            out.flush();
+            file.getFD().sync();
+        } catch (final IOException e) {
+            temp.delete();
+            throw new DataAccessResourceFailureException("Could not write " + snapshot, e);
+        }
+        try {
+            Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new DataAccessResourceFailureException("Could not write " + snapshot, e);
+        }
+        for (final File older : listSnapshots(dir).headMap(segment).values()) {
+            older.delete();
+        }
+        writeAheadLog.deleteBefore(segment);
+        log.info("Wrote {} rows to {}", count, snapshot);
+    }
+
+    private static String describe(final long key) {
+        return key >= USERNAME_LOCKS ? "of a username" : getId(key) + " of " + getTable(key);
+    }
+
+    private static Transaction probe(final Date date, final long id) {
+        final Transaction probe = new Transaction();
+        probe.setDate(EntityCodec.toDay(date));
+        probe.setId(id);
+        return probe;
+    }
+}
@@ -0,0 +1,73 @@
+package com.parasoft.parabank.dao.memory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The uncommitted changes of one transaction on a {@link MemoryStore} and the rows it locked
+ *
+ * A transaction is used by a single thread; other threads only wait for its completion.
+ */
+final class MemoryTransaction {
+    /**
+     * Written for a row the transaction deleted
+     */
+    static final Object DELETED = new Object();
+
+    private final Map<Long, Object> writes = new LinkedHashMap<>();
+
+    private final List<Long> locks = new ArrayList<>();
+
+    private final CountDownLatch completion = new CountDownLatch(1);
+
+    private boolean rollbackOnly;
+
+    void addLock(final long key) {
+        locks.add(key);
+    }
+
+    /**
+     * @return false if the transaction did not complete within the timeout
+     */
+    boolean awaitCompletion(final long timeoutNanos) throws InterruptedException {
+        return completion.await(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void complete() {
+        completion.countDown();
+    }
+
+    List<Long> getLocks() {
+        return locks;
+    }
+
+    /**
+     * @return the row written for the key, {@link #DELETED} or null if the transaction did not write it
+     */
+    Object getWrite(final long key) {
+        return writes.get(key);
+    }
+
+    /**
+     * @return the rows written by key in the order they were first written
+     */
+    Map<Long, Object> getWrites() {
+        return writes;
+    }
+
+    boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    void write(final long key, final Object row) {
+        writes.put(key, row);
+    }
+}
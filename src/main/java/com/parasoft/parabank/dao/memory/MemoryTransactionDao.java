@@ -0,0 +1,228 @@
+package com.parasoft.parabank.dao.memory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import com.parasoft.parabank.dao.TransactionDao;
+import com.parasoft.parabank.dao.memory.MemoryStore.Table;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+import com.parasoft.parabank.domain.TransactionCriteria;
+
+/**
+ * TransactionDao on a {@link MemoryStore}
+ *
+ * Dates are stored as days, like the DATE column of the JDBC implementation, so the transactions of an account are
+ * kept in the same date and id order the JDBC queries sort them in. Date ranges are read as ranges of that order,
+ * the other criteria filter the transactions within the range.
+ */
+public class MemoryTransactionDao implements TransactionDao {
+    private static final Logger log = LoggerFactory.getLogger(MemoryTransactionDao.class);
+
+    private final MemoryStore store;
+
+    public MemoryTransactionDao(final MemoryStore store) {
+        this.store = store;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#createTransaction(com.parasoft.parabank.domain.Transaction)
+     */
+    @Override
+    public long createTransaction(final Transaction transaction) {
+        final long id = store.nextId(Table.TRANSACTION);
+        transaction.setId(id);
+        final Transaction row = (Transaction) EntityCodec.copy(transaction);
+        row.setDate(EntityCodec.toDay(row.getDate()));
+        store.put(Table.TRANSACTION, id, row);
+        log.info("Created new transaction with id = " + id);
+
+        return id;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#createTransactions(java.util.List)
+     */
+    @Override
+    public void createTransactions(final List<Transaction> transactions) {
+        store.execute(tx -> {
+            for (final Transaction transaction : transactions) {
+                createTransaction(transaction);
+            }
+            return null;
+        });
+        log.info("Created " + transactions.size() + " new transactions");
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#exportTransactions(java.util.List, java.util.Date,
+     * java.util.Date, java.util.function.Consumer)
+     */
+    @Override
+    public int exportTransactions(final List<Long> accountIds, final Date fromDate, final Date toDate,
+        final Consumer<Transaction> consumer) {
+        if (accountIds == null || accountIds.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        // in account order like the JDBC export
+        for (final Long accountId : new TreeSet<>(accountIds)) {
+            for (final Transaction transaction : store.getTransactionsForAccount(accountId, fromDate, toDate, null,
+                Integer.MAX_VALUE, null)) {
+                consumer.accept(scale(transaction));
+                count++;
+            }
+        }
+        log.info("Exported " + count + " transactions for accountIds = " + accountIds);
+
+        return count;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransaction(long)
+     */
+    @Override
+    public Transaction getTransaction(final long id) {
+        final Transaction transaction = store.get(Table.TRANSACTION, id);
+        if (transaction == null) {
+            throw new EmptyResultDataAccessException("No transaction with id = " + id, 1);
+        }
+        return scale(transaction);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId) {
+        return getTransactionsForAccount(accountId, null, null, Integer.MAX_VALUE);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long,
+     * com.parasoft.parabank.domain.TransactionCriteria)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria) {
+        return getTransactionsForAccount(accountId, criteria, null, Integer.MAX_VALUE);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.dao.TransactionDao#getTransactionsForAccount(long,
+     * com.parasoft.parabank.domain.TransactionCriteria, java.lang.Long, int)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria,
+        final Long cursor, final int limit) {
+        Date fromDate = null;
+        Date toDate = null;
+        Predicate<Transaction> filter = null;
+        if (criteria != null && criteria.getSearchType() != null) {
+            switch (criteria.getSearchType()) {
+                case ACTIVITY:
+                    filter = getActivityFilter(criteria);
+                    break;
+                case ID:
+                    final Long transactionId = criteria.getTransactionId();
+                    filter = transaction -> transactionId != null && transaction.getId() == transactionId;
+                    break;
+                case DATE:
+                    if (criteria.getOnDate() == null) {
+                        return new ArrayList<>();
+                    }
+                    fromDate = criteria.getOnDate();
+                    toDate = criteria.getOnDate();
+                    break;
+                case DATE_RANGE:
+                    if (criteria.getFromDate() == null || criteria.getToDate() == null) {
+                        return new ArrayList<>();
+                    }
+                    fromDate = criteria.getFromDate();
+                    toDate = criteria.getToDate();
+                    break;
+                case AMOUNT:
+                    final BigDecimal amount = criteria.getAmount();
+                    filter = transaction -> amount != null && transaction.getAmount() != null
+                        && transaction.getAmount().compareTo(amount) == 0;
+                    break;
+            }
+        }
+        final List<Transaction> transactions =
+            store.getTransactionsForAccount(accountId, fromDate, toDate, cursor, limit, filter);
+        for (final Transaction transaction : transactions) {
+            scale(transaction);
+        }
+        log.info("Retrieved " + transactions.size() + " transactions for accountId = " + accountId);
+
+        return transactions;
+    }
+
+    /**
+     * @return the month and type restrictions of an activity search
+     */
+    private static Predicate<Transaction> getActivityFilter(final TransactionCriteria criteria) {
+        Predicate<Transaction> filter = transaction -> true;
+        if (criteria.getMonth() != null && !"All".equals(criteria.getMonth())) {
+            try {
+                final Calendar cal = Calendar.getInstance();
+                cal.setTime(new SimpleDateFormat("MMM").parse(criteria.getMonth()));
+                final int month = cal.get(Calendar.MONTH);
+                filter = filter.and(transaction -> {
+                    if (transaction.getDate() == null) {
+                        return false;
+                    }
+                    final Calendar date = Calendar.getInstance();
+                    date.setTime(transaction.getDate());
+                    return date.get(Calendar.MONTH) == month;
+                });
+            } catch (final ParseException e) {
+                log.error("Could not parse supplied month value: " + criteria.getMonth(), e);
+            }
+        }
+        if (criteria.getTransactionType() != null && !"All".equals(criteria.getTransactionType())) {
+            TransactionType type = null;
+            try {
+                type = TransactionType.valueOf(criteria.getTransactionType());
+            } catch (final IllegalArgumentException e) {
+                log.warn("Unknown transaction type: " + criteria.getTransactionType());
+            }
+            final TransactionType wanted = type;
+            filter = filter.and(transaction -> wanted != null && transaction.getType() == wanted);
+        }
+        return filter;
+    }
+
+    private static Transaction scale(final Transaction transaction) {
+        if (transaction.getAmount() != null) {
+            transaction.setAmount(transaction.getAmount().setScale(2, RoundingMode.HALF_UP));
+        }
+        return transaction;
+    }
+}
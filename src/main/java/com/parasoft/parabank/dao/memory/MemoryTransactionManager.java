@@ -0,0 +1,110 @@
+package com.parasoft.parabank.dao.memory;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transaction manager of a {@link MemoryStore}
+ *
+ * A transaction binds a {@link MemoryTransaction} to the thread, which collects the changes the DAOs of the store
+ * make until it commits them to the store's log or discards them. Participating transactions share it, so marking
+ * any of them rollback-only marks the transaction that began.
+ */
+public class MemoryTransactionManager extends AbstractPlatformTransactionManager implements InitializingBean {
+    private static final class MemoryTransactionObject implements SmartTransactionObject {
+        private MemoryTransaction transaction;
+
+        @Override
+        public void flush() {
+            // changes are only written on commit
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return transaction.isRollbackOnly();
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private transient MemoryStore store;
+
+    public MemoryTransactionManager() {
+        setNestedTransactionAllowed(false);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (store == null) {
+            throw new IllegalArgumentException("Property 'store' is required");
+        }
+    }
+
+    public void setStore(final MemoryStore store) {
+        this.store = store;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doBegin(final Object transaction, final TransactionDefinition definition) {
+        final MemoryTransaction tx = new MemoryTransaction();
+        TransactionSynchronizationManager.bindResource(store, tx);
+        ((MemoryTransactionObject) transaction).transaction = tx;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doCleanupAfterCompletion(final Object transaction) {
+        TransactionSynchronizationManager.unbindResource(store);
+        ((MemoryTransactionObject) transaction).transaction = null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doCommit(final DefaultTransactionStatus status) {
+        store.commit(((MemoryTransactionObject) status.getTransaction()).transaction);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Object doGetTransaction() {
+        final MemoryTransactionObject tx = new MemoryTransactionObject();
+        tx.transaction = (MemoryTransaction) TransactionSynchronizationManager.getResource(store);
+        return tx;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doResume(final Object transaction, final Object suspendedResources) {
+        TransactionSynchronizationManager.bindResource(store, suspendedResources);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doRollback(final DefaultTransactionStatus status) {
+        store.rollback(((MemoryTransactionObject) status.getTransaction()).transaction);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doSetRollbackOnly(final DefaultTransactionStatus status) {
+        ((MemoryTransactionObject) status.getTransaction()).transaction.setRollbackOnly();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Object doSuspend(final Object transaction) {
+        ((MemoryTransactionObject) transaction).transaction = null;
+        return TransactionSynchronizationManager.unbindResource(store);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isExistingTransaction(final Object transaction) {
+        return ((MemoryTransactionObject) transaction).transaction != null;
+    }
+}
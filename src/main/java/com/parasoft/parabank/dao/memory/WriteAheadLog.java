@@ -0,0 +1,307 @@
+package com.parasoft.parabank.dao.memory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * Append-only log of the commits of a {@link MemoryStore}, split into numbered segment files
+ *
+ * Every commit is written as one frame of its length, the CRC32 of its payload and the payload. Committing threads
+ * hand their frames to a single writer thread and wait; the writer takes all frames that queued up while it wrote the
+ * previous group, writes them in one go and forces them to disk once for the whole group.
+ *
+ * A frame that was only partly written when the process died fails its length or CRC check on replay, which ends the
+ * replay of its segment.
+ */
+final class WriteAheadLog {
+    private static final class Commit {
+        private final byte[] payload;
+
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Commit(final byte[] payload) {
+            this.payload = payload;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final Pattern SEGMENT = Pattern.compile("wal-(\\d+)\\.log");
+
+    /**
+     * Largest frame accepted on replay, anything larger is a damaged length
+     */
+    private static final int MAX_FRAME = 256 * 1024 * 1024;
+
+    private static final Commit CLOSE = new Commit(new byte[0]);
+
+    private final File directory;
+
+    private final boolean sync;
+
+    private final BlockingQueue<Commit> queue = new LinkedBlockingQueue<>();
+
+    private final Object fileMonitor = new Object();
+
+    private Thread writer;
+
+    private FileChannel channel;
+
+    private long segment;
+
+    private long segmentSize;
+
+    private volatile boolean closed;
+
+    private volatile boolean failed;
+
+    /**
+     * @param sync
+     *            whether every group of commits is forced to disk before the commits return
+     */
+    WriteAheadLog(final File directory, final boolean sync) {
+        this.directory = directory;
+        this.sync = sync;
+    }
+
+    /**
+     * Append the payload of a commit and wait until it is written
+     */
+    void append(final byte[] payload) {
+        if (closed || failed) {
+            throw new DataAccessResourceFailureException("The write-ahead log in " + directory + " is closed");
+        }
+        final Commit commit = new Commit(payload);
+        queue.add(commit);
+        try {
+            commit.done.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted waiting for the write-ahead log", e);
+        } catch (final ExecutionException e) {
+            throw new DataAccessResourceFailureException("Could not write the write-ahead log in " + directory,
+                e.getCause());
+        }
+    }
+
+    /**
+     * Stop the writer after the commits queued so far and close the current segment
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (fileMonitor) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                log.warn("Could not close {}", getFile(segment), e);
+            }
+        }
+    }
+
+    /**
+     * Delete the segments before the given one, whose commits are all contained in a snapshot
+     */
+    void deleteBefore(final long first) {
+        for (final File file : listSegments().headMap(first).values()) {
+            if (!file.delete()) {
+                log.warn("Could not delete {}", file);
+            }
+        }
+    }
+
+    long getSegment() {
+        synchronized (fileMonitor) {
+            return segment;
+        }
+    }
+
+    /**
+     * @return whether nothing was written to the current segment yet
+     */
+    boolean isSegmentEmpty() {
+        synchronized (fileMonitor) {
+            return segmentSize == 0;
+        }
+    }
+
+    /**
+     * Replay the segments from the given one on, then start a new segment and the writer
+     *
+     * @param first
+     *            the first segment to replay
+     * @param handler
+     *            receives the payload of every complete frame in the order they were written
+     * @return the number of frames replayed
+     */
+    int open(final long first, final Consumer<byte[]> handler) throws IOException {
+        final TreeMap<Long, File> segments = listSegments();
+        int frames = 0;
+        for (final File file : segments.tailMap(first).values()) {
+            frames += replay(file, handler);
+        }
+        segment = Math.max(first, segments.isEmpty() ? 1 : segments.lastKey() + 1);
+        channel = openSegment(segment);
+        writer = new Thread(this::write, "memory-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        return frames;
+    }
+
+    /**
+     * Continue in a new segment, the caller makes sure no commit is being appended
+     *
+     * @return the number of the new segment
+     */
+    long rotate() {
+        synchronized (fileMonitor) {
+            try {
+                channel.close();
+                channel = openSegment(segment + 1);
+            } catch (final IOException e) {
+                throw new DataAccessResourceFailureException("Could not start a new segment in " + directory, e);
+            }
+            segment++;
+            segmentSize = 0;
+            return segment;
+        }
+    }
+
+    private File getFile(final long number) {
+        return new File(directory, String.format("wal-%016d.log", number));
+    }
+
+    private TreeMap<Long, File> listSegments() {
+        final TreeMap<Long, File> segments = new TreeMap<>();
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                final Matcher matcher = SEGMENT.matcher(file.getName());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private FileChannel openSegment(final long number) throws IOException {
+        return FileChannel.open(getFile(number).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private int replay(final File file, final Consumer<byte[]> handler) throws IOException {
+        int frames = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (final EOFException e) {
+                    return frames;
+                }
+                final CRC32 crc = new CRC32();
+                try {
+                    final long checksum = in.readInt() & 0xffffffffL;
+                    if (length < 0 || length > MAX_FRAME) {
+                        throw new EOFException("length " + length);
+                    }
+                    final byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    crc.update(payload);
+                    if (crc.getValue() != checksum) {
+                        throw new EOFException("checksum mismatch");
+                    }
+                    handler.accept(payload);
+                    frames++;
+                } catch (final EOFException e) {
+                    log.warn("Ignoring the incomplete frame {} at the end of {}: {}", frames, file,
+                        e.getMessage() == null ? "truncated" : e.getMessage());
+                    return frames;
+                }
+            }
+        }
+    }
+
+    private void write() {
+        final List<Commit> group = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                group.add(queue.take());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(group);
+            running = !group.remove(CLOSE);
+            int size = 0;
+            for (final Commit commit : group) {
+                size += 8 + commit.payload.length;
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+            for (final Commit commit : group) {
+                final CRC32 crc = new CRC32();
+                crc.update(commit.payload);
+                buffer.putInt(commit.payload.length).putInt((int) crc.getValue()).put(commit.payload);
+            }
+            buffer.flip();
+            synchronized (fileMonitor) {
+                try {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    if (sync) {
+                        channel.force(false);
+                    }
+                    segmentSize += size;
+                    for (final Commit commit : group) {
+                        commit.done.complete(null);
+                    }
+                } catch (final IOException e) {
+                    // whatever follows a partly written group would be lost on replay
+                    log.error("Could not write the write-ahead log, refusing further commits", e);
+                    failed = true;
+                    for (final Commit commit : group) {
+                        commit.done.completeExceptionally(e);
+                    }
+                }
+            }
+            group.clear();
+        }
+        final IOException failure = new IOException("The write-ahead log was closed");
+        for (Commit commit = queue.poll(); commit != null; commit = queue.poll()) {
+            commit.done.completeExceptionally(failure);
+        }
+    }
+}
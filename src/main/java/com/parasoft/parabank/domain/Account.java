@@ -30,14 +30,16 @@ public class Account {
         }
     }
 
-    private int id;
+    private long id;
 
-    private int customerId;
+    private long customerId;
 
     private AccountType type;
 
     private BigDecimal balance;
 
+    private int version;
+
     public void credit(final BigDecimal amount) {
         balance = balance.add(amount);
     }
@@ -56,7 +58,7 @@ public class Account {
         }
         final Account other = (Account) obj;
         return id == other.id && customerId == other.customerId && type == other.type
-            && Util.equals(balance, other.balance);
+            && Util.equals(balance, other.balance) && version == other.version;
     }
 
     @XmlTransient
@@ -69,11 +71,11 @@ public class Account {
         return balance;
     }
 
-    public int getCustomerId() {
+    public long getCustomerId() {
         return customerId;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
@@ -90,14 +92,24 @@ public class Account {
         return type;
     }
 
+    /**
+     * @return the row version this account was read at, used for optimistic checks when the account is updated
+     */
+    @XmlTransient
+    @JsonIgnore
+    public int getVersion() {
+        return version;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + id;
-        result = prime * result + customerId;
+        result = prime * result + Long.hashCode(id);
+        result = prime * result + Long.hashCode(customerId);
         result = prime * result + (type == null ? 0 : type.hashCode());
         result = prime * result + (balance == null ? 0 : balance.hashCode());
+        result = prime * result + version;
         return result;
     }
 
@@ -105,11 +117,11 @@ public class Account {
         this.balance = balance;
     }
 
-    public void setCustomerId(final int customerId) {
+    public void setCustomerId(final long customerId) {
         this.customerId = customerId;
     }
 
-    public void setId(final int id) {
+    public void setId(final long id) {
         this.id = id;
     }
 
@@ -122,8 +134,14 @@ public class Account {
         this.type = type;
     }
 
+    @JsonIgnore
+    public void setVersion(final int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
-        return "Account [id=" + id + ", customerId=" + customerId + ", type=" + type + ", balance=" + balance + "]";
+        return "Account [id=" + id + ", customerId=" + customerId + ", type=" + type + ", balance=" + balance
+            + ", version=" + version + "]";
     }
 }
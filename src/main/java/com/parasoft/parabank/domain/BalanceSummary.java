@@ -0,0 +1,106 @@
+package com.parasoft.parabank.domain;
+
+import java.math.BigDecimal;
+
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+import com.parasoft.parabank.util.Util;
+
+/**
+ * Domain object representing the combined balances of all accounts of a customer
+ */
+@XmlRootElement(name = "balanceSummary")
+@XmlType(propOrder = { "customerId", "totalBalance", "availableBalance", "availableFunds", "accountCount" })
+public class BalanceSummary {
+    private long customerId;
+
+    private BigDecimal totalBalance;
+
+    private BigDecimal availableBalance;
+
+    private BigDecimal availableFunds;
+
+    private int accountCount;
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BalanceSummary)) {
+            return false;
+        }
+        final BalanceSummary other = (BalanceSummary) obj;
+        return customerId == other.customerId && Util.equals(totalBalance, other.totalBalance)
+            && Util.equals(availableBalance, other.availableBalance) && Util.equals(availableFunds, other.availableFunds)
+            && accountCount == other.accountCount;
+    }
+
+    public int getAccountCount() {
+        return accountCount;
+    }
+
+    /**
+     * @return the sum of the balances of all accounts, negative balances counting as zero
+     */
+    public BigDecimal getAvailableBalance() {
+        return availableBalance;
+    }
+
+    /**
+     * @return the sum of the balances of all accounts except loans
+     */
+    public BigDecimal getAvailableFunds() {
+        return availableFunds;
+    }
+
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * @return the sum of the balances of all accounts
+     */
+    public BigDecimal getTotalBalance() {
+        return totalBalance;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + Long.hashCode(customerId);
+        result = prime * result + (totalBalance == null ? 0 : totalBalance.hashCode());
+        result = prime * result + (availableBalance == null ? 0 : availableBalance.hashCode());
+        result = prime * result + (availableFunds == null ? 0 : availableFunds.hashCode());
+        result = prime * result + accountCount;
+        return result;
+    }
+
+    public void setAccountCount(final int accountCount) {
+        this.accountCount = accountCount;
+    }
+
+    public void setAvailableBalance(final BigDecimal availableBalance) {
+        this.availableBalance = availableBalance;
+    }
+
+    public void setAvailableFunds(final BigDecimal availableFunds) {
+        this.availableFunds = availableFunds;
+    }
+
+    public void setCustomerId(final long customerId) {
+        this.customerId = customerId;
+    }
+
+    public void setTotalBalance(final BigDecimal totalBalance) {
+        this.totalBalance = totalBalance;
+    }
+
+    @Override
+    public String toString() {
+        return "BalanceSummary [customerId=" + customerId + ", totalBalance=" + totalBalance + ", availableBalance="
+            + availableBalance + ", availableFunds=" + availableFunds + ", accountCount=" + accountCount + "]";
+    }
+}
@@ -18,11 +18,11 @@ public class BillPayResult {
 
     private BigDecimal amount;
 
-    private int accountId;
+    private long accountId;
 
     public BillPayResult() { /* no-arg constructor for serialization */ }
 
-    public BillPayResult(int accountId, BigDecimal amount, String payeeName) {
+    public BillPayResult(long accountId, BigDecimal amount, String payeeName) {
         this.accountId = accountId;
         this.amount = amount;
         this.payeeName = payeeName;
@@ -44,11 +44,11 @@ public class BillPayResult {
         this.payeeName = payeeName;
     }
 
-    public int getAccountId() {
+    public long getAccountId() {
         return accountId;
     }
 
-    public void setAccountId(int accountId) {
+    public void setAccountId(long accountId) {
         this.accountId = accountId;
     }
 }
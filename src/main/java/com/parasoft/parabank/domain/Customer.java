@@ -15,7 +15,7 @@ import com.parasoft.parabank.util.Util;
 @XmlType(propOrder={"id", "firstName", "lastName", "address", "phoneNumber", "ssn"})
 
 public class Customer {
-    private int id;
+    private long id;
     private String firstName;
     private String lastName;
     private Address address;
@@ -24,11 +24,11 @@ public class Customer {
     private String username;
     private String password;
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
-    public void setId(int id) {
+    public void setId(long id) {
         this.id = id;
     }
 
@@ -102,7 +102,7 @@ public class Customer {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + id;
+        result = prime * result + Long.hashCode(id);
         result = prime * result + (firstName == null ? 0 : firstName.hashCode());
         result = prime * result + (lastName == null ? 0 : lastName.hashCode());
         result = prime * result + (address == null ? 0 : address.hashCode());
@@ -13,12 +13,22 @@ import com.parasoft.parabank.util.Util;
 
 /**
  * Domain object representing a history point
+ *
+ * A daily point only holds the closing price. A weekly or monthly point is dated on the first day of its period and
+ * also holds the opening, highest and lowest closing price within the period.
  */
 @XmlRootElement(name="historyPoint" , namespace="http://service.parabank.parasoft.com/")
-@XmlType(propOrder={"symbol", "date", "closingPrice"})
+@XmlType(propOrder={"symbol", "date", "openingPrice", "highPrice", "lowPrice", "closingPrice"})
 public class HistoryPoint {
+    public enum Resolution {
+        DAILY, WEEKLY, MONTHLY;
+    }
+
     private String symbol;
     private Date date;
+    private BigDecimal openingPrice;
+    private BigDecimal highPrice;
+    private BigDecimal lowPrice;
     private BigDecimal closingPrice;
 
     public String getSymbol() {
@@ -39,6 +49,30 @@ public class HistoryPoint {
         this.date = date;
     }
 
+    public BigDecimal getOpeningPrice() {
+        return openingPrice;
+    }
+
+    public void setOpeningPrice(BigDecimal openingPrice) {
+        this.openingPrice = openingPrice;
+    }
+
+    public BigDecimal getHighPrice() {
+        return highPrice;
+    }
+
+    public void setHighPrice(BigDecimal highPrice) {
+        this.highPrice = highPrice;
+    }
+
+    public BigDecimal getLowPrice() {
+        return lowPrice;
+    }
+
+    public void setLowPrice(BigDecimal lowPrice) {
+        this.lowPrice = lowPrice;
+    }
+
     public BigDecimal getClosingPrice() {
         return closingPrice;
     }
@@ -53,6 +87,9 @@ public class HistoryPoint {
         int result = 1;
         result = prime * result + (symbol == null ? 0 : symbol.hashCode());
         result = prime * result + (date == null ? 0 : date.hashCode());
+        result = prime * result + (openingPrice == null ? 0 : openingPrice.hashCode());
+        result = prime * result + (highPrice == null ? 0 : highPrice.hashCode());
+        result = prime * result + (lowPrice == null ? 0 : lowPrice.hashCode());
         result = prime * result + (closingPrice == null ? 0 : closingPrice.hashCode());
         return result;
     }
@@ -68,12 +105,15 @@ public class HistoryPoint {
         HistoryPoint other = (HistoryPoint) obj;
         return Util.equals(symbol, other.symbol) &&
             Util.equals(date, other.date) &&
+            Util.equals(openingPrice, other.openingPrice) &&
+            Util.equals(highPrice, other.highPrice) &&
+            Util.equals(lowPrice, other.lowPrice) &&
             Util.equals(closingPrice, other.closingPrice);
     }
 
     @Override
     public String toString() {
-       return "HistoryPoint [symbol=" + symbol + ", date=" + date
-           + ", closingPrice=" + closingPrice + "]";
+       return "HistoryPoint [symbol=" + symbol + ", date=" + date + ", openingPrice=" + openingPrice
+           + ", highPrice=" + highPrice + ", lowPrice=" + lowPrice + ", closingPrice=" + closingPrice + "]";
     }
 }
@@ -19,7 +19,7 @@ import com.parasoft.parabank.util.Util;
 @XmlType(propOrder={"requestDate", "customerId", "availableFunds", "loanAmount", "downPayment"})
 public class LoanRequest {
     private Date requestDate;
-    private int customerId;
+    private long customerId;
     private BigDecimal availableFunds;
     private BigDecimal downPayment;
     private BigDecimal loanAmount;
@@ -34,11 +34,11 @@ public class LoanRequest {
         this.requestDate = requestDate;
     }
 
-    public int getCustomerId() {
+    public long getCustomerId() {
         return customerId;
     }
 
-    public void setCustomerId(int customerId) {
+    public void setCustomerId(long customerId) {
         this.customerId = customerId;
     }
 
@@ -82,7 +82,7 @@ public class LoanRequest {
         final int prime = 31;
         int result = 1;
         result = prime * result + (requestDate == null ? 0 : requestDate.hashCode());
-        result = prime * result + customerId;
+        result = prime * result + Long.hashCode(customerId);
         result = prime * result + (availableFunds == null ? 0 : availableFunds.hashCode());
         result = prime * result + (downPayment == null ? 0 : downPayment.hashCode());
         result = prime * result + (loanAmount == null ? 0 : loanAmount.hashCode());
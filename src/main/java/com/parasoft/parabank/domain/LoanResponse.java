@@ -24,7 +24,7 @@ public class LoanResponse {
     private String loanProviderName;
     private boolean approved;
     private String message;
-    private Integer accountId;
+    private Long accountId;
 
     @XmlJavaTypeAdapter(DateTimeAdapter.class)
     @XmlSchemaType(name = "dateTime")
@@ -62,11 +62,11 @@ public class LoanResponse {
         this.message = message;
     }
 
-    public Integer getAccountId() {
+    public Long getAccountId() {
         return accountId;
     }
 
-    public void setAccountId(Integer accountId) {
+    public void setAccountId(Long accountId) {
         this.accountId = accountId;
     }
 
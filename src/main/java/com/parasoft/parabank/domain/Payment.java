@@ -0,0 +1,79 @@
+package com.parasoft.parabank.domain;
+
+import java.math.BigDecimal;
+
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlTransient;
+import jakarta.xml.bind.annotation.XmlType;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Domain object representing one item of a payment batch
+ *
+ * An item with a toAccountId is a transfer between two accounts, an item with a payee is a bill payment.
+ */
+@XmlRootElement(name = "payment")
+@XmlType(propOrder = { "fromAccountId", "toAccountId", "payee", "amount" })
+public class Payment {
+    private long fromAccountId;
+
+    private Long toAccountId;
+
+    private Payee payee;
+
+    private BigDecimal amount;
+
+    public Payment() { /* no-arg constructor for serialization */ }
+
+    public Payment(final long fromAccountId, final Long toAccountId, final Payee payee, final BigDecimal amount) {
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.payee = payee;
+        this.amount = amount;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public long getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public Payee getPayee() {
+        return payee;
+    }
+
+    public Long getToAccountId() {
+        return toAccountId;
+    }
+
+    @XmlTransient
+    @JsonIgnore
+    public boolean isTransfer() {
+        return toAccountId != null;
+    }
+
+    public void setAmount(final BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public void setFromAccountId(final long fromAccountId) {
+        this.fromAccountId = fromAccountId;
+    }
+
+    public void setPayee(final Payee payee) {
+        this.payee = payee;
+    }
+
+    public void setToAccountId(final Long toAccountId) {
+        this.toAccountId = toAccountId;
+    }
+
+    @Override
+    public String toString() {
+        return "Payment [fromAccountId=" + fromAccountId + ", toAccountId=" + toAccountId + ", payee=" + payee
+            + ", amount=" + amount + "]";
+    }
+}
@@ -0,0 +1,66 @@
+package com.parasoft.parabank.domain;
+
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+/**
+ * Domain object representing the outcome of one item of a payment batch
+ */
+@XmlRootElement(name = "paymentResult")
+@XmlType(propOrder = { "index", "status", "message" })
+public class PaymentResult {
+    public enum Status {
+        /** the payment was applied */
+        APPLIED,
+        /** the payment failed validation */
+        INVALID,
+        /** the payment is valid but was not applied because another payment of the batch is invalid */
+        SKIPPED
+    }
+
+    private int index;
+
+    private Status status;
+
+    private String message;
+
+    public PaymentResult() { /* no-arg constructor for serialization */ }
+
+    public PaymentResult(final int index, final Status status, final String message) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * @return the position of the payment in the batch, starting at 0
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setIndex(final int index) {
+        this.index = index;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+
+    public void setStatus(final Status status) {
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentResult [index=" + index + ", status=" + status + ", message=" + message + "]";
+    }
+}
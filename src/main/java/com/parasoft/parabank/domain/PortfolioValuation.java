@@ -0,0 +1,106 @@
+package com.parasoft.parabank.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+import com.parasoft.parabank.util.Util;
+
+/**
+ * Domain object representing the value of all stock positions of a customer
+ */
+@XmlRootElement(name = "portfolioValuation")
+@XmlType(propOrder = { "customerId", "costBasis", "marketValue", "unrealizedGain", "positions" })
+public class PortfolioValuation {
+    private long customerId;
+
+    private BigDecimal costBasis;
+
+    private BigDecimal marketValue;
+
+    private BigDecimal unrealizedGain;
+
+    private final List<PositionValuation> positions = new ArrayList<>();
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PortfolioValuation)) {
+            return false;
+        }
+        final PortfolioValuation other = (PortfolioValuation) obj;
+        return customerId == other.customerId && Util.equals(costBasis, other.costBasis)
+            && Util.equals(marketValue, other.marketValue) && Util.equals(unrealizedGain, other.unrealizedGain)
+            && positions.equals(other.positions);
+    }
+
+    /**
+     * @return the sum of the cost bases of all positions
+     */
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * @return the sum of the market values of all positions
+     */
+    public BigDecimal getMarketValue() {
+        return marketValue;
+    }
+
+    @XmlElement(name = "position")
+    public List<PositionValuation> getPositions() {
+        return positions;
+    }
+
+    /**
+     * @return market value minus cost basis
+     */
+    public BigDecimal getUnrealizedGain() {
+        return unrealizedGain;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + Long.hashCode(customerId);
+        result = prime * result + (costBasis == null ? 0 : costBasis.hashCode());
+        result = prime * result + (marketValue == null ? 0 : marketValue.hashCode());
+        result = prime * result + (unrealizedGain == null ? 0 : unrealizedGain.hashCode());
+        result = prime * result + positions.hashCode();
+        return result;
+    }
+
+    public void setCostBasis(final BigDecimal costBasis) {
+        this.costBasis = costBasis;
+    }
+
+    public void setCustomerId(final long customerId) {
+        this.customerId = customerId;
+    }
+
+    public void setMarketValue(final BigDecimal marketValue) {
+        this.marketValue = marketValue;
+    }
+
+    public void setUnrealizedGain(final BigDecimal unrealizedGain) {
+        this.unrealizedGain = unrealizedGain;
+    }
+
+    @Override
+    public String toString() {
+        return "PortfolioValuation [customerId=" + customerId + ", costBasis=" + costBasis + ", marketValue="
+            + marketValue + ", unrealizedGain=" + unrealizedGain + ", positions=" + positions + "]";
+    }
+}
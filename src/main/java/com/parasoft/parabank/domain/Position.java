@@ -15,26 +15,26 @@ import com.parasoft.parabank.util.Util;
 @XmlRootElement(name="position" )
 @XmlType(propOrder={"positionId", "customerId", "name", "symbol", "shares", "purchasePrice"})
 public class Position {
-    private int positionId;
-    private int customerId;
+    private long positionId;
+    private long customerId;
     private String name;
     private String symbol;
     private int shares;
     private BigDecimal purchasePrice;
 
-    public int getPositionId() {
+    public long getPositionId() {
         return positionId;
     }
 
-    public void setPositionId(int id) {
+    public void setPositionId(long id) {
         positionId = id;
     }
 
-    public int getCustomerId() {
+    public long getCustomerId() {
         return customerId;
     }
 
-    public void setCustomerId(int id) {
+    public void setCustomerId(long id) {
         customerId = id;
     }
 
@@ -80,8 +80,8 @@ public class Position {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + positionId;
-        result = prime * result + customerId;
+        result = prime * result + Long.hashCode(positionId);
+        result = prime * result + Long.hashCode(customerId);
         result = prime * result + (name == null ? 0 : name.hashCode());
         result = prime * result + (symbol == null ? 0 : symbol.hashCode());
         result = prime * result + shares;
@@ -0,0 +1,165 @@
+package com.parasoft.parabank.domain;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlSchemaType;
+import jakarta.xml.bind.annotation.XmlType;
+import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+import com.parasoft.parabank.util.DateTimeAdapter;
+import com.parasoft.parabank.util.Util;
+
+/**
+ * Domain object representing the value of a stock position at the latest closing price of its symbol
+ */
+@XmlRootElement(name = "positionValuation")
+@XmlType(propOrder = { "positionId", "symbol", "shares", "purchasePrice", "latestPrice", "priceDate", "costBasis",
+    "marketValue", "unrealizedGain" })
+public class PositionValuation {
+    private long positionId;
+
+    private String symbol;
+
+    private int shares;
+
+    private BigDecimal purchasePrice;
+
+    private BigDecimal latestPrice;
+
+    private Date priceDate;
+
+    private BigDecimal costBasis;
+
+    private BigDecimal marketValue;
+
+    private BigDecimal unrealizedGain;
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PositionValuation)) {
+            return false;
+        }
+        final PositionValuation other = (PositionValuation) obj;
+        return positionId == other.positionId && Util.equals(symbol, other.symbol) && shares == other.shares
+            && Util.equals(purchasePrice, other.purchasePrice) && Util.equals(latestPrice, other.latestPrice)
+            && Util.equals(priceDate, other.priceDate) && Util.equals(costBasis, other.costBasis)
+            && Util.equals(marketValue, other.marketValue) && Util.equals(unrealizedGain, other.unrealizedGain);
+    }
+
+    /**
+     * @return shares times purchase price
+     */
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    /**
+     * @return the latest closing price of the symbol, null if there is none
+     */
+    public BigDecimal getLatestPrice() {
+        return latestPrice;
+    }
+
+    /**
+     * @return shares times the latest closing price, the cost basis if there is no closing price
+     */
+    public BigDecimal getMarketValue() {
+        return marketValue;
+    }
+
+    public long getPositionId() {
+        return positionId;
+    }
+
+    /**
+     * @return the date of the latest closing price, null if there is none
+     */
+    @XmlJavaTypeAdapter(DateTimeAdapter.class)
+    @XmlSchemaType(name = "dateTime")
+    public Date getPriceDate() {
+        return priceDate;
+    }
+
+    public BigDecimal getPurchasePrice() {
+        return purchasePrice;
+    }
+
+    public int getShares() {
+        return shares;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @return market value minus cost basis
+     */
+    public BigDecimal getUnrealizedGain() {
+        return unrealizedGain;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + Long.hashCode(positionId);
+        result = prime * result + (symbol == null ? 0 : symbol.hashCode());
+        result = prime * result + shares;
+        result = prime * result + (purchasePrice == null ? 0 : purchasePrice.hashCode());
+        result = prime * result + (latestPrice == null ? 0 : latestPrice.hashCode());
+        result = prime * result + (priceDate == null ? 0 : priceDate.hashCode());
+        result = prime * result + (costBasis == null ? 0 : costBasis.hashCode());
+        result = prime * result + (marketValue == null ? 0 : marketValue.hashCode());
+        result = prime * result + (unrealizedGain == null ? 0 : unrealizedGain.hashCode());
+        return result;
+    }
+
+    public void setCostBasis(final BigDecimal costBasis) {
+        this.costBasis = costBasis;
+    }
+
+    public void setLatestPrice(final BigDecimal latestPrice) {
+        this.latestPrice = latestPrice;
+    }
+
+    public void setMarketValue(final BigDecimal marketValue) {
+        this.marketValue = marketValue;
+    }
+
+    public void setPositionId(final long positionId) {
+        this.positionId = positionId;
+    }
+
+    public void setPriceDate(final Date priceDate) {
+        this.priceDate = priceDate;
+    }
+
+    public void setPurchasePrice(final BigDecimal purchasePrice) {
+        this.purchasePrice = purchasePrice;
+    }
+
+    public void setShares(final int shares) {
+        this.shares = shares;
+    }
+
+    public void setSymbol(final String symbol) {
+        this.symbol = symbol;
+    }
+
+    public void setUnrealizedGain(final BigDecimal unrealizedGain) {
+        this.unrealizedGain = unrealizedGain;
+    }
+
+    @Override
+    public String toString() {
+        return "PositionValuation [positionId=" + positionId + ", symbol=" + symbol + ", shares=" + shares
+            + ", purchasePrice=" + purchasePrice + ", latestPrice=" + latestPrice + ", priceDate=" + priceDate
+            + ", costBasis=" + costBasis + ", marketValue=" + marketValue + ", unrealizedGain=" + unrealizedGain + "]";
+    }
+}
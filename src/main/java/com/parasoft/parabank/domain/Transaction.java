@@ -24,9 +24,9 @@ public class Transaction {
         Credit, Debit;
     }
 
-    private int id;
+    private long id;
 
-    private int accountId;
+    private long accountId;
 
     private TransactionType type;
 
@@ -50,7 +50,7 @@ public class Transaction {
             && Util.equals(amount, other.amount) && Util.equals(description, other.description);
     }
 
-    public int getAccountId() {
+    public long getAccountId() {
         return accountId;
     }
 
@@ -68,7 +68,7 @@ public class Transaction {
         return description;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
@@ -86,8 +86,8 @@ public class Transaction {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + id;
-        result = prime * result + accountId;
+        result = prime * result + Long.hashCode(id);
+        result = prime * result + Long.hashCode(accountId);
         result = prime * result + (type == null ? 0 : type.hashCode());
         result = prime * result + (date == null ? 0 : date.toString().hashCode());
         result = prime * result + (amount == null ? 0 : amount.hashCode());
@@ -95,7 +95,7 @@ public class Transaction {
         return result;
     }
 
-    public void setAccountId(final int accountId) {
+    public void setAccountId(final long accountId) {
         this.accountId = accountId;
     }
 
@@ -111,7 +111,7 @@ public class Transaction {
         this.description = description;
     }
 
-    public void setId(final int id) {
+    public void setId(final long id) {
         this.id = id;
     }
 
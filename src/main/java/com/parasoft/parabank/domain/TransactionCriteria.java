@@ -21,7 +21,7 @@ public class TransactionCriteria {
     private String transactionType;
 
     // ID
-    private Integer transactionId;
+    private Long transactionId;
 
     // DATE
     private Date onDate;
@@ -59,11 +59,11 @@ public class TransactionCriteria {
         this.transactionType = transactionType;
     }
 
-    public Integer getTransactionId() {
+    public Long getTransactionId() {
         return transactionId;
     }
 
-    public void setTransactionId(Integer transactionId) {
+    public void setTransactionId(Long transactionId) {
         this.transactionId = transactionId;
     }
 
@@ -4,7 +4,8 @@ import java.util.Map;
 
 import org.springframework.jms.listener.AbstractJmsListeningContainer;
 
-import com.parasoft.parabank.dao.AdminDao;
+import com.parasoft.parabank.dao.ParaBankAdminDao;
+import com.parasoft.parabank.dao.internal.StorageReport;
 import com.parasoft.parabank.web.form.AdminForm;
 
 /**
@@ -37,6 +38,13 @@ public interface AdminManager {
      */
     Map<String, String> getParameters();
 
+    /**
+     * Gets how the tables are stored and how much of them is held in memory
+     *
+     * @return the storage report, null if the data source does not support storage profiles
+     */
+    StorageReport getStorageReport();
+
     /**
      * Initialize the data source with the full set of sample data
      *
@@ -65,7 +73,7 @@ public interface AdminManager {
      */
     AdminForm populateAdminForm(AdminForm form);
 
-    void setAdminDao(AdminDao adminDao);
+    void setAdminDao(ParaBankAdminDao adminDao);
 
     void setJmsListener(AbstractJmsListeningContainer jmsListener);
 
@@ -79,6 +87,22 @@ public interface AdminManager {
      */
     void setParameter(String name, String value);
 
+    /**
+     * Sets the values of several configuration parameters in a single save
+     *
+     * @param parameters
+     *            the parameter values keyed by name
+     */
+    void setParameters(Map<String, String> parameters);
+
+    /**
+     * Sets the storage profile of the large tables and converts them right away
+     *
+     * @param profile
+     *            MEMORY to keep all rows in memory, CACHED to keep them on disk
+     */
+    void setStorageProfile(String profile);
+
     /**
      * Disable JMS message listener
      */
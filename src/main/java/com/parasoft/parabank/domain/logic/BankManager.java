@@ -3,11 +3,17 @@ package com.parasoft.parabank.domain.logic;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.BalanceSummary;
 import com.parasoft.parabank.domain.Customer;
 import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
 import com.parasoft.parabank.domain.LoanResponse;
+import com.parasoft.parabank.domain.Payment;
+import com.parasoft.parabank.domain.PaymentResult;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Position;
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.domain.TransactionCriteria;
@@ -23,7 +29,7 @@ public interface BankManager {
      * @param id the customer id to retrieve
      * @return Customer object representing the bank customer
      */
-    Customer getCustomer(int id);
+    Customer getCustomer(long id);
 
     /**
      * Retrieve a specific bank customer by username and password
@@ -52,7 +58,7 @@ public interface BankManager {
      * @param customer the customer information to store
      * @return generated customer id
      */
-    int createCustomer(Customer customer);
+    long createCustomer(Customer customer);
 
     /**
      * Update stored information for a given customer
@@ -74,7 +80,7 @@ public interface BankManager {
      * @param pricePerShare the cost per share purchased
      * @return a list of positions owned by the customer
      */
-    List<Position> buyPosition(int customerId, int accountId, String name, String symbol, int shares, BigDecimal pricePerShare);
+    List<Position> buyPosition(long customerId, long accountId, String name, String symbol, int shares, BigDecimal pricePerShare);
 
     /**
      * Sell a position and update or delete it from the system
@@ -86,7 +92,7 @@ public interface BankManager {
      * @param pricePerShare the current price per share
      * @return a list of positions owned by the customer
      */
-    List<Position> sellPosition(int customerId, int accountId, int positionId, int shares, BigDecimal pricePerShare);
+    List<Position> sellPosition(long customerId, long accountId, long positionId, int shares, BigDecimal pricePerShare);
 
     /**
      * Retrieve all positions for a given customer
@@ -102,7 +108,7 @@ public interface BankManager {
      * @param positionId the position id to retrieve
      * @return Position object representing the position
      */
-    Position getPosition(int positionId);
+    Position getPosition(long positionId);
 
     /**
      * Return position history for a given position id
@@ -113,7 +119,30 @@ public interface BankManager {
      * @param endDate the end date in the date range
      * @return a list of history points
      */
-    List<HistoryPoint> getPositionHistory(int positionId, Date startDate, Date endDate);
+    List<HistoryPoint> getPositionHistory(long positionId, Date startDate, Date endDate);
+
+    /**
+     * Return position history for a given position id and date range at the finest resolution, not finer than the
+     * requested one, that fits into a point budget
+     *
+     * @param positionId the position id
+     * @param startDate the start date in the date range
+     * @param endDate the end date in the date range
+     * @param resolution the finest resolution to return, null for daily prices
+     * @param maxPoints the number of points to return at most unless even the monthly history is longer, null for
+     *            no limit
+     * @return a list of history points, weekly and monthly points hold the opening, high, low and closing price
+     */
+    List<HistoryPoint> getPositionHistory(long positionId, Date startDate, Date endDate, Resolution resolution,
+        Integer maxPoints);
+
+    /**
+     * Value all positions of a given customer at the latest closing price of their symbols
+     *
+     * @param customerId the customer id to lookup
+     * @return cost basis, market value and unrealized gain per position and in total
+     */
+    PortfolioValuation getPortfolioValuation(long customerId);
 
     /**
      * Create a new position
@@ -125,7 +154,7 @@ public interface BankManager {
      * @param pricePerShare the cost per share of stock
      * @return the newly created position
      */
-    Position createPosition(int customerId, String name, String symbol, int shares, BigDecimal pricePerShare);
+    Position createPosition(long customerId, String name, String symbol, int shares, BigDecimal pricePerShare);
 
     /**
      * Update a position
@@ -149,7 +178,7 @@ public interface BankManager {
      * @param id the account id to retrieve
      * @return Account object representing the bank account
      */
-    Account getAccount(int id);
+    Account getAccount(long id);
 
     /**
      * Retrieve all accounts for a given customer
@@ -159,6 +188,16 @@ public interface BankManager {
      */
     List<Account> getAccountsForCustomer(Customer customer);
 
+    /**
+     * Retrieve the combined balances of all accounts of a given customer
+     *
+     * The summary is kept up to date as balances change, so this does not read the individual accounts
+     *
+     * @param customerId the customer id to lookup
+     * @return the total balance, available balance, non-loan funds and number of accounts of the customer
+     */
+    BalanceSummary getBalanceSummary(long customerId);
+
     /**
      * Add a new account to the system, withdrawing funds from a seed account
      *
@@ -168,7 +207,7 @@ public interface BankManager {
      * @param fromAccountId the account id to seed from
      * @return generated account id
      */
-    int createAccount(Account account, int fromAccountId);
+    long createAccount(Account account, long fromAccountId);
 
     /**
      * Retrieve a specific account transaction by id
@@ -176,7 +215,7 @@ public interface BankManager {
      * @param id the transaction id to retrieve
      * @return Transaction object representing the account transaction
      */
-    Transaction getTransaction(int id);
+    Transaction getTransaction(long id);
 
     /**
      * Retrieve all transactions for a given account
@@ -193,7 +232,55 @@ public interface BankManager {
      * @param criteria set of criteria that the retrieved transactions must adhere to
      * @return list of matching transactions for the given account
      */
-    List<Transaction> getTransactionsForAccount(int accountId, TransactionCriteria criteria);
+    List<Transaction> getTransactionsForAccount(long accountId, TransactionCriteria criteria);
+
+    /**
+     * Retrieve one page of transactions for a given account in chronological order
+     *
+     * @param accountId the account id to lookup
+     * @param criteria set of criteria that the retrieved transactions must adhere to, or null for all transactions
+     * @param cursor id of the last transaction of the previous page, or null for the first page
+     * @param limit maximum number of transactions to return
+     * @return list of at most limit matching transactions following the cursor
+     */
+    List<Transaction> getTransactionsForAccount(long accountId, TransactionCriteria criteria, Long cursor,
+        int limit);
+
+    /**
+     * Retrieve all matching transactions when neither cursor nor limit is given, otherwise the requested page
+     *
+     * A cursor that is not a transaction of the account, e.g. one deleted since the previous page, ends the paging
+     * with an empty page.
+     *
+     * @param accountId the account id to lookup
+     * @param criteria set of criteria that the retrieved transactions must adhere to, or null for all transactions
+     * @param cursor id of the last transaction of the previous page, or null for the first page
+     * @param limit maximum number of transactions to return, or null for no limit
+     * @return list of matching transactions following the cursor
+     * @throws IllegalArgumentException if the limit is less than 1
+     */
+    List<Transaction> getTransactionPage(long accountId, TransactionCriteria criteria, Long cursor, Integer limit);
+
+    /**
+     * Pass every transaction of the given accounts to a consumer as it is read from the data source
+     *
+     * @param accountIds the accounts to export
+     * @param fromDate earliest transaction date to export, or null for no lower bound
+     * @param toDate latest transaction date to export, or null for no upper bound
+     * @param consumer receives each transaction in turn
+     * @return number of exported transactions
+     */
+    int exportTransactions(List<Long> accountIds, Date fromDate, Date toDate, Consumer<Transaction> consumer);
+
+    /**
+     * Apply a batch of transfers and bill payments in a single transaction
+     *
+     * Every payment is validated before anything is applied. If any payment is invalid, none is applied.
+     *
+     * @param payments the transfers and bill payments to apply
+     * @return one result per payment, in the order of the payments
+     */
+    List<PaymentResult> processPayments(List<Payment> payments);
 
     /**
      * Transfer funds between two accounts
@@ -202,7 +289,7 @@ public interface BankManager {
      * @param toAccountId the account to which to deposit money
      * @param amount the amount of money to transfer
      */
-    void transfer(int fromAccountId, int toAccountId, BigDecimal amount);
+    void transfer(long fromAccountId, long toAccountId, BigDecimal amount);
 
     /**
      * Withdraw funds from an account
@@ -211,7 +298,7 @@ public interface BankManager {
      * @param amount the amount of money to withdraw
      * @param description a description of the transaction
      */
-    Transaction deposit(int accountId, BigDecimal amount, String description);
+    Transaction deposit(long accountId, BigDecimal amount, String description);
 
     /**
      * Deposit funds to an account
@@ -220,7 +307,7 @@ public interface BankManager {
      * @param amount the amount of money to deposit
      * @param description a description of the transaction
      */
-    void withdraw(int accountId, BigDecimal amount, String description);
+    void withdraw(long accountId, BigDecimal amount, String description);
 
     /**
      * Request a loan
@@ -231,6 +318,6 @@ public interface BankManager {
      * @param fromAccountId the account from which to deduct the down payment
      * @return response the result of the loan request
      */
-    LoanResponse requestLoan(int customerId, BigDecimal amount,
-            BigDecimal downPayment, int fromAccountId);
+    LoanResponse requestLoan(long customerId, BigDecimal amount,
+            BigDecimal downPayment, long fromAccountId);
 }
@@ -0,0 +1,78 @@
+package com.parasoft.parabank.domain.logic;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import com.parasoft.parabank.domain.PortfolioValuation;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.PositionValuation;
+
+/**
+ * Values stock positions against their latest closing prices
+ *
+ * Amounts are summed as {@code long} in fixed point with {@value #SCALE} decimals, the scale of the price columns, so
+ * a portfolio is valued in a single pass without creating a {@link BigDecimal} per addition.
+ */
+public final class PortfolioValuator {
+    public static final int SCALE = 4;
+
+    private PortfolioValuator() {
+    }
+
+    /**
+     * Value positions, a position without a latest price at its cost basis
+     *
+     * @param customerId
+     *            the owner of the positions
+     * @param positions
+     *            the positions to value
+     * @param latestPrices
+     *            the epoch day and fixed point price of the latest closing price by symbol
+     * @return the valuation of every position and their totals
+     */
+    public static PortfolioValuation value(final long customerId, final List<Position> positions,
+        final Map<String, long[]> latestPrices) {
+        final PortfolioValuation valuation = new PortfolioValuation();
+        valuation.setCustomerId(customerId);
+        long totalCostBasis = 0;
+        long totalMarketValue = 0;
+        for (final Position position : positions) {
+            final long costBasis = position.getShares() * toFixedPoint(position.getPurchasePrice());
+            final long[] latest = latestPrices.get(position.getSymbol());
+            final long marketValue = latest != null ? position.getShares() * latest[1] : costBasis;
+
+            final PositionValuation positionValuation = new PositionValuation();
+            positionValuation.setPositionId(position.getPositionId());
+            positionValuation.setSymbol(position.getSymbol());
+            positionValuation.setShares(position.getShares());
+            positionValuation.setPurchasePrice(position.getPurchasePrice());
+            if (latest != null) {
+                positionValuation.setPriceDate(java.sql.Date.valueOf(LocalDate.ofEpochDay(latest[0])));
+                positionValuation.setLatestPrice(BigDecimal.valueOf(latest[1], SCALE));
+            }
+            positionValuation.setCostBasis(BigDecimal.valueOf(costBasis, SCALE));
+            positionValuation.setMarketValue(BigDecimal.valueOf(marketValue, SCALE));
+            positionValuation.setUnrealizedGain(BigDecimal.valueOf(marketValue - costBasis, SCALE));
+            valuation.getPositions().add(positionValuation);
+
+            totalCostBasis += costBasis;
+            totalMarketValue += marketValue;
+        }
+        valuation.setCostBasis(BigDecimal.valueOf(totalCostBasis, SCALE));
+        valuation.setMarketValue(BigDecimal.valueOf(totalMarketValue, SCALE));
+        valuation.setUnrealizedGain(BigDecimal.valueOf(totalMarketValue - totalCostBasis, SCALE));
+        return valuation;
+    }
+
+    /**
+     * @param amount
+     *            a price or amount
+     * @return the amount in fixed point with {@value #SCALE} decimals
+     */
+    public static long toFixedPoint(final BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,29 @@
+package com.parasoft.parabank.domain.logic;
+
+import java.math.BigDecimal;
+
+/**
+ * Interface for objects that credit transfers to accounts that cannot be changed in the transaction that debits the
+ * source account, e.g. because the accounts are kept in different databases
+ */
+public interface TransferOutbox {
+
+    /**
+     * @param fromAccountId the account debited by the transfer
+     * @param toAccountId the account credited by the transfer
+     * @return true if the transfer has to be sent through the outbox
+     */
+    boolean isRequired(long fromAccountId, long toAccountId);
+
+    /**
+     * Record a transfer as part of the current transaction, which has debited the source account. The target account
+     * is credited exactly once after that transaction committed, retrying until it succeeds. If the target account no
+     * longer exists by then, the amount is credited back to the source account instead.
+     * @param fromAccountId the account debited by the transfer
+     * @param toAccountId the account to credit
+     * @param amount the amount to credit
+     * @param description the description of the credit transaction
+     * @throws org.springframework.dao.EmptyResultDataAccessException if the target account does not exist
+     */
+    void send(long fromAccountId, long toAccountId, BigDecimal amount, String description);
+}
@@ -19,7 +19,7 @@ public abstract class AbstractLoanProcessor implements LoanProvider {
     @Override
     public final LoanResponse requestLoan(LoanRequest loanRequest) {
         LoanResponseBuilder builder = new LoanResponseBuilder()
-                .accountId(0)
+                .accountId(0L)
                 .approved(true);
 
         if (loanRequest.getDownPayment().compareTo(loanRequest.getAvailableFunds()) > 0) {
@@ -1,29 +1,64 @@
 package com.parasoft.parabank.domain.logic.impl;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jms.listener.AbstractJmsListeningContainer;
 
-import com.parasoft.parabank.dao.AdminDao;
+import com.parasoft.parabank.dao.ParaBankAdminDao;
+import com.parasoft.parabank.dao.cache.EntityCaches;
+import com.parasoft.parabank.dao.internal.StorageReport;
 import com.parasoft.parabank.domain.logic.AdminManager;
 import com.parasoft.parabank.web.form.AdminForm;
 
 /*
  * Implementation of AdminManager
+ *
+ * Parameters are served from an immutable in-memory snapshot of the Parameter table. Saves write through to the
+ * database and swap in a new snapshot. The snapshot records the parameter version it was loaded at; at most once per
+ * refresh interval the version in the database is compared to it, so a save made by another node is picked up
+ * without re-reading the whole table on every lookup.
  */
 // @Component("adminManager")
 public class AdminManagerImpl implements AdminManager {
+    /**
+     * An immutable copy of all parameters at a given parameter version
+     */
+    private static final class ParameterSnapshot {
+        private final Map<String, String> parameters;
+
+        private final long version;
+
+        private final long checkedAt;
+
+        ParameterSnapshot(final Map<String, String> parameters, final long version, final long checkedAt) {
+            this.parameters = parameters;
+            this.version = version;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    public static final long DEFAULT_REFRESH_INTERVAL = 1000;
+
     private static final Logger log = LoggerFactory.getLogger(AdminManagerImpl.class);
 
+    private final AtomicReference<ParameterSnapshot> snapshot = new AtomicReference<>();
+
+    private long refreshInterval = DEFAULT_REFRESH_INTERVAL;
+
     //@Resource(name = "adminDao")
-    private AdminDao adminDao;
+    private ParaBankAdminDao adminDao;
 
     //@Resource(name = "jmsListener")
     private AbstractJmsListeningContainer jmsListener;
 
+    private EntityCaches entityCaches;
+
     /*
      * (non-Javadoc)
      *
@@ -32,6 +67,8 @@ public class AdminManagerImpl implements AdminManager {
     @Override
     public void cleanDB() {
         adminDao.cleanDB();
+        snapshot.set(null);
+        clearEntityCaches();
     }
 
     /**
@@ -57,11 +94,15 @@ public class AdminManagerImpl implements AdminManager {
     @Override
     public String getParameter(final String name) {
         try {
-            return adminDao.getParameter(name);
+            final Map<String, String> parameters = getSnapshot().parameters;
+            if (parameters.containsKey(name)) {
+                return parameters.get(name);
+            }
         } catch (final DataAccessException e) {
-            log.error("Could not retrieve parameter with name: " + name);
-            return null;
+            log.error("Could not read parameters", e);
         }
+        log.error("Could not retrieve parameter with name: " + name);
+        return null;
     }
 
     /*
@@ -71,7 +112,24 @@ public class AdminManagerImpl implements AdminManager {
      */
     @Override
     public Map<String, String> getParameters() {
-        return adminDao.getParameters();
+        return new HashMap<>(getSnapshot().parameters);
+    }
+
+    /**
+     * @return the parameter version of the current snapshot
+     */
+    public long getParameterVersion() {
+        return getSnapshot().version;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.AdminManager#getStorageReport()
+     */
+    @Override
+    public StorageReport getStorageReport() {
+        return adminDao.getStorageReport();
     }
 
     /*
@@ -82,6 +140,8 @@ public class AdminManagerImpl implements AdminManager {
     @Override
     public void initializeDB() {
         adminDao.initializeDB();
+        snapshot.set(null);
+        clearEntityCaches();
     }
 
     @Override
@@ -97,10 +157,18 @@ public class AdminManagerImpl implements AdminManager {
     }
 
     @Override
-    public void setAdminDao(final AdminDao adminDao) {
+    public void setAdminDao(final ParaBankAdminDao adminDao) {
         this.adminDao = adminDao;
     }
 
+    /**
+     * @param entityCaches
+     *            caches of database rows to clear whenever the database is reset
+     */
+    public void setEntityCaches(final EntityCaches entityCaches) {
+        this.entityCaches = entityCaches;
+    }
+
     @Override
     public void setJmsListener(final AbstractJmsListeningContainer jmsListener) {
         this.jmsListener = jmsListener;
@@ -113,7 +181,46 @@ public class AdminManagerImpl implements AdminManager {
      */
     @Override
     public void setParameter(final String name, final String value) {
-        adminDao.setParameter(name, value);
+        setParameters(Collections.singletonMap(name, value));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.AdminManager#setParameters(java.util.Map)
+     */
+    @Override
+    public synchronized void setParameters(final Map<String, String> parameters) {
+        final long version = adminDao.setParameters(parameters);
+        final ParameterSnapshot current = snapshot.get();
+        if (current != null && current.version == version - 1) {
+            final Map<String, String> merged = new HashMap<>(current.parameters);
+            merged.putAll(parameters);
+            snapshot.set(new ParameterSnapshot(Collections.unmodifiableMap(merged), version,
+                System.currentTimeMillis()));
+        } else {
+            // another node saved in between, reload everything on the next lookup
+            snapshot.set(null);
+        }
+    }
+
+    /**
+     * @param refreshInterval
+     *            milliseconds between checks of the parameter version in the database, 0 checks on every lookup
+     */
+    public void setRefreshInterval(final long refreshInterval) {
+        this.refreshInterval = Math.max(0, refreshInterval);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.AdminManager#setStorageProfile(java.lang.String)
+     */
+    @Override
+    public void setStorageProfile(final String profile) {
+        adminDao.setStorageProfile(profile);
+        clearEntityCaches();
     }
 
     /*
@@ -137,4 +244,35 @@ public class AdminManagerImpl implements AdminManager {
         jmsListener.start();
         jmsListener.initialize();
     }
+
+    /**
+     * Return the current snapshot, reloading it if the parameter version in the database has moved on
+     *
+     * The version is read before the parameters, so a save racing with the reload at worst labels newer values with
+     * an older version and causes one extra reload.
+     */
+    private ParameterSnapshot getSnapshot() {
+        final ParameterSnapshot current = snapshot.get();
+        final long now = System.currentTimeMillis();
+        if (current != null && now - current.checkedAt < refreshInterval) {
+            return current;
+        }
+        final long version = adminDao.getParameterVersion();
+        final ParameterSnapshot next;
+        if (current != null && current.version == version) {
+            next = new ParameterSnapshot(current.parameters, version, now);
+        } else {
+            next = new ParameterSnapshot(Collections.unmodifiableMap(new HashMap<>(adminDao.getParameters())),
+                version, now);
+            log.debug("Loaded {} parameters at version {}", next.parameters.size(), version);
+        }
+        snapshot.compareAndSet(current, next);
+        return next;
+    }
+
+    private void clearEntityCaches() {
+        if (entityCaches != null) {
+            entityCaches.clear();
+        }
+    }
 }
@@ -1,30 +1,47 @@
 package com.parasoft.parabank.domain.logic.impl;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
 
 import com.parasoft.parabank.dao.AccountDao;
-import com.parasoft.parabank.dao.AdminDao;
 import com.parasoft.parabank.dao.CustomerDao;
 import com.parasoft.parabank.dao.PositionDao;
 import com.parasoft.parabank.dao.TransactionDao;
 import com.parasoft.parabank.domain.Account;
 import com.parasoft.parabank.domain.Account.AccountType;
+import com.parasoft.parabank.domain.BalanceSummary;
 import com.parasoft.parabank.domain.Customer;
 import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
 import com.parasoft.parabank.domain.LoanRequest;
 import com.parasoft.parabank.domain.LoanResponse;
+import com.parasoft.parabank.domain.Payment;
+import com.parasoft.parabank.domain.PaymentResult;
+import com.parasoft.parabank.domain.PaymentResult.Status;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Position;
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.domain.Transaction.TransactionType;
 import com.parasoft.parabank.domain.TransactionCriteria;
+import com.parasoft.parabank.domain.logic.AdminManager;
 import com.parasoft.parabank.domain.logic.AdminParameters;
 import com.parasoft.parabank.domain.logic.BankManager;
 import com.parasoft.parabank.domain.logic.LoanProvider;
+import com.parasoft.parabank.domain.logic.TransferOutbox;
+import com.parasoft.parabank.util.StripedLockManager;
+import com.parasoft.parabank.util.StripedLockManager.Locked;
 
 public class BankManagerImpl implements BankManager {
     private static final Logger log = LoggerFactory.getLogger(BankManagerImpl.class);
@@ -37,25 +54,31 @@ public class BankManagerImpl implements BankManager {
 
     private TransactionDao transactionDao;
 
-    private AdminDao adminDao;
+    private AdminManager adminManager;
 
     private LoanProvider loanProvider;
 
+    private StripedLockManager lockManager = new StripedLockManager();
+
+    private TransferOutbox transferOutbox;
+
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#buyPosition(int, int, java.lang.String, java.lang.String,
+     * @see com.parasoft.parabank.domain.logic.BankManager#buyPosition(long, long, java.lang.String, java.lang.String,
      * int, java.math.BigDecimal)
      */
     @Override
-    public List<Position> buyPosition(final int customerId, final int accountId, final String name, final String symbol,
+    public List<Position> buyPosition(final long customerId, final long accountId, final String name, final String symbol,
         final int shares, final BigDecimal pricePerShare) {
-        withdraw(accountId, pricePerShare.multiply(new BigDecimal(shares)), "Funds Transfer Sent");
-        log.info("Withdrew funds for Stock Purchase");
+        try (Locked locked = lockManager.lock(accountId)) {
+            withdraw(accountId, pricePerShare.multiply(new BigDecimal(shares)), "Funds Transfer Sent");
+            log.info("Withdrew funds for Stock Purchase");
 
-        final Position position = createPosition(customerId, name, symbol, shares, pricePerShare);
-        final int positionId = positionDao.createPosition(position);
-        log.info("Created position with id = " + positionId + " with " + shares + " shares");
+            final Position position = createPosition(customerId, name, symbol, shares, pricePerShare);
+            final long positionId = positionDao.createPosition(position);
+            log.info("Created position with id = " + positionId + " with " + shares + " shares");
+        }
 
         final Customer customer = getCustomer(customerId);
 
@@ -68,10 +91,10 @@ public class BankManagerImpl implements BankManager {
      * @see com.parasoft.parabank.domain.logic.BankManager#createAccount(com.parasoft.parabank.domain.Account)
      */
     @Override
-    public int createAccount(final Account account, final int fromAccountId) {
-        final int id = accountDao.createAccount(account);
+    public long createAccount(final Account account, final long fromAccountId) {
+        final long id = accountDao.createAccount(account);
 
-        transfer(fromAccountId, id, new BigDecimal(adminDao.getParameter(AdminParameters.MINIMUM_BALANCE)));
+        transfer(fromAccountId, id, new BigDecimal(adminManager.getParameter(AdminParameters.MINIMUM_BALANCE)));
 
         return id;
     }
@@ -82,13 +105,13 @@ public class BankManagerImpl implements BankManager {
      * @see com.parasoft.parabank.domain.logic.BankManager#createCustomer(com.parasoft.parabank.domain.Customer)
      */
     @Override
-    public int createCustomer(final Customer customer) {
-        final int id = customerDao.createCustomer(customer);
+    public long createCustomer(final Customer customer) {
+        final long id = customerDao.createCustomer(customer);
         log.info("Created customer with id = " + id);
         final Account account = new Account();
         account.setCustomerId(id);
         account.setType(AccountType.CHECKING);
-        account.setBalance(new BigDecimal(adminDao.getParameter(AdminParameters.INITIAL_BALANCE)));
+        account.setBalance(new BigDecimal(adminManager.getParameter(AdminParameters.INITIAL_BALANCE)));
         accountDao.createAccount(account);
         log.info("Created new account with id = " + account.getId() + " and balance " + account.getBalance()
             + " for customer with id = " + id);
@@ -101,7 +124,7 @@ public class BankManagerImpl implements BankManager {
      * @see com.parasoft.parabank.domain.logic.BankManager#createPosition(com.parasoft.parabank.domain.Position)
      */
     @Override
-    public Position createPosition(final int customerId, final String name, final String symbol, final int shares,
+    public Position createPosition(final long customerId, final String name, final String symbol, final int shares,
         final BigDecimal pricePerShare) {
         final Position position = new Position();
         position.setCustomerId(customerId);
@@ -112,10 +135,10 @@ public class BankManagerImpl implements BankManager {
         return position;
     }
 
-    private Transaction createTransaction(final Account account, final TransactionType type, final Date date,
+    private Transaction createTransaction(final long accountId, final TransactionType type, final Date date,
         final BigDecimal amount, final String description) {
         final Transaction transaction = new Transaction();
-        transaction.setAccountId(account.getId());
+        transaction.setAccountId(accountId);
         transaction.setType(type);
         transaction.setDate(date);
         transaction.setAmount(amount);
@@ -138,30 +161,30 @@ public class BankManagerImpl implements BankManager {
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#deposit(int, java.math.BigDecimal, java.lang.String)
+     * @see com.parasoft.parabank.domain.logic.BankManager#deposit(long, java.math.BigDecimal, java.lang.String)
      */
     @Override
-    public Transaction deposit(final int accountId, final BigDecimal amount, final String description) {
-        final Account account = accountDao.getAccount(accountId);
-
-        account.credit(amount);
-        accountDao.updateAccount(account);
-        log.info("Credited account with id = " + accountId + " in the amount of " + amount);
-
-        final Transaction transaction =
-            createTransaction(account, TransactionType.Credit, new Date(), amount, description);
-        transactionDao.createTransaction(transaction);
-        log.info("Created credit transaction with id = " + transaction.getId() + " with description: " + description);
-        return transaction;
+    public Transaction deposit(final long accountId, final BigDecimal amount, final String description) {
+        try (Locked locked = lockManager.lock(accountId)) {
+            accountDao.adjustBalance(accountId, amount);
+            log.info("Credited account with id = " + accountId + " in the amount of " + amount);
+
+            final Transaction transaction =
+                createTransaction(accountId, TransactionType.Credit, new Date(), amount, description);
+            transactionDao.createTransaction(transaction);
+            log.info(
+                "Created credit transaction with id = " + transaction.getId() + " with description: " + description);
+            return transaction;
+        }
     }
 
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#getAccount(int)
+     * @see com.parasoft.parabank.domain.logic.BankManager#getAccount(long)
      */
     @Override
-    public Account getAccount(final int id) {
+    public Account getAccount(final long id) {
         return accountDao.getAccount(id);
     }
 
@@ -178,10 +201,20 @@ public class BankManagerImpl implements BankManager {
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#getCustomer(int)
+     * @see com.parasoft.parabank.domain.logic.BankManager#getBalanceSummary(long)
      */
     @Override
-    public Customer getCustomer(final int id) {
+    public BalanceSummary getBalanceSummary(final long customerId) {
+        return accountDao.getBalanceSummary(customerId);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.BankManager#getCustomer(long)
+     */
+    @Override
+    public Customer getCustomer(final long id) {
         return customerDao.getCustomer(id);
     }
 
@@ -210,29 +243,51 @@ public class BankManagerImpl implements BankManager {
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#getPosition(int)
+     * @see com.parasoft.parabank.domain.logic.BankManager#getPortfolioValuation(long)
      */
     @Override
-    public Position getPosition(final int positionId) {
+    public PortfolioValuation getPortfolioValuation(final long customerId) {
+        return positionDao.getPortfolioValuation(customerId);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.BankManager#getPosition(long)
+     */
+    @Override
+    public Position getPosition(final long positionId) {
         return positionDao.getPosition(positionId);
     }
 
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#getPositionHistory(int, java.util.Date, java.util.Date)
+     * @see com.parasoft.parabank.domain.logic.BankManager#getPositionHistory(long, java.util.Date, java.util.Date)
      */
     @Override
-    public List<HistoryPoint> getPositionHistory(final int positionId, final Date startDate, final Date endDate) {
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate) {
         return positionDao.getPositionHistory(positionId, startDate, endDate);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.BankManager#getPositionHistory(long, java.util.Date, java.util.Date,
+     * com.parasoft.parabank.domain.HistoryPoint.Resolution, java.lang.Integer)
+     */
+    @Override
+    public List<HistoryPoint> getPositionHistory(final long positionId, final Date startDate, final Date endDate,
+        final Resolution resolution, final Integer maxPoints) {
+        return positionDao.getPositionHistory(positionId, startDate, endDate, resolution, maxPoints);
+    }
+
     /* ========================= Position Methods ========================= */
 
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#getPosition(int)
+     * @see com.parasoft.parabank.domain.logic.BankManager#getPosition(long)
      */
     @Override
     public List<Position> getPositionsForCustomer(final Customer customer) {
@@ -242,10 +297,10 @@ public class BankManagerImpl implements BankManager {
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#getTransaction(int)
+     * @see com.parasoft.parabank.domain.logic.BankManager#getTransaction(long)
      */
     @Override
-    public Transaction getTransaction(final int id) {
+    public Transaction getTransaction(final long id) {
         return transactionDao.getTransaction(id);
     }
 
@@ -268,26 +323,157 @@ public class BankManagerImpl implements BankManager {
      * com.parasoft.parabank.domain.TransactionCriteria)
      */
     @Override
-    public List<Transaction> getTransactionsForAccount(final int accountId, final TransactionCriteria criteria) {
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria) {
         return transactionDao.getTransactionsForAccount(accountId, criteria);
     }
 
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#requestLoan(int, java.math.BigDecimal, java.math.BigDecimal,
-     * int)
+     * @see com.parasoft.parabank.domain.logic.BankManager#exportTransactions(java.util.List, java.util.Date,
+     * java.util.Date, java.util.function.Consumer)
+     */
+    @Override
+    public int exportTransactions(final List<Long> accountIds, final Date fromDate, final Date toDate,
+        final Consumer<Transaction> consumer) {
+        return transactionDao.exportTransactions(accountIds, fromDate, toDate, consumer);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.BankManager#getTransactionsForAccount(long,
+     * com.parasoft.parabank.domain.TransactionCriteria, java.lang.Long, int)
+     */
+    @Override
+    public List<Transaction> getTransactionsForAccount(final long accountId, final TransactionCriteria criteria,
+        final Long cursor, final int limit) {
+        return transactionDao.getTransactionsForAccount(accountId, criteria, cursor, limit);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.BankManager#getTransactionPage(long,
+     * com.parasoft.parabank.domain.TransactionCriteria, java.lang.Long, java.lang.Integer)
+     */
+    @Override
+    public List<Transaction> getTransactionPage(final long accountId, final TransactionCriteria criteria,
+        final Long cursor, final Integer limit) {
+        if (cursor == null && limit == null) {
+            return transactionDao.getTransactionsForAccount(accountId, criteria);
+        }
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+        try {
+            return transactionDao.getTransactionsForAccount(accountId, criteria, cursor,
+                limit == null ? Integer.MAX_VALUE : limit);
+        } catch (final EmptyResultDataAccessException e) {
+            log.warn("No transaction #" + cursor + " to continue after for account #" + accountId);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * @return true if the target account cannot be credited in the transaction debiting the source account
+     */
+    private boolean isOutboxRequired(final long fromAccountId, final long toAccountId) {
+        return transferOutbox != null && transferOutbox.isRequired(fromAccountId, toAccountId);
+    }
+
+    /**
+     * Balance changes are netted per account and applied as one batch, the transactions of all payments are
+     * inserted as another. Transfers the {@link TransferOutbox} has to deliver are credited once the batch committed.
+     *
+     * @see com.parasoft.parabank.domain.logic.BankManager#processPayments(java.util.List)
      */
     @Override
-    public LoanResponse requestLoan(final int customerId, final BigDecimal amount, final BigDecimal downPayment,
-        final int fromAccountId) {
-        final List<Account> accounts = accountDao.getAccountsForCustomerId(customerId);
-        BigDecimal availableFunds = BigDecimal.ZERO;
-        for (final Account account : accounts) {
-            if (account.getType() != AccountType.LOAN) {
-                availableFunds = availableFunds.add(account.getBalance());
+    public List<PaymentResult> processPayments(final List<Payment> payments) {
+        final Set<Long> accountIds = new HashSet<>();
+        for (final Payment payment : payments) {
+            if (payment != null) {
+                accountIds.add(payment.getFromAccountId());
+                if (payment.isTransfer()) {
+                    accountIds.add(payment.getToAccountId());
+                }
             }
         }
+        final Set<Long> existingIds = new HashSet<>();
+        for (final Account account : accountDao.getAccounts(accountIds)) {
+            existingIds.add(account.getId());
+        }
+
+        final List<PaymentResult> results = new ArrayList<>(payments.size());
+        boolean valid = true;
+        for (int i = 0; i < payments.size(); i++) {
+            final String error = validatePayment(payments.get(i), existingIds);
+            valid &= error == null;
+            results.add(new PaymentResult(i, error == null ? Status.APPLIED : Status.INVALID, error));
+        }
+        if (!valid) {
+            for (final PaymentResult result : results) {
+                if (result.getStatus() == Status.APPLIED) {
+                    result.setStatus(Status.SKIPPED);
+                    result.setMessage("Not applied because the batch contains invalid payments");
+                }
+            }
+            log.info("Rejected batch of " + payments.size() + " payments");
+            return results;
+        }
+
+        try (Locked locked = lockManager.lock(accountIds.stream().mapToLong(Long::longValue).toArray())) {
+            final Date date = new Date();
+            final Map<Long, BigDecimal> amounts = new HashMap<>();
+            final List<Transaction> transactions = new ArrayList<>();
+            final List<Payment> outgoing = new ArrayList<>();
+            for (int i = 0; i < payments.size(); i++) {
+                final Payment payment = payments.get(i);
+                final long fromAccountId = payment.getFromAccountId();
+                final BigDecimal amount = payment.getAmount();
+                amounts.merge(fromAccountId, amount.negate(), BigDecimal::add);
+                if (payment.isTransfer()) {
+                    final long toAccountId = payment.getToAccountId();
+                    transactions.add(
+                        createTransaction(fromAccountId, TransactionType.Debit, date, amount, "Funds Transfer Sent"));
+                    if (isOutboxRequired(fromAccountId, toAccountId)) {
+                        outgoing.add(payment);
+                    } else {
+                        amounts.merge(toAccountId, amount, BigDecimal::add);
+                        transactions.add(createTransaction(toAccountId, TransactionType.Credit, date, amount,
+                            "Funds Transfer Received"));
+                    }
+                    results.get(i).setMessage("Successfully transferred $" + amount + " from account #"
+                        + fromAccountId + " to account #" + toAccountId);
+                } else {
+                    final String payeeName = payment.getPayee().getName();
+                    transactions.add(createTransaction(fromAccountId, TransactionType.Debit, date, amount,
+                        String.format("Bill Payment to %s", payeeName)));
+                    results.get(i).setMessage(
+                        "Successfully paid $" + amount + " from account #" + fromAccountId + " to " + payeeName);
+                }
+            }
+            accountDao.adjustBalances(amounts);
+            transactionDao.createTransactions(transactions);
+            for (final Payment payment : outgoing) {
+                transferOutbox.send(payment.getFromAccountId(), payment.getToAccountId(), payment.getAmount(),
+                    "Funds Transfer Received");
+            }
+            log.info("Applied batch of " + payments.size() + " payments touching " + amounts.size() + " accounts");
+        }
+        return results;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.domain.logic.BankManager#requestLoan(long, java.math.BigDecimal, java.math.BigDecimal,
+     * int)
+     */
+    @Override
+    public LoanResponse requestLoan(final long customerId, final BigDecimal amount, final BigDecimal downPayment,
+        final long fromAccountId) {
+        final BigDecimal availableFunds = accountDao.getBalanceSummary(customerId).getAvailableFunds();
 
         final LoanRequest loanRequest = new LoanRequest();
         loanRequest.setRequestDate(new Date());
@@ -305,9 +491,11 @@ public class BankManagerImpl implements BankManager {
             loanAccount.setCustomerId(customerId);
             loanAccount.setType(AccountType.LOAN);
             loanAccount.setBalance(amount);
-            final int accountId = accountDao.createAccount(loanAccount);
-            loanResponse.setAccountId(accountId);
-            withdraw(fromAccountId, downPayment, "Down Payment for Loan # " + accountId);
+            try (Locked locked = lockManager.lock(fromAccountId)) {
+                final long accountId = accountDao.createAccount(loanAccount);
+                loanResponse.setAccountId(accountId);
+                withdraw(fromAccountId, downPayment, "Down Payment for Loan # " + accountId);
+            }
         }
 
         return loanResponse;
@@ -316,25 +504,27 @@ public class BankManagerImpl implements BankManager {
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#sellPosition(int, int, int, int, java.math.BigDecimal)
+     * @see com.parasoft.parabank.domain.logic.BankManager#sellPosition(long, long, long, int, java.math.BigDecimal)
      */
     @Override
-    public List<Position> sellPosition(final int customerId, final int accountId, final int positionId,
+    public List<Position> sellPosition(final long customerId, final long accountId, final long positionId,
         final int shares, final BigDecimal pricePerShare) {
-        final Position position = positionDao.getPosition(positionId);
-
-        if (shares == position.getShares()) {
-            deletePosition(position);
-            log.info("Deleted position with id = " + position.getPositionId());
-        } else {
-            final int oldShares = position.getShares();
-            position.setShares(oldShares - shares);
-            updatePosition(position);
-            log.info("Updated position with id = " + position.getPositionId() + ": new shares = "
-                + (position.getShares() - shares));
+        try (Locked locked = lockManager.lock(accountId)) {
+            final Position position = positionDao.getPosition(positionId);
+
+            if (shares == position.getShares()) {
+                deletePosition(position);
+                log.info("Deleted position with id = " + position.getPositionId());
+            } else {
+                final int oldShares = position.getShares();
+                position.setShares(oldShares - shares);
+                updatePosition(position);
+                log.info("Updated position with id = " + position.getPositionId() + ": new shares = "
+                    + (position.getShares() - shares));
+            }
+            deposit(accountId, pricePerShare.multiply(new BigDecimal(shares)), "Funds Transfer Received");
+            log.info("Deposited funds from Stock Sale");
         }
-        deposit(accountId, pricePerShare.multiply(new BigDecimal(shares)), "Funds Transfer Received");
-        log.info("Deposited funds from Stock Sale");
         final Customer customer = getCustomer(customerId);
 
         return getPositionsForCustomer(customer);
@@ -344,8 +534,12 @@ public class BankManagerImpl implements BankManager {
         this.accountDao = accountDao;
     }
 
-    public void setAdminDao(final AdminDao adminDao) {
-        this.adminDao = adminDao;
+    public void setAdminManager(final AdminManager adminManager) {
+        this.adminManager = adminManager;
+    }
+
+    public void setLockManager(final StripedLockManager lockManager) {
+        this.lockManager = lockManager;
     }
 
     /* ========================= Transaction Methods ========================= */
@@ -366,15 +560,30 @@ public class BankManagerImpl implements BankManager {
         this.transactionDao = transactionDao;
     }
 
+    /**
+     * @param transferOutbox
+     *            delivers transfers to accounts that cannot be credited in the transaction debiting the source
+     *            account, null if every account can
+     */
+    public void setTransferOutbox(final TransferOutbox transferOutbox) {
+        this.transferOutbox = transferOutbox;
+    }
+
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#transfer(int, int, java.math.BigDecimal)
+     * @see com.parasoft.parabank.domain.logic.BankManager#transfer(long, long, java.math.BigDecimal)
      */
     @Override
-    public void transfer(final int fromAccountId, final int toAccountId, final BigDecimal amount) {
-        withdraw(fromAccountId, amount, "Funds Transfer Sent");
-        deposit(toAccountId, amount, "Funds Transfer Received");
+    public void transfer(final long fromAccountId, final long toAccountId, final BigDecimal amount) {
+        try (Locked locked = lockManager.lock(fromAccountId, toAccountId)) {
+            withdraw(fromAccountId, amount, "Funds Transfer Sent");
+            if (isOutboxRequired(fromAccountId, toAccountId)) {
+                transferOutbox.send(fromAccountId, toAccountId, amount, "Funds Transfer Received");
+            } else {
+                deposit(toAccountId, amount, "Funds Transfer Received");
+            }
+        }
     }
 
     /*
@@ -399,22 +608,49 @@ public class BankManagerImpl implements BankManager {
 
     /* ========================= Loan Methods ========================= */
 
+    /**
+     * @return a description of what is wrong with the payment, or null if it can be applied
+     */
+    private static String validatePayment(final Payment payment, final Set<Long> existingIds) {
+        if (payment == null) {
+            return "Payment is missing";
+        }
+        if (payment.getAmount() == null || payment.getAmount().signum() <= 0) {
+            return "Amount must be greater than zero";
+        }
+        if (!existingIds.contains(payment.getFromAccountId())) {
+            return "Could not find account number " + payment.getFromAccountId();
+        }
+        if (payment.isTransfer()) {
+            if (payment.getPayee() != null) {
+                return "A payment is either a transfer or a bill payment, not both";
+            }
+            if (!existingIds.contains(payment.getToAccountId())) {
+                return "Could not find account number " + payment.getToAccountId();
+            }
+        } else if (payment.getPayee() == null || payment.getPayee().getName() == null
+            || payment.getPayee().getName().isEmpty()) {
+            return "Either a toAccountId or a payee with a name is required";
+        }
+        return null;
+    }
+
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#withdraw(int, java.math.BigDecimal, java.lang.String)
+     * @see com.parasoft.parabank.domain.logic.BankManager#withdraw(long, java.math.BigDecimal, java.lang.String)
      */
     @Override
-    public void withdraw(final int accountId, final BigDecimal amount, final String description) {
-        final Account account = accountDao.getAccount(accountId);
-
-        account.debit(amount);
-        accountDao.updateAccount(account);
-        log.info("Debited account with id = " + accountId + " in the amount of " + amount);
-
-        final Transaction transaction =
-            createTransaction(account, TransactionType.Debit, new Date(), amount, description);
-        transactionDao.createTransaction(transaction);
-        log.info("Created debit transaction with id = " + transaction.getId() + " with description: " + description);
+    public void withdraw(final long accountId, final BigDecimal amount, final String description) {
+        try (Locked locked = lockManager.lock(accountId)) {
+            accountDao.adjustBalance(accountId, amount.negate());
+            log.info("Debited account with id = " + accountId + " in the amount of " + amount);
+
+            final Transaction transaction =
+                createTransaction(accountId, TransactionType.Debit, new Date(), amount, description);
+            transactionDao.createTransaction(transaction);
+            log.info(
+                "Created debit transaction with id = " + transaction.getId() + " with description: " + description);
+        }
     }
 }
@@ -9,7 +9,7 @@ public class LoanResponseBuilder {
     private String loanProviderName;
     private boolean approved;
     private String message;
-    private Integer accountId;
+    private Long accountId;
 
     public LoanResponseBuilder()
     {
@@ -31,7 +31,7 @@ public class LoanResponseBuilder {
         return this;
     }
 
-    public LoanResponseBuilder accountId(Integer accountId) {
+    public LoanResponseBuilder accountId(Long accountId) {
         this.accountId = accountId;
         return this;
     }
@@ -43,7 +43,7 @@ public class LoanResponseBuilder {
 
     public LoanResponse build() {
         LoanResponse response = new LoanResponse();
-        if (accountId.intValue() > 0) {
+        if (accountId.longValue() > 0) {
             response.setAccountId(accountId);
         }
         response.setApproved(approved);
@@ -38,7 +38,7 @@ public interface IBillPayService extends ParaBankServiceConstants {
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
     BillPayResult billPay(
-            @Parameter(description = BILL_PAY_ACCOUNT_ID_DESC, required = true) @QueryParam(ACCOUNT_ID) int accountId,
+            @Parameter(description = BILL_PAY_ACCOUNT_ID_DESC, required = true) @QueryParam(ACCOUNT_ID) long accountId,
             @Parameter(description = AMOUNT_DESC, required = true) @QueryParam("amount") BigDecimal amount,
             @Parameter(description = "Payee", required = true) Payee Payee) throws ParaBankServiceException;
 
@@ -6,6 +6,7 @@ import java.util.List;
 import jakarta.jws.WebParam;
 import jakarta.jws.WebResult;
 import jakarta.jws.WebService;
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
@@ -18,9 +19,13 @@ import org.apache.cxf.jaxrs.ext.xml.ElementClass;
 import org.apache.cxf.rs.security.cors.CrossOriginResourceSharing;
 
 import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.BalanceSummary;
 import com.parasoft.parabank.domain.Customer;
 import com.parasoft.parabank.domain.HistoryPoint;
 import com.parasoft.parabank.domain.LoanResponse;
+import com.parasoft.parabank.domain.Payment;
+import com.parasoft.parabank.domain.PaymentResult;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Position;
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.util.Constants;
@@ -92,8 +97,8 @@ public interface ParaBankService extends IBillPayService {
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     @WebResult(name = "position", targetNamespace = ParaBankServiceConstants.TNS)
     List<Position> buyPosition(
-        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) int customerId,
-        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId,
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId,
+        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId,
         @Parameter(description = INSTRUMENT_NAME, required = true) @QueryParam("name") @WebParam(name = "name", targetNamespace = ParaBankServiceConstants.TNS) String name,
         @Parameter(description = INSTRUMENT_SYMBOL, required = true) @QueryParam("symbol") @WebParam(name = "symbol", targetNamespace = ParaBankServiceConstants.TNS) String symbol,
         @Parameter(description = NUMBER_OF_SHARES_DESC, required = true) @QueryParam("shares") @WebParam(name = "shares", targetNamespace = ParaBankServiceConstants.TNS) int shares,
@@ -115,9 +120,9 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "account", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     Account createAccount(
-        @Parameter(description = CUSTOMER_ID_DESC, required = true) @QueryParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) int customerId,
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @QueryParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId,
         @Parameter(description = ACCOUNT_TYPE_DESC, required = true) @QueryParam("newAccountType") @WebParam(name = "newAccountType", targetNamespace = ParaBankServiceConstants.TNS) int newAccountType,
-        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam("fromAccountId") @WebParam(name = "fromAccountId", targetNamespace = ParaBankServiceConstants.TNS) int fromAccountId)
+        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam("fromAccountId") @WebParam(name = "fromAccountId", targetNamespace = ParaBankServiceConstants.TNS) long fromAccountId)
                 throws ParaBankServiceException;
 
     /**
@@ -136,7 +141,7 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "depositReturn", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     String deposit(
-        @Parameter(description = CUSTOMER_ACCOUNT_DEP_DESC, required = true) @QueryParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId,
+        @Parameter(description = CUSTOMER_ACCOUNT_DEP_DESC, required = true) @QueryParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId,
         @Parameter(description = AMOUNT_DESC, required = true) @QueryParam("amount") @WebParam(name = "amount", targetNamespace = ParaBankServiceConstants.TNS) BigDecimal amount)
                 throws ParaBankServiceException;
 
@@ -154,7 +159,7 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "account", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     Account getAccount(
-        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId)
+        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId)
                 throws ParaBankServiceException;
 
     /**
@@ -172,7 +177,25 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "account", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     List<Account> getAccounts(
-        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) int customerId)
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId)
+                throws ParaBankServiceException;
+
+    /**
+     * Return the combined balances of all accounts of a given customer
+     *
+     * @param customerId
+     *            the customer id to lookup
+     * @return the balance summary of the customer
+     * @throws ParaBankServiceException
+     */
+    @GET
+    @Operation(summary = "Get Customer Balance Summary", tags = {
+        ParaBankServiceConstants.CUSTOMERS, ParaBankServiceConstants.ACCOUNTS })
+    @Path("/customers/{customerId}/balanceSummary")
+    @WebResult(name = "balanceSummary", targetNamespace = ParaBankServiceConstants.TNS)
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    BalanceSummary getBalanceSummary(
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId)
                 throws ParaBankServiceException;
 
     /**
@@ -190,7 +213,7 @@ public interface ParaBankService extends IBillPayService {
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     @WebResult(name = "customer", targetNamespace = ParaBankServiceConstants.TNS)
     Customer getCustomer(
-        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) int customerId)
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId)
                 throws ParaBankServiceException;
 
     /**
@@ -208,7 +231,7 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "position", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     Position getPosition(
-        @Parameter(description = POSITION_ID_DESC, required = true) @PathParam("positionId") @WebParam(name = "positionId", targetNamespace = TNS) int positionId)
+        @Parameter(description = POSITION_ID_DESC, required = true) @PathParam("positionId") @WebParam(name = "positionId", targetNamespace = TNS) long positionId)
                 throws ParaBankServiceException;
 
     /**
@@ -220,6 +243,11 @@ public interface ParaBankService extends IBillPayService {
      *            the start date in the date range
      * @param endDate
      *            the end date in the date range
+     * @param resolution
+     *            the finest resolution to return (DAILY, WEEKLY, MONTHLY), or null for daily prices
+     * @param maxPoints
+     *            maximum number of history points, coarser resolutions are used to stay within it, or null for no
+     *            limit
      * @return a list of history points
      * @throws ParaBankServiceException
      */
@@ -230,9 +258,11 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "historyPoint", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     List<HistoryPoint> getPositionHistory(
-        @Parameter(description = POSITION_ID_DESC, required = true) @PathParam("positionId") @WebParam(name = "positionId", targetNamespace = ParaBankServiceConstants.TNS) int positionId,
+        @Parameter(description = POSITION_ID_DESC, required = true) @PathParam("positionId") @WebParam(name = "positionId", targetNamespace = ParaBankServiceConstants.TNS) long positionId,
         @Parameter(description = START_DATE_DESC, required = true) @PathParam("startDate") @WebParam(name = "startDate", targetNamespace = ParaBankServiceConstants.TNS) String startDate,
-        @Parameter(description = END_DATE_DESC, required = true) @PathParam("endDate") @WebParam(name = "endDate", targetNamespace = ParaBankServiceConstants.TNS) String endDate)
+        @Parameter(description = END_DATE_DESC, required = true) @PathParam("endDate") @WebParam(name = "endDate", targetNamespace = ParaBankServiceConstants.TNS) String endDate,
+        @Parameter(description = RESOLUTION_DESC) @QueryParam("resolution") @WebParam(name = "resolution", targetNamespace = ParaBankServiceConstants.TNS) String resolution,
+        @Parameter(description = MAX_POINTS_DESC) @QueryParam("maxPoints") @WebParam(name = "maxPoints", targetNamespace = ParaBankServiceConstants.TNS) Integer maxPoints)
                 throws ParaBankServiceException;
 
     /**
@@ -250,7 +280,25 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "position", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     List<Position> getPositions(
-        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) int customerId)
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId)
+                throws ParaBankServiceException;
+
+    /**
+     * Return the value of all positions of a given customer at the latest closing prices
+     *
+     * @param customerId
+     *            the customer id to lookup
+     * @return cost basis, market value and unrealized gain per position and in total
+     * @throws ParaBankServiceException
+     */
+    @GET
+    @Path("/customers/{customerId}/portfolio")
+    @Operation(summary = "Get Portfolio Valuation for Customer", tags = {
+        ParaBankServiceConstants.CUSTOMERS, ParaBankServiceConstants.POSITIONS })
+    @WebResult(name = "portfolioValuation", targetNamespace = ParaBankServiceConstants.TNS)
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    PortfolioValuation getPortfolioValuation(
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId)
                 throws ParaBankServiceException;
 
     /**
@@ -269,7 +317,7 @@ public interface ParaBankService extends IBillPayService {
     @ElementClass(response = Transaction.class)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     Transaction getTransaction(
-        @Parameter(description = TRANSACTION_ID_DESC, required = true) @PathParam("transactionId") @WebParam(name = "transactionId", targetNamespace = ParaBankServiceConstants.TNS) int transactionId)
+        @Parameter(description = TRANSACTION_ID_DESC, required = true) @PathParam("transactionId") @WebParam(name = "transactionId", targetNamespace = ParaBankServiceConstants.TNS) long transactionId)
                 throws ParaBankServiceException;
 
     /**
@@ -277,6 +325,10 @@ public interface ParaBankService extends IBillPayService {
      *
      * @param accountId
      *            the account id to lookup
+     * @param cursor
+     *            id of the last transaction of the previous page, or null for the first page
+     * @param limit
+     *            maximum number of transactions to return, or null for all transactions
      * @return list of account transactions
      * @throws ParaBankServiceException
      */
@@ -287,7 +339,9 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = Constants.TRANSACTION, targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     List<Transaction> getTransactions(
-        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId)
+        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId,
+        @Parameter(description = CURSOR_DESC) @QueryParam("cursor") @WebParam(name = "cursor", targetNamespace = ParaBankServiceConstants.TNS) Long cursor,
+        @Parameter(description = LIMIT_DESC) @QueryParam("limit") @WebParam(name = "limit", targetNamespace = ParaBankServiceConstants.TNS) Integer limit)
                 throws ParaBankServiceException;
 
     @GET
@@ -297,8 +351,10 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = Constants.TRANSACTION, targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     List<Transaction> getTransactionsByAmount(
-        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId,
-        @Parameter(description = AMOUNT_DESC, required = true) @PathParam("amount") @WebParam(name = "amount", targetNamespace = ParaBankServiceConstants.TNS) BigDecimal amount)
+        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId,
+        @Parameter(description = AMOUNT_DESC, required = true) @PathParam("amount") @WebParam(name = "amount", targetNamespace = ParaBankServiceConstants.TNS) BigDecimal amount,
+        @Parameter(description = CURSOR_DESC) @QueryParam("cursor") @WebParam(name = "cursor", targetNamespace = ParaBankServiceConstants.TNS) Long cursor,
+        @Parameter(description = LIMIT_DESC) @QueryParam("limit") @WebParam(name = "limit", targetNamespace = ParaBankServiceConstants.TNS) Integer limit)
                 throws ParaBankServiceException;
 
     @GET
@@ -308,9 +364,11 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = Constants.TRANSACTION, targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     List<Transaction> getTransactionsByMonthAndType(
-        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId,
+        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId,
         @Parameter(description = MONTH_DESC, required = true) @PathParam("month") @WebParam(name = "month", targetNamespace = ParaBankServiceConstants.TNS) String month,
-        @Parameter(description = TRANSACTION_TYPE_DESC, required = true) @PathParam("type") @WebParam(name = "type", targetNamespace = ParaBankServiceConstants.TNS) String type)
+        @Parameter(description = TRANSACTION_TYPE_DESC, required = true) @PathParam("type") @WebParam(name = "type", targetNamespace = ParaBankServiceConstants.TNS) String type,
+        @Parameter(description = CURSOR_DESC) @QueryParam("cursor") @WebParam(name = "cursor", targetNamespace = ParaBankServiceConstants.TNS) Long cursor,
+        @Parameter(description = LIMIT_DESC) @QueryParam("limit") @WebParam(name = "limit", targetNamespace = ParaBankServiceConstants.TNS) Integer limit)
                 throws ParaBankServiceException;
 
     @GET
@@ -320,9 +378,11 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = Constants.TRANSACTION, targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     List<Transaction> getTransactionsByToFromDate(
-        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId,
+        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId,
         @Parameter(description = START_DATE_DESC, required = true) @PathParam("fromDate") @WebParam(name = "fromDate", targetNamespace = ParaBankServiceConstants.TNS) String fromDate,
-        @Parameter(description = END_DATE_DESC, required = true) @PathParam("toDate") @WebParam(name = "toDate", targetNamespace = ParaBankServiceConstants.TNS) String toDate)
+        @Parameter(description = END_DATE_DESC, required = true) @PathParam("toDate") @WebParam(name = "toDate", targetNamespace = ParaBankServiceConstants.TNS) String toDate,
+        @Parameter(description = CURSOR_DESC) @QueryParam("cursor") @WebParam(name = "cursor", targetNamespace = ParaBankServiceConstants.TNS) Long cursor,
+        @Parameter(description = LIMIT_DESC) @QueryParam("limit") @WebParam(name = "limit", targetNamespace = ParaBankServiceConstants.TNS) Integer limit)
                 throws ParaBankServiceException;
 
     @GET
@@ -332,8 +392,10 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = Constants.TRANSACTION, targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     List<Transaction> getTransactionsOnDate(
-        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId,
-        @Parameter(description = DATE_DESC, required = true) @PathParam("onDate") @WebParam(name = "onDate", targetNamespace = ParaBankServiceConstants.TNS) String onDate)
+        @Parameter(description = CUSTOMER_ACCOUNT_FETCH_DESC, required = true) @PathParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId,
+        @Parameter(description = DATE_DESC, required = true) @PathParam("onDate") @WebParam(name = "onDate", targetNamespace = ParaBankServiceConstants.TNS) String onDate,
+        @Parameter(description = CURSOR_DESC) @QueryParam("cursor") @WebParam(name = "cursor", targetNamespace = ParaBankServiceConstants.TNS) Long cursor,
+        @Parameter(description = LIMIT_DESC) @QueryParam("limit") @WebParam(name = "limit", targetNamespace = ParaBankServiceConstants.TNS) Integer limit)
                 throws ParaBankServiceException;
 
     /**
@@ -386,10 +448,10 @@ public interface ParaBankService extends IBillPayService {
     @ElementClass(response = LoanResponse.class)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     LoanResponse requestLoan(
-        @Parameter(description = CUSTOMER_ID_DESC, required = true) @QueryParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) int customerId,
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @QueryParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId,
         @Parameter(description = AMOUNT_DESC, required = true) @QueryParam("amount") @WebParam(name = "amount", targetNamespace = ParaBankServiceConstants.TNS) BigDecimal amount,
         @Parameter(description = DOWNPAYMENT_DESC, required = true) @QueryParam("downPayment") @WebParam(name = "downPayment", targetNamespace = ParaBankServiceConstants.TNS) BigDecimal downPayment,
-        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam("fromAccountId") @WebParam(name = "fromAccountId", targetNamespace = ParaBankServiceConstants.TNS) int fromAccountId)
+        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam("fromAccountId") @WebParam(name = "fromAccountId", targetNamespace = ParaBankServiceConstants.TNS) long fromAccountId)
                 throws ParaBankServiceException;
 
     /**
@@ -415,9 +477,9 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "position", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     List<Position> sellPosition(
-        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) int customerId,
-        @Parameter(description = CUSTOMER_ACCOUNT_DEP_DESC, required = true) @QueryParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId,
-        @Parameter(description = POSITION_ID_DESC, required = true) @QueryParam("positionId") @WebParam(name = "positionId", targetNamespace = ParaBankServiceConstants.TNS) int positionId,
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId,
+        @Parameter(description = CUSTOMER_ACCOUNT_DEP_DESC, required = true) @QueryParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId,
+        @Parameter(description = POSITION_ID_DESC, required = true) @QueryParam("positionId") @WebParam(name = "positionId", targetNamespace = ParaBankServiceConstants.TNS) long positionId,
         @Parameter(description = NUMBER_OF_SHARES_DESC, required = true) @QueryParam("shares") @WebParam(name = "shares", targetNamespace = ParaBankServiceConstants.TNS) int shares,
         @Parameter(description = PRICE_PER_SHARE_DESC, required = true) @QueryParam("pricePerShare") @WebParam(name = "pricePerShare", targetNamespace = ParaBankServiceConstants.TNS) BigDecimal pricePerShare)
                 throws ParaBankServiceException;
@@ -456,6 +518,26 @@ public interface ParaBankService extends IBillPayService {
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     void startupJmsListener();
 
+    /**
+     * Apply a batch of transfers and bill payments in a single transaction
+     *
+     * Every payment is validated first, if any payment is invalid none is applied.
+     *
+     * @param payments
+     *            the transfers and bill payments to apply
+     * @return one result per payment, in the order of the payments
+     * @throws ParaBankServiceException
+     */
+    @POST
+    @Path("/transfers/batch")
+    @Operation(summary = "Apply a batch of transfers and bill payments", tags = { ParaBankServiceConstants.ACCOUNTS })
+    @WebResult(name = "paymentResult", targetNamespace = ParaBankServiceConstants.TNS)
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    List<PaymentResult> processPayments(
+        @Parameter(description = PAYMENTS_DESC, required = true) @WebParam(name = "payment", targetNamespace = ParaBankServiceConstants.TNS) List<Payment> payments)
+                throws ParaBankServiceException;
+
     /**
      * Transfer funds between two accounts
      *
@@ -474,8 +556,8 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "transferReturn", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     String transfer(
-        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam("fromAccountId") @WebParam(name = "fromAccountId", targetNamespace = ParaBankServiceConstants.TNS) int fromAccountId,
-        @Parameter(description = CUSTOMER_ACCOUNT_DEP_DESC, required = true) @QueryParam("toAccountId") @WebParam(name = "toAccountId", targetNamespace = ParaBankServiceConstants.TNS) int toAccountId,
+        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam("fromAccountId") @WebParam(name = "fromAccountId", targetNamespace = ParaBankServiceConstants.TNS) long fromAccountId,
+        @Parameter(description = CUSTOMER_ACCOUNT_DEP_DESC, required = true) @QueryParam("toAccountId") @WebParam(name = "toAccountId", targetNamespace = ParaBankServiceConstants.TNS) long toAccountId,
         @Parameter(description = AMOUNT_DESC, required = true) @QueryParam("amount") @WebParam(name = "amount", targetNamespace = ParaBankServiceConstants.TNS) BigDecimal amount)
                 throws ParaBankServiceException;
 
@@ -486,7 +568,7 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "customerUpdateResult", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     String updateCustomer(
-        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) int customerId,
+        @Parameter(description = CUSTOMER_ID_DESC, required = true) @PathParam(CUSTOMER_ID) @WebParam(name = CUSTOMER_ID, targetNamespace = ParaBankServiceConstants.TNS) long customerId,
         @Parameter(description = CUSTOMER_FIRST_NAME_DESC, required = true) @QueryParam(FIRST_NAME) @WebParam(name = FIRST_NAME, targetNamespace = ParaBankServiceConstants.TNS) String firstName,
         @Parameter(description = CUSTOMER_LAST_NAME_DESC, required = true) @QueryParam(LAST_NAME) @WebParam(name = LAST_NAME, targetNamespace = ParaBankServiceConstants.TNS) String lastName,
         @Parameter(description = STREET_ADDRESS_DESC, required = true) @QueryParam(STREET) @WebParam(name = STREET, targetNamespace = ParaBankServiceConstants.TNS) String street,
@@ -515,7 +597,7 @@ public interface ParaBankService extends IBillPayService {
     @WebResult(name = "withdrawReturn", targetNamespace = ParaBankServiceConstants.TNS)
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     String withdraw(
-        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) int accountId,
+        @Parameter(description = CUSTOMER_ACCOUNT_DESC, required = true) @QueryParam(ACCOUNT_ID) @WebParam(name = ACCOUNT_ID, targetNamespace = ParaBankServiceConstants.TNS) long accountId,
         @Parameter(description = AMOUNT_DESC, required = true) @QueryParam("amount") @WebParam(name = "amount", targetNamespace = ParaBankServiceConstants.TNS) BigDecimal amount)
                 throws ParaBankServiceException;
 }
@@ -8,6 +8,8 @@ public interface ParaBankServiceConstants extends CustomerConstants {
 
     String AMOUNT_DESC = "Amount";
 
+    String CURSOR_DESC = "Id of the last transaction of the previous page, omit for the first page";
+
     String CUSTOMERS = "Customers";
 
     String DATABASE = "Database";
@@ -24,8 +26,12 @@ public interface ParaBankServiceConstants extends CustomerConstants {
 
     String JMS = "JMS";
 
+    String LIMIT_DESC = "Maximum number of transactions to return, omit for all transactions";
+
     String LOANS = "Loans";
 
+    String MAX_POINTS_DESC = "Maximum number of history points, coarser resolutions are used to stay within it";
+
     String MISC = "Misc";
 
     String MONTH_DESC = "Month to use for the search range";
@@ -34,6 +40,8 @@ public interface ParaBankServiceConstants extends CustomerConstants {
 
     String PARAMETER_NAME = "Parameter Name";
 
+    String PAYMENTS_DESC = "Transfers (fromAccountId, toAccountId, amount) and bill payments (fromAccountId, payee, amount)";
+
     String PARAMETER_VALUE = "Parameter Value";
 
     String POSITION_ID_DESC = "Unique identifier for the position";
@@ -42,6 +50,8 @@ public interface ParaBankServiceConstants extends CustomerConstants {
 
     String PRICE_PER_SHARE_DESC = "Price of each share";
 
+    String RESOLUTION_DESC = "Finest resolution of the history (DAILY, WEEKLY, MONTHLY), omit for daily prices";
+
     String START_DATE_DESC = "Search starting date";
 
     String TNS = "http://service.parabank.parasoft.com/";
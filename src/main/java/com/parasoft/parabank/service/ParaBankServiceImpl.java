@@ -16,11 +16,16 @@ import org.springframework.dao.DataAccessException;
 
 import com.parasoft.parabank.domain.Account;
 import com.parasoft.parabank.domain.Address;
+import com.parasoft.parabank.domain.BalanceSummary;
 import com.parasoft.parabank.domain.BillPayResult;
 import com.parasoft.parabank.domain.Customer;
 import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
 import com.parasoft.parabank.domain.LoanResponse;
 import com.parasoft.parabank.domain.Payee;
+import com.parasoft.parabank.domain.Payment;
+import com.parasoft.parabank.domain.PaymentResult;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Position;
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.domain.TransactionCriteria;
@@ -45,11 +50,11 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#buyPosition(int, int, java.lang.String, java.lang.String,
+     * @see com.parasoft.parabank.domain.logic.BankManager#buyPosition(long, long, java.lang.String, java.lang.String,
      * int, java.math.BigDecimal)
      */
     @Override
-    public List<Position> buyPosition(final int customerId, final int accountId, final String name, final String symbol,
+    public List<Position> buyPosition(final long customerId, final long accountId, final String name, final String symbol,
         final int shares, final BigDecimal pricePerShare) throws ParaBankServiceException {
         try {
             return bankManager.buyPosition(customerId, accountId, name, symbol, shares, pricePerShare);
@@ -75,11 +80,11 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#createAccount(int, java.math.BigDecimal, java.math.BigDecimal,
+     * @see com.parasoft.parabank.service.ParaBankService#createAccount(long, java.math.BigDecimal, java.math.BigDecimal,
      * int)
      */
     @Override
-    public Account createAccount(final int customerId, final int newAccountType, final int fromAccountId)
+    public Account createAccount(final long customerId, final int newAccountType, final long fromAccountId)
             throws ParaBankServiceException {
         Account newAccount = new Account();
 
@@ -100,10 +105,10 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#deposit(int, java.math.BigDecimal)
+     * @see com.parasoft.parabank.service.ParaBankService#deposit(long, java.math.BigDecimal)
      */
     @Override
-    public String deposit(final int accountId, final BigDecimal amount) throws ParaBankServiceException {
+    public String deposit(final long accountId, final BigDecimal amount) throws ParaBankServiceException {
         try {
             bankManager.deposit(accountId, amount, "Deposit via Web Service");
             return "Successfully deposited $" + amount + " to account #" + accountId;
@@ -116,10 +121,10 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getBalance(int)
+     * @see com.parasoft.parabank.service.ParaBankService#getBalance(long)
      */
     @Override
-    public Account getAccount(final int accountId) throws ParaBankServiceException {
+    public Account getAccount(final long accountId) throws ParaBankServiceException {
         try {
             return bankManager.getAccount(accountId);
         } catch (final DataAccessException e) {
@@ -131,14 +136,14 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getAccounts(int)
+     * @see com.parasoft.parabank.service.ParaBankService#getAccounts(long)
      */
     @Override
-    public List<Account> getAccounts(final int customerId) throws ParaBankServiceException {
+    public List<Account> getAccounts(final long customerId) throws ParaBankServiceException {
         try {
             final Customer customer = bankManager.getCustomer(customerId);
             List<Account> accountsForCustomer = bankManager.getAccountsForCustomer(customer);
-            Collections.sort(accountsForCustomer, Comparator.comparingInt(Account::getId));
+            Collections.sort(accountsForCustomer, Comparator.comparingLong(Account::getId));
             return accountsForCustomer;
         } catch (final DataAccessException e) {
             log.error("DataAccessException caught :", e);
@@ -161,10 +166,26 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getCustomer(int)
+     * @see com.parasoft.parabank.service.ParaBankService#getBalanceSummary(long)
      */
     @Override
-    public Customer getCustomer(final int customerId) throws ParaBankServiceException {
+    public BalanceSummary getBalanceSummary(final long customerId) throws ParaBankServiceException {
+        try {
+            bankManager.getCustomer(customerId);
+            return bankManager.getBalanceSummary(customerId);
+        } catch (final DataAccessException e) {
+            log.error("DataAccessException caught :", e);
+            throw new ParaBankServiceException("Could not find customer #" + customerId, e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.service.ParaBankService#getCustomer(long)
+     */
+    @Override
+    public Customer getCustomer(final long customerId) throws ParaBankServiceException {
         try {
             return bankManager.getCustomer(customerId);
         } catch (final DataAccessException e) {
@@ -176,10 +197,26 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getPosition(int)
+     * @see com.parasoft.parabank.service.ParaBankService#getPortfolioValuation(long)
      */
     @Override
-    public Position getPosition(final int positionId) throws ParaBankServiceException {
+    public PortfolioValuation getPortfolioValuation(final long customerId) throws ParaBankServiceException {
+        try {
+            bankManager.getCustomer(customerId);
+            return bankManager.getPortfolioValuation(customerId);
+        } catch (final DataAccessException e) {
+            log.error("DataAccessException caught :", e);
+            throw new ParaBankServiceException("Could not find customer #" + customerId, e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.service.ParaBankService#getPosition(long)
+     */
+    @Override
+    public Position getPosition(final long positionId) throws ParaBankServiceException {
         try {
             return bankManager.getPosition(positionId);
         } catch (final DataAccessException e) {
@@ -191,14 +228,24 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getPositionHistory(int, java.util.Date, java.util.Date)
+     * @see com.parasoft.parabank.service.ParaBankService#getPositionHistory(long, java.lang.String, java.lang.String,
+     * java.lang.String, java.lang.Integer)
      */
     @Override
-    public List<HistoryPoint> getPositionHistory(final int positionId, final String startDate, final String endDate)
-            throws ParaBankServiceException {
+    public List<HistoryPoint> getPositionHistory(final long positionId, final String startDate, final String endDate,
+        final String resolution, final Integer maxPoints) throws ParaBankServiceException {
+        final Resolution historyResolution;
+        try {
+            historyResolution = resolution == null ? Resolution.DAILY : Resolution.valueOf(resolution.toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            throw new ParaBankServiceException("Invalid resolution: " + resolution);
+        }
+        if (maxPoints != null && maxPoints < 1) {
+            throw new ParaBankServiceException("Invalid maxPoints: " + maxPoints);
+        }
         try {
             return bankManager.getPositionHistory(positionId, DateTimeAdapter.dateFromString(startDate),
-                    DateTimeAdapter.dateFromString(endDate));
+                    DateTimeAdapter.dateFromString(endDate), historyResolution, maxPoints);
         } catch (final Exception e) {
             log.error("DataAccessException caught :", e);
             throw new ParaBankServiceException("Could not find position #" + positionId, e);
@@ -208,10 +255,10 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getPositions(int)
+     * @see com.parasoft.parabank.service.ParaBankService#getPositions(long)
      */
     @Override
-    public List<Position> getPositions(final int customerId) throws ParaBankServiceException {
+    public List<Position> getPositions(final long customerId) throws ParaBankServiceException {
         try {
             final Customer customer = bankManager.getCustomer(customerId);
             return bankManager.getPositionsForCustomer(customer);
@@ -224,10 +271,10 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getTransaction(int)
+     * @see com.parasoft.parabank.service.ParaBankService#getTransaction(long)
      */
     @Override
-    public Transaction getTransaction(final int transactionId) throws ParaBankServiceException {
+    public Transaction getTransaction(final long transactionId) throws ParaBankServiceException {
         try {
             return bankManager.getTransaction(transactionId);
         } catch (final DataAccessException e) {
@@ -239,10 +286,14 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getTransactions(int)
+     * @see com.parasoft.parabank.service.ParaBankService#getTransactions(long, java.lang.Long, java.lang.Integer)
      */
     @Override
-    public List<Transaction> getTransactions(final int accountId) throws ParaBankServiceException {
+    public List<Transaction> getTransactions(final long accountId, final Long cursor, final Integer limit)
+            throws ParaBankServiceException {
+        if (cursor != null || limit != null) {
+            return getTransactionPage(accountId, null, cursor, limit);
+        }
         try {
             final Account account = bankManager.getAccount(accountId);
             return bankManager.getTransactionsForAccount(account);
@@ -255,43 +306,45 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getTransactions(int, java.math.BigDecimal)
+     * @see com.parasoft.parabank.service.ParaBankService#getTransactionsByAmount(long, java.math.BigDecimal,
+     * java.lang.Integer, java.lang.Integer)
      */
     @Override
-    public List<Transaction> getTransactionsByAmount(final int accountId, final BigDecimal amount)
-            throws ParaBankServiceException {
+    public List<Transaction> getTransactionsByAmount(final long accountId, final BigDecimal amount,
+        final Long cursor, final Integer limit) throws ParaBankServiceException {
 
         final TransactionCriteria criteria = new TransactionCriteria();
         criteria.setAmount(amount);
         criteria.setSearchType(SearchType.AMOUNT);
-        return bankManager.getTransactionsForAccount(accountId, criteria);
+        return getTransactionPage(accountId, criteria, cursor, limit);
     }
 
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getTransactionsByMonthAndType(int, java.lang.String,
-     * java.lang.String)
+     * @see com.parasoft.parabank.service.ParaBankService#getTransactionsByMonthAndType(long, java.lang.String,
+     * java.lang.String, java.lang.Long, java.lang.Integer)
      */
     @Override
-    public List<Transaction> getTransactionsByMonthAndType(final int accountId, final String month, final String type)
-            throws ParaBankServiceException {
+    public List<Transaction> getTransactionsByMonthAndType(final long accountId, final String month, final String type,
+        final Long cursor, final Integer limit) throws ParaBankServiceException {
 
         final TransactionCriteria criteria = new TransactionCriteria();
         criteria.setSearchType(SearchType.ACTIVITY);
         criteria.setTransactionType(type);
         criteria.setMonth(month);
-        return bankManager.getTransactionsForAccount(accountId, criteria);
+        return getTransactionPage(accountId, criteria, cursor, limit);
     }
 
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getTransactions(int, java.lang.String, java.lang.String)
+     * @see com.parasoft.parabank.service.ParaBankService#getTransactionsByToFromDate(long, java.lang.String,
+     * java.lang.String, java.lang.Long, java.lang.Integer)
      */
     @Override
-    public List<Transaction> getTransactionsByToFromDate(final int accountId, final String fromDate,
-        final String toDate) throws ParaBankServiceException {
+    public List<Transaction> getTransactionsByToFromDate(final long accountId, final String fromDate,
+        final String toDate, final Long cursor, final Integer limit) throws ParaBankServiceException {
 
         final TransactionCriteria criteria = new TransactionCriteria();
 
@@ -310,17 +363,18 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
         }
 
         criteria.setSearchType(SearchType.DATE_RANGE);
-        return bankManager.getTransactionsForAccount(accountId, criteria);
+        return getTransactionPage(accountId, criteria, cursor, limit);
     }
 
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#getTransactionsOnDate(int, java.lang.String)
+     * @see com.parasoft.parabank.service.ParaBankService#getTransactionsOnDate(long, java.lang.String,
+     * java.lang.Integer, java.lang.Integer)
      */
     @Override
-    public List<Transaction> getTransactionsOnDate(final int accountId, final String onDate)
-            throws ParaBankServiceException {
+    public List<Transaction> getTransactionsOnDate(final long accountId, final String onDate, final Long cursor,
+        final Integer limit) throws ParaBankServiceException {
 
         final TransactionCriteria criteria = new TransactionCriteria();
         try {
@@ -331,7 +385,7 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
         }
 
         criteria.setSearchType(SearchType.DATE);
-        return bankManager.getTransactionsForAccount(accountId, criteria);
+        return getTransactionPage(accountId, criteria, cursor, limit);
     }
 
     /*
@@ -361,12 +415,12 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#requestLoan(int, java.math.BigDecimal, java.math.BigDecimal,
+     * @see com.parasoft.parabank.service.ParaBankService#requestLoan(long, java.math.BigDecimal, java.math.BigDecimal,
      * int)
      */
     @Override
-    public LoanResponse requestLoan(final int customerId, final BigDecimal amount, final BigDecimal downPayment,
-        final int fromAccountId) throws ParaBankServiceException {
+    public LoanResponse requestLoan(final long customerId, final BigDecimal amount, final BigDecimal downPayment,
+        final long fromAccountId) throws ParaBankServiceException {
         try {
             return bankManager.requestLoan(customerId, amount, downPayment, fromAccountId);
         } catch (final DataAccessException e) {
@@ -378,10 +432,10 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.domain.logic.BankManager#sellPosition(int, int, int, int, java.math.BigDecimal)
+     * @see com.parasoft.parabank.domain.logic.BankManager#sellPosition(long, long, long, int, java.math.BigDecimal)
      */
     @Override
-    public List<Position> sellPosition(final int customerId, final int accountId, final int positionId,
+    public List<Position> sellPosition(final long customerId, final long accountId, final long positionId,
         final int shares, final BigDecimal pricePerShare) throws ParaBankServiceException {
         try {
             return bankManager.sellPosition(customerId, accountId, positionId, shares, pricePerShare);
@@ -437,11 +491,29 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#transfer(int, int, java.math.BigDecimal)
+     * @see com.parasoft.parabank.service.ParaBankService#processPayments(java.util.List)
+     */
+    @Override
+    public List<PaymentResult> processPayments(final List<Payment> payments) throws ParaBankServiceException {
+        if (payments == null || payments.isEmpty()) {
+            throw new ParaBankServiceException("At least one payment is required");
+        }
+        try {
+            return bankManager.processPayments(payments);
+        } catch (final DataAccessException e) {
+            log.error("DataAccessException caught :", e);
+            throw new ParaBankServiceException("Could not apply the batch of " + payments.size() + " payments", e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.parasoft.parabank.service.ParaBankService#transfer(long, long, java.math.BigDecimal)
      */
 
     @Override
-    public String transfer(final int fromAccountId, final int toAccountId, final BigDecimal amount)
+    public String transfer(final long fromAccountId, final long toAccountId, final BigDecimal amount)
             throws ParaBankServiceException {
         try {
             bankManager.transfer(fromAccountId, toAccountId, amount);
@@ -457,11 +529,11 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#updateCustomer(int, java.lang.String, java.lang.String,
+     * @see com.parasoft.parabank.service.ParaBankService#updateCustomer(long, java.lang.String, java.lang.String,
      * java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)
      */
     @Override
-    public String updateCustomer(final int customerId, final String firstName, final String lastName,
+    public String updateCustomer(final long customerId, final String firstName, final String lastName,
         final String street, final String city, final String state, final String zipCode, final String phoneNumber,
         final String ssn, final String username, final String password) throws ParaBankServiceException {
         try {
@@ -489,10 +561,10 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
     /*
      * (non-Javadoc)
      *
-     * @see com.parasoft.parabank.service.ParaBankService#withdraw(int, java.math.BigDecimal)
+     * @see com.parasoft.parabank.service.ParaBankService#withdraw(long, java.math.BigDecimal)
      */
     @Override
-    public String withdraw(final int accountId, final BigDecimal amount) throws ParaBankServiceException {
+    public String withdraw(final long accountId, final BigDecimal amount) throws ParaBankServiceException {
         try {
             bankManager.withdraw(accountId, amount, "Withdraw via Web Service");
             return "Successfully withdrew $" + amount + " from account #" + accountId;
@@ -504,11 +576,23 @@ public class ParaBankServiceImpl implements ParaBankService, AdminManagerAware,
 
     /*
      * (non-Javadoc)
-     * @see com.parasoft.parabank.service.ParaBankService#billPay(int, java.math.BigDecimal, com.parasoft.parabank.domain.Payee)
+     * @see com.parasoft.parabank.service.ParaBankService#billPay(long, java.math.BigDecimal, com.parasoft.parabank.domain.Payee)
      */
     @Override
-    public BillPayResult billPay(int accountId, BigDecimal amount, Payee payee) throws ParaBankServiceException {
+    public BillPayResult billPay(long accountId, BigDecimal amount, Payee payee) throws ParaBankServiceException {
         bankManager.withdraw(accountId, amount, String.format("Bill Payment to %s", payee.getName()));
         return new BillPayResult(accountId, amount, payee.getName());
     }
+
+    /**
+     * Return the transactions or the page of them requested, see {@link BankManager#getTransactionPage}
+     */
+    private List<Transaction> getTransactionPage(final long accountId, final TransactionCriteria criteria,
+        final Long cursor, final Integer limit) throws ParaBankServiceException {
+        try {
+            return bankManager.getTransactionPage(accountId, criteria, cursor, limit);
+        } catch (final IllegalArgumentException e) {
+            throw new ParaBankServiceException(e.getMessage(), e);
+        }
+    }
 }
@@ -120,7 +120,7 @@ public class AccessModeController {
         return last ? sb : sb.append("&");
     }
 
-    public Account createAccount(final int customerId, final int newAccountType, final int fromAccountId)
+    public Account createAccount(final long customerId, final int newAccountType, final long fromAccountId)
             throws ParaBankServiceException, IOException, JAXBException {
 
         final String accessMode = adminManager.getParameter("accessmode");
@@ -175,26 +175,33 @@ public class AccessModeController {
         return createdAccount;
     }
 
-    private URL createGetTransactionsRestUrl(final int accountId, final TransactionCriteria criteria,
-        final String restEndpoint) throws MalformedURLException {
+    private URL createGetTransactionsRestUrl(final long accountId, final TransactionCriteria criteria,
+        final String restEndpoint, final Long cursor, final Integer limit) throws MalformedURLException {
 
-        final String urlString = restEndpoint + "/accounts/" + accountId + "/transactions";
+        String urlString = restEndpoint + "/accounts/" + accountId + "/transactions";
 
         if (criteria != null) {
             if (criteria.getAmount() != null) {
-                return new URL(urlString + "/amount/" + criteria.getAmount());
+                urlString += "/amount/" + criteria.getAmount();
             } else if (criteria.getOnDate() != null) {
-                return new URL(
-                    urlString + "/onDate/" + TransactionCriteria.DATE_FORMATTER.get().format(criteria.getOnDate()));
+                urlString += "/onDate/" + TransactionCriteria.DATE_FORMATTER.get().format(criteria.getOnDate());
             } else if (criteria.getFromDate() != null && criteria.getToDate() != null) {
-                return new URL(
-                    urlString + "/fromDate/" + TransactionCriteria.DATE_FORMATTER.get().format(criteria.getFromDate())
-                        + "/toDate/" + TransactionCriteria.DATE_FORMATTER.get().format(criteria.getToDate()));
+                urlString += "/fromDate/" + TransactionCriteria.DATE_FORMATTER.get().format(criteria.getFromDate())
+                    + "/toDate/" + TransactionCriteria.DATE_FORMATTER.get().format(criteria.getToDate());
             } else if (criteria.getMonth() != null && criteria.getTransactionType() != null) {
-                return new URL(urlString + "/month/" + criteria.getMonth() + "/type/" + criteria.getTransactionType());
+                urlString += "/month/" + criteria.getMonth() + "/type/" + criteria.getTransactionType();
             }
         }
 
+        String separator = "?";
+        if (cursor != null) {
+            urlString += separator + "cursor=" + cursor;
+            separator = "&";
+        }
+        if (limit != null) {
+            urlString += separator + "limit=" + limit;
+        }
+
         return new URL(urlString);
     }
 
@@ -310,7 +317,7 @@ public class AccessModeController {
      * @return
      *
      */
-    public Account doGetAccount(final int id) throws ParaBankServiceException, IOException, JAXBException {
+    public Account doGetAccount(final long id) throws ParaBankServiceException, IOException, JAXBException {
         Account account = new Account();
         final String accessMode = adminManager.getParameter("accessmode");
         final String soapEndpoint = adminManager.getParameter("soap_endpoint");
@@ -430,7 +437,7 @@ public class AccessModeController {
      * @return
      *
      */
-    public Customer doGetCustomer(final int custId) throws ParaBankServiceException, IOException, JAXBException {
+    public Customer doGetCustomer(final long custId) throws ParaBankServiceException, IOException, JAXBException {
         final String accessMode = adminManager.getParameter("accessmode");
         final String soapEndpoint = adminManager.getParameter("soap_endpoint");
         String restEndpoint = adminManager.getParameter("rest_endpoint");
@@ -489,7 +496,7 @@ public class AccessModeController {
      * @return
      *
      */
-    public Transaction doGetTransaction(final int id)
+    public Transaction doGetTransaction(final long id)
             throws ParaBankServiceException, JAXBException, IOException, ParseException {
         Transaction transaction = null;
         final String accessMode = adminManager.getParameter("accessmode");
@@ -548,7 +555,7 @@ public class AccessModeController {
      * @return
      *
      */
-    public List<Transaction> doGetTransactions(final int accountId)
+    public List<Transaction> doGetTransactions(final long accountId)
             throws ParaBankServiceException, JAXBException, IOException, ParseException {
         final String accessMode = adminManager.getParameter("accessmode");
         final String soapEndpoint = adminManager.getParameter("soap_endpoint");
@@ -572,12 +579,12 @@ public class AccessModeController {
                     soapEndpoint);
             }
 
-            transactions = parabankService.getTransactions(accountId);
+            transactions = parabankService.getTransactions(accountId, null, null);
             LOG.info("Using SOAP Web Service: ParaBank");
         } else if (accessMode.equalsIgnoreCase("RESTXML")) {
 
-            final HttpURLConnection conn = getConnection(createGetTransactionsRestUrl(accountId, null, restEndpoint),
-                MediaType.APPLICATION_XML, GET);
+            final HttpURLConnection conn = getConnection(
+                createGetTransactionsRestUrl(accountId, null, restEndpoint, null, null), MediaType.APPLICATION_XML, GET);
 
             final JAXBContext jc = JAXBContext.newInstance(Transactions.class);
             final Unmarshaller um = jc.createUnmarshaller();
@@ -590,8 +597,8 @@ public class AccessModeController {
 
             LOG.info("Using REST xml Web Service");
         } else if (accessMode.equalsIgnoreCase("RESTJSON")) {
-            final HttpURLConnection conn = getConnection(createGetTransactionsRestUrl(accountId, null, restEndpoint),
-                MediaType.APPLICATION_JSON, GET);
+            final HttpURLConnection conn = getConnection(
+                createGetTransactionsRestUrl(accountId, null, restEndpoint, null, null), MediaType.APPLICATION_JSON, GET);
             transactions = Arrays.asList((new ObjectMapper()).readValue(conn.getInputStream(), Transaction[].class));
             conn.disconnect();
             LOG.info("Using REST JSON Web Service");
@@ -612,8 +619,8 @@ public class AccessModeController {
      * @return
      *
      */
-    public LoanResponse doRequestLoan(final int custid, final BigDecimal amt, final BigDecimal dwnpay,
-        final int frmaccid) throws ParaBankServiceException, IOException, JAXBException, ParseException {
+    public LoanResponse doRequestLoan(final long custid, final BigDecimal amt, final BigDecimal dwnpay,
+        final long frmaccid) throws ParaBankServiceException, IOException, JAXBException, ParseException {
 
         LoanResponse loanResponse = null;
 
@@ -674,7 +681,7 @@ public class AccessModeController {
      * @throws javax.xml.bind.JAXBException
      *
      */
-    public void doTransfer(final int fromAccountId, final int toAccountId, final BigDecimal amount)
+    public void doTransfer(final long fromAccountId, final long toAccountId, final BigDecimal amount)
             throws ParaBankServiceException, IOException, JAXBException {
         final String accessMode = adminManager.getParameter("accessmode");
         final String soapEndpoint = adminManager.getParameter("soap_endpoint");
@@ -736,7 +743,7 @@ public class AccessModeController {
      * @throws javax.xml.bind.JAXBException
      *
      */
-    public void doBillPay(final int accountId, final BigDecimal amount, final Payee payee)
+    public void doBillPay(final long accountId, final BigDecimal amount, final Payee payee)
             throws IOException, JAXBException {
         final String accessMode = adminManager.getParameter("accessmode");
         String restEndpoint = adminManager.getParameter("rest_endpoint");
@@ -789,6 +796,24 @@ public class AccessModeController {
 
     public List<Transaction> getTransactionsForAccount(final Account account, final TransactionCriteria criteria)
             throws ParaBankServiceException, IOException, JAXBException, ParseException {
+        return getTransactionsForAccount(account, criteria, null, null);
+    }
+
+    /**
+     * Retrieve one page of transactions for the given account through the configured access mode
+     *
+     * @param account
+     * @param criteria
+     *            search criteria or null for all transactions
+     * @param cursor
+     *            id of the last transaction of the previous page, or null for the first page
+     * @param limit
+     *            maximum number of transactions to return, or null for all transactions
+     * @return list of matching transactions
+     */
+    public List<Transaction> getTransactionsForAccount(final Account account, final TransactionCriteria criteria,
+        final Long cursor, final Integer limit)
+            throws ParaBankServiceException, IOException, JAXBException, ParseException {
 
         List<Transaction> transactions = new ArrayList<>();
 
@@ -820,10 +845,11 @@ public class AccessModeController {
             }
 
             LOG.info("Using SOAP Web Service: ParaBank");
-            transactions = getTransactionsSoap(account, criteria, parabankService);
+            transactions = getTransactionsSoap(account, criteria, cursor, limit, parabankService);
         } else if (accessMode.equalsIgnoreCase("RESTXML")) {
             final HttpURLConnection connection = getConnection(
-                createGetTransactionsRestUrl(account.getId(), criteria, restEndpoint), MediaType.APPLICATION_XML, GET);
+                createGetTransactionsRestUrl(account.getId(), criteria, restEndpoint, cursor, limit),
+                MediaType.APPLICATION_XML, GET);
             final JAXBContext jc = JAXBContext.newInstance(Transactions.class);
             final Unmarshaller um = jc.createUnmarshaller();
             final InputStream xml = connection.getInputStream();
@@ -836,7 +862,8 @@ public class AccessModeController {
             LOG.info("Using REST xml Web Service");
         } else if (accessMode.equalsIgnoreCase("RESTJSON")) {
             final HttpURLConnection connection = getConnection(
-                createGetTransactionsRestUrl(account.getId(), criteria, restEndpoint), MediaType.APPLICATION_JSON, GET);
+                createGetTransactionsRestUrl(account.getId(), criteria, restEndpoint, cursor, limit),
+                MediaType.APPLICATION_JSON, GET);
             transactions = Arrays.asList((new ObjectMapper()).readValue(connection.getInputStream(), Transaction[].class));
             connection.disconnect();
             LOG.info("Using REST JSON Web Service");
@@ -846,25 +873,25 @@ public class AccessModeController {
     }
 
     private List<Transaction> getTransactionsSoap(final Account account, final TransactionCriteria criteria,
-        final ParaBankService parabankService)
+        final Long cursor, final Integer limit, final ParaBankService parabankService)
                 throws ParaBankServiceException, JAXBException, IOException, ParseException {
         if (criteria != null) {
             if (criteria.getAmount() != null) {
-                return parabankService.getTransactionsByAmount(account.getId(), criteria.getAmount());
+                return parabankService.getTransactionsByAmount(account.getId(), criteria.getAmount(), cursor, limit);
             } else if (criteria.getOnDate() != null) {
                 return parabankService.getTransactionsOnDate(account.getId(),
-                    TransactionCriteria.DATE_FORMATTER.get().format(criteria.getOnDate()));
+                    TransactionCriteria.DATE_FORMATTER.get().format(criteria.getOnDate()), cursor, limit);
             } else if (criteria.getFromDate() != null && criteria.getToDate() != null) {
                 return parabankService.getTransactionsByToFromDate(account.getId(),
                     TransactionCriteria.DATE_FORMATTER.get().format(criteria.getFromDate()),
-                    TransactionCriteria.DATE_FORMATTER.get().format(criteria.getToDate()));
+                    TransactionCriteria.DATE_FORMATTER.get().format(criteria.getToDate()), cursor, limit);
             } else if (criteria.getMonth() != null && criteria.getTransactionType() != null) {
                 return parabankService.getTransactionsByMonthAndType(account.getId(), criteria.getMonth(),
-                    criteria.getTransactionType());
+                    criteria.getTransactionType(), cursor, limit);
             }
         }
 
-        return doGetTransactions(account.getId());
+        return parabankService.getTransactions(account.getId(), cursor, limit);
     }
 
     /**
@@ -57,6 +57,8 @@ public interface Constants {
 
     String OPENACCOUNTFORM = "openAccountForm";
 
+    String PRIMARY_AFFINITY = "primaryAffinity";
+
     String REGISTER = "register";
 
     String REQUESTLOAN = "requestloan";
@@ -4,7 +4,11 @@ import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
 
 import jakarta.annotation.PreDestroy;
@@ -23,11 +27,25 @@ import org.springframework.context.ApplicationContextAware;
 
 /**
  * Utility bean for embedding HSQLDB into the ParaBank application
+ *
+ * The databases are served over the HSQL network listener, which can be turned off with
+ * {@link #setListenerEnabled(boolean)}. The application itself can bypass the listener and talk to the ParaBank
+ * database in-process through {@link #getJdbcUrl()}, which shares the database the listener serves. The transaction
+ * control of the ParaBank database (LOCKS, MVLOCKS or MVCC) is set on startup if configured, so with MVCC readers never
+ * wait for writers.
  */
 public class ServerBean implements InitializingBean, DisposableBean, ApplicationContextAware {
 
     private static final Logger log = LoggerFactory.getLogger(ServerBean.class);
 
+    private static final List<String> TRANSACTION_CONTROLS = Arrays.asList("LOCKS", "MVLOCKS", "MVCC");
+
+    /**
+     * Held while a ServerBean shuts down, so the SHUTDOWN of one application context never runs while another one
+     * force-closes the connections of its server
+     */
+    private static final Object SHUTDOWN_LOCK = new Object();
+
     private Properties serverProperties;
 
     private Server server;
@@ -36,6 +54,14 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
 
     ApplicationContext context;
 
+    private boolean listenerEnabled = true;
+
+    private String transactionControl;
+
+    private String username = "sa";
+
+    private String password = "";
+
     private String databasePath = null;
 
     // System.getProperty("catalina.base") + "/webapps/parabank/db/db";
@@ -44,14 +70,6 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
 
     @Override
     public void afterPropertiesSet() throws Exception {
-        final HsqlProperties configProps = new HsqlProperties(serverProperties);
-
-        ServerConfiguration.translateDefaultDatabaseProperty(configProps);
-
-        server = new Server();
-        server.setRestartOnShutdown(false);
-        server.setNoSystemExit(true);
-        server.setProperties(configProps);
         if (databasePath == null || databasePath2 == null) {
             final String currPath = Util.getCurrentPath(getApplicationContext());
             if (databasePath == null) {
@@ -62,6 +80,20 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
                 databasePath2 = String.format(Constants.DB_PATH_FMT, currPath, "db2");
             }
         }
+        if (!listenerEnabled) {
+            log.info("HSQL Server listener disabled, database {} is only available in-process", getJdbcUrl());
+            applyTransactionControl();
+            return;
+        }
+
+        final HsqlProperties configProps = new HsqlProperties(serverProperties);
+
+        ServerConfiguration.translateDefaultDatabaseProperty(configProps);
+
+        server = new Server();
+        server.setRestartOnShutdown(false);
+        server.setNoSystemExit(true);
+        server.setProperties(configProps);
         server.setDatabasePath(0, databasePath);
         server.setDatabasePath(1, databasePath2);
 
@@ -71,6 +103,21 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
 
         final String portMsg = "port " + server.getPort();
         log.info("HSQL Server listening on " + portMsg);
+        applyTransactionControl();
+    }
+
+    /**
+     * Set the configured transaction control on the ParaBank database
+     */
+    private void applyTransactionControl() throws SQLException {
+        if (Util.isEmpty(transactionControl)) {
+            return;
+        }
+        try (Connection con = DriverManager.getConnection(getJdbcUrl(), username, password);
+                Statement statement = con.createStatement()) {
+            statement.execute("SET DATABASE TRANSACTION CONTROL " + transactionControl);
+        }
+        log.info("HSQL database transaction control set to {}", transactionControl);
     }
 
     /**
@@ -105,13 +152,15 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
     @Override
     @PreDestroy
     public void destroy() {
-        final int status = shutdownHSQLDBServer();
-        if (status != ServerConstants.SERVER_STATE_SHUTDOWN) {
-            log.warn("HSQL Server failed to shutdown properly.");
-        } else {
-            log.info("HSQL Server Shutdown completed");
+        synchronized (SHUTDOWN_LOCK) {
+            final int status = shutdownHSQLDBServer();
+            if (status != ServerConstants.SERVER_STATE_SHUTDOWN) {
+                log.warn("HSQL Server failed to shutdown properly.");
+            } else {
+                log.info("HSQL Server Shutdown completed");
+            }
+            server = null;
         }
-        server = null;
         deregisterJDBCDrivers();
 
     }
@@ -158,6 +207,16 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
         return databasePath2;
     }
 
+    /**
+     * @return the JDBC URL to open the ParaBank database in-process, sharing it with the network listener
+     */
+    public String getJdbcUrl() {
+        if (databasePath.startsWith("mem:") || databasePath.startsWith("file:") || databasePath.startsWith("res:")) {
+            return "jdbc:hsqldb:" + databasePath;
+        }
+        return "jdbc:hsqldb:file:" + databasePath;
+    }
+
     /**
      * <DL>
      * <DT>Description:</DT>
@@ -200,6 +259,17 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
         return serverProperties;
     }
 
+    /**
+     * @return the transaction control set on startup, null to keep the database's setting
+     */
+    public String getTransactionControl() {
+        return transactionControl;
+    }
+
+    public boolean isListenerEnabled() {
+        return listenerEnabled;
+    }
+
     /**
      * {@inheritDoc}
      * <DL>
@@ -240,6 +310,22 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
         this.dataSource = dataSource;
     }
 
+    /**
+     * @param listenerEnabled
+     *            false to serve the databases in-process only, without a network listener for external tools
+     */
+    public void setListenerEnabled(final boolean listenerEnabled) {
+        this.listenerEnabled = listenerEnabled;
+    }
+
+    /**
+     * @param password
+     *            the password for in-process connections, used when no dataSource is set
+     */
+    public void setPassword(final String password) {
+        this.password = password;
+    }
+
     /**
      * <DL>
      * <DT>Description:</DT>
@@ -259,6 +345,31 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
         this.serverProperties = serverProperties;
     }
 
+    /**
+     * @param transactionControl
+     *            LOCKS, MVLOCKS or MVCC, empty to keep the database's setting
+     */
+    public void setTransactionControl(final String transactionControl) {
+        if (Util.isEmpty(transactionControl)) {
+            this.transactionControl = null;
+            return;
+        }
+        final String control = transactionControl.trim().toUpperCase(Locale.ROOT);
+        if (!TRANSACTION_CONTROLS.contains(control)) {
+            throw new IllegalArgumentException(
+                "Unknown transaction control " + transactionControl + ", expected one of " + TRANSACTION_CONTROLS);
+        }
+        this.transactionControl = control;
+    }
+
+    /**
+     * @param username
+     *            the user for in-process connections, used when no dataSource is set
+     */
+    public void setUsername(final String username) {
+        this.username = username;
+    }
+
     /**
      * <DL><DT>Description:</DT><DD>
      * shutdown HSQLDB Server. wait for the server  to finish shutting down (or timeout 5 seconds). return current state
@@ -269,27 +380,36 @@ public class ServerBean implements InitializingBean, DisposableBean, Application
      */
     private int shutdownHSQLDBServer() {
         log.info("HSQL Server Shutdown sequence initiated");
-        if (dataSource != null) {
-            Connection con = null;
+        Connection con = null;
+        try {
+            con = dataSource != null ? dataSource.getConnection()
+                : DriverManager.getConnection(getJdbcUrl(), username, password);
+            con.createStatement().execute("SHUTDOWN");
+            if (server == null) {
+                return ServerConstants.SERVER_STATE_SHUTDOWN;
+            }
+            int status = waitForShutdown(ServerConstants.SERVER_STATE_ONLINE);
+            if (status == ServerConstants.SERVER_STATE_SHUTDOWN) {
+                return status;
+            }
+        } catch (final SQLException ex) {
+            log.error("HSQL Server Shutdown failed: ", ex);
+        } finally {
             try {
-                con = dataSource.getConnection();
-                con.createStatement().execute("SHUTDOWN");
-                int status = waitForShutdown(ServerConstants.SERVER_STATE_ONLINE);
-                if (status == ServerConstants.SERVER_STATE_SHUTDOWN) {
-                    return status;
-                }
-            } catch (final SQLException ex) {
-                log.error("HSQL Server Shutdown failed: ", ex);
-            } finally {
-                try {
-                    if (con != null) {
-                        con.close();
-                    }
-                } catch (final Exception e) {
+                if (con != null) {
+                    con.close();
                 }
+            } catch (final Exception e) {
             }
-        } else {
-            log.warn("HSQL ServerBean needs a dataSource property set to shutdown database safely.");
+        }
+        if (server == null) {
+            return ServerConstants.SERVER_STATE_SHUTDOWN;
+        }
+        final int state = server.getState();
+        if (state != ServerConstants.SERVER_STATE_ONLINE) {
+            // a shutdown is already under way, forcing it would wait on the sessions it is closing
+            log.info("HSQL Server is already shutting down");
+            return waitForShutdown(state);
         }
         server.signalCloseAllServerConnections();
         server.shutdownWithCatalogs(org.hsqldb.Database.CLOSEMODE_NORMAL);
@@ -0,0 +1,217 @@
+package com.parasoft.parabank.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process locks keyed by long ids, e.g. account ids
+ *
+ * Ids are hashed onto a fixed array of stripes, so unrelated ids almost always map to different stripes and proceed in
+ * parallel while operations on the same id serialize. When several ids are locked at once their stripes are acquired
+ * in ascending stripe order, so two operations on the same pair of ids in opposite directions do not wait for each
+ * other in a cycle. Every acquisition is bounded by a timeout.
+ *
+ * Locks taken inside a Spring managed transaction are held until the transaction completes, so a conflicting
+ * operation never sees uncommitted balances. A thread can therefore call {@link #lock(long...)} again while it still
+ * holds stripes from an earlier call. A stripe it already holds is simply re-entered. A free stripe is always taken.
+ * A busy stripe is only waited for when it sorts above every stripe the thread holds; a busy stripe below one of them
+ * is rejected at once with a {@link CannotAcquireLockException}, because waiting for it could close a cycle with a
+ * thread that locks the same stripes in ascending order.
+ */
+public class StripedLockManager {
+    /**
+     * The stripes held by one {@link StripedLockManager#lock(long...)} call
+     */
+    public final class Locked implements AutoCloseable {
+        private final int[] stripes;
+
+        private boolean released;
+
+        Locked(final int[] stripes) {
+            this.stripes = stripes;
+        }
+
+        /**
+         * Release the stripes, or defer the release to the end of the current transaction if there is one
+         */
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(final int status) {
+                        unlock(stripes, stripes.length);
+                    }
+                });
+            } else {
+                unlock(stripes, stripes.length);
+            }
+        }
+    }
+
+    public static final int DEFAULT_STRIPES = 256;
+
+    public static final long DEFAULT_TIMEOUT = 5000;
+
+    private static final Logger log = LoggerFactory.getLogger(StripedLockManager.class);
+
+    private final ReentrantLock[] locks;
+
+    private long timeout = DEFAULT_TIMEOUT;
+
+    private final AtomicLong acquisitions = new AtomicLong();
+
+    private final AtomicLong contentions = new AtomicLong();
+
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public StripedLockManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes
+     *            the number of stripes
+     */
+    public StripedLockManager(final int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least one stripe is required");
+        }
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @return the number of stripes acquired
+     */
+    public long getAcquisitionCount() {
+        return acquisitions.get();
+    }
+
+    /**
+     * @return the number of stripe acquisitions that had to wait for another thread
+     */
+    public long getContentionCount() {
+        return contentions.get();
+    }
+
+    /**
+     * @return the number of stripes that could not be acquired within the timeout
+     */
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return the total time in milliseconds spent waiting for contended stripes
+     */
+    public long getWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    public int getStripes() {
+        return locks.length;
+    }
+
+    /**
+     * @param id
+     *            the id to lock
+     * @return the stripe the id maps to
+     */
+    public int getStripe(final long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h ^= h >>> 16;
+        return Math.floorMod((int) h, locks.length);
+    }
+
+    /**
+     * Lock the stripes of the given ids in canonical order
+     *
+     * @param ids
+     *            the ids to lock, duplicates and ids sharing a stripe are locked once
+     * @return a handle that releases the stripes when closed
+     * @throws CannotAcquireLockException
+     *             if a stripe could not be acquired within the timeout, or it is busy and sorts below a stripe this
+     *             thread already holds; nothing from this call is held in that case
+     */
+    public Locked lock(final long... ids) {
+        final int[] stripes = Arrays.stream(ids).mapToInt(this::getStripe).sorted().distinct().toArray();
+        for (int i = 0; i < stripes.length; i++) {
+            final ReentrantLock lock = locks[stripes[i]];
+            boolean acquired = lock.tryLock();
+            if (!acquired && holdsStripeAbove(stripes[i])) {
+                contentions.incrementAndGet();
+                unlock(stripes, i);
+                log.warn("Refusing to wait for the lock of ids {} while holding a higher stripe", Arrays.toString(ids));
+                throw new CannotAcquireLockException("Could not lock " + Arrays.toString(ids)
+                    + " without waiting out of order behind locks already held by this thread");
+            }
+            if (!acquired) {
+                contentions.incrementAndGet();
+                final long start = System.nanoTime();
+                try {
+                    acquired = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    waitNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+            if (!acquired) {
+                timeouts.incrementAndGet();
+                unlock(stripes, i);
+                log.warn("Timed out after {} ms waiting for the lock of ids {}", timeout, Arrays.toString(ids));
+                throw new CannotAcquireLockException(
+                    "Could not lock " + Arrays.toString(ids) + " within " + timeout + " ms");
+            }
+            acquisitions.incrementAndGet();
+        }
+        return new Locked(stripes);
+    }
+
+    /**
+     * @param timeout
+     *            milliseconds to wait for a stripe before giving up
+     */
+    public void setTimeout(final long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return whether the current thread holds a stripe above the given one
+     */
+    private boolean holdsStripeAbove(final int stripe) {
+        for (int i = locks.length - 1; i > stripe; i--) {
+            if (locks[i].isHeldByCurrentThread()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Release the first count stripes in reverse acquisition order
+     */
+    private void unlock(final int[] stripes, final int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.parasoft.parabank.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.parasoft.parabank.dao.jdbc.routing.PrimaryAffinity;
+import com.parasoft.parabank.util.Constants;
+
+/**
+ * Spring MVC Interceptor that binds a {@link PrimaryAffinity} scope to each request and carries the time of a
+ * session's last database write from request to request, so reads right after a write are served by the primary
+ * database and not a replica that may lag behind
+ */
+public class PrimaryAffinityInterceptor implements HandlerInterceptor {
+    @Override
+    public void afterCompletion(final HttpServletRequest request, final HttpServletResponse response,
+        final Object handler, final Exception ex) throws Exception {
+        final Long lastWrite = PrimaryAffinity.getLastWrite();
+        PrimaryAffinity.clear();
+        final HttpSession session = request.getSession(false);
+        if (lastWrite != null && session != null
+            && !lastWrite.equals(session.getAttribute(Constants.PRIMARY_AFFINITY))) {
+            session.setAttribute(Constants.PRIMARY_AFFINITY, lastWrite);
+        }
+    }
+
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler)
+            throws Exception {
+        final HttpSession session = request.getSession(false);
+        PrimaryAffinity.setLastWrite(session != null ? (Long) session.getAttribute(Constants.PRIMARY_AFFINITY) : null);
+        return true;
+    }
+}
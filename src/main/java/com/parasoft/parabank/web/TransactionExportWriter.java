@@ -0,0 +1,242 @@
+package com.parasoft.parabank.web;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.util.Constants;
+
+/**
+ * Writes transactions to an output stream one at a time as CSV, a JSON array or an XML document
+ *
+ * Nothing but the current transaction is held in memory, so an export of any size can be written straight to a
+ * servlet response. The end of the document is only written by {@link #finish()}, so an export that fails part way
+ * is never mistaken for a complete one.
+ */
+public abstract class TransactionExportWriter implements Consumer<Transaction> {
+    private static class CsvWriter extends TransactionExportWriter {
+        private final Writer writer;
+
+        CsvWriter(final OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id,accountId,type,date,amount,description\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public String getContentType() {
+            return "text/csv";
+        }
+
+        @Override
+        protected void write(final Transaction transaction) throws IOException {
+            writer.write(transaction.getId() + "," + transaction.getAccountId() + "," + transaction.getType() + ","
+                + format(transaction) + "," + transaction.getAmount() + "," + quote(transaction.getDescription())
+                + "\r\n");
+        }
+
+        private static String quote(final String value) {
+            return value == null ? "" : '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static class JsonWriter extends TransactionExportWriter {
+        private final JsonGenerator generator;
+
+        JsonWriter(final OutputStream out) throws IOException {
+            generator = new JsonFactory().createGenerator(out);
+            generator.writeStartArray();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.writeEndArray();
+            generator.flush();
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/json";
+        }
+
+        @Override
+        protected void write(final Transaction transaction) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", transaction.getId());
+            generator.writeNumberField("accountId", transaction.getAccountId());
+            generator.writeStringField("type", String.valueOf(transaction.getType()));
+            generator.writeStringField("date", format(transaction));
+            generator.writeNumberField("amount", transaction.getAmount());
+            generator.writeStringField("description", transaction.getDescription());
+            generator.writeEndObject();
+        }
+    }
+
+    private static class XmlWriter extends TransactionExportWriter {
+        private final XMLStreamWriter writer;
+
+        XmlWriter(final OutputStream out) throws IOException {
+            try {
+                writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeStartElement("transactions");
+            } catch (final XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            try {
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.flush();
+            } catch (final XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/xml";
+        }
+
+        @Override
+        protected void write(final Transaction transaction) throws IOException {
+            try {
+                writer.writeStartElement(Constants.TRANSACTION);
+                writeElement("id", String.valueOf(transaction.getId()));
+                writeElement("accountId", String.valueOf(transaction.getAccountId()));
+                writeElement("type", String.valueOf(transaction.getType()));
+                writeElement("date", format(transaction));
+                writeElement("amount", String.valueOf(transaction.getAmount()));
+                writeElement("description", transaction.getDescription() == null ? "" : transaction.getDescription());
+                writer.writeEndElement();
+            } catch (final XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        private void writeElement(final String name, final String value) throws XMLStreamException {
+            writer.writeStartElement(name);
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+        }
+    }
+
+    public static final String CSV = "csv";
+
+    public static final String JSON = "json";
+
+    public static final String XML = "xml";
+
+    /**
+     * Create a writer for the given format and write the start of the document
+     *
+     * @param format
+     *            one of {@link #CSV}, {@link #JSON} or {@link #XML}
+     * @param out
+     *            the stream to write to
+     * @return the writer
+     * @throws IOException
+     */
+    public static TransactionExportWriter create(final String format, final OutputStream out) throws IOException {
+        if (CSV.equalsIgnoreCase(format)) {
+            return new CsvWriter(out);
+        } else if (JSON.equalsIgnoreCase(format)) {
+            return new JsonWriter(out);
+        } else if (XML.equalsIgnoreCase(format)) {
+            return new XmlWriter(out);
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + format);
+    }
+
+    /**
+     * Stream an export to a servlet response as an attachment
+     *
+     * If the source fails the document is not finished: a response not yet committed is reset, so the client gets an
+     * error status, and a committed one is left unterminated for the container to abort.
+     *
+     * @param format
+     *            one of {@link #CSV}, {@link #JSON} or {@link #XML}
+     * @param response
+     *            the response to write to
+     * @param source
+     *            passes the transactions to the writer and returns their number
+     * @return the number of transactions exported
+     * @throws IOException
+     */
+    public static int export(final String format, final HttpServletResponse response,
+        final ToIntFunction<Consumer<Transaction>> source) throws IOException {
+        final TransactionExportWriter writer = create(format, response.getOutputStream());
+        response.setContentType(writer.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"transactions." + format.toLowerCase(Locale.ROOT) + "\"");
+        final int count;
+        try {
+            count = source.applyAsInt(writer);
+        } catch (final RuntimeException e) {
+            if (!response.isCommitted()) {
+                response.reset();
+            }
+            throw e;
+        }
+        writer.finish();
+        return count;
+    }
+
+    private final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+    /** {@inheritDoc} */
+    @Override
+    public void accept(final Transaction transaction) {
+        try {
+            write(transaction);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write the end of the document and flush, the underlying stream is left open
+     *
+     * @throws IOException
+     */
+    public abstract void finish() throws IOException;
+
+    /**
+     * @return the MIME type of the written document
+     */
+    public abstract String getContentType();
+
+    protected String format(final Transaction transaction) {
+        return transaction.getDate() == null ? "" : dateFormat.format(transaction.getDate());
+    }
+
+    protected abstract void write(Transaction transaction) throws IOException;
+}
@@ -1,15 +1,16 @@
 package com.parasoft.parabank.web.controller;
 
-import java.util.Map.Entry;
 import java.util.Set;
 
 import jakarta.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.validation.Validator;
 import org.springframework.web.bind.annotation.ModelAttribute;
 
+import com.parasoft.parabank.dao.internal.StorageReport;
 import com.parasoft.parabank.domain.logic.AdminManager;
 import com.parasoft.parabank.domain.logic.impl.LoanProviderMapAware;
 import com.parasoft.parabank.util.AccessModeController;
@@ -114,6 +115,19 @@ public abstract class AbstractBaseAdminController extends AbstractValidatingBank
         return loanProvider.getProviderNames();
     }
 
+    /**
+     * @return how the tables are stored, null if that cannot be determined right now
+     */
+    @ModelAttribute("storageReport")
+    public StorageReport getStorageReport() {
+        try {
+            return getAdminManager().getStorageReport();
+        } catch (final DataAccessException e) {
+            log.warn("Could not create storage report", e);
+            return null;
+        }
+    }
+
     @ModelAttribute("isJmsRunning")
     public boolean isJmsListenerRunning() {
         return getAdminManager().isJmsListenerRunning();
@@ -131,9 +145,7 @@ public abstract class AbstractBaseAdminController extends AbstractValidatingBank
      */
     public void saveAdminSettings(final AdminForm form) {
         log.info("Saving current admin settings.");
-        for (final Entry<String, String> entry : form.getParameters().entrySet()) {
-            getAdminManager().setParameter(entry.getKey(), entry.getValue());
-        }
+        getAdminManager().setParameters(form.getParameters());
         log.info("Done Saving current admin settings.");
     }
 
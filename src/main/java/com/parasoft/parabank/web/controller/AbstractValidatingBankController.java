@@ -29,9 +29,15 @@ abstract class AbstractValidatingBankController extends AbstractBankController {
         return validator;
     }
 
+    /**
+     * Only the form is validated, not the other objects of the model
+     */
     @InitBinder
     protected void initBinder(final WebDataBinder binder) {
-        binder.addValidators(getValidator());
+        final Object target = binder.getTarget();
+        if (target == null || getValidator().supports(target.getClass())) {
+            binder.addValidators(getValidator());
+        }
     }
 
     /**
@@ -95,13 +95,13 @@ public class AccountActivityController extends AbstractBankController {
             }
 
             if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
-                account = accessModeController.doGetAccount(Integer.parseInt(id));
+                account = accessModeController.doGetAccount(Long.parseLong(id));
                 transactions = accessModeController.getTransactionsForAccount(account, criteria);
             }
 
             else {
                 // default JDBC
-                account = bankManager.getAccount(Integer.parseInt(id));
+                account = bankManager.getAccount(Long.parseLong(id));
 
                 transactions = criteria == null ? bankManager.getTransactionsForAccount(account)
                     : bankManager.getTransactionsForAccount(account.getId(), criteria);
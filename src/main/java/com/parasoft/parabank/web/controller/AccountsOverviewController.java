@@ -1,8 +1,6 @@
 package com.parasoft.parabank.web.controller;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import jakarta.annotation.Resource;
@@ -13,7 +11,6 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.ModelAndView;
 
-import com.parasoft.parabank.domain.Account;
 import com.parasoft.parabank.domain.Customer;
 import com.parasoft.parabank.domain.logic.AdminManager;
 import com.parasoft.parabank.util.AccessModeController;
@@ -44,29 +41,8 @@ import com.parasoft.parabank.web.UserSession;
 
         final Customer customer = userSession.getCustomer();
 
-        List<Account> accounts;// = new ArrayList<Account>();
-
-        String accessMode = null;
-
-        if (adminManager != null) {
-            accessMode = adminManager.getParameter("accessmode");
-        }
-
-        if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
-            accounts = accessModeController.doGetAccounts(customer);
-        } else {
-            accounts = bankManager.getAccountsForCustomer(customer);
-            log.warn("Using regular JDBC connection");
-        }
-
-        BigDecimal totalBalance = BigDecimal.ZERO;
-        BigDecimal totalAvailableBalance = BigDecimal.ZERO;
-
-        for (final Account account : accounts) {
-            totalBalance = totalBalance.add(account.getBalance());
-            totalAvailableBalance = totalAvailableBalance.add(account.getAvailableBalance());
-        }
-
+        // the account rows are loaded by the page itself through the services proxy, which follows the
+        // configured access mode; the page also adds up the totals from those rows
         final Map<String, Object> model = new HashMap<>();
         model.put("customerId", customer.getId());
         return new ModelAndView("overview", "model", model);
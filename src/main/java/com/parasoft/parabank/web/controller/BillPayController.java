@@ -49,13 +49,13 @@ public class BillPayController {
     private Validator validator;
 
     @ModelAttribute("accounts")
-    public List<Integer> getAccountIds(@SessionParam(Constants.USERSESSION) final UserSession userSession)
+    public List<Long> getAccountIds(@SessionParam(Constants.USERSESSION) final UserSession userSession)
             throws Exception {
 
         final Customer customer = userSession.getCustomer();
         final List<Account> accounts = bankManager.getAccountsForCustomer(customer);
 
-        final List<Integer> accountIds = new ArrayList<>();
+        final List<Long> accountIds = new ArrayList<>();
         for (final Account account : accounts) {
             accountIds.add(account.getId());
         }
@@ -1,5 +1,7 @@
 package com.parasoft.parabank.web.controller;
 
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -32,7 +34,9 @@ public class DatabaseController extends AbstractBaseAdminController {
      *
      */
     @RequestMapping(method = RequestMethod.POST)
-    public ModelAndView handleRequest(@RequestParam("action") final String action, final Model model) throws Exception {
+    public ModelAndView handleRequest(@RequestParam("action") final String action,
+        @RequestParam(value = "storageProfile", required = false) final String storageProfile, final Model model)
+        throws Exception {
         // final String action = request.getParameter("action");
         final ModelAndView modelAndView = new ModelAndView(getFormView());
         modelAndView.addAllObjects(model.asMap());
@@ -46,20 +50,36 @@ public class DatabaseController extends AbstractBaseAdminController {
             log.warn("Empty action parameter");
             modelAndView.addObject("error", "error.invalid.action.parameter");
         } else if ("INIT".equalsIgnoreCase(action)) {
+            final long start = System.nanoTime();
             getAdminManager().initializeDB();
+            modelAndView.addObject("duration", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
             //log.info("Using regular JDBC connection. AccessModeController not implemented.");
             saveAdminSettings(form);
             modelAndView.addObject("message", "database.initialize.success");
         } else if ("CLEAN".equalsIgnoreCase(action)) {
+            final long start = System.nanoTime();
             getAdminManager().cleanDB();
+            modelAndView.addObject("duration", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
             saveAdminSettings(form);
             //log.info("Using regular JDBC connection. AccessModeController not implemented.");
             modelAndView.addObject("message", "database.clean.success");
+        } else if ("STORAGE".equalsIgnoreCase(action)) {
+            final long start = System.nanoTime();
+            try {
+                getAdminManager().setStorageProfile(storageProfile);
+                modelAndView.addObject("duration", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                modelAndView.addObject("message", "database.storage.success");
+            } catch (final IllegalArgumentException | UnsupportedOperationException e) {
+                log.warn("Invalid storage profile: {}", storageProfile);
+                modelAndView.addObject("error", "error.invalid.storage.profile");
+            }
         } else {
             log.warn("Unrecognized database action: {}", action);
             modelAndView.addObject("error", "error.invalid.action.parameter");
         }
 
+        // the tables were rewritten or converted since the model was populated
+        modelAndView.addObject("storageReport", getStorageReport());
         // response.sendRedirect("admin.htm");
         return modelAndView;
     }
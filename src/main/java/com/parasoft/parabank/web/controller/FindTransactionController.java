@@ -63,13 +63,13 @@ public class FindTransactionController extends AbstractValidatingBankController
      * @return
      */
     @ModelAttribute("accounts")
-    public List<Integer> getAccountIds(@SessionParam(Constants.USERSESSION) final UserSession userSession) {
+    public List<Long> getAccountIds(@SessionParam(Constants.USERSESSION) final UserSession userSession) {
         //final UserSession userSession = (UserSession) WebUtils.getRequiredSessionAttribute(request, Constants.USERSESSION);
 
         final Customer customer = userSession.getCustomer();
         final List<Account> accounts = bankManager.getAccountsForCustomer(customer);
 
-        final List<Integer> accountIds = new ArrayList<>();
+        final List<Long> accountIds = new ArrayList<>();
         for (final Account account : accounts) {
             accountIds.add(account.getId());
         }
@@ -131,7 +131,7 @@ public class FindTransactionController extends AbstractValidatingBankController
         }
         List<Transaction> transactions = null;
         if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
-            final Integer transactionId = findTransactionForm.getCriteria().getTransactionId();
+            final Long transactionId = findTransactionForm.getCriteria().getTransactionId();
             if (log.isDebugEnabled()) {
                 log.debug("ptocessing TransactionId: " + transactionId);
             }
@@ -230,7 +230,7 @@ public class FindTransactionController extends AbstractValidatingBankController
     //        }
     //
     //        if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
-    //            final Integer transactionId = findTransactionForm.getCriteria().getTransactionId();
+    //            final Long transactionId = findTransactionForm.getCriteria().getTransactionId();
     //            if (LOG.isDebugEnabled()) {
     //                LOG.debug("ptocessing TransactionId: " + transactionId);
     //            }
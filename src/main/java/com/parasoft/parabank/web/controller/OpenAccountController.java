@@ -59,7 +59,7 @@ public class OpenAccountController extends AbstractBankController {
     }
 
     @ModelAttribute("customerId")
-    public int getCustomerId(@SessionParam(Constants.USERSESSION) final UserSession userSession) {
+    public long getCustomerId(@SessionParam(Constants.USERSESSION) final UserSession userSession) {
         return userSession.getCustomer().getId();
     }
 
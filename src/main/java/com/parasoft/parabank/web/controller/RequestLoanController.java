@@ -41,13 +41,13 @@ public class RequestLoanController extends AbstractValidatingBankController {
     private AdminManager adminManager;
 
     @ModelAttribute("accounts")
-    public List<Integer> getAccountIds(@SessionParam(Constants.USERSESSION) final UserSession userSession) {
+    public List<Long> getAccountIds(@SessionParam(Constants.USERSESSION) final UserSession userSession) {
         //final UserSession userSession = (UserSession) WebUtils.getRequiredSessionAttribute(request, Constants.USERSESSION);
 
         final Customer customer = userSession.getCustomer();
         final List<Account> accounts = bankManager.getAccountsForCustomer(customer);
 
-        final List<Integer> accountIds = new ArrayList<>();
+        final List<Long> accountIds = new ArrayList<>();
         for (final Account account : accounts) {
             accountIds.add(account.getId());
         }
@@ -55,7 +55,7 @@ public class RequestLoanController extends AbstractValidatingBankController {
     }
 
     @ModelAttribute("customerId")
-    public int getCustomerId(@SessionParam(Constants.USERSESSION) final UserSession userSession) {
+    public long getCustomerId(@SessionParam(Constants.USERSESSION) final UserSession userSession) {
         return userSession.getCustomer().getId();
     }
 
@@ -7,6 +7,7 @@ import java.math.BigDecimal;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.StringTokenizer;
@@ -15,6 +16,7 @@ import java.util.stream.Collectors;
 import jakarta.annotation.Resource;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 import org.slf4j.Logger;
@@ -38,16 +40,21 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import com.parasoft.parabank.domain.Account;
 import com.parasoft.parabank.domain.Account.AccountType;
 import com.parasoft.parabank.domain.Address;
+import com.parasoft.parabank.domain.BalanceSummary;
 import com.parasoft.parabank.domain.BillPayResult;
 import com.parasoft.parabank.domain.Customer;
 import com.parasoft.parabank.domain.LoanResponse;
 import com.parasoft.parabank.domain.Payee;
+import com.parasoft.parabank.domain.Payment;
+import com.parasoft.parabank.domain.PaymentResult;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.domain.TransactionCriteria;
 import com.parasoft.parabank.domain.TransactionCriteria.SearchType;
 import com.parasoft.parabank.domain.logic.AdminManager;
 import com.parasoft.parabank.domain.logic.BankManager;
 import com.parasoft.parabank.util.AccessModeController;
+import com.parasoft.parabank.web.TransactionExportWriter;
 import com.parasoft.parabank.web.UserSession;
 import com.parasoft.parabank.web.controller.exception.AuthenticationException;
 
@@ -87,7 +94,7 @@ public class RestServiceProxyController extends AbstractBankController implement
     }
 
     @RequestMapping(value = "bank/customers/{id}/accounts", method = RequestMethod.GET, produces = "application/json")
-    public List<Account> getAccounts(@PathVariable(value = "id") Integer id) throws Exception {
+    public List<Account> getAccounts(@PathVariable(value = "id") Long id) throws Exception {
         authenticate();
         List<Account> accounts;// = new ArrayList<Account>();
 
@@ -103,12 +110,32 @@ public class RestServiceProxyController extends AbstractBankController implement
             accounts = bankManager.getAccountsForCustomer(customer);
             log.warn("Using regular JDBC connection");
         }
-        Collections.sort(accounts, Comparator.comparingInt(Account::getId));
+        Collections.sort(accounts, Comparator.comparingLong(Account::getId));
         return accounts;
     }
 
+    /**
+     * The summary is maintained in the local database, so it is read from there whatever the access mode
+     */
+    @RequestMapping(value = "bank/customers/{id}/balanceSummary", method = RequestMethod.GET, produces = "application/json")
+    public BalanceSummary getBalanceSummary(@PathVariable(value = "id") Long id) throws Exception {
+        authenticate();
+        bankManager.getCustomer(id);
+        return bankManager.getBalanceSummary(id);
+    }
+
+    /**
+     * Positions are valued from the local database, whatever the access mode
+     */
+    @RequestMapping(value = "bank/customers/{id}/portfolio", method = RequestMethod.GET, produces = "application/json")
+    public PortfolioValuation getPortfolioValuation(@PathVariable(value = "id") Long id) throws Exception {
+        authenticate();
+        bankManager.getCustomer(id);
+        return bankManager.getPortfolioValuation(id);
+    }
+
     @RequestMapping(value = "bank/accounts/{id}", method = RequestMethod.GET, produces = "application/json")
-    public Account getAccount(@PathVariable(value = "id") Integer id) throws Exception {
+    public Account getAccount(@PathVariable(value = "id") Long id) throws Exception {
         authenticate();
         String accessMode = null;
         Account account;
@@ -125,7 +152,9 @@ public class RestServiceProxyController extends AbstractBankController implement
     }
 
     @RequestMapping(value = "bank/accounts/{id}/transactions", method = RequestMethod.GET, produces = "application/json")
-    public List<Transaction> getTransactions(@PathVariable(value = "id") Integer id) throws Exception {
+    public List<Transaction> getTransactions(@PathVariable(value = "id") Long id,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) throws Exception {
         authenticate();
         String accessMode = null;
         List<Transaction> transactions;
@@ -134,17 +163,21 @@ public class RestServiceProxyController extends AbstractBankController implement
             accessMode = adminManager.getParameter("accessmode");
         }
         if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
-            transactions = accessModeController.getTransactionsForAccount(account, null);
-        } else {
+            transactions = accessModeController.getTransactionsForAccount(account, null, cursor, limit);
+        } else if (cursor == null && limit == null) {
             // default JDBC
             transactions = bankManager.getTransactionsForAccount(account);
+        } else {
+            transactions = bankManager.getTransactionPage(id, null, cursor, limit);
         }
         return transactions;
     }
 
     @RequestMapping(value = "bank/accounts/{id}/transactions/month/{month}/type/{type}", method = RequestMethod.GET, produces = "application/json")
-    public List<Transaction> getTransactionsByMonthAndType(@PathVariable(value = "id") Integer id,
-            @PathVariable(value = "month") String month, @PathVariable(value = "type") String type) throws Exception {
+    public List<Transaction> getTransactionsByMonthAndType(@PathVariable(value = "id") Long id,
+            @PathVariable(value = "month") String month, @PathVariable(value = "type") String type,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) throws Exception {
         authenticate();
         String accessMode = null;
         List<Transaction> transactions;
@@ -157,16 +190,16 @@ public class RestServiceProxyController extends AbstractBankController implement
         criteria.setTransactionType(type);
         criteria.setMonth(month);
         if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
-            transactions = accessModeController.getTransactionsForAccount(account, criteria);
+            transactions = accessModeController.getTransactionsForAccount(account, criteria, cursor, limit);
         } else {
             // default JDBC
-            transactions = bankManager.getTransactionsForAccount(id, criteria);
+            transactions = bankManager.getTransactionPage(id, criteria, cursor, limit);
         }
         return transactions;
     }
 
     @RequestMapping(value = "bank/customers/{customerId}", method = RequestMethod.GET, produces = "application/json")
-    public Customer getCustomer(@PathVariable(value = "customerId") Integer customerId) throws Exception {
+    public Customer getCustomer(@PathVariable(value = "customerId") Long customerId) throws Exception {
         authenticate();
         String accessMode = null;
         Customer customer;
@@ -183,7 +216,7 @@ public class RestServiceProxyController extends AbstractBankController implement
     }
 
     @RequestMapping(value = "bank/customers/update/{customerId}", method = RequestMethod.POST, produces = "application/json")
-    public String updateCustomer(@PathVariable(value = "customerId") Integer customerId,
+    public String updateCustomer(@PathVariable(value = "customerId") Long customerId,
             @RequestParam("firstName") String firstName,
             @RequestParam("lastName") String lastName,
             @RequestParam("street") String street,
@@ -222,9 +255,9 @@ public class RestServiceProxyController extends AbstractBankController implement
     }
 
     @RequestMapping(value = "bank/createAccount", method = RequestMethod.POST, produces = "application/json")
-    public Account createAccount(@RequestParam("customerId") Integer customerId,
+    public Account createAccount(@RequestParam("customerId") Long customerId,
             @RequestParam("newAccountType") Integer newAccountType,
-            @RequestParam("fromAccountId") Integer fromAccountId) throws Exception {
+            @RequestParam("fromAccountId") Long fromAccountId) throws Exception {
         authenticate();
         Account newAccount;
         String accessMode = null;
@@ -245,8 +278,8 @@ public class RestServiceProxyController extends AbstractBankController implement
     }
 
     @RequestMapping(value = "bank/transfer", method = RequestMethod.POST, produces = "application/json")
-    public String transfer(@RequestParam("fromAccountId") Integer fromAccountId,
-            @RequestParam("toAccountId") Integer toAccountId, @RequestParam("amount") BigDecimal amount)
+    public String transfer(@RequestParam("fromAccountId") Long fromAccountId,
+            @RequestParam("toAccountId") Long toAccountId, @RequestParam("amount") BigDecimal amount)
             throws Exception {
         authenticate();
         String accessMode = null;
@@ -264,7 +297,7 @@ public class RestServiceProxyController extends AbstractBankController implement
     }
 
     @RequestMapping(value = "bank/billpay", method = RequestMethod.POST, produces = "application/json")
-    public BillPayResult billPay(@RequestParam("accountId") Integer accountId,
+    public BillPayResult billPay(@RequestParam("accountId") Long accountId,
             @RequestParam("amount") BigDecimal amount, @RequestBody Payee payee)
             throws Exception {
         authenticate();
@@ -281,10 +314,23 @@ public class RestServiceProxyController extends AbstractBankController implement
         return new BillPayResult(accountId, amount, payee.getName());
     }
 
+    /**
+     * Apply a batch of transfers and bill payments in one transaction. Like the export, batches are always applied
+     * to the local database, whatever the access mode.
+     */
+    @RequestMapping(value = "bank/transfers/batch", method = RequestMethod.POST, produces = "application/json")
+    public List<PaymentResult> processPayments(@RequestBody List<Payment> payments) throws Exception {
+        authenticate();
+        if (payments == null || payments.isEmpty()) {
+            throw new IllegalArgumentException("At least one payment is required");
+        }
+        return bankManager.processPayments(payments);
+    }
+
     @RequestMapping(value = "bank/requestLoan", method = RequestMethod.POST, produces = "application/json")
-    public LoanResponse requestLoan(@RequestParam("customerId") Integer customerId,
+    public LoanResponse requestLoan(@RequestParam("customerId") Long customerId,
             @RequestParam("amount") BigDecimal amount, @RequestParam("downPayment") BigDecimal downPayment,
-            @RequestParam("fromAccountId") Integer fromAccountId) throws Exception {
+            @RequestParam("fromAccountId") Long fromAccountId) throws Exception {
         authenticate();
         String accessMode = null;
         if (adminManager != null) {
@@ -301,8 +347,10 @@ public class RestServiceProxyController extends AbstractBankController implement
     }
 
     @RequestMapping(value = "bank/accounts/{accountId}/transactions/onDate/{onDate}", method = RequestMethod.GET, produces = "application/json")
-    public List<Transaction> getTransactionsOnDate(@PathVariable(value = "accountId") Integer accountId,
-            @PathVariable(value = "onDate") String onDate) throws Exception {
+    public List<Transaction> getTransactionsOnDate(@PathVariable(value = "accountId") Long accountId,
+            @PathVariable(value = "onDate") String onDate,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) throws Exception {
         authenticate();
         String accessMode = null;
         if (adminManager != null) {
@@ -313,17 +361,18 @@ public class RestServiceProxyController extends AbstractBankController implement
         criteria.setSearchType(SearchType.DATE);
         if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
             Account account = bankManager.getAccount(accountId);
-            return accessModeController.getTransactionsForAccount(account, criteria);
+            return accessModeController.getTransactionsForAccount(account, criteria, cursor, limit);
         } else {
             // default JDBC
-            return bankManager.getTransactionsForAccount(accountId, criteria);
+            return bankManager.getTransactionPage(accountId, criteria, cursor, limit);
         }
     }
 
     @RequestMapping(value = "bank/accounts/{accountId}/transactions/fromDate/{fromDate}/toDate/{toDate}", method = RequestMethod.GET, produces = "application/json")
-    public List<Transaction> getTransactionsByToFromDate(@PathVariable(value = "accountId") Integer accountId,
-            @PathVariable(value = "fromDate") String fromDate, @PathVariable(value = "toDate") String toDate)
-            throws Exception {
+    public List<Transaction> getTransactionsByToFromDate(@PathVariable(value = "accountId") Long accountId,
+            @PathVariable(value = "fromDate") String fromDate, @PathVariable(value = "toDate") String toDate,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) throws Exception {
         authenticate();
         String accessMode = null;
         if (adminManager != null) {
@@ -335,16 +384,18 @@ public class RestServiceProxyController extends AbstractBankController implement
         criteria.setSearchType(SearchType.DATE_RANGE);
         if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
             Account account = bankManager.getAccount(accountId);
-            return accessModeController.getTransactionsForAccount(account, criteria);
+            return accessModeController.getTransactionsForAccount(account, criteria, cursor, limit);
         } else {
             // default JDBC
-            return bankManager.getTransactionsForAccount(accountId, criteria);
+            return bankManager.getTransactionPage(accountId, criteria, cursor, limit);
         }
     }
 
     @RequestMapping(value = "bank/accounts/{accountId}/transactions/amount/{amount}", method = RequestMethod.GET, produces = "application/json")
-    public List<Transaction> getTransactionsByAmount(@PathVariable(value = "accountId") Integer accountId,
-            @PathVariable(value = "amount") BigDecimal amount) throws Exception {
+    public List<Transaction> getTransactionsByAmount(@PathVariable(value = "accountId") Long accountId,
+            @PathVariable(value = "amount") BigDecimal amount,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) throws Exception {
         authenticate();
         String accessMode = null;
         if (adminManager != null) {
@@ -355,13 +406,32 @@ public class RestServiceProxyController extends AbstractBankController implement
         criteria.setSearchType(SearchType.AMOUNT);
         if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
             Account account = bankManager.getAccount(accountId);
-            return accessModeController.getTransactionsForAccount(account, criteria);
+            return accessModeController.getTransactionsForAccount(account, criteria, cursor, limit);
         } else {
             // default JDBC
-            return bankManager.getTransactionsForAccount(accountId, criteria);
+            return bankManager.getTransactionPage(accountId, criteria, cursor, limit);
         }
     }
 
+    /**
+     * Stream the transactions of a set of accounts as CSV, JSON or XML. Rows are written to the response as they are
+     * read from the database, so memory use does not grow with the size of the export. The export always reads from
+     * the local database, whatever the access mode.
+     */
+    @RequestMapping(value = "bank/transactions/export", method = RequestMethod.GET)
+    public void exportTransactions(@RequestParam(value = "accountId") List<Long> accountIds,
+            @RequestParam(value = "fromDate", required = false) String fromDate,
+            @RequestParam(value = "toDate", required = false) String toDate,
+            @RequestParam(value = "format", defaultValue = TransactionExportWriter.CSV) String format,
+            HttpServletResponse response) throws Exception {
+        authenticate();
+        final Date from = fromDate == null ? null : TransactionCriteria.DATE_FORMATTER.get().parse(fromDate);
+        final Date to = toDate == null ? null : TransactionCriteria.DATE_FORMATTER.get().parse(toDate);
+        final int count = TransactionExportWriter.export(format, response,
+            writer -> bankManager.exportTransactions(accountIds, from, to, writer));
+        log.info("Exported {} transactions as {}", count, format);
+    }
+
     @RequestMapping(value = "bank/swagger.yaml")
     public ResponseEntity<String> getSwagger(HttpServletRequest request) throws IOException {
         try (BufferedReader br = new BufferedReader(new InputStreamReader(context.getResourceAsStream("/WEB-INF/swagger.yaml")))) {
@@ -374,7 +444,7 @@ public class RestServiceProxyController extends AbstractBankController implement
     }
 
     @RequestMapping(value = "bank/transactions/{transactionId}", method = RequestMethod.GET, produces = "application/json")
-    public Transaction getTransaction(@PathVariable(value = "transactionId") Integer transactionId) throws Exception {
+    public Transaction getTransaction(@PathVariable(value = "transactionId") Long transactionId) throws Exception {
         authenticate();
         String accessMode = null;
         if (adminManager != null) {
@@ -51,12 +51,12 @@ public class TransactionController extends AbstractBankController {
             }
 
             if (accessMode != null && !accessMode.equalsIgnoreCase("jdbc")) {
-                transaction = accessModeController.doGetTransaction(Integer.parseInt(id));
+                transaction = accessModeController.doGetTransaction(Long.parseLong(id));
             }
 
             else {
 
-                transaction = bankManager.getTransaction(Integer.parseInt(id));
+                transaction = bankManager.getTransaction(Long.parseLong(id));
                 log.info("Using regular JDBC connection");
             }
 
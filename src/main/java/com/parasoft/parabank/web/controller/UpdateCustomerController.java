@@ -43,7 +43,7 @@ public class UpdateCustomerController extends AbstractValidatingBankController {
     @Resource(name = "adminManager")
     private AdminManager adminManager;
 
-    public Customer getCustomer(final int custId) throws ParaBankServiceException, IOException, JAXBException {
+    public Customer getCustomer(final long custId) throws ParaBankServiceException, IOException, JAXBException {
         Customer cu;
         cu = accessModeController.doGetCustomer(custId);
         return cu;
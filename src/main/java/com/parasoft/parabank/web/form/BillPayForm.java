@@ -11,7 +11,7 @@ public class BillPayForm {
     private Payee payee;
     private Integer verifyAccount;
     private BigDecimal amount;
-    private int fromAccountId;
+    private long fromAccountId;
 
     public Payee getPayee() {
         return payee;
@@ -37,11 +37,11 @@ public class BillPayForm {
         this.amount = amount;
     }
 
-    public int getFromAccountId() {
+    public long getFromAccountId() {
         return fromAccountId;
     }
 
-    public void setFromAccountId(int fromAccountId) {
+    public void setFromAccountId(long fromAccountId) {
         this.fromAccountId = fromAccountId;
     }
 }
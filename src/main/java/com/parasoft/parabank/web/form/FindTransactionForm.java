@@ -6,14 +6,14 @@ import com.parasoft.parabank.domain.TransactionCriteria;
  * Backing class for transaction search form
  */
 public class FindTransactionForm {
-    private int accountId;
+    private long accountId;
     private TransactionCriteria criteria;
 
-    public int getAccountId() {
+    public long getAccountId() {
         return accountId;
     }
 
-    public void setAccountId(int accountId) {
+    public void setAccountId(long accountId) {
         this.accountId = accountId;
     }
 
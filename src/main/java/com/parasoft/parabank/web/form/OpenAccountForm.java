@@ -7,7 +7,7 @@ import com.parasoft.parabank.domain.Account.AccountType;
  */
 public class OpenAccountForm {
     private AccountType type;
-    private int fromAccountId;
+    private long fromAccountId;
 
     public AccountType getType() {
         return type;
@@ -17,11 +17,11 @@ public class OpenAccountForm {
         this.type = type;
     }
 
-    public int getFromAccountId() {
+    public long getFromAccountId() {
         return fromAccountId;
     }
 
-    public void setFromAccountId(int fromAccountId) {
+    public void setFromAccountId(long fromAccountId) {
         this.fromAccountId = fromAccountId;
     }
 }
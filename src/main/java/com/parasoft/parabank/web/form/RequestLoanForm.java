@@ -8,7 +8,7 @@ import java.math.BigDecimal;
 public class RequestLoanForm {
     private BigDecimal amount;
     private BigDecimal downPayment;
-    private int fromAccountId;
+    private long fromAccountId;
 
     public BigDecimal getAmount() {
         return amount;
@@ -26,11 +26,11 @@ public class RequestLoanForm {
         this.downPayment = downPayment;
     }
 
-    public int getFromAccountId() {
+    public long getFromAccountId() {
         return fromAccountId;
     }
 
-    public void setFromAccountId(int fromAccountId) {
+    public void setFromAccountId(long fromAccountId) {
         this.fromAccountId = fromAccountId;
     }
 }
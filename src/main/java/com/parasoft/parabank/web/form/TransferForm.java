@@ -7,8 +7,8 @@ import java.math.BigDecimal;
  */
 public class TransferForm {
     private BigDecimal amount;
-    private int fromAccountId;
-    private int toAccountId;
+    private long fromAccountId;
+    private long toAccountId;
 
     public BigDecimal getAmount() {
         return amount;
@@ -18,19 +18,19 @@ public class TransferForm {
         this.amount = amount;
     }
 
-    public int getFromAccountId() {
+    public long getFromAccountId() {
         return fromAccountId;
     }
 
-    public void setFromAccountId(int fromAccountId) {
+    public void setFromAccountId(long fromAccountId) {
         this.fromAccountId = fromAccountId;
     }
 
-    public int getToAccountId() {
+    public long getToAccountId() {
         return toAccountId;
     }
 
-    public void setToAccountId(int toAccountId) {
+    public void setToAccountId(long toAccountId) {
         this.toAccountId = toAccountId;
     }
 }
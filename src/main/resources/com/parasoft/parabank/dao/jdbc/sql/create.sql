@@ -6,6 +6,11 @@
 -- avoid the need to order the DROP TABLE statements, but in the current MySQL
 -- (5.x) the CASCADE keyword does nothing for a DROP TABLE statement.
 
+-- Migrations are re-applied on top of the freshly created tables
+DROP TABLE IF EXISTS Schema_History;
+DROP TABLE IF EXISTS Schema_Progress;
+
+DROP TABLE IF EXISTS Customer_Balance;
 DROP TABLE IF EXISTS Stock;
 DROP TABLE IF EXISTS Company;
 DROP TABLE IF EXISTS Positions;
@@ -14,7 +19,7 @@ DROP TABLE IF EXISTS Account;
 DROP TABLE IF EXISTS Customer;
 
 CREATE TABLE Customer (
-  id INTEGER NOT NULL PRIMARY KEY,
+  id BIGINT NOT NULL PRIMARY KEY,
   first_name VARCHAR(30) NOT NULL,
   last_name VARCHAR(30) NOT NULL,
   address VARCHAR(45) NOT NULL,
@@ -29,14 +34,24 @@ CREATE TABLE Customer (
 );
 
 CREATE TABLE Account (
-  id INTEGER NOT NULL PRIMARY KEY,
-  customer_id INTEGER NOT NULL,
+  id BIGINT NOT NULL PRIMARY KEY,
+  customer_id BIGINT NOT NULL,
   type INTEGER NOT NULL,
   balance DECIMAL(19,4),
+  version INTEGER DEFAULT 0 NOT NULL,
   
   FOREIGN KEY (customer_id) REFERENCES Customer(id)
 );
 
+-- combined balances of each customer's accounts, kept in step with Account by JdbcAccountDao
+CREATE TABLE Customer_Balance (
+  customer_id BIGINT NOT NULL PRIMARY KEY,
+  total_balance DECIMAL(19,4) NOT NULL,
+  available_balance DECIMAL(19,4) NOT NULL,
+  available_funds DECIMAL(19,4) NOT NULL,
+  account_count INTEGER NOT NULL
+);
+
 DROP TABLE IF EXISTS News;
 
 CREATE TABLE News (
@@ -53,24 +68,71 @@ CREATE TABLE Parameter (
   value VARCHAR(255)
 );
 
+DROP TABLE IF EXISTS Parameter_Version;
+
+CREATE TABLE Parameter_Version ( version BIGINT NOT NULL );
+
 DROP TABLE IF EXISTS Sequence;
 
-CREATE TABLE Sequence ( name VARCHAR(15), next_id INTEGER );
+CREATE TABLE Sequence ( name VARCHAR(15), next_id BIGINT );
+
+DROP TABLE IF EXISTS Transfer_Outbox;
+
+-- transfers between accounts of different shards, see ShardedTransferOutbox
+CREATE TABLE Transfer_Outbox (
+  id BIGINT NOT NULL PRIMARY KEY,
+  from_account_id BIGINT NOT NULL,
+  to_account_id BIGINT NOT NULL,
+  amount DECIMAL(19,4) NOT NULL,
+  description VARCHAR(255),
+  created TIMESTAMP NOT NULL,
+  delivered TIMESTAMP,
+  returned TIMESTAMP
+);
+
+DROP TABLE IF EXISTS Transfer_Inbox;
+
+CREATE TABLE Transfer_Inbox (
+  id BIGINT NOT NULL PRIMARY KEY,
+  received TIMESTAMP NOT NULL
+);
+
+DROP TABLE IF EXISTS Journal_Outbox;
+
+-- committed transactions on their way into the transaction journal, see JournalTransactionDao
+CREATE TABLE Journal_Outbox (
+  id BIGINT NOT NULL PRIMARY KEY,
+  account_id BIGINT NOT NULL,
+  type INTEGER NOT NULL,
+  date DATE,
+  amount DECIMAL(19,4),
+  description VARCHAR(255)
+);
 
 CREATE TABLE Transaction (
-  id INTEGER NOT NULL PRIMARY KEY,
-  account_id INTEGER NOT NULL,
+  id BIGINT NOT NULL PRIMARY KEY,
+  account_id BIGINT NOT NULL,
   type INTEGER NOT NULL,
   date DATE,
   amount DECIMAL(19,4),
   description VARCHAR(255),
+  description_id INTEGER,
+  description_arg VARCHAR(255),
   
   FOREIGN KEY (account_id) REFERENCES Account(id)
 );
 
+DROP TABLE IF EXISTS Transaction_Description;
+
+-- templates of the descriptions written by the application, see TransactionDescriptions
+CREATE TABLE Transaction_Description (
+  id INTEGER NOT NULL PRIMARY KEY,
+  template VARCHAR(255) NOT NULL UNIQUE
+);
+
 CREATE TABLE Positions (
-  position_id INTEGER NOT NULL PRIMARY KEY,
-  customer_id INTEGER NOT NULL,
+  position_id BIGINT NOT NULL PRIMARY KEY,
+  customer_id BIGINT NOT NULL,
   name VARCHAR(255) NOT NULL,
   symbol VARCHAR(10) NOT NULL,
   shares INTEGER NOT NULL,
@@ -85,7 +147,7 @@ CREATE TABLE Company (
 );
 
 CREATE TABLE Stock (
-  id INTEGER NOT NULL PRIMARY KEY,
+  id BIGINT NOT NULL PRIMARY KEY,
   symbol VARCHAR(10) NOT NULL,
   date DATE,
   closing_price DECIMAL(19,4),
@@ -34,6 +34,7 @@ INSERT INTO Parameter (name, value) VALUES ('loanProcessorThreshold', '20');
 INSERT INTO Parameter (name, value) VALUES ('soap_endpoint', '');
 INSERT INTO Parameter (name, value) VALUES ('rest_endpoint', '');
 INSERT INTO Parameter (name, value) VALUES ('accessmode', 'jdbc');
+INSERT INTO Parameter_Version (version) VALUES (0);
 
 INSERT INTO Sequence (name, next_id) VALUES ('Customer', 12434);
 INSERT INTO Sequence (name, next_id) VALUES ('Account', 13566);
@@ -65,4 +66,6 @@ INSERT INTO Transaction (id, account_id, type, date, amount, description) VALUES
 
 INSERT INTO Company (symbol, name) VALUES ('AAR', 'AMR Corporation');
 INSERT INTO Company (symbol, name) VALUES ('BGC', 'General Cable Corporation');
-INSERT INTO Company (symbol, name) VALUES ('CI', 'CIGNA Corporation');
\ No newline at end of file
+INSERT INTO Company (symbol, name) VALUES ('CI', 'CIGNA Corporation');
+
+INSERT INTO Customer_Balance (customer_id, total_balance, available_balance, available_funds, account_count) SELECT customer_id, SUM(balance), SUM(GREATEST(balance, 0)), SUM(CASE WHEN type = 2 THEN 0 ELSE balance END), COUNT(*) FROM Account GROUP BY customer_id;
\ No newline at end of file
@@ -0,0 +1,16 @@
+-- descriptions written by the application are stored as a template id plus the value of its %s placeholder
+CREATE TABLE IF NOT EXISTS Transaction_Description (
+  id INTEGER NOT NULL PRIMARY KEY,
+  template VARCHAR(255) NOT NULL UNIQUE
+);
+INSERT INTO Transaction_Description (id, template) SELECT 1, 'Funds Transfer Sent' FROM (VALUES (0)) WHERE NOT EXISTS (SELECT * FROM Transaction_Description WHERE id = 1);
+INSERT INTO Transaction_Description (id, template) SELECT 2, 'Funds Transfer Received' FROM (VALUES (0)) WHERE NOT EXISTS (SELECT * FROM Transaction_Description WHERE id = 2);
+INSERT INTO Transaction_Description (id, template) SELECT 3, 'Bill Payment to %s' FROM (VALUES (0)) WHERE NOT EXISTS (SELECT * FROM Transaction_Description WHERE id = 3);
+INSERT INTO Transaction_Description (id, template) SELECT 4, 'Down Payment for Loan # %s' FROM (VALUES (0)) WHERE NOT EXISTS (SELECT * FROM Transaction_Description WHERE id = 4);
+INSERT INTO Transaction_Description (id, template) SELECT 5, 'Deposit via Web Service' FROM (VALUES (0)) WHERE NOT EXISTS (SELECT * FROM Transaction_Description WHERE id = 5);
+INSERT INTO Transaction_Description (id, template) SELECT 6, 'Withdraw via Web Service' FROM (VALUES (0)) WHERE NOT EXISTS (SELECT * FROM Transaction_Description WHERE id = 6);
+ALTER TABLE Transaction ADD COLUMN IF NOT EXISTS description_id INTEGER;
+ALTER TABLE Transaction ADD COLUMN IF NOT EXISTS description_arg VARCHAR(255);
+UPDATE Transaction SET description_id = (SELECT d.id FROM Transaction_Description d WHERE d.template = Transaction.description), description = NULL WHERE description_id IS NULL AND description IN (SELECT template FROM Transaction_Description);
+UPDATE Transaction SET description_id = 3, description_arg = SUBSTRING(description, 17), description = NULL WHERE description_id IS NULL AND description LIKE 'Bill Payment to %';
+UPDATE Transaction SET description_id = 4, description_arg = SUBSTRING(description, 25), description = NULL WHERE description_id IS NULL AND description LIKE 'Down Payment for Loan # %';
@@ -0,0 +1,68 @@
+-- apply if: SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'CUSTOMER' AND COLUMN_NAME = 'ID' AND DATA_TYPE = 'INTEGER'
+-- 64-bit ids; a column referenced by or referencing a foreign key cannot change its type in place, so Customer, Account, Transaction and Positions are rebuilt
+-- every statement can run again, so a rebuild that stopped part way continues with the tables it left behind
+CREATE TABLE IF NOT EXISTS Customer_V11 (
+  id BIGINT NOT NULL PRIMARY KEY,
+  first_name VARCHAR(30) NOT NULL,
+  last_name VARCHAR(30) NOT NULL,
+  address VARCHAR(45) NOT NULL,
+  city VARCHAR(20) NOT NULL,
+  state VARCHAR(20) NOT NULL,
+  zip_code VARCHAR(20) NOT NULL,
+  phone_number VARCHAR(20) NOT NULL,
+  ssn VARCHAR(15) NOT NULL,
+  username VARCHAR(20) NOT NULL,
+  password VARCHAR(20) NOT NULL,
+  UNIQUE (username)
+);
+CREATE TABLE IF NOT EXISTS Account_V11 (
+  id BIGINT NOT NULL PRIMARY KEY,
+  customer_id BIGINT NOT NULL,
+  type INTEGER NOT NULL,
+  balance DECIMAL(19,4),
+  version INTEGER DEFAULT 0 NOT NULL
+);
+CREATE TABLE IF NOT EXISTS Transaction_V11 (
+  id BIGINT NOT NULL PRIMARY KEY,
+  account_id BIGINT NOT NULL,
+  type INTEGER NOT NULL,
+  date DATE,
+  amount DECIMAL(19,4),
+  description VARCHAR(255),
+  description_id INTEGER,
+  description_arg VARCHAR(255)
+);
+CREATE TABLE IF NOT EXISTS Positions_V11 (
+  position_id BIGINT NOT NULL PRIMARY KEY,
+  customer_id BIGINT NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  symbol VARCHAR(10) NOT NULL,
+  shares INTEGER NOT NULL,
+  purchase_price DECIMAL(19,4) NOT NULL
+);
+INSERT INTO Customer_V11 (id, first_name, last_name, address, city, state, zip_code, phone_number, ssn, username, password) SELECT id, first_name, last_name, address, city, state, zip_code, phone_number, ssn, username, password FROM Customer WHERE id NOT IN (SELECT id FROM Customer_V11);
+INSERT INTO Account_V11 (id, customer_id, type, balance, version) SELECT id, customer_id, type, balance, version FROM Account WHERE id NOT IN (SELECT id FROM Account_V11);
+INSERT INTO Transaction_V11 (id, account_id, type, date, amount, description, description_id, description_arg) SELECT id, account_id, type, date, amount, description, description_id, description_arg FROM Transaction WHERE id NOT IN (SELECT id FROM Transaction_V11);
+INSERT INTO Positions_V11 (position_id, customer_id, name, symbol, shares, purchase_price) SELECT position_id, customer_id, name, symbol, shares, purchase_price FROM Positions WHERE position_id NOT IN (SELECT position_id FROM Positions_V11);
+DROP TABLE IF EXISTS Transaction;
+DROP TABLE IF EXISTS Positions;
+DROP TABLE IF EXISTS Account;
+DROP TABLE IF EXISTS Customer;
+ALTER TABLE IF EXISTS Customer_V11 RENAME TO Customer;
+ALTER TABLE IF EXISTS Account_V11 RENAME TO Account;
+ALTER TABLE IF EXISTS Transaction_V11 RENAME TO Transaction;
+ALTER TABLE IF EXISTS Positions_V11 RENAME TO Positions;
+ALTER TABLE Account ADD CONSTRAINT IF NOT EXISTS Account_customer_fk FOREIGN KEY (customer_id) REFERENCES Customer(id);
+ALTER TABLE Transaction ADD CONSTRAINT IF NOT EXISTS Transaction_account_fk FOREIGN KEY (account_id) REFERENCES Account(id);
+ALTER TABLE Positions ADD CONSTRAINT IF NOT EXISTS Positions_customer_fk FOREIGN KEY (customer_id) REFERENCES Customer(id);
+CREATE INDEX IF NOT EXISTS Transaction_account_date_idx ON Transaction (account_id, date, id);
+CREATE INDEX IF NOT EXISTS Account_customer_idx ON Account (customer_id);
+CREATE INDEX IF NOT EXISTS Positions_customer_idx ON Positions (customer_id);
+CREATE INDEX IF NOT EXISTS Customer_ssn_idx ON Customer (ssn);
+ALTER TABLE Stock ALTER COLUMN id SET DATA TYPE BIGINT;
+ALTER TABLE Sequence ALTER COLUMN next_id SET DATA TYPE BIGINT;
+ALTER TABLE Customer_Balance ALTER COLUMN customer_id SET DATA TYPE BIGINT;
+ALTER TABLE Transfer_Outbox ALTER COLUMN id SET DATA TYPE BIGINT;
+ALTER TABLE Transfer_Outbox ALTER COLUMN from_account_id SET DATA TYPE BIGINT;
+ALTER TABLE Transfer_Outbox ALTER COLUMN to_account_id SET DATA TYPE BIGINT;
+ALTER TABLE Transfer_Inbox ALTER COLUMN id SET DATA TYPE BIGINT;
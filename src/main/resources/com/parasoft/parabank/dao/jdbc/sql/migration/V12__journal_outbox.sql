@@ -0,0 +1,9 @@
+-- committed transactions on their way into the transaction journal
+CREATE TABLE IF NOT EXISTS Journal_Outbox (
+  id BIGINT NOT NULL PRIMARY KEY,
+  account_id BIGINT NOT NULL,
+  type INTEGER NOT NULL,
+  date DATE,
+  amount DECIMAL(19,4),
+  description VARCHAR(255)
+);
@@ -0,0 +1,2 @@
+-- transfers whose target account does not exist are returned to the source account instead of relayed forever
+ALTER TABLE Transfer_Outbox ADD COLUMN IF NOT EXISTS returned TIMESTAMP;
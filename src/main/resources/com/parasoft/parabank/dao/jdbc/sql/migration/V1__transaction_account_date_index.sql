@@ -0,0 +1,3 @@
+-- account activity: WHERE account_id = ? ORDER BY date, id
+-- replaces checksum: 502246141, the script without IF NOT EXISTS
+CREATE INDEX IF NOT EXISTS Transaction_account_date_idx ON Transaction (account_id, date, id);
@@ -0,0 +1,3 @@
+-- accounts overview: WHERE customer_id = ?
+-- replaces checksum: 3741379037, the script without IF NOT EXISTS
+CREATE INDEX IF NOT EXISTS Account_customer_idx ON Account (customer_id);
@@ -0,0 +1,3 @@
+-- positions overview: WHERE customer_id = ?
+-- replaces checksum: 3118915599, the script without IF NOT EXISTS
+CREATE INDEX IF NOT EXISTS Positions_customer_idx ON Positions (customer_id);
@@ -0,0 +1,3 @@
+-- position history: WHERE symbol = ? AND date BETWEEN ? AND ?
+-- replaces checksum: 1050746197, the script without IF NOT EXISTS
+CREATE INDEX IF NOT EXISTS Stock_symbol_date_idx ON Stock (symbol, date);
@@ -0,0 +1,3 @@
+-- customer lookup by ssn; lookups by username and password already use the UNIQUE (username) index
+-- replaces checksum: 3854242068, the script without IF NOT EXISTS
+CREATE INDEX IF NOT EXISTS Customer_ssn_idx ON Customer (ssn);
@@ -0,0 +1,3 @@
+-- bumped on every parameter save so cached copies of the Parameter table can detect they are stale
+CREATE TABLE IF NOT EXISTS Parameter_Version ( version BIGINT NOT NULL );
+INSERT INTO Parameter_Version (version) SELECT 0 FROM (VALUES (0)) WHERE NOT EXISTS (SELECT * FROM Parameter_Version);
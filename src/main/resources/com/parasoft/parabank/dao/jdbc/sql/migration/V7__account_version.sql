@@ -0,0 +1,2 @@
+-- bumped on every balance change or update so full account writes can be checked optimistically
+ALTER TABLE Account ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
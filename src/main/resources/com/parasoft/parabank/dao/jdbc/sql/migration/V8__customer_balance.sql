@@ -0,0 +1,10 @@
+-- combined balances of each customer's accounts so the overview and loan checks do not aggregate Account
+CREATE TABLE IF NOT EXISTS Customer_Balance (
+  customer_id INTEGER NOT NULL PRIMARY KEY,
+  total_balance DECIMAL(19,4) NOT NULL,
+  available_balance DECIMAL(19,4) NOT NULL,
+  available_funds DECIMAL(19,4) NOT NULL,
+  account_count INTEGER NOT NULL
+);
+DELETE FROM Customer_Balance;
+INSERT INTO Customer_Balance (customer_id, total_balance, available_balance, available_funds, account_count) SELECT customer_id, SUM(balance), SUM(GREATEST(balance, 0)), SUM(CASE WHEN type = 2 THEN 0 ELSE balance END), COUNT(*) FROM Account GROUP BY customer_id;
@@ -0,0 +1,14 @@
+-- transfers between accounts of different shards, sent from the outbox of the source shard and received in the inbox of the target shard
+CREATE TABLE IF NOT EXISTS Transfer_Outbox (
+  id INTEGER NOT NULL PRIMARY KEY,
+  from_account_id INTEGER NOT NULL,
+  to_account_id INTEGER NOT NULL,
+  amount DECIMAL(19,4) NOT NULL,
+  description VARCHAR(255),
+  created TIMESTAMP NOT NULL,
+  delivered TIMESTAMP
+);
+CREATE TABLE IF NOT EXISTS Transfer_Inbox (
+  id INTEGER NOT NULL PRIMARY KEY,
+  received TIMESTAMP NOT NULL
+);
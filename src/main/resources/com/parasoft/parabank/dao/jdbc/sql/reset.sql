@@ -1,3 +1,4 @@
+DELETE FROM Customer_Balance;
 DELETE FROM Stock;
 DELETE FROM Company;
 DELETE FROM Positions;
@@ -5,12 +6,16 @@ DELETE FROM Transaction;
 DELETE FROM Account;
 DELETE FROM Customer;
 DELETE FROM Sequence;
+DELETE FROM Transfer_Outbox;
+DELETE FROM Transfer_Inbox;
+DELETE FROM Journal_Outbox;
 INSERT INTO Customer (id, first_name, last_name, address, city, state, zip_code, phone_number, ssn, username, password) VALUES (12212, 'John', 'Smith', '1431 Main St', 'Beverly Hills', 'CA', '90210', '310-447-4121', '622-11-9999', 'john', 'demo');
-INSERT INTO Account VALUES (13344, 12212, 0, '5022.93');
+INSERT INTO Account (id, customer_id, type, balance) VALUES (13344, 12212, 0, '5022.93');
 INSERT INTO Positions (position_id, customer_id, name, symbol, shares, purchase_price) VALUES (12345, 12212, 'AMR Corporation', 'AAR', 20, '23.53');
 INSERT INTO Sequence (name, next_id) VALUES ('Customer', 12434);
 INSERT INTO Sequence (name, next_id) VALUES ('Account', 13455);
 INSERT INTO Sequence (name, next_id) VALUES ('Position', 13017);
 INSERT INTO Sequence (name, next_id) VALUES ('Transaction', 14476);
 INSERT INTO Sequence (name, next_id) VALUES ('Stock', 111);
-INSERT INTO Company (symbol, name) VALUES ('AAR', 'AMR Corporation');
\ No newline at end of file
+INSERT INTO Company (symbol, name) VALUES ('AAR', 'AMR Corporation');
+INSERT INTO Customer_Balance (customer_id, total_balance, available_balance, available_funds, account_count) SELECT customer_id, SUM(balance), SUM(GREATEST(balance, 0)), SUM(CASE WHEN type = 2 THEN 0 ELSE balance END), COUNT(*) FROM Account GROUP BY customer_id;
\ No newline at end of file
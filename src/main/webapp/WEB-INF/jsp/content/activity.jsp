@@ -72,6 +72,7 @@
       <tbody>
       </tbody>
     </table>
+    <input type="button" id="loadMore" class="button" value="<fmt:message key="load.more" />" style="display: none;">
   </div>
   
   <div id="error" style="display: none;">
@@ -119,13 +120,23 @@
         return formattedAmount;
     }
 
-    function fetchAccountActivity(period, type) {
+    // transactions are fetched one page at a time, each page continues after the last transaction shown
+    var PAGE_SIZE = 50;
+    var activity = {};
+
+    function fetchAccountActivity(period, type, cursor) {
+      activity = { period: period, type: type };
       $.ajax({
         url: "services_proxy/bank/accounts/" + ${model.accountId} + "/transactions/month/" + period + "/type/" + type,
+        data: cursor ? { cursor: cursor, limit: PAGE_SIZE } : { limit: PAGE_SIZE },
         timeout: 30000,
         success: function(data) {
-          $('#transactionTable tbody').empty();
-          if (data.length > 0) {
+          if (!cursor) {
+            $('#transactionTable tbody').empty();
+          }
+          activity.cursor = data.length > 0 ? data[data.length - 1].id : cursor;
+          $('#loadMore').toggle(data.length == PAGE_SIZE);
+          if (data.length > 0 || cursor) {
         	$('#transactionTable').show();
             $('#noTransactions').hide();
             $.each(data, function(index, transaction) {
@@ -162,6 +173,11 @@
       fetchAccountActivity(period, type);
     }
 
+    $('#loadMore').click(function(event) {
+      event.preventDefault();
+      fetchAccountActivity(activity.period, activity.type, activity.cursor);
+    });
+
     $('#activityForm').submit(function(event) {
       event.preventDefault();
       fetchActivity()
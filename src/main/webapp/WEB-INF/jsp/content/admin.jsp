@@ -13,6 +13,11 @@
 	<c:when test="${not empty message}">
 		<p style="color: #080">
 			<b><fmt:message key="${message}" /></b>
+			<c:if test="${not empty duration}">
+				<fmt:message key="database.duration">
+					<fmt:param value="${duration}" />
+				</fmt:message>
+			</c:if>
 		</p>
 	</c:when>
 </c:choose>
@@ -68,6 +73,74 @@
 </table>
 <br />
 
+<c:if test="${not empty storageReport}">
+	<h3>
+		<fmt:message key="database.storage" />
+	</h3>
+	<form name="storageProfile" action="<c:url value="db.htm"/>" method="POST">
+		<input type="hidden" name="action" value="STORAGE" />
+		<table class="form2" style="width: 100%;">
+			<tr>
+				<td align="right" width="30%"><b><fmt:message key="database.storage.profile" />:</b></td>
+				<td width="40%">
+					<input type="radio" name="storageProfile" value="MEMORY" ${storageReport.profile == 'MEMORY' ? 'checked' : ''} />
+					<fmt:message key="database.storage.memory" />&nbsp;
+					<input type="radio" name="storageProfile" value="CACHED" ${storageReport.profile == 'CACHED' ? 'checked' : ''} />
+					<fmt:message key="database.storage.cached" />
+				</td>
+				<td width="30%"><input type="submit" class="button"
+					value="<fmt:message key="database.storage.apply"/>" /></td>
+			</tr>
+		</table>
+	</form>
+	<table class="table_hidden" style="width: 100%">
+		<tr>
+			<td width="50%" valign="top">
+				<table class="form2" style="width: 100%;">
+					<tr>
+						<th align="left"><fmt:message key="database.storage.table" /></th>
+						<th align="left"><fmt:message key="database.storage.type" /></th>
+						<th align="right"><fmt:message key="database.storage.rows" /></th>
+					</tr>
+					<c:forEach var="table" items="${storageReport.tables}">
+						<tr>
+							<td>${table.table}</td>
+							<td>${table.type}</td>
+							<td align="right"><fmt:formatNumber value="${table.rows}" /></td>
+						</tr>
+					</c:forEach>
+				</table>
+			</td>
+			<td width="50%" valign="top">
+				<table class="form2" style="width: 100%;">
+					<tr>
+						<th align="left"><fmt:message key="database.storage.setting" /></th>
+						<th align="left"><fmt:message key="database.storage.value" /></th>
+					</tr>
+					<c:forEach var="setting" items="${storageReport.settings}">
+						<tr>
+							<td>${setting.key}</td>
+							<td>${setting.value}</td>
+						</tr>
+					</c:forEach>
+				</table>
+				<p>
+					<fmt:message key="database.storage.heap.rows">
+						<fmt:param><fmt:formatNumber value="${storageReport.heapRows}" /></fmt:param>
+						<fmt:param><fmt:formatNumber value="${storageReport.rows}" /></fmt:param>
+					</fmt:message>
+					<br />
+					<fmt:message key="database.storage.heap">
+						<fmt:param><fmt:formatNumber value="${storageReport.heapUsed / 1048576}" maxFractionDigits="0" /></fmt:param>
+						<fmt:param><fmt:formatNumber value="${storageReport.heapMax / 1048576}" maxFractionDigits="0" /></fmt:param>
+					</fmt:message>
+				</p>
+			</td>
+		</tr>
+	</table>
+	<br />
+</c:if>
+
 <form:form method="post" action="admin.htm" modelAttribute="adminForm">
 
 	<h3>
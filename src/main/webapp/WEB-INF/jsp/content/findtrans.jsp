@@ -106,6 +106,9 @@
 			<tbody id="transactionBody">
 			</tbody>
 		</table>
+		<button type="button" class="button" id="loadMore" style="display: none;">
+			<fmt:message key="load.more" />
+		</button>
 	</div>
 
 	<div id="errorContainer" style="display: none;">
@@ -123,7 +126,12 @@
 	$(document).ready(
 			function() {
 				
-				function submitCriteria(criteria) {
+				// results are fetched one page at a time, each page continues after the last transaction shown
+				var PAGE_SIZE = 50;
+				var lastSearch = {};
+
+				function submitCriteria(criteria, cursor) {
+					lastSearch = { criteria: criteria };
 					var accountId = $('#accountId').val();
 				    var url = 'services_proxy/bank/accounts/' + accountId + '/transactions/';
 				    if (criteria.searchType === 'DATE') {
@@ -133,11 +141,13 @@
 				    } else if (criteria.searchType === 'AMOUNT') {
 				        url += 'amount/' + criteria.amount;
 				    }
-				    $.get(url, { timeout: 30000 })
+				    $.get(url, cursor ? { cursor: cursor, limit: PAGE_SIZE } : { limit: PAGE_SIZE })
 				        .then(function(response) {
 				        	$('#formContainer').hide();
 							$('#resultContainer').show();
-							displayTransactions(response);
+							displayTransactions(response, !cursor);
+							lastSearch.cursor = response.length > 0 ? response[response.length - 1].id : cursor;
+							$('#loadMore').toggle(response.length == PAGE_SIZE);
 				        })
 				        .catch(function(error) {
 				        	$('#formContainer').hide();
@@ -148,9 +158,11 @@
 				        });
 				}
 
-				function displayTransactions(transactions) {
+				function displayTransactions(transactions, firstPage) {
 					var transactionBody = $('#transactionBody');
-					transactionBody.empty();
+					if (firstPage) {
+						transactionBody.empty();
+					}
 					transactions.forEach(function(transaction) {
 						var formattedDate = formatDate(transaction.date);
 						var transactionRow = $('<tr>');
@@ -187,6 +199,11 @@
 					return formattedAmount;
 				}
 				
+				$("#loadMore").on("click", function(event) {
+					event.preventDefault();
+					submitCriteria(lastSearch.criteria, lastSearch.cursor);
+				});
+
 				$("#findById").on("click", function(event) {
 					event.preventDefault();
 					var criteria = {};
@@ -1,9 +1,16 @@
 package com.parasoft.parabank.dao;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.EmptyResultDataAccessException;
 
 import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Account.AccountType;
+import com.parasoft.parabank.domain.BalanceSummary;
 
 public class InMemoryAccountDao implements AccountDao {
     private static int ID = 0;
@@ -16,7 +23,7 @@ public class InMemoryAccountDao implements AccountDao {
     }
 
     @Override
-    public Account getAccount(int id) {
+    public Account getAccount(long id) {
         for (Account account : accounts) {
             if (account.getId() == id) {
                 return account;
@@ -27,7 +34,7 @@ public class InMemoryAccountDao implements AccountDao {
     }
 
     @Override
-    public List<Account> getAccountsForCustomerId(int customerId) {
+    public List<Account> getAccountsForCustomerId(long customerId) {
         List<Account> customerAccounts = new ArrayList<>();
 
         for (Account account : accounts) {
@@ -40,7 +47,40 @@ public class InMemoryAccountDao implements AccountDao {
     }
 
     @Override
-    public int createAccount(Account account) {
+    public List<Account> getAccounts(Collection<Long> ids) {
+        List<Account> found = new ArrayList<>();
+
+        for (Account account : accounts) {
+            if (ids.contains(account.getId())) {
+                found.add(account);
+            }
+        }
+
+        return found;
+    }
+
+    @Override
+    public BalanceSummary getBalanceSummary(long customerId) {
+        BalanceSummary summary = new BalanceSummary();
+        summary.setCustomerId(customerId);
+        summary.setTotalBalance(BigDecimal.ZERO);
+        summary.setAvailableBalance(BigDecimal.ZERO);
+        summary.setAvailableFunds(BigDecimal.ZERO);
+
+        for (Account account : getAccountsForCustomerId(customerId)) {
+            summary.setTotalBalance(summary.getTotalBalance().add(account.getBalance()));
+            summary.setAvailableBalance(summary.getAvailableBalance().add(account.getAvailableBalance()));
+            if (account.getType() != AccountType.LOAN) {
+                summary.setAvailableFunds(summary.getAvailableFunds().add(account.getBalance()));
+            }
+            summary.setAccountCount(summary.getAccountCount() + 1);
+        }
+
+        return summary;
+    }
+
+    @Override
+    public long createAccount(Account account) {
         account.setId(++ID);
         accounts.add(account);
         return ID;
@@ -56,4 +96,22 @@ public class InMemoryAccountDao implements AccountDao {
             }
         }
     }
+
+    @Override
+    public BigDecimal adjustBalance(long id, BigDecimal amount) {
+        Account account = getAccount(id);
+        if (account == null) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        account.credit(amount);
+        account.setVersion(account.getVersion() + 1);
+        return account.getBalance();
+    }
+
+    @Override
+    public void adjustBalances(Map<Long, BigDecimal> amounts) {
+        for (Map.Entry<Long, BigDecimal> entry : amounts.entrySet()) {
+            adjustBalance(entry.getKey(), entry.getValue());
+        }
+    }
 }
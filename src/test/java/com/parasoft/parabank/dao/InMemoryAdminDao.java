@@ -3,9 +3,13 @@ package com.parasoft.parabank.dao;
 import java.util.HashMap;
 import java.util.Map;
 
-public class InMemoryAdminDao implements AdminDao {
+import com.parasoft.parabank.dao.internal.StorageReport;
+
+public class InMemoryAdminDao implements ParaBankAdminDao {
     private final Map<String, String> parameters;
 
+    private long version;
+
     public InMemoryAdminDao() {
         this(new HashMap<String, String>());
     }
@@ -28,10 +32,30 @@ public class InMemoryAdminDao implements AdminDao {
     @Override
     public void setParameter(String name, String value) {
         parameters.put(name, value);
+        version++;
+    }
+
+    @Override
+    public long setParameters(Map<String, String> parameters) {
+        this.parameters.putAll(parameters);
+        return ++version;
+    }
+
+    @Override
+    public long getParameterVersion() {
+        return version;
     }
 
     @Override
     public Map<String, String> getParameters() {
         return parameters;
     }
+
+    @Override
+    public StorageReport getStorageReport() {
+        return null;
+    }
+
+    @Override
+    public void setStorageProfile(String profile) { }
 }
@@ -21,7 +21,7 @@ public class InMemoryCustomerDao implements CustomerDao {
     }
 
     @Override
-    public Customer getCustomer(int id) {
+    public Customer getCustomer(long id) {
         for (Customer customer : customers) {
             if (customer.getId() == id) {
                 return customer;
@@ -55,7 +55,7 @@ public class InMemoryCustomerDao implements CustomerDao {
     }
 
     @Override
-    public int createCustomer(Customer customer) {
+    public long createCustomer(Customer customer) {
         customer.setId(++ID);
         customers.add(customer);
         return ID;
@@ -1,11 +1,16 @@
 package com.parasoft.parabank.dao;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import com.parasoft.parabank.dao.jdbc.StockPriceStore;
 import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.PositionValuation;
 
 public class InMemoryPositionDao implements PositionDao{
     private static int ID = 0;
@@ -22,7 +27,7 @@ public class InMemoryPositionDao implements PositionDao{
     }
 
     @Override
-    public Position getPosition(int positionId) {
+    public Position getPosition(long positionId) {
         for (Position position : positions) {
             if (position.getPositionId() == positionId) {
                 return position;
@@ -33,7 +38,7 @@ public class InMemoryPositionDao implements PositionDao{
     }
 
     @Override
-    public List<Position> getPositionsForCustomerId(int customerId) {
+    public List<Position> getPositionsForCustomerId(long customerId) {
         List<Position> customerPositions = new ArrayList<>();
 
         for (Position position : positions) {
@@ -46,7 +51,7 @@ public class InMemoryPositionDao implements PositionDao{
     }
 
     @Override
-    public List<HistoryPoint> getPositionHistory(int positionId, Date startDate, Date endDate) {
+    public List<HistoryPoint> getPositionHistory(long positionId, Date startDate, Date endDate) {
         List<HistoryPoint> positionHistory = new ArrayList<>();
 
         for (Position position : positions) {
@@ -61,7 +66,61 @@ public class InMemoryPositionDao implements PositionDao{
     }
 
     @Override
-    public int createPosition(Position position) {
+    public List<HistoryPoint> getPositionHistory(long positionId, Date startDate, Date endDate, Resolution resolution,
+            Integer maxPoints) {
+        String symbol = getPosition(positionId).getSymbol();
+        List<HistoryPoint> daily = new ArrayList<>();
+        for (HistoryPoint historyPoint : history) {
+            if (historyPoint.getSymbol().equals(symbol)) {
+                daily.add(historyPoint);
+            }
+        }
+        return StockPriceStore.rollUp(symbol, daily, startDate, endDate, resolution, maxPoints);
+    }
+
+    @Override
+    public PortfolioValuation getPortfolioValuation(long customerId) {
+        PortfolioValuation valuation = new PortfolioValuation();
+        valuation.setCustomerId(customerId);
+        BigDecimal totalCostBasis = BigDecimal.ZERO;
+        BigDecimal totalMarketValue = BigDecimal.ZERO;
+        for (Position position : getPositionsForCustomerId(customerId)) {
+            HistoryPoint latest = null;
+            for (HistoryPoint historyPoint : history) {
+                if (historyPoint.getSymbol().equals(position.getSymbol())
+                        && (latest == null || historyPoint.getDate().after(latest.getDate()))) {
+                    latest = historyPoint;
+                }
+            }
+            BigDecimal shares = BigDecimal.valueOf(position.getShares());
+            BigDecimal costBasis = position.getPurchasePrice().multiply(shares);
+            BigDecimal marketValue = latest != null ? latest.getClosingPrice().multiply(shares) : costBasis;
+
+            PositionValuation positionValuation = new PositionValuation();
+            positionValuation.setPositionId(position.getPositionId());
+            positionValuation.setSymbol(position.getSymbol());
+            positionValuation.setShares(position.getShares());
+            positionValuation.setPurchasePrice(position.getPurchasePrice());
+            if (latest != null) {
+                positionValuation.setLatestPrice(latest.getClosingPrice());
+                positionValuation.setPriceDate(latest.getDate());
+            }
+            positionValuation.setCostBasis(costBasis);
+            positionValuation.setMarketValue(marketValue);
+            positionValuation.setUnrealizedGain(marketValue.subtract(costBasis));
+            valuation.getPositions().add(positionValuation);
+
+            totalCostBasis = totalCostBasis.add(costBasis);
+            totalMarketValue = totalMarketValue.add(marketValue);
+        }
+        valuation.setCostBasis(totalCostBasis);
+        valuation.setMarketValue(totalMarketValue);
+        valuation.setUnrealizedGain(totalMarketValue.subtract(totalCostBasis));
+        return valuation;
+    }
+
+    @Override
+    public long createPosition(Position position) {
         position.setPositionId(++ID);
         positions.add(position);
         return ID;
@@ -1,7 +1,9 @@
 package com.parasoft.parabank.dao;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.domain.TransactionCriteria;
@@ -21,7 +23,7 @@ public class InMemoryTransactionDao implements TransactionDao {
     }
 
     @Override
-    public Transaction getTransaction(int id) {
+    public Transaction getTransaction(long id) {
         for (Transaction transaction : transactions) {
             if (transaction.getId() == id) {
                 return transaction;
@@ -32,7 +34,7 @@ public class InMemoryTransactionDao implements TransactionDao {
     }
 
     @Override
-    public List<Transaction> getTransactionsForAccount(int accountId) {
+    public List<Transaction> getTransactionsForAccount(long accountId) {
         List<Transaction> accountTransactions = new ArrayList<>();
 
         for (Transaction transaction : transactions) {
@@ -45,7 +47,7 @@ public class InMemoryTransactionDao implements TransactionDao {
     }
 
     @Override
-    public List<Transaction> getTransactionsForAccount(int accountId,
+    public List<Transaction> getTransactionsForAccount(long accountId,
             TransactionCriteria criteria) {
         List<Transaction> accountTransactions = new ArrayList<>();
 
@@ -59,9 +61,51 @@ public class InMemoryTransactionDao implements TransactionDao {
     }
 
     @Override
-    public int createTransaction(Transaction transaction) {
+    public List<Transaction> getTransactionsForAccount(long accountId,
+            TransactionCriteria criteria, Long cursor, int limit) {
+        List<Transaction> accountTransactions = new ArrayList<>();
+
+        boolean afterCursor = cursor == null;
+        for (Transaction transaction : transactions) {
+            if (transaction.getAccountId() == accountId) {
+                if (!afterCursor) {
+                    afterCursor = transaction.getId() == cursor;
+                } else if (accountTransactions.size() < limit) {
+                    accountTransactions.add(transaction);
+                }
+            }
+        }
+
+        return accountTransactions;
+    }
+
+    @Override
+    public int exportTransactions(List<Long> accountIds, Date fromDate, Date toDate,
+            Consumer<Transaction> consumer) {
+        int count = 0;
+        for (Transaction transaction : transactions) {
+            if (accountIds.contains(transaction.getAccountId())
+                    && (fromDate == null || !transaction.getDate().before(fromDate))
+                    && (toDate == null || !transaction.getDate().after(toDate))) {
+                consumer.accept(transaction);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public long createTransaction(Transaction transaction) {
         transaction.setId(++ID);
         transactions.add(transaction);
         return ID;
     }
+
+    @Override
+    public void createTransactions(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            createTransaction(transaction);
+        }
+    }
 }
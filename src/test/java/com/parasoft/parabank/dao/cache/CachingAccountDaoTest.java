@@ -0,0 +1,137 @@
+package com.parasoft.parabank.dao.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.parasoft.parabank.dao.InMemoryAccountDao;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.test.util.AbstractParaBankTest;
+
+public class CachingAccountDaoTest extends AbstractParaBankTest {
+    private static final long ACCOUNT_ID = 1;
+
+    private InMemoryAccountDao accountDao;
+
+    private EntityCaches caches;
+
+    private CachingAccountDao cachingAccountDao;
+
+    private EntityCache<Account> cache;
+
+    @Before
+    public void setUpCache() {
+        final List<Account> accounts = new ArrayList<>();
+        final Account account = new Account();
+        account.setId(ACCOUNT_ID);
+        account.setBalance(new BigDecimal("100.00"));
+        accounts.add(account);
+        accountDao = new InMemoryAccountDao(accounts);
+
+        caches = new EntityCaches();
+        caches.setMaxEntries(100);
+        cachingAccountDao = new CachingAccountDao(accountDao, caches);
+        cache = cachingAccountDao.getCache();
+    }
+
+    @After
+    public void destroyCache() {
+        caches.destroy();
+    }
+
+    @Test
+    public void testGetAccount() {
+        final Account first = cachingAccountDao.getAccount(ACCOUNT_ID);
+        final Account second = cachingAccountDao.getAccount(ACCOUNT_ID);
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        // changing a returned account does not change the cache
+        first.setBalance(BigDecimal.ZERO);
+        assertEquals(new BigDecimal("100.00"), cachingAccountDao.getAccount(ACCOUNT_ID).getBalance());
+    }
+
+    @Test
+    public void testInvalidation() {
+        cachingAccountDao.getAccount(ACCOUNT_ID);
+        cachingAccountDao.adjustBalance(ACCOUNT_ID, new BigDecimal("10.00"));
+        assertEquals(new BigDecimal("110.00"), cachingAccountDao.getAccount(ACCOUNT_ID).getBalance());
+
+        cachingAccountDao.adjustBalances(Collections.singletonMap(ACCOUNT_ID, new BigDecimal("10.00")));
+        assertEquals(new BigDecimal("120.00"), cachingAccountDao.getAccount(ACCOUNT_ID).getBalance());
+
+        final Account account = cachingAccountDao.getAccount(ACCOUNT_ID);
+        account.setBalance(new BigDecimal("5.00"));
+        cachingAccountDao.updateAccount(account);
+        assertEquals(new BigDecimal("5.00"), cachingAccountDao.getAccount(ACCOUNT_ID).getBalance());
+        assertEquals(3, cache.getInvalidationCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testChangeInTransaction() {
+        cachingAccountDao.getAccount(ACCOUNT_ID);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cachingAccountDao.adjustBalance(ACCOUNT_ID, new BigDecimal("10.00"));
+            // the changed account is read from the data source until the transaction completes
+            cachingAccountDao.getAccount(ACCOUNT_ID);
+            cachingAccountDao.getAccount(ACCOUNT_ID);
+            assertEquals(3, cache.getMissCount());
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(new BigDecimal("110.00"), cachingAccountDao.getAccount(ACCOUNT_ID).getBalance());
+        cachingAccountDao.getAccount(ACCOUNT_ID);
+        assertEquals(4, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // a change made behind the cache's back within the transaction
+            accountDao.getAccount(ACCOUNT_ID).setBalance(new BigDecimal("999.00"));
+            assertEquals(new BigDecimal("999.00"), cachingAccountDao.getAccount(ACCOUNT_ID).getBalance());
+            accountDao.getAccount(ACCOUNT_ID).setBalance(new BigDecimal("100.00"));
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // entities loaded by the rolled back transaction are not served from the cache
+        assertEquals(new BigDecimal("100.00"), cachingAccountDao.getAccount(ACCOUNT_ID).getBalance());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testClear() {
+        cachingAccountDao.getAccount(ACCOUNT_ID);
+        caches.clear();
+        cachingAccountDao.getAccount(ACCOUNT_ID);
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, caches.getCaches().size());
+    }
+
+    private static void complete(final int status) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+            status);
+    }
+}
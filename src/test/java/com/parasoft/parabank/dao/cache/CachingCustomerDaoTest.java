@@ -0,0 +1,101 @@
+package com.parasoft.parabank.dao.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.parasoft.parabank.dao.InMemoryCustomerDao;
+import com.parasoft.parabank.domain.Customer;
+import com.parasoft.parabank.test.util.AbstractParaBankTest;
+
+public class CachingCustomerDaoTest extends AbstractParaBankTest {
+    private static final int CUSTOMER_ID = 1;
+
+    private static final String USERNAME = "john";
+
+    private static final String PASSWORD = "demo";
+
+    private EntityCaches caches;
+
+    private CachingCustomerDao cachingCustomerDao;
+
+    private CredentialCache credentials;
+
+    @Before
+    public void setUpCache() {
+        final List<Customer> customers = new ArrayList<>();
+        customers.add(customer(CUSTOMER_ID, USERNAME, PASSWORD));
+
+        caches = new EntityCaches();
+        caches.setMaxEntries(100);
+        cachingCustomerDao = new CachingCustomerDao(new InMemoryCustomerDao(customers), caches);
+        credentials = cachingCustomerDao.getCredentialCache();
+    }
+
+    @After
+    public void destroyCache() {
+        caches.destroy();
+    }
+
+    @Test
+    public void testAcceptedCredentials() {
+        assertEquals(CUSTOMER_ID, cachingCustomerDao.getCustomer(USERNAME, PASSWORD).getId());
+        assertEquals(CUSTOMER_ID, cachingCustomerDao.getCustomer(USERNAME, PASSWORD).getId());
+        assertEquals(1, credentials.getMissCount());
+        assertEquals(1, credentials.getHitCount());
+
+        // the password is part of the key
+        assertNull(cachingCustomerDao.getCustomer(USERNAME, "wrong"));
+        assertEquals(2, credentials.getMissCount());
+    }
+
+    @Test
+    public void testRejectedCredentials() {
+        assertNull(cachingCustomerDao.getCustomer(USERNAME, "wrong"));
+        assertNull(cachingCustomerDao.getCustomer(USERNAME, "wrong"));
+        assertEquals(1, credentials.getMissCount());
+        assertEquals(1, credentials.getRejectionCount());
+    }
+
+    @Test
+    public void testUpdateCustomer() {
+        cachingCustomerDao.getCustomer(USERNAME, PASSWORD);
+        assertNull(cachingCustomerDao.getCustomer(USERNAME, "secret"));
+
+        cachingCustomerDao.updateCustomer(customer(CUSTOMER_ID, USERNAME, "secret"));
+        assertNull(cachingCustomerDao.getCustomer(USERNAME, PASSWORD));
+        assertEquals(CUSTOMER_ID, cachingCustomerDao.getCustomer(USERNAME, "secret").getId());
+        assertEquals(0, credentials.getHitCount());
+    }
+
+    @Test
+    public void testCreateCustomer() {
+        assertNull(cachingCustomerDao.getCustomer("jane", PASSWORD));
+        final long id = cachingCustomerDao.createCustomer(customer(0, "jane", PASSWORD));
+        assertEquals(id, cachingCustomerDao.getCustomer("jane", PASSWORD).getId());
+        assertEquals(0, credentials.getRejectionCount());
+    }
+
+    @Test
+    public void testClear() {
+        cachingCustomerDao.getCustomer(USERNAME, PASSWORD);
+        caches.clear();
+        cachingCustomerDao.getCustomer(USERNAME, PASSWORD);
+        assertEquals(2, credentials.getMissCount());
+        assertEquals(1, caches.getCredentialCaches().size());
+    }
+
+    private static Customer customer(final long id, final String username, final String password) {
+        final Customer customer = new Customer();
+        customer.setId(id);
+        customer.setUsername(username);
+        customer.setPassword(password);
+        return customer;
+    }
+}
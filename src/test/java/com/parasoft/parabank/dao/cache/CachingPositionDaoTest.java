@@ -0,0 +1,97 @@
+package com.parasoft.parabank.dao.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.parasoft.parabank.dao.InMemoryPositionDao;
+import com.parasoft.parabank.dao.jdbc.StockPriceStore;
+import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.PortfolioValuation;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.test.util.AbstractParaBankTest;
+
+public class CachingPositionDaoTest extends AbstractParaBankTest {
+    private static final int CUSTOMER_ID = 1;
+
+    private static final String SYMBOL = "TC";
+
+    private EntityCaches caches;
+
+    private CachingPositionDao cachingPositionDao;
+
+    private EntityCache<PortfolioValuation> cache;
+
+    private StockPriceStore stockPriceStore;
+
+    @Before
+    public void setUpCache() {
+        final List<Position> positions = new ArrayList<>();
+        final Position position = new Position();
+        position.setPositionId(1);
+        position.setCustomerId(CUSTOMER_ID);
+        position.setSymbol(SYMBOL);
+        position.setShares(10);
+        position.setPurchasePrice(new BigDecimal("20.00"));
+        positions.add(position);
+
+        final List<HistoryPoint> history = new ArrayList<>();
+        final HistoryPoint historyPoint = new HistoryPoint();
+        historyPoint.setSymbol(SYMBOL);
+        historyPoint.setDate(java.sql.Date.valueOf("2024-01-02"));
+        historyPoint.setClosingPrice(new BigDecimal("25.00"));
+        history.add(historyPoint);
+
+        caches = new EntityCaches();
+        caches.setMaxEntries(100);
+        cachingPositionDao = new CachingPositionDao(new InMemoryPositionDao(positions, history), caches);
+        cache = cachingPositionDao.getValuationCache();
+        stockPriceStore = new StockPriceStore();
+        stockPriceStore.clear();
+        cachingPositionDao.setStockPriceStore(stockPriceStore);
+    }
+
+    @After
+    public void destroyCache() {
+        caches.destroy();
+    }
+
+    @Test
+    public void testGetPortfolioValuation() {
+        final PortfolioValuation first = cachingPositionDao.getPortfolioValuation(CUSTOMER_ID);
+        final PortfolioValuation second = cachingPositionDao.getPortfolioValuation(CUSTOMER_ID);
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertNotSame(first.getPositions().get(0), second.getPositions().get(0));
+        assertEquals(new BigDecimal("250.00"), first.getMarketValue());
+        assertEquals(new BigDecimal("50.00"), first.getUnrealizedGain());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testPositionChange() {
+        cachingPositionDao.getPortfolioValuation(CUSTOMER_ID);
+        final Position position = cachingPositionDao.getPosition(1);
+        position.setShares(20);
+        cachingPositionDao.updatePosition(position);
+        assertEquals(new BigDecimal("500.00"), cachingPositionDao.getPortfolioValuation(CUSTOMER_ID).getMarketValue());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testPriceChange() {
+        cachingPositionDao.getPortfolioValuation(CUSTOMER_ID);
+        stockPriceStore.add(SYMBOL, new int[] { 0 }, new long[] { 250000 });
+        cachingPositionDao.getPortfolioValuation(CUSTOMER_ID);
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+}
@@ -5,17 +5,36 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import jakarta.annotation.Resource;
 
 import org.junit.Test;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.parasoft.parabank.dao.AccountDao;
+import com.parasoft.parabank.dao.jdbc.internal.SchemaMigrator;
 import com.parasoft.parabank.domain.Account;
 import com.parasoft.parabank.domain.Account.AccountType;
+import com.parasoft.parabank.domain.BalanceSummary;
 import com.parasoft.parabank.test.util.AbstractParaBankDataSourceTest;
 
 /**
@@ -57,7 +76,7 @@ public class JdbcAccountDaoTest extends AbstractParaBankDataSourceTest {
 
     @Test
     public void testCreateAccount() {
-        final int id = accountDao.createAccount(account);
+        final long id = accountDao.createAccount(account);
         assertEquals("wrong expected id?", 13566, id);
 
         final Account account = accountDao.getAccount(id);
@@ -93,7 +112,7 @@ public class JdbcAccountDaoTest extends AbstractParaBankDataSourceTest {
 
     @Test
     public void testUpdateAccount() {
-        final int id = accountDao.createAccount(account);
+        final long id = accountDao.createAccount(account);
 
         final Account account = accountDao.getAccount(id);
         assertFalse(this.account == account);
@@ -111,4 +130,191 @@ public class JdbcAccountDaoTest extends AbstractParaBankDataSourceTest {
         assertFalse(this.account.equals(updatedAccount));
         assertEquals(account, updatedAccount);
     }
+
+    @Test
+    public void testAdjustBalance() {
+        final long id = accountDao.createAccount(account);
+
+        assertEquals(new BigDecimal("22322.50"), accountDao.adjustBalance(id, new BigDecimal("100.50")));
+        assertEquals(new BigDecimal("22222.25"), accountDao.adjustBalance(id, new BigDecimal("-100.25")));
+
+        final Account updatedAccount = accountDao.getAccount(id);
+        assertEquals(new BigDecimal("22222.25"), updatedAccount.getBalance());
+        assertEquals(2, updatedAccount.getVersion());
+
+        try {
+            accountDao.adjustBalance(-1, BigDecimal.ONE);
+            fail("did not throw expected EmptyResultDataAccessException");
+        } catch (final EmptyResultDataAccessException e) {
+        }
+    }
+
+    @Test
+    public void testUpdateStaleAccount() {
+        final long id = accountDao.createAccount(account);
+        final Account staleAccount = accountDao.getAccount(id);
+
+        accountDao.adjustBalance(id, new BigDecimal("100.00"));
+        staleAccount.setType(AccountType.CHECKING);
+        try {
+            accountDao.updateAccount(staleAccount);
+            fail("did not throw expected OptimisticLockingFailureException");
+        } catch (final OptimisticLockingFailureException e) {
+        }
+        assertEquals(new BigDecimal("22322.00"), accountDao.getAccount(id).getBalance());
+    }
+
+    @Test
+    public void testGetAccounts() {
+        final List<Account> accounts = accountDao.getAccounts(Arrays.asList(13455L, 13566L, -1L));
+        assertEquals(1, accounts.size());
+        assertEquals(13455, accounts.get(0).getId());
+    }
+
+    @Test
+    public void testAdjustBalances() {
+        final long id = accountDao.createAccount(account);
+        final Map<Long, BigDecimal> amounts = new HashMap<>();
+        amounts.put(id, new BigDecimal("-22.00"));
+        amounts.put(13455L, new BigDecimal("22.00"));
+
+        accountDao.adjustBalances(amounts);
+        assertEquals(new BigDecimal("22200.00"), accountDao.getAccount(id).getBalance());
+        assertEquals(new BigDecimal("2036.76"), accountDao.getAccount(13455).getBalance());
+
+        amounts.put(-1L, BigDecimal.ONE);
+        try {
+            accountDao.adjustBalances(amounts);
+            fail("did not throw expected EmptyResultDataAccessException");
+        } catch (final EmptyResultDataAccessException e) {
+        }
+    }
+
+    @Test
+    public void testGetBalanceSummary() {
+        BalanceSummary summary = accountDao.getBalanceSummary(12212);
+        assertEquals(12212, summary.getCustomerId());
+        assertEquals(new BigDecimal("1692.67"), summary.getTotalBalance());
+        assertEquals(new BigDecimal("4092.67"), summary.getAvailableBalance());
+        assertEquals(new BigDecimal("1692.67"), summary.getAvailableFunds());
+        assertEquals(11, summary.getAccountCount());
+
+        summary = accountDao.getBalanceSummary(-1);
+        assertEquals(new BigDecimal("0.00"), summary.getTotalBalance());
+        assertEquals(0, summary.getAccountCount());
+    }
+
+    @Test
+    public void testBalanceSummaryFollowsChanges() {
+        final long id = accountDao.createAccount(account);
+        assertSummary(CUSTOMER_ID, "24236.76", "24236.76", "24236.76", 2);
+
+        accountDao.adjustBalance(id, new BigDecimal("-30000.00"));
+        assertSummary(CUSTOMER_ID, "-5763.24", "2014.76", "-5763.24", 2);
+
+        final Account loan = new Account();
+        loan.setCustomerId(CUSTOMER_ID);
+        loan.setType(AccountType.LOAN);
+        loan.setBalance(new BigDecimal("500.00"));
+        final long loanId = accountDao.createAccount(loan);
+        assertSummary(CUSTOMER_ID, "-5263.24", "2514.76", "-5763.24", 3);
+
+        final Map<Long, BigDecimal> amounts = new HashMap<>();
+        amounts.put(id, new BigDecimal("8000.00"));
+        amounts.put(loanId, new BigDecimal("-100.00"));
+        accountDao.adjustBalances(amounts);
+        assertSummary(CUSTOMER_ID, "2636.76", "2636.76", "2236.76", 3);
+
+        final Account moved = accountDao.getAccount(id);
+        moved.setCustomerId(12212);
+        accountDao.updateAccount(moved);
+        assertSummary(CUSTOMER_ID, "2414.76", "2414.76", "2014.76", 2);
+        assertSummary(12212, "1914.67", "4314.67", "1914.67", 12);
+
+        accountDao.adjustBalance(13455, new BigDecimal("1.00"));
+        assertSummary(CUSTOMER_ID, "2415.76", "2415.76", "2015.76", 2);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testOppositeTransfersUnderMvcc() throws Exception {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:balances", "sa", "");
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final JdbcSequenceDao sequenceDao = new JdbcSequenceDao();
+            sequenceDao.setDataSource(dataSource);
+            sequenceDao.afterPropertiesSet();
+            final SchemaMigrator schemaMigrator = new SchemaMigrator();
+            schemaMigrator.setDataSource(dataSource);
+            schemaMigrator.afterPropertiesSet();
+            final JdbcAdminDao adminDao = new JdbcAdminDao();
+            adminDao.setDataSource(dataSource);
+            adminDao.setSequenceDao(sequenceDao);
+            adminDao.setSchemaMigrator(schemaMigrator);
+            adminDao.setInserters(Collections.emptyList());
+            adminDao.afterPropertiesSet();
+            adminDao.initializeDB();
+            jdbcTemplate.execute("SET DATABASE TRANSACTION CONTROL MVCC");
+
+            final JdbcAccountDao mvccAccountDao = new JdbcAccountDao();
+            mvccAccountDao.setDataSource(dataSource);
+            mvccAccountDao.setSequenceDao(sequenceDao);
+            mvccAccountDao.afterPropertiesSet();
+            final long otherAccountId = mvccAccountDao.createAccount(account);
+            final TransactionTemplate transactionTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+            // each transfer holds the summary of one customer while it changes an account of the other
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            final Future<?> forth = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                mvccAccountDao.adjustBalance(12345, new BigDecimal("-10.00"));
+                await(barrier);
+                mvccAccountDao.adjustBalance(13455, new BigDecimal("10.00"));
+            }));
+            final Future<?> back = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                mvccAccountDao.adjustBalance(otherAccountId, new BigDecimal("-5.00"));
+                await(barrier);
+                mvccAccountDao.adjustBalance(12456, new BigDecimal("5.00"));
+            }));
+            forth.get(30, TimeUnit.SECONDS);
+            back.get(30, TimeUnit.SECONDS);
+
+            for (final long customerId : new long[] { 12212, CUSTOMER_ID }) {
+                assertEquals(jdbcTemplate.queryForObject("SELECT SUM(balance) FROM Account WHERE customer_id = ?",
+                    BigDecimal.class, customerId).setScale(2), mvccAccountDao.getBalanceSummary(customerId)
+                        .getTotalBalance());
+            }
+            assertEquals(new BigDecimal("1687.67"), mvccAccountDao.getBalanceSummary(12212).getTotalBalance());
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+    }
+
+    private static void await(final CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Check the summary and that it matches the accounts it summarizes
+     */
+    private void assertSummary(final long customerId, final String totalBalance, final String availableBalance,
+        final String availableFunds, final int accountCount) {
+        final BalanceSummary summary = accountDao.getBalanceSummary(customerId);
+        assertEquals(new BigDecimal(totalBalance), summary.getTotalBalance());
+        assertEquals(new BigDecimal(availableBalance), summary.getAvailableBalance());
+        assertEquals(new BigDecimal(availableFunds), summary.getAvailableFunds());
+        assertEquals(accountCount, summary.getAccountCount());
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (final Account account : accountDao.getAccountsForCustomerId(customerId)) {
+            total = total.add(account.getBalance());
+        }
+        assertEquals(total, summary.getTotalBalance());
+    }
 }
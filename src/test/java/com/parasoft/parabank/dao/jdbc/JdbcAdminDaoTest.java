@@ -2,9 +2,14 @@ package com.parasoft.parabank.dao.jdbc;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 
 import jakarta.annotation.Resource;
@@ -16,6 +21,8 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.test.annotation.Commit;
 
 import com.parasoft.parabank.dao.AdminDao;
+import com.parasoft.parabank.dao.ParaBankAdminDao;
+import com.parasoft.parabank.dao.jdbc.internal.DatabaseSnapshot;
 import com.parasoft.parabank.test.util.AbstractAdminOperationsTest;
 
 /**
@@ -29,11 +36,11 @@ public class JdbcAdminDaoTest extends AbstractAdminOperationsTest {
     private static final String EXPECTED_VALUE = "20";
 
     @Resource(name = "adminDao")
-    private AdminDao adminDao;
+    private ParaBankAdminDao adminDao;
 
     @Override
     public void setAdminDao(final AdminDao adminDao) {
-        this.adminDao = adminDao;
+        this.adminDao = (ParaBankAdminDao) adminDao;
     }
 
     @Test
@@ -41,12 +48,48 @@ public class JdbcAdminDaoTest extends AbstractAdminOperationsTest {
         assertDBClean(() -> adminDao.cleanDB());
     }
 
+    @Test
+    public void test006CleanDBFromSnapshot() throws Exception {
+        assertDBClean(() -> adminDao.cleanDB());
+        assertNotNull(((JdbcAdminDao) adminDao).getResetSnapshot());
+        assertDBClean(() -> adminDao.cleanDB());
+    }
+
     @Test
     @Commit
     public void test010InitalizeDB() throws Exception {
         assertDBInitialized(() -> adminDao.initializeDB());
     }
 
+    @Test
+    @Commit
+    public void test015InitalizeDBFromSnapshot() throws Exception {
+        final DatabaseSnapshot snapshot = ((JdbcAdminDao) adminDao).getInitializedSnapshot();
+        assertNotNull(snapshot);
+        assertTrue(snapshot.getTables().contains("STOCK"));
+        assertTrue(
+            snapshot.getRowCount() < getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM Stock", Integer.class));
+        getJdbcTemplate().update("DELETE FROM Transaction");
+        assertDBInitialized(() -> adminDao.initializeDB());
+        assertSame(snapshot, ((JdbcAdminDao) adminDao).getInitializedSnapshot());
+        // the price history is generated again instead of restored
+        assertTrue(getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM Stock", Integer.class) > 0);
+    }
+
+    @Test
+    @Commit
+    public void test016InitalizeDBOnNextDay() throws Exception {
+        final JdbcAdminDao jdbcAdminDao = (JdbcAdminDao) adminDao;
+        final DatabaseSnapshot snapshot = jdbcAdminDao.getInitializedSnapshot();
+        jdbcAdminDao.setClock(Clock.offset(Clock.systemDefaultZone(), Duration.ofDays(1)));
+        try {
+            assertDBInitialized(() -> adminDao.initializeDB());
+        } finally {
+            jdbcAdminDao.setClock(Clock.systemDefaultZone());
+        }
+        assertNotSame(snapshot, jdbcAdminDao.getInitializedSnapshot());
+    }
+
     @Test
     public void test020SetParameter() {
         final String newValue = "30";
@@ -56,6 +99,19 @@ public class JdbcAdminDaoTest extends AbstractAdminOperationsTest {
         assertEquals(newValue, adminDao.getParameter(TEST_PARAMETER));
     }
 
+    @Test
+    public void test025SetParameters() {
+        final long version = adminDao.getParameterVersion();
+        final Map<String, String> parameters = new HashMap<>();
+        parameters.put(TEST_PARAMETER, "30");
+        parameters.put("newParameter", "new value");
+
+        assertEquals(version + 1, adminDao.setParameters(parameters));
+        assertEquals(version + 1, adminDao.getParameterVersion());
+        assertEquals("30", adminDao.getParameter(TEST_PARAMETER));
+        assertEquals("new value", adminDao.getParameter("newParameter"));
+    }
+
     @Test
     public void test030GetParameters() {
         final Map<String, String> parameters = adminDao.getParameters();
@@ -82,7 +82,7 @@ public class JdbcCustomerDaoTest extends AbstractParaBankDataSourceTest {
 
     @Test
     public void testCreateCustomer() {
-        final int id = customerDao.createCustomer(customer);
+        final long id = customerDao.createCustomer(customer);
         assertEquals("wrong expected id?", 12434, id);
 
         final Customer customer = customerDao.getCustomer(id);
@@ -127,7 +127,7 @@ public class JdbcCustomerDaoTest extends AbstractParaBankDataSourceTest {
 
     @Test
     public void testUpdateCustomer() {
-        final int id = customerDao.createCustomer(customer);
+        final long id = customerDao.createCustomer(customer);
 
         final Customer customer = customerDao.getCustomer(id);
         assertFalse(this.customer == customer);
@@ -2,11 +2,14 @@ package com.parasoft.parabank.dao.jdbc;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 
 import jakarta.annotation.Resource;
@@ -19,7 +22,9 @@ import org.springframework.dao.DataAccessException;
 import com.parasoft.parabank.dao.PositionDao;
 import com.parasoft.parabank.dao.jdbc.internal.StockDataInserter;
 import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.PositionValuation;
 import com.parasoft.parabank.service.ParaBankServiceImplTest;
 import com.parasoft.parabank.test.util.AbstractParaBankDataSourceTest;
 
@@ -71,7 +76,7 @@ public class JdbcPositionDaoTest extends AbstractParaBankDataSourceTest {
         setUpPosition.setShares(SHARES);
         setUpPosition.setPurchasePrice(PURCHASEPRICE);
 
-        final int positionId = positionDao.createPosition(setUpPosition);
+        final long positionId = positionDao.createPosition(setUpPosition);
         assertEquals("wrong expected id?", 13017, positionId);
 
         final Position position = positionDao.getPosition(positionId);
@@ -87,7 +92,7 @@ public class JdbcPositionDaoTest extends AbstractParaBankDataSourceTest {
         setUpPosition.setShares(SHARES);
         setUpPosition.setPurchasePrice(PURCHASEPRICE);
 
-        final int positionId = positionDao.createPosition(setUpPosition);
+        final long positionId = positionDao.createPosition(setUpPosition);
 
         Position position = positionDao.getPosition(positionId);
         assertEquals(setUpPosition, position);
@@ -141,6 +146,55 @@ public class JdbcPositionDaoTest extends AbstractParaBankDataSourceTest {
         }
     }
 
+    @Test
+    public void testGetPositionHistoryFromStore() {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, -1);
+        final Date endDate = calendar.getTime();
+        calendar.add(Calendar.DAY_OF_MONTH, -10);
+        final Date startDate = calendar.getTime();
+        final List<HistoryPoint> expected = positionDao.getPositionHistory(12345, startDate, endDate);
+
+        final StockPriceStore store = new StockPriceStore();
+        store.setDataSource(getDataSource());
+        store.reload();
+        assertEquals(getJdbcTemplate().queryForObject("SELECT count(*) FROM Stock", Integer.class).intValue(),
+            store.getPriceCount());
+        final List<HistoryPoint> history = store.getHistory("AAR", startDate, endDate);
+        assertEquals(new HashSet<>(expected), new HashSet<>(history));
+        assertEquals(expected.size(), history.size());
+    }
+
+    @Test
+    public void testGetPortfolioValuation() {
+        final PortfolioValuation valuation = positionDao.getPortfolioValuation(CUSTOMER_ID);
+        assertEquals(CUSTOMER_ID, valuation.getCustomerId());
+        assertEquals("wrong number of positions?", 3, valuation.getPositions().size());
+
+        BigDecimal costBasis = BigDecimal.ZERO;
+        BigDecimal marketValue = BigDecimal.ZERO;
+        for (final PositionValuation position : valuation.getPositions()) {
+            final BigDecimal latestPrice = getJdbcTemplate().queryForObject(
+                "SELECT closing_price FROM Stock WHERE symbol = ? ORDER BY date DESC LIMIT 1", BigDecimal.class,
+                position.getSymbol());
+            assertEquals(0, latestPrice.compareTo(position.getLatestPrice()));
+            assertNotNull(position.getPriceDate());
+            final BigDecimal shares = BigDecimal.valueOf(position.getShares());
+            assertEquals(0, position.getPurchasePrice().multiply(shares).compareTo(position.getCostBasis()));
+            assertEquals(0, latestPrice.multiply(shares).compareTo(position.getMarketValue()));
+            assertEquals(position.getMarketValue().subtract(position.getCostBasis()), position.getUnrealizedGain());
+            costBasis = costBasis.add(position.getCostBasis());
+            marketValue = marketValue.add(position.getMarketValue());
+        }
+        assertEquals(costBasis, valuation.getCostBasis());
+        assertEquals(marketValue, valuation.getMarketValue());
+        assertEquals(marketValue.subtract(costBasis), valuation.getUnrealizedGain());
+
+        final PortfolioValuation empty = positionDao.getPortfolioValuation(-1);
+        assertTrue(empty.getPositions().isEmpty());
+        assertEquals(0, BigDecimal.ZERO.compareTo(empty.getMarketValue()));
+    }
+
     @Test
     public void testGetPositionsForCustomerId() {
         List<Position> positions = positionDao.getPositionsForCustomerId(12212);
@@ -159,7 +213,7 @@ public class JdbcPositionDaoTest extends AbstractParaBankDataSourceTest {
         setUpPosition.setShares(SHARES);
         setUpPosition.setPurchasePrice(PURCHASEPRICE);
 
-        final int positionId = positionDao.createPosition(setUpPosition);
+        final long positionId = positionDao.createPosition(setUpPosition);
 
         final Position position = positionDao.getPosition(positionId);
         assertEquals(setUpPosition, position);
@@ -3,10 +3,15 @@ package com.parasoft.parabank.dao.jdbc;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.util.Collections;
+
 import jakarta.annotation.Resource;
 
 import org.junit.Test;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.parasoft.parabank.test.util.AbstractParaBankDataSourceTest;
 
@@ -42,4 +47,66 @@ public class JdbcSequenceDaoTest extends AbstractParaBankDataSourceTest {
         } catch (final DataAccessException e) {
         }
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testBlockAllocation() throws Exception {
+        getJdbcTemplate().update("INSERT INTO Sequence (name, next_id) VALUES ('BlockTest', 1000)");
+        try {
+            final JdbcSequenceDao blockDao = new JdbcSequenceDao();
+            blockDao.setDataSource(getDataSource());
+            blockDao.setBlockSizes(Collections.singletonMap("BlockTest", 5));
+            blockDao.afterPropertiesSet();
+
+            for (int i = 0; i < 12; i++) {
+                assertEquals(1000 + i * JdbcSequenceDao.OFFSET, blockDao.getNextId("BlockTest"));
+            }
+            assertEquals(3, blockDao.getRefillCount("BlockTest"));
+            assertEquals(9, blockDao.getHitCount("BlockTest"));
+            assertEquals(1000 + 15 * JdbcSequenceDao.OFFSET, blockDao.getCurrentId("BlockTest"));
+
+            blockDao.reset();
+            assertEquals(1000 + 15 * JdbcSequenceDao.OFFSET, blockDao.getNextId("BlockTest"));
+        } finally {
+            getJdbcTemplate().update("DELETE FROM Sequence WHERE name = 'BlockTest'");
+        }
+    }
+
+    @Test
+    public void testReserveIds() {
+        final long first = sequenceDao.reserveIds("Customer", 100);
+        assertEquals(12434, first);
+        assertEquals(first + 100 * JdbcSequenceDao.OFFSET, sequenceDao.getCurrentId("Customer"));
+        assertEquals(first + 100 * JdbcSequenceDao.OFFSET, sequenceDao.getNextId("Customer"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testInt32Compatible() throws Exception {
+        final long start = Integer.MAX_VALUE - JdbcSequenceDao.OFFSET;
+        getJdbcTemplate().update("INSERT INTO Sequence (name, next_id) VALUES ('WideTest', ?)", start);
+        try {
+            final JdbcSequenceDao int32Dao = new JdbcSequenceDao();
+            int32Dao.setDataSource(getDataSource());
+            int32Dao.setInt32Compatible(true);
+            int32Dao.afterPropertiesSet();
+
+            assertEquals(start, int32Dao.getNextId("WideTest"));
+            assertEquals(Integer.MAX_VALUE, int32Dao.getNextId("WideTest"));
+            try {
+                int32Dao.getNextId("WideTest");
+                fail("did not throw expected DataIntegrityViolationException");
+            } catch (final DataIntegrityViolationException e) {
+            }
+            // the failed reservation left the sequence alone
+            assertEquals((long) Integer.MAX_VALUE + JdbcSequenceDao.OFFSET, int32Dao.getCurrentId("WideTest"));
+
+            final JdbcSequenceDao wideDao = new JdbcSequenceDao();
+            wideDao.setDataSource(getDataSource());
+            wideDao.afterPropertiesSet();
+            assertEquals((long) Integer.MAX_VALUE + JdbcSequenceDao.OFFSET, wideDao.getNextId("WideTest"));
+        } finally {
+            getJdbcTemplate().update("DELETE FROM Sequence WHERE name = 'WideTest'");
+        }
+    }
 }
@@ -6,6 +6,8 @@ import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
 import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 
@@ -73,7 +75,7 @@ public class JdbcTransactionDaoTest extends AbstractParaBankDataSourceTest {
     @Test
     @Rollback
     public void testCreateTransaction() {
-        final int id = transactionDao.createTransaction(transaction);
+        final long id = transactionDao.createTransaction(transaction);
         assertEquals("wrong expected id?", 14476, id);
 
         final Transaction transaction = transactionDao.getTransaction(id);
@@ -81,6 +83,22 @@ public class JdbcTransactionDaoTest extends AbstractParaBankDataSourceTest {
         assertEquals(this.transaction, transaction);
     }
 
+    @Test
+    public void testCreateTransactions() {
+        final Transaction second = new Transaction();
+        second.setAccountId(transaction.getAccountId());
+        second.setType(TransactionType.Credit);
+        second.setDate(transaction.getDate());
+        second.setAmount(transaction.getAmount());
+        second.setDescription("second");
+
+        transactionDao.createTransactions(Arrays.asList(transaction, second));
+        assertEquals(14476, transaction.getId());
+        assertEquals(14476 + JdbcSequenceDao.OFFSET, second.getId());
+        assertEquals(transaction, transactionDao.getTransaction(transaction.getId()));
+        assertEquals(second, transactionDao.getTransaction(second.getId()));
+    }
+
     @Test
     public void testGetTransaction() {
         final Calendar c = Calendar.getInstance();
@@ -115,6 +133,55 @@ public class JdbcTransactionDaoTest extends AbstractParaBankDataSourceTest {
         assertEquals(0, transactions.size());
     }
 
+    @Test
+    public void testGetTransactionsForAccountPaged() {
+        final List<Transaction> all = transactionDao.getTransactionsForAccount(12345);
+
+        List<Transaction> page = transactionDao.getTransactionsForAccount(12345, null, null, 3);
+        assertEquals(all.subList(0, 3), page);
+
+        page = transactionDao.getTransactionsForAccount(12345, null, page.get(2).getId(), 3);
+        assertEquals(all.subList(3, 6), page);
+
+        page = transactionDao.getTransactionsForAccount(12345, null, page.get(2).getId(), 3);
+        assertEquals(all.subList(6, 7), page);
+
+        page = transactionDao.getTransactionsForAccount(12345, null, all.get(6).getId(), 3);
+        assertEquals(0, page.size());
+
+        final TransactionCriteria criteria = new TransactionCriteria();
+        criteria.setSearchType(SearchType.ACTIVITY);
+        criteria.setTransactionType(TransactionType.Debit.name());
+        assertEquals(transactionDao.getTransactionsForAccount(12345, criteria).subList(0, 2),
+            transactionDao.getTransactionsForAccount(12345, criteria, null, 2));
+
+        try {
+            transactionDao.getTransactionsForAccount(12345, null, -1L, 3);
+            fail("did not throw expected DataAccessException");
+        } catch (final DataAccessException e) {
+        }
+    }
+
+    @Test
+    public void testExportTransactions() {
+        final List<Transaction> exported = new ArrayList<>();
+        assertEquals(7, transactionDao.exportTransactions(Arrays.asList(12345L), null, null, exported::add));
+        assertEquals(transactionDao.getTransactionsForAccount(12345), exported);
+
+        final int both = transactionDao.exportTransactions(Arrays.asList(12345L, 12456L), null, null, t -> { });
+        assertEquals(7 + transactionDao.getTransactionsForAccount(12456).size(), both);
+
+        exported.clear();
+        final Date onDate = new Date(transactionDao.getTransaction(12256).getDate().getTime());
+        transactionDao.exportTransactions(Arrays.asList(12345L), onDate, onDate, exported::add);
+        assertFalse(exported.isEmpty());
+        for (final Transaction t : exported) {
+            assertEquals(onDate.toString(), t.getDate().toString());
+        }
+
+        assertEquals(0, transactionDao.exportTransactions(new ArrayList<>(), null, null, t -> fail()));
+    }
+
     @Test
     public void testGetTransactionsForAccountWithActivityCriterion() {
         final TransactionCriteria criteria = new TransactionCriteria();
@@ -227,11 +294,11 @@ public class JdbcTransactionDaoTest extends AbstractParaBankDataSourceTest {
         List<Transaction> transactions = transactionDao.getTransactionsForAccount(12345, criteria);
         assertEquals(0, transactions.size());
 
-        criteria.setTransactionId(12345);
+        criteria.setTransactionId(12345L);
         transactions = transactionDao.getTransactionsForAccount(12345, criteria);
         assertEquals(0, transactions.size());
 
-        criteria.setTransactionId(14143);
+        criteria.setTransactionId(14143L);
         transactions = transactionDao.getTransactionsForAccount(12345, criteria);
         assertEquals(1, transactions.size());
     }
@@ -0,0 +1,154 @@
+package com.parasoft.parabank.dao.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.HistoryPoint.Resolution;
+import com.parasoft.parabank.test.util.AbstractParaBankTest;
+
+public class StockPriceStoreTest extends AbstractParaBankTest {
+    private static final LocalDate DAY = LocalDate.of(2020, 1, 10);
+
+    private StockPriceStore store;
+
+    @Before
+    public void setUpStore() {
+        store = new StockPriceStore();
+        store.clear();
+    }
+
+    @Test
+    public void testGetHistory() {
+        // added in descending order like the inserter does
+        store.add("AAR", days(0, -1, -2, -3, -4), prices("10.00", "9.00", "8.00", "7.00", "6.00"));
+
+        final List<HistoryPoint> history = store.getHistory("AAR", date(-3), date(-1));
+        assertEquals(3, history.size());
+        assertEquals(Date.valueOf(DAY.plusDays(-3)), history.get(0).getDate());
+        assertEquals(new BigDecimal("7.0000"), history.get(0).getClosingPrice());
+        assertEquals("AAR", history.get(0).getSymbol());
+        assertEquals(new BigDecimal("9.0000"), history.get(2).getClosingPrice());
+
+        // a time of day does not matter
+        final java.util.Date start = new java.util.Date(date(-4).getTime() + 3600000);
+        assertEquals(5, store.getHistory("AAR", start, date(10)).size());
+
+        assertTrue(store.getHistory("AAR", date(1), date(10)).isEmpty());
+        assertTrue(store.getHistory("AAR", date(-1), date(-3)).isEmpty());
+        assertTrue(store.getHistory("BGC", date(-3), date(-1)).isEmpty());
+    }
+
+    @Test
+    public void testAdd() {
+        store.add("AAR", days(-4, 0), prices("1.00", "3.00"));
+        store.add("AAR", days(-2, 0), prices("2.00", "4.00"));
+        assertEquals(4, store.getPriceCount());
+
+        final List<HistoryPoint> history = store.getHistory("AAR", date(-10), date(10));
+        assertEquals(4, history.size());
+        assertEquals(new BigDecimal("1.0000"), history.get(0).getClosingPrice());
+        assertEquals(new BigDecimal("2.0000"), history.get(1).getClosingPrice());
+        assertEquals(history.get(2).getDate(), history.get(3).getDate());
+    }
+
+    @Test
+    public void testAddInTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.add("AAR", days(0), prices("1.00"));
+            assertTrue(store.hasPendingChanges());
+            assertEquals(0, store.getPriceCount());
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(store.hasPendingChanges());
+        assertEquals(1, store.getPriceCount());
+    }
+
+    @Test
+    public void testRollups() {
+        // Monday 2020-01-06 to Monday 2020-01-13
+        store.add("AAR", days(-4, -3, -2, -1, 0, 1, 2, 3),
+            prices("5.00", "7.00", "3.00", "6.00", "4.00", "8.00", "9.00", "10.00"));
+
+        final List<HistoryPoint> weekly = store.getHistory("AAR", date(-2), date(3), Resolution.WEEKLY, null);
+        assertEquals(2, weekly.size());
+        assertPoint(weekly.get(0), date(-4), "5.00", "9.00", "3.00", "9.00");
+        assertPoint(weekly.get(1), date(3), "10.00", "10.00", "10.00", "10.00");
+
+        final List<HistoryPoint> monthly = store.getHistory("AAR", date(-2), date(3), Resolution.MONTHLY, null);
+        assertEquals(1, monthly.size());
+        assertPoint(monthly.get(0), Date.valueOf("2020-01-01"), "5.00", "10.00", "3.00", "10.00");
+
+        // prices merged in later update the affected periods only
+        store.add("AAR", days(4, -10), prices("2.00", "1.00"));
+        final List<HistoryPoint> merged = store.getHistory("AAR", date(-10), date(4), Resolution.WEEKLY, null);
+        assertEquals(3, merged.size());
+        assertPoint(merged.get(0), Date.valueOf("2019-12-30"), "1.00", "1.00", "1.00", "1.00");
+        assertPoint(merged.get(2), date(3), "10.00", "10.00", "2.00", "2.00");
+        assertEquals(2, store.getHistory("AAR", date(-10), date(4), Resolution.MONTHLY, null).size());
+
+        // the same rollups as computed from scratch
+        final List<HistoryPoint> daily = store.getHistory("AAR", date(-10), date(4));
+        for (final Resolution resolution : Resolution.values()) {
+            assertEquals(store.getHistory("AAR", date(-10), date(4), resolution, null),
+                StockPriceStore.rollUp("AAR", daily, date(-10), date(4), resolution, null));
+        }
+    }
+
+    @Test
+    public void testPointBudget() {
+        store.add("AAR", days(-4, -3, -2, -1, 0, 1, 2, 3), prices("1", "2", "3", "4", "5", "6", "7", "8"));
+        assertEquals(8, store.getHistory("AAR", date(-4), date(3), null, 8).size());
+        assertEquals(2, store.getHistory("AAR", date(-4), date(3), null, 7).size());
+        assertEquals(2, store.getHistory("AAR", date(-4), date(3), Resolution.WEEKLY, null).size());
+        assertEquals(1, store.getHistory("AAR", date(-4), date(3), Resolution.DAILY, 1).size());
+        // the monthly history is returned even if it exceeds the budget
+        assertEquals(1, store.getHistory("AAR", date(-4), date(3), Resolution.MONTHLY, 0).size());
+    }
+
+    private static void assertPoint(final HistoryPoint point, final Date date, final String open, final String high,
+        final String low, final String close) {
+        assertEquals(date, point.getDate());
+        assertEquals(0, new BigDecimal(open).compareTo(point.getOpeningPrice()));
+        assertEquals(0, new BigDecimal(high).compareTo(point.getHighPrice()));
+        assertEquals(0, new BigDecimal(low).compareTo(point.getLowPrice()));
+        assertEquals(0, new BigDecimal(close).compareTo(point.getClosingPrice()));
+    }
+
+    private static Date date(final int offset) {
+        return Date.valueOf(DAY.plusDays(offset));
+    }
+
+    private static int[] days(final int... offsets) {
+        final int[] days = new int[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            days[i] = (int) DAY.plusDays(offsets[i]).toEpochDay();
+        }
+        return days;
+    }
+
+    private static long[] prices(final String... prices) {
+        final long[] fixedPoint = new long[prices.length];
+        for (int i = 0; i < prices.length; i++) {
+            fixedPoint[i] = StockPriceStore.toFixedPoint(new BigDecimal(prices[i]));
+        }
+        return fixedPoint;
+    }
+}
@@ -0,0 +1,146 @@
+package com.parasoft.parabank.dao.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.parasoft.parabank.dao.jdbc.internal.SchemaMigrator;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+
+public class TransactionDescriptionsTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionDescriptions descriptions;
+
+    private JdbcTransactionDao transactionDao;
+
+    @Before
+    public void setUp() throws Exception {
+        final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:hsqldb:mem:descriptions" + DATABASES.incrementAndGet(), "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        final JdbcSequenceDao sequenceDao = new JdbcSequenceDao();
+        sequenceDao.setDataSource(dataSource);
+        sequenceDao.afterPropertiesSet();
+        final SchemaMigrator schemaMigrator = new SchemaMigrator();
+        schemaMigrator.setDataSource(dataSource);
+        schemaMigrator.afterPropertiesSet();
+        final JdbcAdminDao adminDao = new JdbcAdminDao();
+        adminDao.setDataSource(dataSource);
+        adminDao.setSequenceDao(sequenceDao);
+        adminDao.setSchemaMigrator(schemaMigrator);
+        adminDao.setInserters(Collections.emptyList());
+        adminDao.afterPropertiesSet();
+        adminDao.initializeDB();
+
+        descriptions = new TransactionDescriptions();
+        descriptions.setDataSource(dataSource);
+        descriptions.afterPropertiesSet();
+        transactionDao = new JdbcTransactionDao();
+        transactionDao.setDataSource(dataSource);
+        transactionDao.setSequenceDao(sequenceDao);
+        transactionDao.setTransactionDescriptions(descriptions);
+        transactionDao.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    public void testEncode() {
+        final TransactionDescriptions.Encoded sent = descriptions.encode("Funds Transfer Sent");
+        assertEquals(Integer.valueOf(1), sent.getId());
+        assertNull(sent.getArgument());
+        assertNull(sent.getText());
+
+        final TransactionDescriptions.Encoded bill = descriptions.encode("Bill Payment to Electric Co");
+        assertEquals(Integer.valueOf(3), bill.getId());
+        assertEquals("Electric Co", bill.getArgument());
+        assertNull(bill.getText());
+        assertEquals("Bill Payment to Electric Co", descriptions.decode(bill.getId(), bill.getArgument(), null));
+
+        final TransactionDescriptions.Encoded check = descriptions.encode("Check # 1111");
+        assertNull(check.getId());
+        assertEquals("Check # 1111", check.getText());
+        assertEquals("Check # 1111", descriptions.decode(null, null, "Check # 1111"));
+
+        assertNull(descriptions.encode(null).getId());
+        assertNull(descriptions.encode(null).getText());
+    }
+
+    @Test
+    public void testFixtureMigrated() {
+        final Map<String, Object> sent = row(12367);
+        assertNull(sent.get("description"));
+        assertEquals(1, ((Number) sent.get("description_id")).intValue());
+        final Map<String, Object> bill = row(14143);
+        assertNull(bill.get("description"));
+        assertEquals("Bank of America Visa", bill.get("description_arg"));
+        assertEquals("Check # 1111", row(12145).get("description"));
+
+        assertEquals("Funds Transfer Sent", transactionDao.getTransaction(12367).getDescription());
+        assertEquals("Bill Payment to Bank of America Visa", transactionDao.getTransaction(14143).getDescription());
+        assertEquals("Check # 1111", transactionDao.getTransaction(12145).getDescription());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final long sent = transactionDao.createTransaction(transaction("Funds Transfer Sent"));
+        final Transaction loanPayment = transaction("Down Payment for Loan # 13566");
+        transactionDao.createTransactions(Arrays.asList(loanPayment, transaction("Funds Transfer Sent"),
+            transaction("Paid by check"), transaction(null)));
+        final long legacy = transactionDao.createTransaction(transaction("Deposit via Web Service"));
+        // written before descriptions were encoded
+        jdbcTemplate.update("UPDATE Transaction SET description = 'Deposit via Web Service', description_id = NULL"
+            + " WHERE id = ?", legacy);
+
+        final Map<String, Object> loan = row(loanPayment.getId());
+        assertNull(loan.get("description"));
+        assertEquals(4, ((Number) loan.get("description_id")).intValue());
+        assertEquals("13566", loan.get("description_arg"));
+        final List<Transaction> transactions = transactionDao.getTransactionsForAccount(13344);
+        final List<Transaction> created = transactions.subList(transactions.size() - 6, transactions.size());
+        assertEquals("Funds Transfer Sent", created.get(0).getDescription());
+        assertEquals("Down Payment for Loan # 13566", created.get(1).getDescription());
+        assertEquals("Paid by check", created.get(3).getDescription());
+        assertNull(created.get(4).getDescription());
+        assertEquals("Deposit via Web Service", created.get(5).getDescription());
+        // one String for every row of a template without a placeholder
+        assertSame(created.get(0).getDescription(), created.get(2).getDescription());
+        assertSame(created.get(0).getDescription(), transactionDao.getTransaction(sent).getDescription());
+    }
+
+    private Map<String, Object> row(final long id) {
+        return jdbcTemplate.queryForMap(
+            "SELECT description, description_id, description_arg FROM Transaction WHERE id = ?", id);
+    }
+
+    private static Transaction transaction(final String description) {
+        final Transaction transaction = new Transaction();
+        transaction.setAccountId(13344);
+        transaction.setType(TransactionType.Debit);
+        transaction.setDate(new Date());
+        transaction.setAmount(new BigDecimal("1.00"));
+        transaction.setDescription(description);
+        return transaction;
+    }
+}
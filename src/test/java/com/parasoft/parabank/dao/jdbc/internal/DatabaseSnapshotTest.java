@@ -0,0 +1,78 @@
+package com.parasoft.parabank.dao.jdbc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import jakarta.annotation.Resource;
+
+import org.junit.Test;
+
+import com.parasoft.parabank.test.util.AbstractParaBankDataSourceTest;
+
+public class DatabaseSnapshotTest extends AbstractParaBankDataSourceTest {
+    private static final List<String> TABLES =
+        Arrays.asList("Transaction", "Customer_Balance", "Positions", "Account", "Customer");
+
+    @Resource(name = "sqlDialect")
+    private SqlDialect dialect;
+
+    public void setDialect(final SqlDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    @Test
+    public void testCapture() {
+        final DatabaseSnapshot snapshot = DatabaseSnapshot.capture(getJdbcTemplate(), TABLES);
+        final List<String> tables = snapshot.getTables();
+        assertEquals(TABLES.size(), tables.size());
+        assertTrue(tables.indexOf("CUSTOMER") < tables.indexOf("ACCOUNT"));
+        assertTrue(tables.indexOf("ACCOUNT") < tables.indexOf("TRANSACTION"));
+        assertTrue(tables.indexOf("CUSTOMER") < tables.indexOf("POSITIONS"));
+
+        int rows = 0;
+        for (final String table : TABLES) {
+            rows += count(table);
+        }
+        assertEquals(rows, snapshot.getRowCount());
+
+        assertTrue(DatabaseSnapshot.capture(getJdbcTemplate(), null).getTables().containsAll(tables));
+    }
+
+    @Test
+    public void testRestore() {
+        final int transactions = count("Transaction");
+        final String lastName =
+            getJdbcTemplate().queryForObject("SELECT last_name FROM Customer WHERE id = 12212", String.class);
+        final DatabaseSnapshot snapshot = DatabaseSnapshot.capture(getJdbcTemplate(), TABLES);
+
+        getJdbcTemplate().update("DELETE FROM Transaction");
+        getJdbcTemplate().update("UPDATE Customer SET last_name = 'Changed' WHERE id = 12212");
+        snapshot.restore(getJdbcTemplate(), dialect, false);
+
+        assertEquals(transactions, count("Transaction"));
+        assertEquals(lastName,
+            getJdbcTemplate().queryForObject("SELECT last_name FROM Customer WHERE id = 12212", String.class));
+        assertEquals(snapshot.getRowCount(), DatabaseSnapshot.capture(getJdbcTemplate(), TABLES).getRowCount());
+    }
+
+    @Test
+    public void testRestoreEmptied() {
+        final DatabaseSnapshot snapshot =
+            DatabaseSnapshot.capture(getJdbcTemplate(), TABLES, Collections.singleton("Transaction"));
+        assertEquals(TABLES.size(), snapshot.getTables().size());
+        assertEquals(LocalDate.now(), snapshot.getCaptureDate());
+
+        snapshot.restore(getJdbcTemplate(), dialect, false);
+        assertEquals(0, count("Transaction"));
+        assertEquals(snapshot.getRowCount(), DatabaseSnapshot.capture(getJdbcTemplate(), TABLES).getRowCount());
+    }
+
+    private int count(final String table) {
+        return getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,235 @@
+package com.parasoft.parabank.dao.jdbc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.annotation.Resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.parasoft.parabank.dao.jdbc.internal.SchemaMigrator.Migration;
+import com.parasoft.parabank.test.util.AbstractParaBankDataSourceTest;
+
+public class SchemaMigratorTest extends AbstractParaBankDataSourceTest {
+    private static final String SQL = "com/parasoft/parabank/dao/jdbc/sql/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Resource(name = "schemaMigrator")
+    private SchemaMigrator schemaMigrator;
+
+    public void setSchemaMigrator(final SchemaMigrator schemaMigrator) {
+        this.schemaMigrator = schemaMigrator;
+    }
+
+    @Test
+    public void testGetMigrations() {
+        final List<Migration> migrations = schemaMigrator.getMigrations();
+        assertFalse(migrations.isEmpty());
+        for (int i = 0; i < migrations.size(); i++) {
+            assertEquals(i + 1, migrations.get(i).getVersion());
+        }
+        assertEquals("transaction account date index", migrations.get(0).getDescription());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testMigrate() throws Exception {
+        schemaMigrator.migrate();
+        final int migrations = schemaMigrator.getMigrations().size();
+        assertEquals(migrations, schemaMigrator.getAppliedMigrations().size());
+        assertEquals(0, schemaMigrator.migrate());
+
+        try (Connection con = getDataSource().getConnection();
+                ResultSet rs = con.getMetaData().getIndexInfo(null, "PUBLIC", "TRANSACTION", false, false)) {
+            boolean found = false;
+            while (rs.next()) {
+                found |= "TRANSACTION_ACCOUNT_DATE_IDX".equals(rs.getString("INDEX_NAME"));
+            }
+            assertTrue(found);
+        }
+    }
+
+    @Test
+    public void testMigrateIntegerIds() throws Exception {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:integerids", "sa", "");
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try {
+            // the schema as it was while ids were 32 bit
+            final String create = new ClassPathResource(SQL + "create.sql")
+                .getContentAsString(StandardCharsets.UTF_8).replace("BIGINT", "INTEGER");
+            try (Connection con = dataSource.getConnection()) {
+                ScriptUtils.executeSqlScript(con, new ByteArrayResource(create.getBytes(StandardCharsets.UTF_8)));
+                ScriptUtils.executeSqlScript(con, new ClassPathResource(SQL + "insert.sql"));
+            }
+            final long accounts = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Account", Long.class);
+            final long transactions = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Transaction", Long.class);
+            assertEquals("INTEGER", getColumnType(jdbcTemplate, "ACCOUNT", "ID"));
+
+            // a rebuild that stopped after copying the customers left the new tables behind
+            final List<String> statements = SchemaMigrator.splitStatements(
+                new ClassPathResource(SQL + "migration/V11__bigint_ids.sql").getContentAsString(StandardCharsets.UTF_8));
+            for (final String statement : statements.subList(0, 5)) {
+                jdbcTemplate.execute(statement);
+            }
+
+            final SchemaMigrator migrator = new SchemaMigrator();
+            migrator.setDataSource(dataSource);
+            migrator.afterPropertiesSet();
+            migrator.migrate();
+
+            assertEquals("BIGINT", getColumnType(jdbcTemplate, "CUSTOMER", "ID"));
+            assertEquals("BIGINT", getColumnType(jdbcTemplate, "ACCOUNT", "CUSTOMER_ID"));
+            assertEquals("BIGINT", getColumnType(jdbcTemplate, "TRANSACTION", "ACCOUNT_ID"));
+            assertEquals("BIGINT", getColumnType(jdbcTemplate, "POSITIONS", "POSITION_ID"));
+            assertEquals("BIGINT", getColumnType(jdbcTemplate, "SEQUENCE", "NEXT_ID"));
+            assertEquals("BIGINT", getColumnType(jdbcTemplate, "TRANSFER_OUTBOX", "TO_ACCOUNT_ID"));
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS"
+                + " WHERE constraint_name = 'ACCOUNT_CUSTOMER_FK'", Integer.class).intValue());
+            assertEquals(accounts, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Account", Long.class).longValue());
+            assertEquals(transactions,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Transaction", Long.class).longValue());
+
+            final long wide = Integer.MAX_VALUE + 1L;
+            jdbcTemplate.update("INSERT INTO Account (id, customer_id, type, balance) VALUES (?, 12212, 0, 0)", wide);
+            assertEquals(12212L, jdbcTemplate
+                .queryForObject("SELECT customer_id FROM Account WHERE id = ?", Long.class, wide).longValue());
+            try {
+                jdbcTemplate.update("INSERT INTO Account (id, customer_id, type, balance) VALUES (?, ?, 0, 0)",
+                    wide + 1, wide);
+                fail("did not throw expected DataIntegrityViolationException");
+            } catch (final DataIntegrityViolationException e) {
+                // the foreign key to Customer is back
+            }
+        } finally {
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    public void testBigintIdsNotRebuiltOnNewSchema() throws Exception {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:bigintids", "sa", "");
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try {
+            try (Connection con = dataSource.getConnection()) {
+                ScriptUtils.executeSqlScript(con, new ClassPathResource(SQL + "create.sql"));
+            }
+            final SchemaMigrator migrator = new SchemaMigrator();
+            migrator.setDataSource(dataSource);
+            migrator.afterPropertiesSet();
+            migrator.migrate();
+
+            assertTrue(migrator.getAppliedMigrations().containsKey(11));
+            // the rebuild names the foreign keys it adds back
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS"
+                + " WHERE constraint_name = 'ACCOUNT_CUSTOMER_FK'", Integer.class).intValue());
+        } finally {
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    public void testSplitStatements() {
+        assertEquals(Arrays.asList("CREATE TABLE A (id INTEGER)", "INSERT INTO A (id) VALUES (1)",
+            "UPDATE \"A\" SET id = LENGTH('a;b -- c''d')"),
+            SchemaMigrator.splitStatements("-- a comment; with a semicolon\r\nCREATE TABLE A (id INTEGER);\r\n"
+                + "/* block; comment */ INSERT INTO A (id) VALUES (1);\r\n"
+                + "UPDATE \"A\" SET id = LENGTH('a;b -- c''d');\r\n\r\n"));
+    }
+
+    @Test
+    public void testMigrationResumesAfterFailure() throws Exception {
+        Files.writeString(new File(folder.getRoot(), "V1__partial.sql").toPath(),
+            "CREATE TABLE A (id INTEGER);\nINSERT INTO A (id) VALUES (1);\nINSERT INTO B (id) VALUES (1);\n"
+                + "INSERT INTO A (id) VALUES (2);\n");
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:partial", "sa", "");
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try {
+            final SchemaMigrator migrator = new SchemaMigrator();
+            migrator.setDataSource(dataSource);
+            migrator.setLocation(folder.getRoot().toURI() + "V*__*.sql");
+            migrator.afterPropertiesSet();
+            try {
+                migrator.migrate();
+                fail("did not throw expected DataAccessException");
+            } catch (final DataAccessException e) {
+                // table B does not exist yet
+            }
+            assertTrue(migrator.getAppliedMigrations().isEmpty());
+            assertEquals(2, jdbcTemplate.queryForObject("SELECT statements FROM Schema_Progress WHERE version = 1",
+                Integer.class).intValue());
+
+            jdbcTemplate.execute("CREATE TABLE B (id INTEGER)");
+            assertEquals(1, migrator.migrate());
+            assertEquals(Arrays.asList(1, 2), jdbcTemplate.queryForList("SELECT id FROM A ORDER BY id", Integer.class));
+            assertEquals(Arrays.asList(1), jdbcTemplate.queryForList("SELECT id FROM B", Integer.class));
+            assertEquals(1, migrator.getAppliedMigrations().size());
+            assertEquals(0,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Schema_Progress", Integer.class).intValue());
+        } finally {
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    public void testMigrationReplacedAfterApplied() throws Exception {
+        final File script = new File(folder.getRoot(), "V1__index.sql");
+        final String original = "CREATE TABLE A (id INTEGER);\nCREATE INDEX A_idx ON A (id);\n";
+        Files.writeString(script.toPath(), original);
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:replaced", "sa", "");
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try {
+            final SchemaMigrator migrator = new SchemaMigrator();
+            migrator.setDataSource(dataSource);
+            migrator.setLocation(folder.getRoot().toURI() + "V*__*.sql");
+            migrator.afterPropertiesSet();
+            assertEquals(1, migrator.migrate());
+            final long checksum = migrator.getAppliedMigrations().get(1);
+
+            Files.writeString(script.toPath(), "CREATE TABLE A (id INTEGER);\nCREATE INDEX A_idx ON A (id, id);\n");
+            try {
+                migrator.migrate();
+                fail("did not throw expected DataAccessException");
+            } catch (final DataAccessException e) {
+                // a changed script must name the content it replaces
+            }
+
+            Files.writeString(script.toPath(), "-- replaces checksum: " + checksum
+                + "\nCREATE TABLE IF NOT EXISTS A (id INTEGER);\nCREATE INDEX IF NOT EXISTS A_idx ON A (id);\n");
+            assertEquals(0, migrator.migrate());
+            final Migration migration = migrator.getMigrations().get(0);
+            assertTrue(migration.getReplacedChecksums().contains(checksum));
+            assertEquals(migration.getChecksum(), migrator.getAppliedMigrations().get(1).longValue());
+            assertEquals(0, migrator.migrate());
+        } finally {
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+    }
+
+    private static String getColumnType(final JdbcTemplate jdbcTemplate, final String table, final String column) {
+        return jdbcTemplate.queryForObject("SELECT data_type FROM INFORMATION_SCHEMA.COLUMNS"
+            + " WHERE table_schema = 'PUBLIC' AND table_name = ? AND column_name = ?", String.class, table, column);
+    }
+}
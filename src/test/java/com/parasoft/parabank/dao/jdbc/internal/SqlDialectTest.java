@@ -0,0 +1,78 @@
+package com.parasoft.parabank.dao.jdbc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SqlDialectTest {
+    @Test
+    public void testForName() {
+        assertSame(SqlDialect.HSQLDB, SqlDialect.forName(null));
+        assertSame(SqlDialect.HSQLDB, SqlDialect.forName(""));
+        assertSame(SqlDialect.HSQLDB, SqlDialect.forName("HSQLDB"));
+        assertSame(SqlDialect.H2, SqlDialect.forName(" h2 "));
+        assertEquals("h2", SqlDialect.H2.getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownName() {
+        SqlDialect.forName("oracle");
+    }
+
+    @Test
+    public void testHsqldb() throws Exception {
+        assertEquals("PUBLIC", SqlDialect.HSQLDB.getCatalog());
+        assertEquals("TRUNCATE TABLE Stock AND COMMIT NO CHECK", SqlDialect.HSQLDB.truncate("Stock"));
+        runStatements(SqlDialect.HSQLDB, "jdbc:hsqldb:mem:sqldialecttest");
+    }
+
+    @Test
+    public void testH2() throws Exception {
+        assertNull(SqlDialect.H2.getCatalog());
+        assertNull(SqlDialect.H2.truncate("Stock"));
+        runStatements(SqlDialect.H2, "jdbc:h2:mem:sqldialecttest;NON_KEYWORDS=VALUE");
+    }
+
+    private static void runStatements(final SqlDialect dialect, final String url) throws Exception {
+        final Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("name", "VARCHAR(50)");
+        columns.put("value", "VARCHAR(255)");
+        try (Connection con = DriverManager.getConnection(url, "sa", "");
+                Statement statement = con.createStatement()) {
+            statement.execute("CREATE TABLE Parameter (name VARCHAR(50) PRIMARY KEY, value VARCHAR(255))");
+            try (PreparedStatement upsert = con.prepareStatement(dialect.upsert("Parameter", "name", columns))) {
+                for (final String[] row : new String[][] { { "a", "1" }, { "b", "2" }, { "a", "3" } }) {
+                    upsert.setString(1, row[0]);
+                    upsert.setString(2, row[1]);
+                    upsert.executeUpdate();
+                }
+            }
+            try (PreparedStatement query =
+                con.prepareStatement(dialect.limit("SELECT name, value FROM Parameter ORDER BY name"))) {
+                query.setInt(1, 1);
+                try (ResultSet rs = query.executeQuery()) {
+                    rs.next();
+                    assertEquals("a", rs.getString(1));
+                    assertEquals("3", rs.getString(2));
+                    assertEquals(false, rs.next());
+                }
+            }
+            try (ResultSet rs = statement.executeQuery(
+                "SELECT " + dialect.month("DATE '2024-03-15'") + " FROM Parameter WHERE name = 'b'")) {
+                rs.next();
+                assertEquals(3, rs.getInt(1));
+            }
+            statement.execute("SHUTDOWN");
+        }
+    }
+}
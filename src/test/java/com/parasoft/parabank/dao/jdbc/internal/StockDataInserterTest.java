@@ -0,0 +1,111 @@
+package com.parasoft.parabank.dao.jdbc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import jakarta.annotation.Resource;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.parasoft.parabank.dao.jdbc.JdbcAdminDao;
+import com.parasoft.parabank.dao.jdbc.JdbcSequenceDao;
+import com.parasoft.parabank.dao.jdbc.StockPriceStore;
+import com.parasoft.parabank.test.util.AbstractParaBankDataSourceTest;
+
+public class StockDataInserterTest extends AbstractParaBankDataSourceTest {
+    @Resource(name = "sequenceDao")
+    private JdbcSequenceDao sequenceDao;
+
+    @Resource(name = "stockPriceStore")
+    private StockPriceStore stockPriceStore;
+
+    public void setSequenceDao(final JdbcSequenceDao sequenceDao) {
+        this.sequenceDao = sequenceDao;
+    }
+
+    public void setStockPriceStore(final StockPriceStore stockPriceStore) {
+        this.stockPriceStore = stockPriceStore;
+    }
+
+    @Test
+    public void testInsertDataInTransaction() throws Exception {
+        getJdbcTemplate().update("DELETE FROM Stock");
+        final StockDataInserter inserter = createInserter(getDataSource(), sequenceDao, stockPriceStore, 4, 500);
+        final long firstId = sequenceDao.getCurrentId("Stock");
+
+        inserter.insertData();
+        assertInserted(getJdbcTemplate(), sequenceDao, inserter, firstId);
+        // the store only sees the prices once the transaction commits
+        assertTrue(stockPriceStore.hasPendingChanges());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testInsertDataInParallel() throws Exception {
+        // the inserter commits its batches, so keep them out of the shared test database
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:stocks", "sa", "");
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try {
+            final JdbcSequenceDao stockSequenceDao = new JdbcSequenceDao();
+            stockSequenceDao.setDataSource(dataSource);
+            stockSequenceDao.afterPropertiesSet();
+            final SchemaMigrator schemaMigrator = new SchemaMigrator();
+            schemaMigrator.setDataSource(dataSource);
+            schemaMigrator.afterPropertiesSet();
+            final JdbcAdminDao adminDao = new JdbcAdminDao();
+            adminDao.setDataSource(dataSource);
+            adminDao.setSequenceDao(stockSequenceDao);
+            adminDao.setSchemaMigrator(schemaMigrator);
+            adminDao.setInserters(Collections.emptyList());
+            adminDao.afterPropertiesSet();
+            adminDao.initializeDB();
+            final StockPriceStore store = new StockPriceStore();
+            store.setDataSource(dataSource);
+            store.afterPropertiesSet();
+            store.clear();
+
+            final StockDataInserter inserter = createInserter(dataSource, stockSequenceDao, store, 4, 700);
+            final long firstId = stockSequenceDao.getCurrentId("Stock");
+
+            inserter.insertData();
+            assertInserted(jdbcTemplate, stockSequenceDao, inserter, firstId);
+            assertEquals(inserter.getDataCount(), store.getPriceCount());
+        } finally {
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+    }
+
+    private static StockDataInserter createInserter(final DataSource dataSource, final JdbcSequenceDao sequenceDao,
+            final StockPriceStore stockPriceStore, final int threads, final int batchSize) throws Exception {
+        final StockDataInserter inserter = new StockDataInserter();
+        inserter.setDataSource(dataSource);
+        inserter.setSequenceDao(sequenceDao);
+        inserter.setStockPriceStore(stockPriceStore);
+        inserter.setThreads(threads);
+        inserter.setBatchSize(batchSize);
+        inserter.afterPropertiesSet();
+        return inserter;
+    }
+
+    private static void assertInserted(final JdbcTemplate jdbcTemplate, final JdbcSequenceDao sequenceDao,
+            final StockDataInserter inserter, final long firstId) {
+        final int rows = inserter.getSymbols().size() * StockDataInserter.DAYS;
+        assertEquals(rows, inserter.getDataCount());
+        assertEquals(rows, jdbcTemplate.queryForObject("SELECT count(DISTINCT id) FROM Stock", Integer.class)
+            .intValue());
+        assertEquals(firstId, jdbcTemplate.queryForObject("SELECT min(id) FROM Stock", Integer.class).intValue());
+        assertEquals(firstId + (rows - 1) * JdbcSequenceDao.OFFSET,
+            jdbcTemplate.queryForObject("SELECT max(id) FROM Stock", Integer.class).intValue());
+        assertEquals(firstId + rows * JdbcSequenceDao.OFFSET, sequenceDao.getCurrentId("Stock"));
+        assertEquals(StockDataInserter.DAYS, jdbcTemplate
+            .queryForObject("SELECT count(DISTINCT date) FROM Stock WHERE symbol = 'AAR'", Integer.class).intValue());
+    }
+}
@@ -0,0 +1,91 @@
+package com.parasoft.parabank.dao.jdbc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.annotation.Resource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.parasoft.parabank.dao.internal.StorageReport;
+import com.parasoft.parabank.dao.internal.StorageReport.TableUsage;
+import com.parasoft.parabank.dao.jdbc.internal.TableStorage.Profile;
+import com.parasoft.parabank.test.util.AbstractParaBankDataSourceTest;
+
+public class TableStorageTest extends AbstractParaBankDataSourceTest {
+    @Resource(name = "tableStorage")
+    private TableStorage tableStorage;
+
+    @Resource(name = "sqlDialect")
+    private SqlDialect dialect;
+
+    public void setDialect(final SqlDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    public void setTableStorage(final TableStorage tableStorage) {
+        this.tableStorage = tableStorage;
+    }
+
+    @Before
+    public void assumeTableTypes() {
+        assumeTrue("table types are HSQLDB only", dialect.supportsCachedTables());
+    }
+
+    @Test
+    public void testGetReport() {
+        final StorageReport report = tableStorage.getReport();
+        assertEquals(Profile.MEMORY.name(), report.getProfile());
+        final Map<String, TableUsage> tables = tablesByName(report);
+        for (final String table : TableStorage.LARGE_TABLES) {
+            assertEquals("MEMORY", tables.get(table).getType());
+        }
+        assertEquals(count("Transaction"), tables.get("TRANSACTION").getRows());
+        assertEquals(report.getRows(), report.getHeapRows());
+        assertTrue(report.getSettings().containsKey("hsqldb.cache_rows"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testApplyCachedProfile() {
+        final long transactions = count("Transaction");
+        try {
+            tableStorage.setProfile(Profile.CACHED);
+            tableStorage.apply();
+
+            final StorageReport report = tableStorage.getReport();
+            final Map<String, TableUsage> tables = tablesByName(report);
+            for (final String table : TableStorage.LARGE_TABLES) {
+                assertTrue(table, tables.get(table).isCached());
+            }
+            assertFalse(tables.get("CUSTOMER").isCached());
+            assertEquals(transactions, tables.get("TRANSACTION").getRows());
+            assertEquals(transactions, count("Transaction"));
+            assertTrue(report.getCachedRows() >= transactions);
+        } finally {
+            tableStorage.setProfile(Profile.MEMORY);
+            tableStorage.apply();
+        }
+        assertEquals("MEMORY", tablesByName(tableStorage.getReport()).get("TRANSACTION").getType());
+    }
+
+    private long count(final String table) {
+        return getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static Map<String, TableUsage> tablesByName(final StorageReport report) {
+        final Map<String, TableUsage> tables = new HashMap<>();
+        for (final TableUsage table : report.getTables()) {
+            tables.put(table.getTable(), table);
+        }
+        return tables;
+    }
+}
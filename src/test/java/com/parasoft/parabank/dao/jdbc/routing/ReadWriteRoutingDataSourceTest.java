@@ -0,0 +1,176 @@
+package com.parasoft.parabank.dao.jdbc.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class ReadWriteRoutingDataSourceTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private JdbcTemplate primary;
+
+    private JdbcTemplate replica;
+
+    private LogShippingReplicator replicator;
+
+    private ReadWriteRoutingDataSource router;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readWrite;
+
+    private TransactionTemplate readOnly;
+
+    @Before
+    public void setUp() {
+        final int database = DATABASES.incrementAndGet();
+        final DataSource primaryDataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:primary" + database);
+        final DataSource replicaDataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:replica" + database);
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        primary.execute((ConnectionCallback<Void>) con -> {
+            ScriptUtils.executeSqlScript(con, new ClassPathResource("com/parasoft/parabank/dao/jdbc/sql/create.sql"));
+            return null;
+        });
+        primary.update("INSERT INTO Parameter (name, value) VALUES ('seeded', 'true')");
+
+        replicator = new LogShippingReplicator();
+        replicator.setPrimary(primaryDataSource);
+        replicator.setReplicas(Collections.singletonList(replicaDataSource));
+        replicator.setEnabled(true);
+        replicator.setShipInterval(0);
+        replicator.afterPropertiesSet();
+
+        final ShippingDataSource shipping = new ShippingDataSource(primaryDataSource);
+        shipping.setReplicator(replicator);
+        router = new ReadWriteRoutingDataSource();
+        router.setPrimary(shipping);
+        router.setReplicas(Collections.singletonList(replicaDataSource));
+        router.setReplicaLag(replicator);
+        router.setMaxReplicaLag(60000);
+        router.setStickyPrimary(0);
+        router.afterPropertiesSet();
+
+        final DataSource dataSource = new LazyConnectionDataSourceProxy(router);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+        PrimaryAffinity.clear();
+    }
+
+    @After
+    public void tearDown() {
+        PrimaryAffinity.clear();
+        replicator.destroy();
+        primary.execute("SHUTDOWN");
+        replica.execute("SHUTDOWN");
+    }
+
+    @Test
+    public void testSeed() {
+        assertEquals(1, count(replica, "seeded"));
+        assertEquals(0, replicator.getLag(0));
+    }
+
+    @Test
+    public void testReadOnlyTransactionsReadReplica() {
+        write("shipped");
+        assertEquals(1, count(primary, "shipped"));
+        assertEquals(0, readCount("shipped"));
+        assertEquals(1, replicator.getBacklog());
+
+        replicator.ship();
+        assertEquals(1, count(replica, "shipped"));
+        assertEquals(1, readCount("shipped"));
+        assertEquals(0, replicator.getBacklog());
+        assertEquals(0, replicator.getLag(0));
+    }
+
+    @Test
+    public void testLaggingReplicaIsSkipped() throws Exception {
+        router.setMaxReplicaLag(10);
+        write("lagging");
+        Thread.sleep(50);
+        assertEquals(1, readCount("lagging"));
+
+        replicator.ship();
+        replica.update("INSERT INTO Parameter (name, value) VALUES ('replica', 'only')");
+        assertEquals(1, readCount("replica"));
+    }
+
+    @Test
+    public void testStickyPrimaryAfterWrite() {
+        router.setStickyPrimary(60000);
+        PrimaryAffinity.setLastWrite(null);
+        write("sticky");
+        assertEquals(1, readCount("sticky"));
+
+        PrimaryAffinity.clear();
+        assertEquals(0, readCount("sticky"));
+    }
+
+    @Test
+    public void testWriteOutsideScopeIsNotRemembered() {
+        router.setStickyPrimary(60000);
+        write("unscoped");
+        assertNull(PrimaryAffinity.getLastWrite());
+        assertEquals(0, readCount("unscoped"));
+    }
+
+    @Test
+    public void testRollbackIsNotShipped() {
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO Parameter (name, value) VALUES ('rolledback', 'true')");
+            status.setRollbackOnly();
+        });
+        assertEquals(0, replicator.getBacklog());
+        replicator.ship();
+        assertEquals(0, count(replica, "rolledback"));
+    }
+
+    @Test
+    public void testReseedAfterFailure() {
+        replica.execute("ALTER TABLE Parameter ADD CONSTRAINT parameter_name UNIQUE (name)");
+        replica.update("INSERT INTO Parameter (name, value) VALUES ('conflict', 'replica')");
+        write("conflict");
+
+        replicator.ship();
+        assertEquals(Long.MAX_VALUE, replicator.getLag(0));
+        assertEquals(1, readCount("conflict"));
+
+        replicator.ship();
+        assertEquals(0, replicator.getLag(0));
+        assertEquals("true",
+            replica.queryForObject("SELECT value FROM Parameter WHERE name = 'conflict'", String.class));
+    }
+
+    private int count(final JdbcTemplate template, final String name) {
+        return template.queryForObject("SELECT COUNT(*) FROM Parameter WHERE name = ?", Integer.class, name);
+    }
+
+    private int readCount(final String name) {
+        return readOnly.execute(status -> count(jdbcTemplate, name));
+    }
+
+    private void write(final String name) {
+        readWrite.executeWithoutResult(
+            status -> jdbcTemplate.update("INSERT INTO Parameter (name, value) VALUES (?, 'true')", name));
+    }
+}
@@ -0,0 +1,73 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ShardRingTest {
+    private static final int KEYS = 20000;
+
+    @Test
+    public void testKeysAreSpreadEvenly() {
+        final ShardRing ring = new ShardRing(4, ShardRing.DEFAULT_VIRTUAL_NODES);
+        final int[] counts = new int[4];
+        for (int i = 0; i < KEYS; i++) {
+            counts[ring.getShard("user" + i)]++;
+        }
+        for (final int count : counts) {
+            assertTrue("unbalanced: " + count, count > KEYS / 4 * 0.7 && count < KEYS / 4 * 1.3);
+        }
+        assertEquals(ring.getShard("john"), new ShardRing(4, ShardRing.DEFAULT_VIRTUAL_NODES).getShard("john"));
+    }
+
+    @Test
+    public void testAddingShardOnlyMovesKeysToIt() {
+        final ShardRing four = new ShardRing(4, ShardRing.DEFAULT_VIRTUAL_NODES);
+        final ShardRing five = new ShardRing(5, ShardRing.DEFAULT_VIRTUAL_NODES);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            final String key = "user" + i;
+            if (four.getShard(key) != five.getShard(key)) {
+                assertEquals(4, five.getShard(key));
+                moved++;
+            }
+        }
+        assertTrue("moved " + moved, moved > KEYS / 5 * 0.7 && moved < KEYS / 5 * 1.3);
+    }
+
+    @Test
+    public void testSingleShard() {
+        final ShardRing ring = new ShardRing(1, 1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, ring.getShard("user" + i));
+        }
+    }
+
+    @Test
+    public void testShardIds() {
+        assertEquals(12212, ShardIds.compose(0, 12212));
+        final long id = ShardIds.compose(3, 12212);
+        assertEquals(3, ShardIds.getShard(id));
+        assertEquals(12212, ShardIds.getLocalId(id));
+        assertTrue(ShardIds.compose(ShardIds.MAX_SHARDS - 1, ShardIds.MAX_LOCAL_ID) > 0);
+    }
+
+    @Test
+    public void testShardIdsBeyondInt() {
+        assertEquals(Integer.MAX_VALUE, ShardIds.compose(ShardIds.MAX_SHARDS - 1, ShardIds.MAX_INT32_LOCAL_ID));
+        final long local = ShardIds.MAX_INT32_LOCAL_ID + 12212L;
+        for (int shard = 0; shard < ShardIds.MAX_SHARDS; shard++) {
+            final long id = ShardIds.compose(shard, local);
+            assertTrue(id > Integer.MAX_VALUE);
+            assertEquals(shard, ShardIds.getShard(id));
+            assertEquals(local, ShardIds.getLocalId(id));
+        }
+        assertEquals(ShardIds.MAX_LOCAL_ID, ShardIds.getLocalId(ShardIds.compose(2, ShardIds.MAX_LOCAL_ID)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLocalIdOverflow() {
+        ShardIds.compose(1, ShardIds.MAX_LOCAL_ID + 1);
+    }
+}
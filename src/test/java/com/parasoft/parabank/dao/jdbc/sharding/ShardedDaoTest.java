@@ -0,0 +1,338 @@
+package com.parasoft.parabank.dao.jdbc.sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.parasoft.parabank.dao.jdbc.JdbcAdminDao;
+import com.parasoft.parabank.dao.jdbc.JdbcSequenceDao;
+import com.parasoft.parabank.dao.jdbc.internal.SchemaMigrator;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Account.AccountType;
+import com.parasoft.parabank.domain.Address;
+import com.parasoft.parabank.domain.Customer;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+import com.parasoft.parabank.domain.logic.impl.BankManagerImpl;
+
+public class ShardedDaoTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private static final int SHARDS = 3;
+
+    private ShardSet shardSet;
+
+    private ShardedCustomerDao customerDao;
+
+    private ShardedAccountDao accountDao;
+
+    private ShardedPositionDao positionDao;
+
+    private ShardedTransactionDao transactionDao;
+
+    private ShardedTransferOutbox outbox;
+
+    private BankManagerImpl bankManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setUp() {
+        final String database = "jdbc:hsqldb:mem:shards" + DATABASES.incrementAndGet() + "_";
+        final LazyConnectionDataSourceProxy dataSource =
+            new LazyConnectionDataSourceProxy(new DriverManagerDataSource(database + 0, "sa", ""));
+        final JdbcSequenceDao sequenceDao = new JdbcSequenceDao();
+        sequenceDao.setDataSource(dataSource);
+        sequenceDao.afterPropertiesSet();
+
+        shardSet = new ShardSet();
+        shardSet.setDataSource(dataSource);
+        shardSet.setSequenceDao(sequenceDao);
+        shardSet.setUrls(database + 1 + ", " + database + 2);
+        shardSet.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+        shardSet.setUsername("sa");
+        shardSet.setPassword("");
+        shardSet.afterPropertiesSet();
+
+        final SchemaMigrator schemaMigrator = new SchemaMigrator();
+        schemaMigrator.setDataSource(dataSource);
+        schemaMigrator.afterPropertiesSet();
+        final JdbcAdminDao adminDao = new JdbcAdminDao();
+        adminDao.setDataSource(dataSource);
+        adminDao.setSequenceDao(sequenceDao);
+        adminDao.setSchemaMigrator(schemaMigrator);
+        adminDao.setInserters(Collections.emptyList());
+        adminDao.afterPropertiesSet();
+        new ShardedAdminDao(adminDao, shardSet).initializeDB();
+
+        final ShardedTransactionManager transactionManager = new ShardedTransactionManager();
+        transactionManager.setShardSet(shardSet);
+        transactionManager.afterPropertiesSet();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        customerDao = new ShardedCustomerDao(shardSet);
+        accountDao = new ShardedAccountDao(shardSet);
+        positionDao = new ShardedPositionDao(shardSet);
+        transactionDao = new ShardedTransactionDao(shardSet);
+
+        outbox = new ShardedTransferOutbox();
+        outbox.setShardSet(shardSet);
+        outbox.setTransactionManager(transactionManager);
+        outbox.setAccountDao(accountDao);
+        outbox.setTransactionDao(transactionDao);
+        outbox.setRelayInterval(0);
+        outbox.setRelayDelay(0);
+        outbox.afterPropertiesSet();
+
+        bankManager = new BankManagerImpl();
+        bankManager.setAccountDao(accountDao);
+        bankManager.setCustomerDao(customerDao);
+        bankManager.setTransactionDao(transactionDao);
+        bankManager.setTransferOutbox(outbox);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        outbox.destroy();
+        for (final Shard shard : shardSet.getShards()) {
+            shard.getJdbcTemplate().execute("SHUTDOWN");
+        }
+        shardSet.destroy();
+    }
+
+    @Test
+    public void testShards() {
+        assertEquals(SHARDS, shardSet.getShards().size());
+        for (final Shard shard : shardSet.getShards()) {
+            assertEquals(1, count(shard, "Customer WHERE username = 'john'"));
+        }
+        final Customer john = customerDao.getCustomer("john", "demo");
+        assertEquals(12212, john.getId());
+        assertEquals(12212, customerDao.getCustomer("622-11-9999").getId());
+        assertNull(customerDao.getCustomer("john", "wrong"));
+        assertEquals(0, outbox.getPendingCount());
+    }
+
+    @Test
+    public void testCustomersAreCreatedOnTheShardOfTheirUsername() {
+        final Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            final Customer customer = createCustomer("user" + i);
+            final int shard = ShardIds.getShard(customer.getId());
+            assertEquals(shardSet.getShardForKey(customer.getUsername()).getIndex(), shard);
+            assertEquals(customer.getId(), customerDao.getCustomer(customer.getUsername(), "secret").getId());
+            assertEquals(customer.getUsername(), customerDao.getCustomer(customer.getId()).getUsername());
+            used.add(shard);
+        }
+        assertEquals(SHARDS, used.size());
+    }
+
+    @Test
+    public void testAccountsPositionsAndTransactionsAreColocated() {
+        final Customer customer = createCustomer(usernameOnShard(2));
+        final long accountId = createAccount(customer, "100.00");
+        assertEquals(2, ShardIds.getShard(accountId));
+        assertEquals(customer.getId(), accountDao.getAccount(accountId).getCustomerId());
+        assertEquals(1, accountDao.getAccountsForCustomerId(customer.getId()).size());
+        assertEquals(0, new BigDecimal("100").compareTo(
+            accountDao.getBalanceSummary(customer.getId()).getTotalBalance()));
+
+        final Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setType(TransactionType.Credit);
+        transaction.setDate(new Date());
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setDescription("Initial deposit");
+        final long transactionId = transactionTemplate.execute(status -> transactionDao.createTransaction(transaction));
+        assertEquals(2, ShardIds.getShard(transactionId));
+        assertEquals(1, transactionDao.getTransactionsForAccount(accountId).size());
+
+        final Position position = new Position();
+        position.setCustomerId(customer.getId());
+        position.setName("AMR Corporation");
+        position.setSymbol("AAR");
+        position.setShares(10);
+        position.setPurchasePrice(new BigDecimal("23.53"));
+        final long positionId = transactionTemplate.execute(status -> positionDao.createPosition(position));
+        assertEquals(2, ShardIds.getShard(positionId));
+        assertEquals(1, positionDao.getPositionsForCustomerId(customer.getId()).size());
+
+        final List<Account> accounts = accountDao.getAccounts(Arrays.asList(accountId, 13344L));
+        assertEquals(2, accounts.size());
+        final int[] exported = { 0 };
+        transactionDao.exportTransactions(Arrays.asList(13344L, accountId), null, null, row -> exported[0]++);
+        assertTrue(exported[0] > 1);
+    }
+
+    @Test
+    public void testRollbackCoversAllShards() {
+        final String first = usernameOnShard(1);
+        final String second = usernameOnShard(2);
+        transactionTemplate.executeWithoutResult(status -> {
+            createCustomer(first);
+            createCustomer(second);
+            status.setRollbackOnly();
+        });
+        assertNull(customerDao.getCustomer(first, "secret"));
+        assertNull(customerDao.getCustomer(second, "secret"));
+    }
+
+    @Test
+    public void testTransferBetweenShards() {
+        final long from = createAccount(createCustomer(usernameOnShard(1)), "100.00");
+        final long to = createAccount(createCustomer(usernameOnShard(2)), "50.00");
+        assertTrue(outbox.isRequired(from, to));
+
+        transactionTemplate.executeWithoutResult(status -> bankManager.transfer(from, to, new BigDecimal("25.00")));
+
+        assertBalance("75.00", from);
+        assertBalance("75.00", to);
+        assertEquals(0, outbox.getPendingCount());
+        assertEquals(1, count(shardSet.getShards().get(1), "Transfer_Outbox"));
+        assertEquals(1, count(shardSet.getShards().get(2), "Transfer_Inbox"));
+        final List<Transaction> received = transactionDao.getTransactionsForAccount(to);
+        assertEquals(1, received.size());
+        assertEquals("Funds Transfer Received", received.get(0).getDescription());
+        assertEquals(2, ShardIds.getShard(received.get(0).getId()));
+    }
+
+    @Test
+    public void testTransferWithinShardIsLocal() {
+        final Customer customer = createCustomer(usernameOnShard(1));
+        final long from = createAccount(customer, "100.00");
+        final long to = createAccount(customer, "0.00");
+        assertFalse(outbox.isRequired(from, to));
+
+        transactionTemplate.executeWithoutResult(status -> bankManager.transfer(from, to, new BigDecimal("40.00")));
+
+        assertBalance("60.00", from);
+        assertBalance("40.00", to);
+        assertEquals(0, count(shardSet.getShards().get(1), "Transfer_Outbox"));
+    }
+
+    @Test
+    public void testUndeliveredTransferIsRelayedOnce() {
+        final long from = createAccount(createCustomer(usernameOnShard(2)), "100.00");
+        final long to = createAccount(createCustomer(usernameOnShard(0)), "0.00");
+        final JdbcTemplate target = shardSet.getShards().get(0).getJdbcTemplate();
+
+        target.execute("ALTER TABLE Transfer_Inbox RENAME TO Transfer_Inbox_Offline");
+        transactionTemplate.executeWithoutResult(status -> bankManager.transfer(from, to, new BigDecimal("10.00")));
+        assertBalance("90.00", from);
+        assertBalance("0.00", to);
+        assertEquals(1, outbox.getPendingCount());
+
+        target.execute("ALTER TABLE Transfer_Inbox_Offline RENAME TO Transfer_Inbox");
+        assertEquals(1, outbox.relay());
+        assertEquals(0, outbox.relay());
+        assertEquals(0, outbox.getPendingCount());
+        assertBalance("10.00", to);
+
+        final long id = shardSet.getShards().get(2).getJdbcTemplate().queryForObject("SELECT id FROM Transfer_Outbox",
+            Long.class);
+        assertFalse(outbox.deliver(new ShardedTransferOutbox.Transfer(id, from, to, new BigDecimal("10.00"), "again")));
+        assertBalance("10.00", to);
+    }
+
+    @Test
+    public void testTransferToMissingAccountIsRejected() {
+        final long from = createAccount(createCustomer(usernameOnShard(1)), "100.00");
+        final long missing = ShardIds.compose(2, ShardIds.MAX_INT32_LOCAL_ID);
+
+        try {
+            transactionTemplate
+                .executeWithoutResult(status -> bankManager.transfer(from, missing, new BigDecimal("25.00")));
+            fail("did not throw expected EmptyResultDataAccessException");
+        } catch (final EmptyResultDataAccessException e) {
+        }
+        assertBalance("100.00", from);
+        assertEquals(0, count(shardSet.getShards().get(1), "Transfer_Outbox"));
+    }
+
+    @Test
+    public void testTransferToDeletedAccountIsReturned() {
+        final long from = createAccount(createCustomer(usernameOnShard(1)), "100.00");
+        final long to = createAccount(createCustomer(usernameOnShard(2)), "0.00");
+        final JdbcTemplate target = shardSet.getShards().get(2).getJdbcTemplate();
+
+        target.execute("ALTER TABLE Transfer_Inbox RENAME TO Transfer_Inbox_Offline");
+        transactionTemplate.executeWithoutResult(status -> bankManager.transfer(from, to, new BigDecimal("10.00")));
+        assertBalance("90.00", from);
+        assertEquals(1, outbox.getPendingCount());
+
+        target.update("DELETE FROM Account WHERE id = ?", to);
+        target.execute("ALTER TABLE Transfer_Inbox_Offline RENAME TO Transfer_Inbox");
+        assertEquals(1, outbox.relay());
+        assertEquals(0, outbox.getPendingCount());
+        assertEquals(0, outbox.relay());
+        assertBalance("100.00", from);
+        assertEquals(0, count(shardSet.getShards().get(2), "Transfer_Inbox"));
+        final List<Transaction> transactions = transactionDao.getTransactionsForAccount(from);
+        assertEquals("Funds Transfer Returned", transactions.get(transactions.size() - 1).getDescription());
+    }
+
+    private void assertBalance(final String expected, final long accountId) {
+        final BigDecimal balance = accountDao.getAccount(accountId).getBalance();
+        assertEquals(expected + " != " + balance, 0, new BigDecimal(expected).compareTo(balance));
+    }
+
+    private static long count(final Shard shard, final String from) {
+        return shard.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM " + from, Long.class);
+    }
+
+    private long createAccount(final Customer customer, final String balance) {
+        final Account account = new Account();
+        account.setCustomerId(customer.getId());
+        account.setType(AccountType.CHECKING);
+        account.setBalance(new BigDecimal(balance));
+        return transactionTemplate.execute(status -> accountDao.createAccount(account));
+    }
+
+    private Customer createCustomer(final String username) {
+        final Address address = new Address();
+        address.setStreet("1 Shard Way");
+        address.setCity("Ring");
+        address.setState("CA");
+        address.setZipCode("90210");
+        final Customer customer = new Customer();
+        customer.setFirstName("Shard");
+        customer.setLastName(username);
+        customer.setAddress(address);
+        customer.setPhoneNumber("310-447-4121");
+        customer.setSsn("ssn-" + username);
+        customer.setUsername(username);
+        customer.setPassword("secret");
+        transactionTemplate.executeWithoutResult(status -> customerDao.createCustomer(customer));
+        return customer;
+    }
+
+    private String usernameOnShard(final int shard) {
+        for (int i = 0;; i++) {
+            final String username = "shard" + shard + "user" + i;
+            if (shardSet.getShardForKey(username).getIndex() == shard) {
+                return username;
+            }
+        }
+    }
+}
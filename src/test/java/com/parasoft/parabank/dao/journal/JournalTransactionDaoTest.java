@@ -0,0 +1,293 @@
+package com.parasoft.parabank.dao.journal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.parasoft.parabank.dao.jdbc.JdbcAccountDao;
+import com.parasoft.parabank.dao.jdbc.JdbcAdminDao;
+import com.parasoft.parabank.dao.jdbc.JdbcSequenceDao;
+import com.parasoft.parabank.dao.jdbc.JdbcTransactionDao;
+import com.parasoft.parabank.dao.jdbc.internal.SchemaMigrator;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+import com.parasoft.parabank.domain.TransactionCriteria;
+import com.parasoft.parabank.domain.TransactionCriteria.SearchType;
+
+public class JournalTransactionDaoTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionJournal journal;
+
+    private JournalAdminDao adminDao;
+
+    private JournalTransactionDao transactionDao;
+
+    private JdbcTransactionDao jdbcTransactionDao;
+
+    private List<Account> accounts;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setUp() throws Exception {
+        final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:hsqldb:mem:journal" + DATABASES.incrementAndGet(), "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        final JdbcSequenceDao sequenceDao = new JdbcSequenceDao();
+        sequenceDao.setDataSource(dataSource);
+        sequenceDao.afterPropertiesSet();
+        final SchemaMigrator schemaMigrator = new SchemaMigrator();
+        schemaMigrator.setDataSource(dataSource);
+        schemaMigrator.afterPropertiesSet();
+        final JdbcAdminDao jdbcAdminDao = new JdbcAdminDao();
+        jdbcAdminDao.setDataSource(dataSource);
+        jdbcAdminDao.setSequenceDao(sequenceDao);
+        jdbcAdminDao.setSchemaMigrator(schemaMigrator);
+        jdbcAdminDao.setInserters(Collections.emptyList());
+        jdbcAdminDao.afterPropertiesSet();
+
+        journal = new TransactionJournal();
+        journal.setDirectory(folder.getRoot().getPath());
+        journal.setSegmentCapacity(16);
+        journal.setCompactInterval(0);
+        journal.setSync(false);
+        journal.afterPropertiesSet();
+        adminDao = new JournalAdminDao(jdbcAdminDao, journal);
+        adminDao.setDataSource(dataSource);
+        adminDao.afterPropertiesSet();
+        adminDao.initializeDB();
+
+        transactionDao = new JournalTransactionDao(journal, sequenceDao);
+        transactionDao.setDataSource(dataSource);
+        transactionDao.afterPropertiesSet();
+        jdbcTransactionDao = new JdbcTransactionDao();
+        jdbcTransactionDao.setDataSource(dataSource);
+        jdbcTransactionDao.setSequenceDao(sequenceDao);
+        jdbcTransactionDao.afterPropertiesSet();
+        final JdbcAccountDao accountDao = new JdbcAccountDao();
+        accountDao.setDataSource(dataSource);
+        accountDao.setSequenceDao(sequenceDao);
+        accountDao.afterPropertiesSet();
+        accounts = accountDao.getAccountsForCustomerId(12212);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @After
+    public void tearDown() {
+        journal.destroy();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    public void testLoadMatchesDatabase() {
+        assertFalse(accounts.isEmpty());
+        final TransactionCriteria activity = new TransactionCriteria();
+        activity.setSearchType(SearchType.ACTIVITY);
+        activity.setMonth("All");
+        activity.setTransactionType("Credit");
+        for (final Account account : accounts) {
+            assertEquals(jdbcTransactionDao.getTransactionsForAccount(account.getId()),
+                transactionDao.getTransactionsForAccount(account.getId()));
+            assertEquals(jdbcTransactionDao.getTransactionsForAccount(account.getId(), activity),
+                transactionDao.getTransactionsForAccount(account.getId(), activity));
+        }
+        assertTrue(journal.compact());
+        for (final Account account : accounts) {
+            assertEquals(jdbcTransactionDao.getTransactionsForAccount(account.getId()),
+                transactionDao.getTransactionsForAccount(account.getId()));
+        }
+
+        final List<Long> accountIds = new ArrayList<>();
+        for (final Account account : accounts) {
+            accountIds.add(account.getId());
+        }
+        final List<Transaction> expected = new ArrayList<>();
+        jdbcTransactionDao.exportTransactions(accountIds, null, null, expected::add);
+        final List<Transaction> exported = new ArrayList<>();
+        final List<String> rows = new ArrayList<>();
+        assertEquals(expected.size(), transactionDao.exportTransactions(accountIds, null, null, transaction -> {
+            exported.add(transaction);
+            rows.add(transaction.toString());
+        }));
+        // one transaction moved from record to record
+        assertSame(exported.get(0), exported.get(exported.size() - 1));
+        final List<String> expectedRows = new ArrayList<>();
+        for (final Transaction transaction : expected) {
+            expectedRows.add(transaction.toString());
+        }
+        assertEquals(expectedRows, rows);
+    }
+
+    @Test
+    public void testCreateAndCriteria() {
+        final long accountId = accounts.get(0).getId();
+        final int before = transactionDao.getTransactionsForAccount(accountId).size();
+        final Date today = new Date();
+        final Transaction first = transaction(accountId, today, "12.34");
+        final long id = transactionDao.createTransaction(first);
+        transactionDao.createTransactions(
+            Arrays.asList(transaction(accountId, today, "1.00"), transaction(accountId, today, "2.00")));
+        assertEquals(before + 3, transactionDao.getTransactionsForAccount(accountId).size());
+
+        final Transaction read = transactionDao.getTransaction(id);
+        assertEquals(new BigDecimal("12.34"), read.getAmount());
+        assertEquals("Journal test", read.getDescription());
+
+        final TransactionCriteria amount = new TransactionCriteria();
+        amount.setSearchType(SearchType.AMOUNT);
+        amount.setAmount(new BigDecimal("12.34"));
+        assertEquals(Arrays.asList(read), transactionDao.getTransactionsForAccount(accountId, amount));
+        final TransactionCriteria byId = new TransactionCriteria();
+        byId.setSearchType(SearchType.ID);
+        byId.setTransactionId(id);
+        assertEquals(Arrays.asList(read), transactionDao.getTransactionsForAccount(accountId, byId));
+        final TransactionCriteria onDate = new TransactionCriteria();
+        onDate.setSearchType(SearchType.DATE);
+        onDate.setOnDate(today);
+        assertEquals(3, transactionDao.getTransactionsForAccount(accountId, onDate).size());
+
+        final List<Transaction> page = transactionDao.getTransactionsForAccount(accountId, onDate, id, 5);
+        assertEquals(2, page.size());
+        try {
+            transactionDao.getTransaction(-1);
+            fail("Expected EmptyResultDataAccessException");
+        } catch (final EmptyResultDataAccessException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAppendedOnCommit() {
+        final long accountId = accounts.get(0).getId();
+        final int before = transactionDao.getTransactionsForAccount(accountId).size();
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionDao.createTransaction(transaction(accountId, new Date(), "5.00"));
+            status.setRollbackOnly();
+        });
+        assertEquals(before, transactionDao.getTransactionsForAccount(accountId).size());
+
+        final long id = transactionTemplate.execute(status -> {
+            final long created = transactionDao.createTransaction(transaction(accountId, new Date(), "5.00"));
+            transactionDao.createTransactions(Arrays.asList(transaction(accountId, new Date(), "6.00")));
+            assertEquals(before, transactionDao.getTransactionsForAccount(accountId).size());
+            return created;
+        });
+        assertEquals(before + 2, transactionDao.getTransactionsForAccount(accountId).size());
+        assertEquals(new BigDecimal("5.00"), transactionDao.getTransaction(id).getAmount());
+    }
+
+    @Test
+    public void testOutboxIsEmptiedByLaterTransactions() {
+        final long accountId = accounts.get(0).getId();
+        final long first = transactionTemplate
+            .execute(status -> transactionDao.createTransaction(transaction(accountId, new Date(), "5.00")));
+        assertEquals(Arrays.asList(first), outbox());
+        final long second = transactionTemplate
+            .execute(status -> transactionDao.createTransaction(transaction(accountId, new Date(), "6.00")));
+        assertEquals(Arrays.asList(second), outbox());
+
+        // a rollback keeps the rows it would have deleted for the next transaction
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionDao.createTransaction(transaction(accountId, new Date(), "7.00"));
+            status.setRollbackOnly();
+        });
+        assertEquals(Arrays.asList(second), outbox());
+        final long third = transactionTemplate
+            .execute(status -> transactionDao.createTransaction(transaction(accountId, new Date(), "8.00")));
+        assertEquals(Arrays.asList(third), outbox());
+        assertEquals(0, adminDao.recover());
+        assertTrue(outbox().isEmpty());
+    }
+
+    @Test
+    public void testFailedAppendIsRecovered() throws Exception {
+        final TransactionJournal failing = new TransactionJournal() {
+            @Override
+            public void append(final List<Transaction> transactions) {
+                throw new DataAccessResourceFailureException("Disk full");
+            }
+        };
+        final JdbcSequenceDao sequenceDao = new JdbcSequenceDao();
+        sequenceDao.setDataSource(jdbcTemplate.getDataSource());
+        sequenceDao.afterPropertiesSet();
+        final JournalTransactionDao failingDao = new JournalTransactionDao(failing, sequenceDao);
+        failingDao.setDataSource(jdbcTemplate.getDataSource());
+        failingDao.afterPropertiesSet();
+
+        final long accountId = accounts.get(0).getId();
+        // the caller's transaction committed, so the failed append is not thrown at it
+        final long id = transactionTemplate
+            .execute(status -> failingDao.createTransaction(transaction(accountId, new Date(), "5.00")));
+        assertEquals(Arrays.asList(id), outbox());
+        try {
+            transactionDao.getTransaction(id);
+            fail("Expected EmptyResultDataAccessException");
+        } catch (final EmptyResultDataAccessException e) {
+            // expected
+        }
+
+        assertEquals(1, adminDao.recover());
+        assertEquals(new BigDecimal("5.00"), transactionDao.getTransaction(id).getAmount());
+        assertTrue(outbox().isEmpty());
+    }
+
+    @Test
+    public void testRejectsFractionsOfCents() {
+        final long accountId = accounts.get(0).getId();
+        final int before = transactionDao.getTransactionsForAccount(accountId).size();
+        try {
+            transactionTemplate.executeWithoutResult(
+                status -> transactionDao.createTransaction(transaction(accountId, new Date(), "1.005")));
+            fail("Expected InvalidDataAccessApiUsageException");
+        } catch (final InvalidDataAccessApiUsageException e) {
+            // expected
+        }
+        final long id = transactionDao.createTransaction(transaction(accountId, new Date(), "1.2300"));
+        assertEquals(new BigDecimal("1.23"), transactionDao.getTransaction(id).getAmount());
+        assertEquals(before + 1, transactionDao.getTransactionsForAccount(accountId).size());
+    }
+
+    private List<Long> outbox() {
+        return jdbcTemplate.queryForList("SELECT id FROM Journal_Outbox ORDER BY id", Long.class);
+    }
+
+    private static Transaction transaction(final long accountId, final Date date, final String amount) {
+        final Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setType(TransactionType.Credit);
+        transaction.setDate(date);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setDescription("Journal test");
+        return transaction;
+    }
+}
@@ -0,0 +1,206 @@
+package com.parasoft.parabank.dao.journal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+
+public class TransactionJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<TransactionJournal> journals = new ArrayList<>();
+
+    private int nextId = 1000;
+
+    @After
+    public void tearDown() {
+        for (final TransactionJournal journal : journals) {
+            journal.destroy();
+        }
+    }
+
+    @Test
+    public void testScanOrderAndRanges() throws Exception {
+        final TransactionJournal journal = open(4);
+        // appended out of date order and across several segments
+        journal.append(Arrays.asList(transaction(1, 10, "5.00"), transaction(1, 3, "1.00"), transaction(2, 3, "9.99"),
+            transaction(1, 7, "2.50"), transaction(1, 3, "3.00"), transaction(1, 12, "4.00")));
+
+        final List<Long> ids = ids(journal, 1, null, null, null, Integer.MAX_VALUE);
+        assertEquals(Arrays.asList(1001L, 1004L, 1003L, 1000L, 1005L), ids);
+        assertEquals(Arrays.asList(1003L, 1000L), ids(journal, 1, day(7), day(10), null, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList(1004L, 1003L), ids(journal, 1, null, null, 1001L, 2));
+        assertEquals(Arrays.asList(1000L), ids(journal, 1, null, day(10), 1003L, 5));
+        assertEquals(Arrays.asList(1002L), ids(journal, 2, null, null, null, Integer.MAX_VALUE));
+        assertTrue(ids(journal, 3, null, null, null, Integer.MAX_VALUE).isEmpty());
+        try {
+            ids(journal, 2, null, null, 1000L, 1);
+            fail("Expected EmptyResultDataAccessException");
+        } catch (final EmptyResultDataAccessException e) {
+            // expected
+        }
+
+        final Transaction transaction = journal.get(1002);
+        assertEquals(2, transaction.getAccountId());
+        assertEquals(TransactionType.Debit, transaction.getType());
+        assertEquals(new BigDecimal("9.99"), transaction.getAmount());
+        assertEquals(java.sql.Date.valueOf(LocalDate.ofEpochDay(3)), transaction.getDate());
+        assertEquals("Journal test", transaction.getDescription());
+        assertNull(journal.get(1));
+        assertEquals(6, journal.getCount());
+    }
+
+    @Test
+    public void testDescriptionsAreShared() throws Exception {
+        final TransactionJournal journal = open(16);
+        final Transaction empty = transaction(1, 1, "1.00");
+        empty.setDescription(null);
+        empty.setDate(null);
+        empty.setAmount(null);
+        journal.append(Arrays.asList(transaction(1, 1, "1.00"), transaction(1, 2, "2.00"), empty));
+
+        final List<String> descriptions = new ArrayList<>();
+        journal.scan(1, null, null, null, Integer.MAX_VALUE, null, record -> descriptions.add(record.getDescription()));
+        assertEquals(Arrays.asList(null, "Journal test", "Journal test"), descriptions);
+        assertSame(descriptions.get(1), descriptions.get(2));
+        final Transaction read = journal.get(empty.getId());
+        assertNull(read.getDate());
+        assertNull(read.getAmount());
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        final TransactionJournal journal = open(2);
+        journal.append(Arrays.asList(transaction(1, 1, "1.00"), transaction(1, 2, "2.00"), transaction(1, 3, "3.00")));
+
+        final TransactionJournal reopened = open(2);
+        assertEquals(3, reopened.getCount());
+        reopened.append(Arrays.asList(transaction(1, 0, "0.50")));
+        assertEquals(Arrays.asList(1003L, 1000L, 1001L, 1002L), ids(reopened, 1, null, null, null, Integer.MAX_VALUE));
+        assertEquals("Journal test", reopened.get(1003).getDescription());
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        final TransactionJournal journal = open(3);
+        assertFalse(journal.compact());
+        for (int i = 0; i < 10; i++) {
+            journal.append(Arrays.asList(transaction(i % 3, i, i + ".00")));
+        }
+        final List<Long> before = ids(journal, 1, null, null, null, Integer.MAX_VALUE);
+        assertTrue(journal.compact());
+        assertFalse(journal.compact());
+        assertEquals(before, ids(journal, 1, null, null, null, Integer.MAX_VALUE));
+        assertEquals(10, journal.getCount());
+        assertEquals(new BigDecimal("4.00"), journal.get(1004).getAmount());
+
+        journal.append(Arrays.asList(transaction(1, 20, "20.00"), transaction(1, 21, "21.00")));
+        assertTrue(journal.compact());
+        final TransactionJournal reopened = open(3);
+        assertEquals(12, reopened.getCount());
+        assertEquals(ids(journal, 1, null, null, null, Integer.MAX_VALUE),
+            ids(reopened, 1, null, null, null, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testInterruptedCompaction() throws Exception {
+        final TransactionJournal journal = open(2);
+        for (int i = 0; i < 5; i++) {
+            journal.append(Arrays.asList(transaction(1, i, "1.00")));
+        }
+        final File backup = folder.newFolder();
+        for (final File file : segments()) {
+            Files.copy(file.toPath(), new File(backup, file.getName()).toPath());
+        }
+        assertTrue(journal.compact());
+        final File[] compacted = segments();
+        assertEquals(3, compacted.length);
+
+        // the compacted segments were all written, the segments they replace not deleted yet
+        restore(backup);
+        assertEquals(5, open(2).getCount());
+        assertEquals(compacted.length, segments().length);
+
+        // one compacted segment was not written yet, the replaced segments still count
+        restore(backup);
+        Files.delete(new File(folder.getRoot(), "journal-00000004.seg").toPath());
+        assertEquals(5, open(2).getCount());
+        assertEquals(backup.listFiles().length, segments().length);
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        final TransactionJournal journal = open(2);
+        journal.append(Arrays.asList(transaction(1, 1, "1.00"), transaction(1, 2, "2.00"), transaction(1, 3, "3.00")));
+        journal.reset();
+        assertTrue(journal.isEmpty());
+        assertNull(journal.get(1000));
+        journal.append(Arrays.asList(transaction(1, 1, "1.00")));
+        assertEquals(1, open(2).getCount());
+    }
+
+    private static java.util.Date day(final int epochDay) {
+        return java.sql.Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+
+    private static List<Long> ids(final TransactionJournal journal, final long accountId, final java.util.Date from,
+        final java.util.Date to, final Long cursor, final int limit) {
+        final List<Long> ids = new ArrayList<>();
+        journal.scan(accountId, from, to, cursor, limit, null, record -> ids.add(record.getId()));
+        return ids;
+    }
+
+    private TransactionJournal open(final int segmentCapacity) throws IOException {
+        final TransactionJournal journal = new TransactionJournal();
+        journal.setDirectory(folder.getRoot().getPath());
+        journal.setSegmentCapacity(segmentCapacity);
+        journal.setCompactInterval(0);
+        journal.afterPropertiesSet();
+        journals.add(journal);
+        return journal;
+    }
+
+    private void restore(final File backup) throws IOException {
+        for (final File file : backup.listFiles()) {
+            Files.copy(file.toPath(), new File(folder.getRoot(), file.getName()).toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private File[] segments() {
+        return folder.getRoot().listFiles((dir, name) -> name.endsWith(".seg"));
+    }
+
+    private Transaction transaction(final long accountId, final int epochDay, final String amount) {
+        final Transaction transaction = new Transaction();
+        transaction.setId(nextId++);
+        transaction.setAccountId(accountId);
+        transaction.setType(TransactionType.Debit);
+        transaction.setDate(day(epochDay));
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setDescription("Journal test");
+        return transaction;
+    }
+}
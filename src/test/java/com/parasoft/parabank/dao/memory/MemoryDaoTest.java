@@ -0,0 +1,355 @@
+package com.parasoft.parabank.dao.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.parasoft.parabank.dao.jdbc.JdbcAccountDao;
+import com.parasoft.parabank.dao.jdbc.JdbcAdminDao;
+import com.parasoft.parabank.dao.jdbc.JdbcSequenceDao;
+import com.parasoft.parabank.dao.jdbc.JdbcTransactionDao;
+import com.parasoft.parabank.dao.jdbc.StockPriceStore;
+import com.parasoft.parabank.dao.jdbc.internal.SchemaMigrator;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Account.AccountType;
+import com.parasoft.parabank.domain.Address;
+import com.parasoft.parabank.domain.Customer;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+import com.parasoft.parabank.domain.TransactionCriteria;
+import com.parasoft.parabank.domain.TransactionCriteria.SearchType;
+
+public class MemoryDaoTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private MemoryStore store;
+
+    private MemoryCustomerDao customerDao;
+
+    private MemoryAccountDao accountDao;
+
+    private MemoryPositionDao positionDao;
+
+    private MemoryTransactionDao transactionDao;
+
+    private JdbcAccountDao jdbcAccountDao;
+
+    private JdbcTransactionDao jdbcTransactionDao;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setUp() throws Exception {
+        final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:hsqldb:mem:memory" + DATABASES.incrementAndGet(), "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        final JdbcSequenceDao sequenceDao = new JdbcSequenceDao();
+        sequenceDao.setDataSource(dataSource);
+        sequenceDao.afterPropertiesSet();
+        final SchemaMigrator schemaMigrator = new SchemaMigrator();
+        schemaMigrator.setDataSource(dataSource);
+        schemaMigrator.afterPropertiesSet();
+        final JdbcAdminDao jdbcAdminDao = new JdbcAdminDao();
+        jdbcAdminDao.setDataSource(dataSource);
+        jdbcAdminDao.setSequenceDao(sequenceDao);
+        jdbcAdminDao.setSchemaMigrator(schemaMigrator);
+        jdbcAdminDao.setInserters(Collections.emptyList());
+        jdbcAdminDao.afterPropertiesSet();
+
+        store = new MemoryStore();
+        store.setLockTimeout(200);
+        store.afterPropertiesSet();
+        final MemoryAdminDao adminDao = new MemoryAdminDao(jdbcAdminDao, store);
+        adminDao.setDataSource(dataSource);
+        adminDao.afterPropertiesSet();
+        adminDao.initializeDB();
+
+        final MemoryTransactionManager transactionManager = new MemoryTransactionManager();
+        transactionManager.setStore(store);
+        transactionManager.afterPropertiesSet();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        final StockPriceStore stockPriceStore = new StockPriceStore();
+        stockPriceStore.setDataSource(dataSource);
+        stockPriceStore.afterPropertiesSet();
+
+        customerDao = new MemoryCustomerDao(store);
+        accountDao = new MemoryAccountDao(store);
+        positionDao = new MemoryPositionDao(store, stockPriceStore);
+        transactionDao = new MemoryTransactionDao(store);
+
+        jdbcAccountDao = new JdbcAccountDao();
+        jdbcAccountDao.setDataSource(dataSource);
+        jdbcAccountDao.setSequenceDao(sequenceDao);
+        jdbcAccountDao.afterPropertiesSet();
+        jdbcTransactionDao = new JdbcTransactionDao();
+        jdbcTransactionDao.setDataSource(dataSource);
+        jdbcTransactionDao.setSequenceDao(sequenceDao);
+        jdbcTransactionDao.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        store.destroy();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    public void testCustomers() {
+        final Customer john = customerDao.getCustomer("john", "demo");
+        assertEquals(12212, john.getId());
+        assertEquals(12212, customerDao.getCustomer("622-11-9999").getId());
+        assertEquals("john", customerDao.getCustomer(12212).getUsername());
+        assertNull(customerDao.getCustomer("john", "wrong"));
+        assertNull(customerDao.getCustomer("000-00-0000"));
+
+        john.setFirstName("Jack");
+        john.getAddress().setCity("Elsewhere");
+        customerDao.updateCustomer(john);
+        final Customer updated = customerDao.getCustomer(12212);
+        assertEquals("Jack", updated.getFirstName());
+        assertEquals("Elsewhere", updated.getAddress().getCity());
+
+        // changing a returned customer does not change the stored one
+        updated.setFirstName("Nobody");
+        assertEquals("Jack", customerDao.getCustomer(12212).getFirstName());
+
+        try {
+            customerDao.getCustomer(-1);
+            fail("Expected EmptyResultDataAccessException");
+        } catch (final EmptyResultDataAccessException e) {
+            // expected
+        }
+        try {
+            createCustomer("john");
+            fail("Expected DuplicateKeyException");
+        } catch (final DuplicateKeyException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLoadMatchesDatabase() {
+        final List<Account> accounts = accountDao.getAccountsForCustomerId(12212);
+        assertEquals(jdbcAccountDao.getAccountsForCustomerId(12212).size(), accounts.size());
+        assertFalse(accounts.isEmpty());
+        assertEquals(0, jdbcAccountDao.getBalanceSummary(12212).getTotalBalance()
+            .compareTo(accountDao.getBalanceSummary(12212).getTotalBalance()));
+
+        final TransactionCriteria activity = new TransactionCriteria();
+        activity.setSearchType(SearchType.ACTIVITY);
+        activity.setMonth("All");
+        activity.setTransactionType("Debit");
+        for (final Account account : accounts) {
+            assertEquals(jdbcAccountDao.getAccount(account.getId()).getBalance(), account.getBalance());
+            assertEquals(ids(jdbcTransactionDao.getTransactionsForAccount(account.getId())),
+                ids(transactionDao.getTransactionsForAccount(account.getId())));
+            assertEquals(ids(jdbcTransactionDao.getTransactionsForAccount(account.getId(), activity)),
+                ids(transactionDao.getTransactionsForAccount(account.getId(), activity)));
+        }
+    }
+
+    @Test
+    public void testTransactionPagesAndCriteria() {
+        final long accountId = createAccount(createCustomer("pager"), "0.00");
+        final Date day = new Date();
+        for (int i = 1; i <= 5; i++) {
+            createTransaction(accountId, day, i + ".00");
+        }
+        final List<Transaction> all = transactionDao.getTransactionsForAccount(accountId);
+        assertEquals(5, all.size());
+        assertEquals(new BigDecimal("1.00"), all.get(0).getAmount());
+
+        final List<Transaction> first = transactionDao.getTransactionsForAccount(accountId, null, null, 2);
+        assertEquals(2, first.size());
+        final List<Transaction> next =
+            transactionDao.getTransactionsForAccount(accountId, null, first.get(1).getId(), 2);
+        assertEquals(ids(all.subList(2, 4)), ids(next));
+
+        final TransactionCriteria amount = new TransactionCriteria();
+        amount.setSearchType(SearchType.AMOUNT);
+        amount.setAmount(new BigDecimal("3"));
+        assertEquals(1, transactionDao.getTransactionsForAccount(accountId, amount).size());
+
+        final TransactionCriteria onDate = new TransactionCriteria();
+        onDate.setSearchType(SearchType.DATE);
+        onDate.setOnDate(day);
+        assertEquals(5, transactionDao.getTransactionsForAccount(accountId, onDate).size());
+        onDate.setOnDate(new Date(day.getTime() - TimeUnit.DAYS.toMillis(2)));
+        assertTrue(transactionDao.getTransactionsForAccount(accountId, onDate).isEmpty());
+
+        try {
+            transactionDao.getTransactionsForAccount(13344, null, all.get(0).getId(), 2);
+            fail("Expected EmptyResultDataAccessException");
+        } catch (final EmptyResultDataAccessException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRollback() {
+        final long accountId = createAccount(createCustomer("rollback"), "100.00");
+        transactionTemplate.executeWithoutResult(status -> {
+            accountDao.adjustBalance(accountId, new BigDecimal("-40.00"));
+            createTransaction(accountId, new Date(), "40.00");
+            // the transaction sees its own changes
+            assertEquals(new BigDecimal("60.00"), accountDao.getAccount(accountId).getBalance());
+            assertEquals(1, transactionDao.getTransactionsForAccount(accountId).size());
+            status.setRollbackOnly();
+        });
+        assertEquals(new BigDecimal("100.00"), accountDao.getAccount(accountId).getBalance());
+        assertTrue(transactionDao.getTransactionsForAccount(accountId).isEmpty());
+
+        transactionTemplate.executeWithoutResult(
+            status -> accountDao.adjustBalance(accountId, new BigDecimal("-40.00")));
+        assertEquals(new BigDecimal("60.00"), accountDao.getAccount(accountId).getBalance());
+    }
+
+    @Test
+    public void testOptimisticLocking() {
+        final long accountId = createAccount(createCustomer("optimistic"), "10.00");
+        final Account account = accountDao.getAccount(accountId);
+        account.setType(AccountType.SAVINGS);
+        accountDao.updateAccount(account);
+        assertEquals(AccountType.SAVINGS, accountDao.getAccount(accountId).getType());
+
+        account.setVersion(account.getVersion() - 1);
+        try {
+            accountDao.updateAccount(account);
+            fail("Expected OptimisticLockingFailureException");
+        } catch (final OptimisticLockingFailureException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRowLocks() throws Exception {
+        final long accountId = createAccount(createCustomer("locks"), "10.00");
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                accountDao.adjustBalance(accountId, BigDecimal.ONE);
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            // uncommitted changes are not visible and the row stays locked
+            assertEquals(new BigDecimal("10.00"), accountDao.getAccount(accountId).getBalance());
+            try {
+                accountDao.adjustBalance(accountId, BigDecimal.ONE);
+                fail("Expected CannotAcquireLockException");
+            } catch (final CannotAcquireLockException e) {
+                // expected
+            }
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            accountDao.adjustBalance(accountId, BigDecimal.ONE);
+            assertEquals(new BigDecimal("12.00"), accountDao.getAccount(accountId).getBalance());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPositions() {
+        final Customer customer = createCustomer("investor");
+        final Position position = new Position();
+        position.setCustomerId(customer.getId());
+        position.setName("AMR Corporation");
+        position.setSymbol("AAR");
+        position.setShares(10);
+        position.setPurchasePrice(new BigDecimal("23.53"));
+        final long positionId = positionDao.createPosition(position);
+        assertEquals(1, positionDao.getPositionsForCustomerId(customer.getId()).size());
+        assertEquals(1, positionDao.getPortfolioValuation(customer.getId()).getPositions().size());
+
+        position.setShares(20);
+        assertTrue(positionDao.updatePosition(position));
+        assertEquals(20, positionDao.getPosition(positionId).getShares());
+        assertTrue(positionDao.deletePosition(position));
+        assertFalse(positionDao.deletePosition(position));
+        assertFalse(positionDao.updatePosition(position));
+        assertTrue(positionDao.getPositionsForCustomerId(customer.getId()).isEmpty());
+    }
+
+    private long createAccount(final Customer customer, final String balance) {
+        final Account account = new Account();
+        account.setCustomerId(customer.getId());
+        account.setType(AccountType.CHECKING);
+        account.setBalance(new BigDecimal(balance));
+        return accountDao.createAccount(account);
+    }
+
+    private Customer createCustomer(final String username) {
+        final Address address = new Address();
+        address.setStreet("1 Memory Lane");
+        address.setCity("Heap");
+        address.setState("CA");
+        address.setZipCode("90210");
+        final Customer customer = new Customer();
+        customer.setFirstName("Memory");
+        customer.setLastName(username);
+        customer.setAddress(address);
+        customer.setPhoneNumber("310-447-4121");
+        customer.setSsn("ssn-" + username);
+        customer.setUsername(username);
+        customer.setPassword("secret");
+        customerDao.createCustomer(customer);
+        return customer;
+    }
+
+    private long createTransaction(final long accountId, final Date date, final String amount) {
+        final Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setType(TransactionType.Debit);
+        transaction.setDate(date);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setDescription("Memory test");
+        return transactionDao.createTransaction(transaction);
+    }
+
+    private static List<Long> ids(final List<Transaction> transactions) {
+        final List<Long> ids = new ArrayList<>();
+        for (final Transaction transaction : transactions) {
+            ids.add(transaction.getId());
+        }
+        return ids;
+    }
+}
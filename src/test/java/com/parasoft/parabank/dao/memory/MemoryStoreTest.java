@@ -0,0 +1,141 @@
+package com.parasoft.parabank.dao.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.parasoft.parabank.dao.memory.MemoryStore.Table;
+import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.Account.AccountType;
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+
+public class MemoryStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<MemoryStore> stores = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (final MemoryStore store : stores) {
+            store.destroy();
+        }
+    }
+
+    @Test
+    public void testLogIsReplayedAfterCrash() throws Exception {
+        final MemoryStore store = open();
+        final long accountId = createAccount(store, "100.00");
+        new MemoryAccountDao(store).adjustBalance(accountId, new BigDecimal("-25.00"));
+        createTransaction(store, accountId, "25.00");
+        final long deleted = createAccount(store, "1.00");
+        assertTrue(store.delete(Table.ACCOUNT, deleted));
+
+        // the first store is never shut down, like a process that died
+        final MemoryStore recovered = open();
+        final Account account = recovered.get(Table.ACCOUNT, accountId);
+        assertEquals(0, new BigDecimal("75.00").compareTo(account.getBalance()));
+        assertEquals(1, account.getVersion());
+        assertNull(recovered.get(Table.ACCOUNT, deleted));
+        assertEquals(1, new MemoryTransactionDao(recovered).getTransactionsForAccount(accountId).size());
+        assertEquals(1, new MemoryAccountDao(recovered).getAccountsForCustomerId(7).size());
+        assertTrue(recovered.nextId(Table.ACCOUNT) > deleted);
+    }
+
+    @Test
+    public void testSnapshotAndLog() throws Exception {
+        final MemoryStore store = open();
+        final long first = createAccount(store, "10.00");
+        assertTrue(store.snapshot());
+        assertFalse(store.snapshot());
+        final long second = createAccount(store, "20.00");
+
+        final MemoryStore recovered = open();
+        assertEquals(2, recovered.getRowCount(Table.ACCOUNT));
+        assertEquals(0, new BigDecimal("10.00").compareTo(recovered.<Account> get(Table.ACCOUNT, first).getBalance()));
+        assertEquals(0,
+            new BigDecimal("20.00").compareTo(recovered.<Account> get(Table.ACCOUNT, second).getBalance()));
+    }
+
+    @Test
+    public void testSnapshotOnShutdownReplacesLog() throws Exception {
+        final MemoryStore store = open();
+        final long accountId = createAccount(store, "10.00");
+        stores.remove(store);
+        store.destroy();
+        assertEquals(1, list(".dat").length);
+        assertEquals(1, list(".log").length);
+
+        final MemoryStore recovered = open();
+        assertEquals(0, new BigDecimal("10.00").compareTo(recovered.<Account> get(Table.ACCOUNT, accountId).getBalance()));
+    }
+
+    @Test
+    public void testTornFrameEndsReplay() throws Exception {
+        final MemoryStore store = open();
+        final long accountId = createAccount(store, "10.00");
+        final File[] segments = list(".log");
+        Arrays.sort(segments);
+        try (FileOutputStream out = new FileOutputStream(segments[segments.length - 1], true)) {
+            // a frame header promising more bytes than were written
+            out.write(new byte[] { 0, 0, 0, 64, 1, 2, 3, 4, 5 });
+        }
+
+        final MemoryStore recovered = open();
+        assertEquals(1, recovered.getRowCount(Table.ACCOUNT));
+        assertEquals(0, new BigDecimal("10.00").compareTo(recovered.<Account> get(Table.ACCOUNT, accountId).getBalance()));
+        final long next = createAccount(recovered, "5.00");
+
+        // commits after the torn frame go to a new segment and survive the next start
+        final MemoryStore again = open();
+        assertEquals(2, again.getRowCount(Table.ACCOUNT));
+        assertEquals(0, new BigDecimal("5.00").compareTo(again.<Account> get(Table.ACCOUNT, next).getBalance()));
+    }
+
+    private static long createAccount(final MemoryStore store, final String balance) {
+        final Account account = new Account();
+        account.setCustomerId(7);
+        account.setType(AccountType.CHECKING);
+        account.setBalance(new BigDecimal(balance));
+        return new MemoryAccountDao(store).createAccount(account);
+    }
+
+    private static void createTransaction(final MemoryStore store, final long accountId, final String amount) {
+        final Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setType(TransactionType.Debit);
+        transaction.setDate(new Date());
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setDescription("Memory test");
+        new MemoryTransactionDao(store).createTransaction(transaction);
+    }
+
+    private File[] list(final String suffix) {
+        return folder.getRoot().listFiles((dir, name) -> name.endsWith(suffix));
+    }
+
+    private MemoryStore open() throws IOException {
+        final MemoryStore store = new MemoryStore();
+        store.setDirectory(folder.getRoot().getPath());
+        store.setSnapshotInterval(0);
+        store.afterPropertiesSet();
+        stores.add(store);
+        return store;
+    }
+}
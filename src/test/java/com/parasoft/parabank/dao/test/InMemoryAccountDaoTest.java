@@ -44,7 +44,7 @@ public class InMemoryAccountDaoTest extends AbstractParaBankTest {
     @Test
     public void testCreateAccount() {
         final Account originalAccount = new Account();
-        final int id = accountDao.createAccount(originalAccount);
+        final long id = accountDao.createAccount(originalAccount);
         assertEquals(3, id);
         final Account newAccount = accountDao.getAccount(id);
         assertEquals(originalAccount, newAccount);
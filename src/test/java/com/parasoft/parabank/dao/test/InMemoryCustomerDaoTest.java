@@ -62,7 +62,7 @@ public class InMemoryCustomerDaoTest extends AbstractParaBankTest {
     @Test
     public void testCreateCustomer() {
         final Customer originalCustomer = new Customer();
-        final int id = customerDao.createCustomer(originalCustomer);
+        final long id = customerDao.createCustomer(originalCustomer);
         assertEquals(3, id);
         final Customer newCustomer = customerDao.getCustomer(id);
         assertEquals(originalCustomer, newCustomer);
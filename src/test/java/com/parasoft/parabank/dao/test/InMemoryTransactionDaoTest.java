@@ -49,7 +49,7 @@ public class InMemoryTransactionDaoTest extends AbstractParaBankTest {
     @Test
     public void testCreateTransaction() {
         final Transaction originalTransaction = new Transaction();
-        final int id = transactionDao.createTransaction(originalTransaction);
+        final long id = transactionDao.createTransaction(originalTransaction);
         assertEquals(3, id);
         final Transaction newAccount = transactionDao.getTransaction(id);
         assertEquals(originalTransaction, newAccount);
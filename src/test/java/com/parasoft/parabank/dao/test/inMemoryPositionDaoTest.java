@@ -77,7 +77,7 @@ public class inMemoryPositionDaoTest extends AbstractParaBankTest {
     @Test
     public void testCreatePosition() {
         final Position originalPosition = new Position();
-        final int positionId = positionDao.createPosition(originalPosition);
+        final long positionId = positionDao.createPosition(originalPosition);
         assertEquals(3, positionId);
         final Position newPosition = positionDao.getPosition(positionId);
         assertEquals(originalPosition, newPosition);
@@ -86,7 +86,7 @@ public class inMemoryPositionDaoTest extends AbstractParaBankTest {
     @Test
     public void testDeletePosition() {
         Position position = new Position();
-        final int positionId = positionDao.createPosition(position);
+        final long positionId = positionDao.createPosition(position);
         assertEquals(3, positionId);
         position = positionDao.getPosition(positionId);
         positionDao.deletePosition(position);
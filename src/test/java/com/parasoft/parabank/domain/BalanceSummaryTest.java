@@ -0,0 +1,5 @@
+package com.parasoft.parabank.domain;
+
+import com.parasoft.parabank.test.util.AbstractBeanTestCase;
+
+public class BalanceSummaryTest extends AbstractBeanTestCase<BalanceSummary> { }
@@ -0,0 +1,50 @@
+package com.parasoft.parabank.domain.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.parasoft.parabank.domain.PortfolioValuation;
+import com.parasoft.parabank.domain.Position;
+import com.parasoft.parabank.domain.PositionValuation;
+
+public class PortfolioValuatorTest {
+    private static Position createPosition(final long id, final String symbol, final int shares, final String price) {
+        final Position position = new Position();
+        position.setPositionId(id);
+        position.setSymbol(symbol);
+        position.setShares(shares);
+        position.setPurchasePrice(new BigDecimal(price));
+        return position;
+    }
+
+    @Test
+    public void testValue() {
+        final long day = LocalDate.of(2024, 3, 1).toEpochDay();
+        final PortfolioValuation valuation = PortfolioValuator.value(12212,
+            Arrays.asList(createPosition(1, "AAR", 10, "20.125"), createPosition(2, "ZZZ", 3, "7.50")),
+            Collections.singletonMap("AAR", new long[] { day, PortfolioValuator.toFixedPoint(new BigDecimal("21")) }));
+
+        assertEquals(12212, valuation.getCustomerId());
+        assertEquals(new BigDecimal("223.7500"), valuation.getCostBasis());
+        assertEquals(new BigDecimal("232.5000"), valuation.getMarketValue());
+        assertEquals(new BigDecimal("8.7500"), valuation.getUnrealizedGain());
+
+        final PositionValuation priced = valuation.getPositions().get(0);
+        assertEquals(java.sql.Date.valueOf(LocalDate.ofEpochDay(day)), priced.getPriceDate());
+        assertEquals(new BigDecimal("21.0000"), priced.getLatestPrice());
+        assertEquals(new BigDecimal("210.0000"), priced.getMarketValue());
+
+        // a position without a latest price is valued at its cost basis
+        final PositionValuation unpriced = valuation.getPositions().get(1);
+        assertNull(unpriced.getLatestPrice());
+        assertEquals(new BigDecimal("22.5000"), unpriced.getMarketValue());
+        assertEquals(new BigDecimal("0.0000"), unpriced.getUnrealizedGain());
+    }
+}
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import jakarta.annotation.Resource;
@@ -65,6 +66,24 @@ public class AdminManagerImplTest extends AbstractAdminOperationsTest {
         assertEquals(newValue, adminManager.getParameter(TEST_PARAMETER));
     }
 
+    @Test
+    public void test035SetParameters() {
+        final long version = ((AdminManagerImpl) adminManager).getParameterVersion();
+        final Map<String, String> parameters = new HashMap<>();
+        parameters.put(TEST_PARAMETER, "40");
+        parameters.put("newParameter", "new value");
+
+        adminManager.setParameters(parameters);
+        assertEquals("40", adminManager.getParameter(TEST_PARAMETER));
+        assertEquals("new value", adminManager.getParameter("newParameter"));
+        assertEquals(version + 1, ((AdminManagerImpl) adminManager).getParameterVersion());
+
+        // a save that bypasses this manager, e.g. from another node, is picked up through the version
+        getAdminDao().setParameter(TEST_PARAMETER, "50");
+        assertEquals("50", adminManager.getParameter(TEST_PARAMETER));
+        assertEquals(version + 2, ((AdminManagerImpl) adminManager).getParameterVersion());
+    }
+
     @Test
     public void test040StartupJmsListener() {
         final AbstractJmsListeningContainer jmsOrig = adminManager.getJmsListener();
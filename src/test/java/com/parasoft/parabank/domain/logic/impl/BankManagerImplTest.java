@@ -6,6 +6,7 @@ import static org.junit.Assert.assertNull;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 
@@ -14,18 +15,23 @@ import org.junit.Test;
 import org.springframework.test.annotation.Rollback;
 
 import com.parasoft.parabank.dao.AccountDao;
-import com.parasoft.parabank.dao.AdminDao;
 import com.parasoft.parabank.dao.CustomerDao;
 import com.parasoft.parabank.dao.InMemoryAccountDao;
 import com.parasoft.parabank.dao.InMemoryAdminDao;
 import com.parasoft.parabank.dao.InMemoryCustomerDao;
 import com.parasoft.parabank.dao.InMemoryPositionDao;
 import com.parasoft.parabank.dao.InMemoryTransactionDao;
+import com.parasoft.parabank.dao.ParaBankAdminDao;
 import com.parasoft.parabank.dao.PositionDao;
 import com.parasoft.parabank.dao.TransactionDao;
 import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.BalanceSummary;
 import com.parasoft.parabank.domain.Customer;
 import com.parasoft.parabank.domain.HistoryPoint;
+import com.parasoft.parabank.domain.Payee;
+import com.parasoft.parabank.domain.Payment;
+import com.parasoft.parabank.domain.PaymentResult;
+import com.parasoft.parabank.domain.PaymentResult.Status;
 import com.parasoft.parabank.domain.Position;
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.domain.Transaction.TransactionType;
@@ -38,9 +44,9 @@ import com.parasoft.parabank.test.util.AbstractParaBankTest;
  *
  */
 public class BankManagerImplTest extends AbstractParaBankTest {
-    private static final int ACCOUNT1_ID = 1;
+    private static final long ACCOUNT1_ID = 1;
 
-    private static final int ACCOUNT2_ID = 2;
+    private static final long ACCOUNT2_ID = 2;
 
     private static final int ACCOUNT3_ID = 3;
 
@@ -74,7 +80,7 @@ public class BankManagerImplTest extends AbstractParaBankTest {
 
     private TransactionDao transactionDao;
 
-    private AdminDao adminDao;
+    private ParaBankAdminDao adminDao;
 
     @Override
     @Before
@@ -145,7 +151,9 @@ public class BankManagerImplTest extends AbstractParaBankTest {
         bankManager.setCustomerDao(customerDao);
         bankManager.setPositionDao(positionDao);
         bankManager.setTransactionDao(transactionDao);
-        bankManager.setAdminDao(adminDao);
+        final AdminManagerImpl adminManager = new AdminManagerImpl();
+        adminManager.setAdminDao(adminDao);
+        bankManager.setAdminManager(adminManager);
 
         this.bankManager = bankManager;
     }
@@ -164,12 +172,12 @@ public class BankManagerImplTest extends AbstractParaBankTest {
         assertEquals(balance.add(AMOUNT1), bankManager.getAccount(ACCOUNT3_ID).getAvailableBalance());
         balance = balance.add(AMOUNT1);
 
-        final int customerId = bankManager.getAccount(ACCOUNT3_ID).getCustomerId();
+        final long customerId = bankManager.getAccount(ACCOUNT3_ID).getCustomerId();
         final Customer customer = bankManager.getCustomer(customerId);
         assertEquals(customerId, customer.getId());
         final List<Position> currentList = bankManager.getPositionsForCustomer(customer);
         final int size = currentList.size();
-        final int[] positionIds = new int[size];
+        final long[] positionIds = new long[size];
         int iterator = 0;
         for (final Position pos : currentList) {
             positionIds[iterator] = pos.getPositionId();
@@ -179,11 +187,11 @@ public class BankManagerImplTest extends AbstractParaBankTest {
         List<Position> positions = bankManager.buyPosition(customerId, ACCOUNT3_ID, NAME, SYMBOL, SHARES, PRICE);
         assertEquals(size + 1, positions.size());
 
-        int newPositionId = -1;
+        long newPositionId = -1;
         for (final Position pos : positions) {
             boolean found = false;
-            final int id = pos.getPositionId();
-            for (int positionId : positionIds) {
+            final long id = pos.getPositionId();
+            for (long positionId : positionIds) {
                 if (id == positionId) {
                     found = true;
                 }
@@ -249,7 +257,7 @@ public class BankManagerImplTest extends AbstractParaBankTest {
 
         Account account2 = new Account();
         account2.setBalance(BigDecimal.ZERO);
-        final int id = bankManager.createAccount(account2, account1.getId());
+        final long id = bankManager.createAccount(account2, account1.getId());
         assertEquals(id, account2.getId());
 
         account2 = bankManager.getAccount(account2.getId());
@@ -264,7 +272,7 @@ public class BankManagerImplTest extends AbstractParaBankTest {
 
     @Test
     public void testCreateCustomer() {
-        final int id = bankManager.createCustomer(new Customer());
+        final long id = bankManager.createCustomer(new Customer());
         assertEquals(2, id);
         final List<Account> accounts = accountDao.getAccountsForCustomerId(id);
         assertEquals(1, accounts.size());
@@ -314,6 +322,55 @@ public class BankManagerImplTest extends AbstractParaBankTest {
         assertEquals(TRANSACTION_MESSAGE, transaction.getDescription());
     }
 
+    @Test
+    public void testGetBalanceSummary() {
+        bankManager.deposit(ACCOUNT3_ID, new BigDecimal(50), TRANSACTION_MESSAGE);
+
+        final BalanceSummary summary = bankManager.getBalanceSummary(CUSTOMER_ID);
+        assertEquals(CUSTOMER_ID, summary.getCustomerId());
+        assertEquals(new BigDecimal(150).floatValue(), summary.getTotalBalance().floatValue(), 0.0001f);
+        assertEquals(new BigDecimal(150).floatValue(), summary.getAvailableBalance().floatValue(), 0.0001f);
+        assertEquals(1, summary.getAccountCount());
+    }
+
+    @Test
+    public void testProcessPayments() {
+        final Payee payee = new Payee();
+        payee.setName("Electric Company");
+
+        List<PaymentResult> results = bankManager.processPayments(Arrays.asList(
+            new Payment(ACCOUNT1_ID, ACCOUNT2_ID, null, new BigDecimal(50)),
+            new Payment(ACCOUNT2_ID, null, payee, new BigDecimal(20)),
+            new Payment(ACCOUNT2_ID, ACCOUNT1_ID, null, new BigDecimal(10))));
+        assertEquals(3, results.size());
+        for (final PaymentResult result : results) {
+            assertEquals(Status.APPLIED, result.getStatus());
+        }
+        assertEquals(new BigDecimal(60).floatValue(), accountDao.getAccount(ACCOUNT1_ID).getBalance().floatValue(),
+            0.0001f);
+        assertEquals(new BigDecimal(220).floatValue(), accountDao.getAccount(ACCOUNT2_ID).getBalance().floatValue(),
+            0.0001f);
+        assertEquals(2, transactionDao.getTransactionsForAccount(ACCOUNT1_ID).size());
+        assertEquals(3, transactionDao.getTransactionsForAccount(ACCOUNT2_ID).size());
+        assertEquals("Bill Payment to Electric Company",
+            transactionDao.getTransactionsForAccount(ACCOUNT2_ID).get(1).getDescription());
+
+        // one invalid payment rejects the whole batch
+        results = bankManager.processPayments(Arrays.asList(
+            new Payment(ACCOUNT1_ID, ACCOUNT2_ID, null, new BigDecimal(50)),
+            new Payment(ACCOUNT1_ID, -1L, null, new BigDecimal(50)),
+            new Payment(ACCOUNT1_ID, null, null, new BigDecimal(50)),
+            new Payment(ACCOUNT1_ID, ACCOUNT2_ID, null, BigDecimal.ZERO)));
+        assertEquals(Status.SKIPPED, results.get(0).getStatus());
+        assertEquals(Status.INVALID, results.get(1).getStatus());
+        assertEquals("Could not find account number -1", results.get(1).getMessage());
+        assertEquals(Status.INVALID, results.get(2).getStatus());
+        assertEquals(Status.INVALID, results.get(3).getStatus());
+        assertEquals(new BigDecimal(60).floatValue(), accountDao.getAccount(ACCOUNT1_ID).getBalance().floatValue(),
+            0.0001f);
+        assertEquals(2, transactionDao.getTransactionsForAccount(ACCOUNT1_ID).size());
+    }
+
     @Test
     public void testTransfer() {
         final BigDecimal AMOUNT = new BigDecimal(50);
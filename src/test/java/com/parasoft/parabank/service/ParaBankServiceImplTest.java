@@ -10,6 +10,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 
@@ -21,9 +22,15 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.parasoft.parabank.dao.jdbc.internal.StockDataInserter;
 import com.parasoft.parabank.domain.Account;
+import com.parasoft.parabank.domain.BalanceSummary;
 import com.parasoft.parabank.domain.Customer;
 import com.parasoft.parabank.domain.HistoryPoint;
 import com.parasoft.parabank.domain.LoanResponse;
+import com.parasoft.parabank.domain.Payee;
+import com.parasoft.parabank.domain.Payment;
+import com.parasoft.parabank.domain.PaymentResult;
+import com.parasoft.parabank.domain.PaymentResult.Status;
+import com.parasoft.parabank.domain.PortfolioValuation;
 import com.parasoft.parabank.domain.Position;
 import com.parasoft.parabank.domain.Transaction;
 import com.parasoft.parabank.test.util.AbstractParaBankDataSourceTest;
@@ -37,9 +44,9 @@ import com.parasoft.parabank.util.DateTimeAdapter;
 public class ParaBankServiceImplTest extends AbstractParaBankDataSourceTest {
     private static final int CUSTOMER_ID = 12212;
 
-    private static final int ACCOUNT1_ID = 12345;
+    private static final long ACCOUNT1_ID = 12345;
 
-    private static final int ACCOUNT2_ID = 54321;
+    private static final long ACCOUNT2_ID = 54321;
 
     private static final int TRANSACTION_ID = 13033;
 
@@ -90,7 +97,7 @@ public class ParaBankServiceImplTest extends AbstractParaBankDataSourceTest {
 
         final List<Position> currentList = paraBankService.getPositions(CUSTOMER_ID);
         final int size = currentList.size();
-        final int[] positionIds = new int[size];
+        final long[] positionIds = new long[size];
         int iterator = 0;
         for (final Position pos : currentList) {
             positionIds[iterator] = pos.getPositionId();
@@ -115,12 +122,12 @@ public class ParaBankServiceImplTest extends AbstractParaBankDataSourceTest {
         // in
         // precision
 
-        // int positionId = position.getPositionId();
-        int newPositionId = -1;
+        // long positionId = position.getPositionId();
+        long newPositionId = -1;
         for (final Position pos : positions) {
             boolean found = false;
-            final int id = pos.getPositionId();
-            for (int positionId : positionIds) {
+            final long id = pos.getPositionId();
+            for (long positionId : positionIds) {
                 if (id == positionId) {
                     found = true;
                     break;
@@ -191,6 +198,20 @@ public class ParaBankServiceImplTest extends AbstractParaBankDataSourceTest {
         }
     }
 
+    @Test
+    public void testGetBalanceSummary() throws Exception {
+        final BalanceSummary summary = paraBankService.getBalanceSummary(CUSTOMER_ID);
+        assertEquals(CUSTOMER_ID, summary.getCustomerId());
+        assertEquals(new BigDecimal("1692.67"), summary.getTotalBalance());
+        assertEquals(11, summary.getAccountCount());
+
+        try {
+            paraBankService.getBalanceSummary(-1);
+            fail("Did not throw expected ParaBankServiceException");
+        } catch (final ParaBankServiceException e) {
+        }
+    }
+
     @Test
     public void testGetCustomer() throws Exception {
         final Customer customer = paraBankService.getCustomer(CUSTOMER_ID);
@@ -204,6 +225,20 @@ public class ParaBankServiceImplTest extends AbstractParaBankDataSourceTest {
         }
     }
 
+    @Test
+    public void testGetPortfolioValuation() throws Exception {
+        final PortfolioValuation valuation = paraBankService.getPortfolioValuation(CUSTOMER_ID);
+        assertEquals(CUSTOMER_ID, valuation.getCustomerId());
+        assertEquals(paraBankService.getPositions(CUSTOMER_ID).size(), valuation.getPositions().size());
+        assertEquals(valuation.getMarketValue().subtract(valuation.getCostBasis()), valuation.getUnrealizedGain());
+
+        try {
+            paraBankService.getPortfolioValuation(-1);
+            fail("Did not throw expected ParaBankServiceException");
+        } catch (final ParaBankServiceException e) {
+        }
+    }
+
     @Test
     public void testGetPosition() throws Exception {
         final Position position = paraBankService.getPosition(POSITION_ID);
@@ -224,10 +259,41 @@ public class ParaBankServiceImplTest extends AbstractParaBankDataSourceTest {
         final String endDate = DateTimeAdapter.OUTPUT_FORMAT.format(calendar.toInstant());
         calendar.add(Calendar.DAY_OF_MONTH, -10);
         final String startDate = DateTimeAdapter.OUTPUT_FORMAT.format(calendar.toInstant());
-        final List<HistoryPoint> history = paraBankService.getPositionHistory(POSITION_ID, startDate, endDate);
+        final List<HistoryPoint> history =
+            paraBankService.getPositionHistory(POSITION_ID, startDate, endDate, null, null);
         assertThat(history.size(), allOf(greaterThanOrEqualTo(10), lessThanOrEqualTo(12)));
         try {
-            paraBankService.getPositionHistory(-1, startDate, endDate);
+            paraBankService.getPositionHistory(-1, startDate, endDate, null, null);
+            fail("Did not throw expected ParaBankServiceException");
+        } catch (final ParaBankServiceException e) {
+        }
+    }
+
+    @Test
+    public void testGetPositionHistoryResolution() throws Exception {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, -1);
+        final String endDate = DateTimeAdapter.OUTPUT_FORMAT.format(calendar.toInstant());
+        calendar.add(Calendar.YEAR, -4);
+        final String startDate = DateTimeAdapter.OUTPUT_FORMAT.format(calendar.toInstant());
+
+        final List<HistoryPoint> monthly =
+            paraBankService.getPositionHistory(POSITION_ID, startDate, endDate, "monthly", null);
+        assertThat(monthly.size(), allOf(greaterThanOrEqualTo(48), lessThanOrEqualTo(50)));
+        for (final HistoryPoint point : monthly) {
+            assertThat(point.getHighPrice(), greaterThanOrEqualTo(point.getLowPrice()));
+        }
+        final List<HistoryPoint> budgeted =
+            paraBankService.getPositionHistory(POSITION_ID, startDate, endDate, null, 300);
+        assertThat(budgeted.size(), allOf(greaterThanOrEqualTo(200), lessThanOrEqualTo(300)));
+
+        try {
+            paraBankService.getPositionHistory(POSITION_ID, startDate, endDate, "hourly", null);
+            fail("Did not throw expected ParaBankServiceException");
+        } catch (final ParaBankServiceException e) {
+        }
+        try {
+            paraBankService.getPositionHistory(POSITION_ID, startDate, endDate, null, 0);
             fail("Did not throw expected ParaBankServiceException");
         } catch (final ParaBankServiceException e) {
         }
@@ -260,11 +326,26 @@ public class ParaBankServiceImplTest extends AbstractParaBankDataSourceTest {
 
     @Test
     public void testGetTransactions() throws Exception {
-        final List<Transaction> transactions = paraBankService.getTransactions(ACCOUNT1_ID);
+        final List<Transaction> transactions = paraBankService.getTransactions(ACCOUNT1_ID, null, null);
         assertEquals(7, transactions.size());
 
+        final List<Transaction> page = paraBankService.getTransactions(ACCOUNT1_ID, null, 5);
+        assertEquals(transactions.subList(0, 5), page);
+        assertEquals(transactions.subList(5, 7),
+            paraBankService.getTransactions(ACCOUNT1_ID, page.get(4).getId(), 5));
+
+        // a transaction of another account or none at all is no place to continue from
+        assertTrue(paraBankService.getTransactions(ACCOUNT1_ID, (long) TRANSACTION_ID, 5).isEmpty());
+        assertTrue(paraBankService.getTransactions(ACCOUNT1_ID, -1L, 5).isEmpty());
+
         try {
-            paraBankService.getTransactions(-1);
+            paraBankService.getTransactions(ACCOUNT1_ID, null, 0);
+            fail("Did not throw expected ParaBankServiceException");
+        } catch (final ParaBankServiceException e) {
+        }
+
+        try {
+            paraBankService.getTransactions(-1, null, null);
             fail("Did not throw expected ParaBankServiceException");
         } catch (final ParaBankServiceException e) {
         }
@@ -300,6 +381,32 @@ public class ParaBankServiceImplTest extends AbstractParaBankDataSourceTest {
         }
     }
 
+    @Test
+    public void testProcessPayments() throws Exception {
+        final BigDecimal balance1 = paraBankService.getAccount(ACCOUNT1_ID).getBalance();
+        final BigDecimal balance2 = paraBankService.getAccount(ACCOUNT2_ID).getBalance();
+        final Payee payee = new Payee();
+        payee.setName("Water Company");
+
+        final List<PaymentResult> results = paraBankService.processPayments(Arrays.asList(
+            new Payment(ACCOUNT1_ID, ACCOUNT2_ID, null, ONE_HUNDRED_DOLLARS),
+            new Payment(ACCOUNT1_ID, ACCOUNT2_ID, null, ONE_HUNDRED_DOLLARS),
+            new Payment(ACCOUNT2_ID, null, payee, ONE_HUNDRED_DOLLARS)));
+        assertEquals(3, results.size());
+        assertEquals(Status.APPLIED, results.get(0).getStatus());
+        assertEquals("Successfully transferred $" + ONE_HUNDRED_DOLLARS + " from account #" + ACCOUNT1_ID
+            + " to account #" + ACCOUNT2_ID, results.get(0).getMessage());
+        assertEquals(Status.APPLIED, results.get(2).getStatus());
+        assertEquals(balance1.subtract(new BigDecimal("200.00")), paraBankService.getAccount(ACCOUNT1_ID).getBalance());
+        assertEquals(balance2.add(ONE_HUNDRED_DOLLARS), paraBankService.getAccount(ACCOUNT2_ID).getBalance());
+
+        try {
+            paraBankService.processPayments(null);
+            fail("Did not throw expected ParaBankServiceException");
+        } catch (final ParaBankServiceException e) {
+        }
+    }
+
     @Test
     public void testTransfer() throws Exception {
         final String message = paraBankService.transfer(ACCOUNT1_ID, ACCOUNT2_ID, ONE_HUNDRED_DOLLARS);
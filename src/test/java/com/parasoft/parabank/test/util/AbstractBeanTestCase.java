@@ -149,6 +149,8 @@ public abstract class AbstractBeanTestCase<T> extends AbstractParaBankTest {
             field.setInt(obj, on ? 1 : 0);
         } else if (field.getType() == Integer.class) {
             field.set(obj, on ? 1 : 0);
+        } else if (field.getType() == Long.class) {
+            field.set(obj, on ? 1L : 0L);
         } else if (field.getType() == byte.class) {
             field.setByte(obj, on ? (byte) 1 : (byte) 0);
         } else if (field.getType() == char.class) {
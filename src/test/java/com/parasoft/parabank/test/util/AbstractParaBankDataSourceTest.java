@@ -475,7 +475,7 @@ public abstract class AbstractParaBankDataSourceTest extends JdbcDaoSupport {
         return registerSession(aRequest, 12212);
     }
 
-    protected final MockHttpServletRequest registerSession(final MockHttpServletRequest aRequest, final int custId) {
+    protected final MockHttpServletRequest registerSession(final MockHttpServletRequest aRequest, final long custId) {
         final MockHttpSession session = new MockHttpSession();
         final Customer customer = new Customer();
         customer.setId(custId);
@@ -0,0 +1,59 @@
+package com.parasoft.parabank.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class ServerBeanTest {
+    @Test
+    public void testEmbeddedWithTransactionControl() throws Exception {
+        final ServerBean bean = new ServerBean();
+        bean.setServerProperties(new Properties());
+        bean.setDatabasePath("mem:serverbeantest");
+        bean.setDatabasePath2("mem:serverbeantest2");
+        bean.setListenerEnabled(false);
+        bean.setTransactionControl("mvcc");
+        bean.afterPropertiesSet();
+
+        assertEquals("jdbc:hsqldb:mem:serverbeantest", bean.getJdbcUrl());
+        assertNull(bean.getServer());
+        try (Connection con = DriverManager.getConnection(bean.getJdbcUrl(), "sa", "");
+                Statement statement = con.createStatement()) {
+            try (ResultSet rs = statement.executeQuery(
+                "SELECT PROPERTY_VALUE FROM INFORMATION_SCHEMA.SYSTEM_PROPERTIES WHERE PROPERTY_NAME = 'hsqldb.tx'")) {
+                assertTrue(rs.next());
+                assertEquals("MVCC", rs.getString(1).toUpperCase());
+            }
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    public void testJdbcUrl() {
+        final ServerBean bean = new ServerBean();
+        bean.setDatabasePath("target/db/db");
+        assertEquals("jdbc:hsqldb:file:target/db/db", bean.getJdbcUrl());
+    }
+
+    @Test
+    public void testTransactionControl() {
+        final ServerBean bean = new ServerBean();
+        bean.setTransactionControl(" mvlocks ");
+        assertEquals("MVLOCKS", bean.getTransactionControl());
+        bean.setTransactionControl("");
+        assertNull(bean.getTransactionControl());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTransactionControl() {
+        new ServerBean().setTransactionControl("OPTIMISTIC");
+    }
+}
@@ -0,0 +1,167 @@
+package com.parasoft.parabank.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.parasoft.parabank.test.util.AbstractParaBankTest;
+import com.parasoft.parabank.util.StripedLockManager.Locked;
+
+public class StripedLockManagerTest extends AbstractParaBankTest {
+    private static final int ACCOUNT1 = 12345;
+
+    private static final int ACCOUNT2 = 12456;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLockIsReentrant() {
+        final StripedLockManager lockManager = new StripedLockManager();
+        try (Locked outer = lockManager.lock(ACCOUNT1, ACCOUNT2)) {
+            try (Locked inner = lockManager.lock(ACCOUNT2)) {
+                assertEquals(3, lockManager.getAcquisitionCount());
+            }
+        }
+        assertEquals(0, lockManager.getContentionCount());
+    }
+
+    @Test
+    public void testUnrelatedIdsDoNotBlock() throws Exception {
+        final StripedLockManager lockManager = new StripedLockManager();
+        assertNotEquals(lockManager.getStripe(ACCOUNT1), lockManager.getStripe(ACCOUNT2));
+
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Future<?> holder = executor.submit(() -> {
+            try (Locked l = lockManager.lock(ACCOUNT1)) {
+                locked.countDown();
+                release.await();
+            }
+            return null;
+        });
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        try (Locked l = lockManager.lock(ACCOUNT2)) {
+            assertEquals(0, lockManager.getContentionCount());
+        }
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testOppositeTransfersDoNotDeadlock() throws Exception {
+        final StripedLockManager lockManager = new StripedLockManager();
+        lockManager.setTimeout(10000);
+        final int[] balance = new int[1];
+        final Future<?> forward = executor.submit(() -> transfer(lockManager, ACCOUNT1, ACCOUNT2, balance, 1));
+        final Future<?> backward = executor.submit(() -> transfer(lockManager, ACCOUNT2, ACCOUNT1, balance, -1));
+        forward.get(30, TimeUnit.SECONDS);
+        backward.get(30, TimeUnit.SECONDS);
+        assertEquals(0, balance[0]);
+        assertEquals(0, lockManager.getTimeoutCount());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final StripedLockManager lockManager = new StripedLockManager(16);
+        lockManager.setTimeout(50);
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Future<?> holder = executor.submit(() -> {
+            try (Locked l = lockManager.lock(ACCOUNT2)) {
+                locked.countDown();
+                release.await();
+            }
+            return null;
+        });
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        try (Locked l = lockManager.lock(ACCOUNT1, ACCOUNT2)) {
+            fail("did not throw expected CannotAcquireLockException");
+        } catch (final CannotAcquireLockException e) {
+        }
+        assertEquals(1, lockManager.getContentionCount());
+        assertEquals(1, lockManager.getTimeoutCount());
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        // nothing is left locked after the timeout
+        try (Locked l = lockManager.lock(ACCOUNT1, ACCOUNT2)) {
+            assertEquals(1, lockManager.getTimeoutCount());
+        }
+    }
+
+    @Test
+    public void testSecondLockInTransactionDoesNotWaitOutOfOrder() throws Exception {
+        final StripedLockManager lockManager = new StripedLockManager();
+        lockManager.setTimeout(10000);
+        final long low = lockManager.getStripe(ACCOUNT1) < lockManager.getStripe(ACCOUNT2) ? ACCOUNT1 : ACCOUNT2;
+        final long high = low == ACCOUNT1 ? ACCOUNT2 : ACCOUNT1;
+
+        // another thread takes both stripes in ascending order and pauses between them
+        final CountDownLatch lowLocked = new CountDownLatch(1);
+        final CountDownLatch highReleased = new CountDownLatch(1);
+        final Future<?> other = executor.submit(() -> {
+            try (Locked l = lockManager.lock(low)) {
+                lowLocked.countDown();
+                assertTrue(highReleased.await(5, TimeUnit.SECONDS));
+                try (Locked h = lockManager.lock(high)) {
+                    return null;
+                }
+            }
+        });
+        assertTrue(lowLocked.await(5, TimeUnit.SECONDS));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            try (Locked l = lockManager.lock(high)) {
+            }
+            // the stripe of high is still held until the transaction completes
+            final long start = System.nanoTime();
+            try (Locked l = lockManager.lock(low)) {
+                fail("did not throw expected CannotAcquireLockException");
+            } catch (final CannotAcquireLockException e) {
+            }
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+            assertEquals(0, lockManager.getTimeoutCount());
+
+            // a stripe already held by the transaction is re-entered
+            try (Locked l = lockManager.lock(high)) {
+            }
+        } finally {
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        highReleased.countDown();
+        other.get(5, TimeUnit.SECONDS);
+        assertEquals(0, lockManager.getTimeoutCount());
+    }
+
+    private static Void transfer(final StripedLockManager lockManager, final int from, final int to,
+        final int[] balance, final int amount) {
+        for (int i = 0; i < 10000; i++) {
+            try (Locked l = lockManager.lock(from, to)) {
+                balance[0] += amount;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.parasoft.parabank.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import com.parasoft.parabank.dao.jdbc.routing.PrimaryAffinity;
+import com.parasoft.parabank.util.Constants;
+
+public class PrimaryAffinityInterceptorTest {
+    private final PrimaryAffinityInterceptor interceptor = new PrimaryAffinityInterceptor();
+
+    @After
+    public void tearDown() {
+        PrimaryAffinity.clear();
+    }
+
+    @Test
+    public void testLastWriteIsKeptInSession() throws Exception {
+        final MockHttpSession session = new MockHttpSession();
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertNull(PrimaryAffinity.getLastWrite());
+        PrimaryAffinity.markWrite();
+        final Long lastWrite = PrimaryAffinity.getLastWrite();
+        interceptor.afterCompletion(request, response, null, null);
+        assertNull(PrimaryAffinity.getLastWrite());
+        assertEquals(lastWrite, session.getAttribute(Constants.PRIMARY_AFFINITY));
+
+        interceptor.preHandle(request, response, null);
+        assertEquals(lastWrite, PrimaryAffinity.getLastWrite());
+        assertTrue(PrimaryAffinity.isBound(60000));
+    }
+
+    @Test
+    public void testNoSessionIsCreated() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        PrimaryAffinity.markWrite();
+
+        interceptor.preHandle(request, response, null);
+        assertNull(PrimaryAffinity.getLastWrite());
+        PrimaryAffinity.markWrite();
+        interceptor.afterCompletion(request, response, null, null);
+        assertNull(request.getSession(false));
+    }
+}
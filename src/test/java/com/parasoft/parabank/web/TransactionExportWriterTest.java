@@ -0,0 +1,118 @@
+package com.parasoft.parabank.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+
+import org.junit.Test;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.parasoft.parabank.domain.Transaction;
+import com.parasoft.parabank.domain.Transaction.TransactionType;
+
+public class TransactionExportWriterTest {
+    private static String export(final String format, final Transaction... transactions) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final TransactionExportWriter writer = TransactionExportWriter.create(format, out);
+        for (final Transaction transaction : transactions) {
+            writer.accept(transaction);
+        }
+        writer.finish();
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+
+    private static Transaction createTransaction(final long id, final String description) {
+        final Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAccountId(12345);
+        transaction.setType(TransactionType.Debit);
+        transaction.setDate(Date.valueOf("2017-03-04"));
+        transaction.setAmount(new BigDecimal("12.50"));
+        transaction.setDescription(description);
+        return transaction;
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        assertEquals("id,accountId,type,date,amount,description\r\n"
+            + "1,12345,Debit,2017-03-04,12.50,\"Check # 1\"\r\n"
+            + "2,12345,Debit,2017-03-04,12.50,\"Bill \"\"Payment\"\", Inc\"\r\n",
+            export(TransactionExportWriter.CSV, createTransaction(1, "Check # 1"),
+                createTransaction(2, "Bill \"Payment\", Inc")));
+    }
+
+    @Test
+    public void testJson() throws Exception {
+        assertEquals("[]", export(TransactionExportWriter.JSON));
+        assertEquals("[{\"id\":1,\"accountId\":12345,\"type\":\"Debit\",\"date\":\"2017-03-04\",\"amount\":12.50,"
+            + "\"description\":\"Check # 1\"}]", export("JSON", createTransaction(1, "Check # 1")));
+    }
+
+    @Test
+    public void testXml() throws Exception {
+        final String xml = export(TransactionExportWriter.XML, createTransaction(1, "a < b"));
+        assertTrue(xml.startsWith("<?xml"));
+        assertEquals("<transactions><transaction><id>1</id><accountId>12345</accountId><type>Debit</type>"
+            + "<date>2017-03-04</date><amount>12.50</amount><description>a &lt; b</description></transaction>"
+            + "</transactions>", xml.substring(xml.indexOf("?>") + 2));
+    }
+
+    @Test
+    public void testExportToResponse() throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        assertEquals(1, TransactionExportWriter.export("JSON", response, writer -> {
+            writer.accept(createTransaction(1, "Check # 1"));
+            return 1;
+        }));
+        assertEquals("application/json;charset=UTF-8", response.getContentType());
+        assertEquals("attachment; filename=\"transactions.json\"", response.getHeader("Content-Disposition"));
+        assertTrue(response.getContentAsString().endsWith("}]"));
+    }
+
+    @Test
+    public void testFailedExportIsNotFinished() throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            TransactionExportWriter.export(TransactionExportWriter.XML, response, writer -> {
+                throw new RecoverableDataAccessException("connection lost");
+            });
+            fail("did not throw expected RecoverableDataAccessException");
+        } catch (final RecoverableDataAccessException e) {
+        }
+        assertEquals("", response.getContentAsString());
+        assertNull(response.getHeader("Content-Disposition"));
+
+        // once the response is committed the transactions sent so far stay, but the document is left open
+        final MockHttpServletResponse committed = new MockHttpServletResponse();
+        committed.setBufferSize(1);
+        try {
+            TransactionExportWriter.export(TransactionExportWriter.JSON, committed, writer -> {
+                writer.accept(createTransaction(1, "Check # 1"));
+                writer.accept(createTransaction(2, "x".repeat(10000)));
+                throw new RecoverableDataAccessException("connection lost");
+            });
+            fail("did not throw expected RecoverableDataAccessException");
+        } catch (final RecoverableDataAccessException e) {
+        }
+        assertTrue(committed.isCommitted());
+        assertTrue(committed.getContentAsString().startsWith("[{\"id\":1,"));
+        assertFalse(committed.getContentAsString().endsWith("]"));
+    }
+
+    @Test
+    public void testUnsupportedFormat() throws Exception {
+        try {
+            TransactionExportWriter.create("pdf", new ByteArrayOutputStream());
+            fail("did not throw expected IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+        }
+    }
+}
@@ -31,8 +31,8 @@ public class AccountActivityControllerTest extends AbstractBankControllerTest<Ac
         request.setParameter("id", id);
 
         final ModelAndView mav = processGetRequest(request, new MockHttpServletResponse());
-        Integer accountId = (Integer) getModelValue(mav, "accountId");
+        Long accountId = (Long) getModelValue(mav, "accountId");
 
-        assertEquals(Integer.valueOf(id), accountId);
+        assertEquals(Long.valueOf(id), accountId);
     }
 }
\ No newline at end of file
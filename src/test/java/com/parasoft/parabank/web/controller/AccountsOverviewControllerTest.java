@@ -28,11 +28,11 @@ public class AccountsOverviewControllerTest extends AbstractBankControllerTest<A
      */
     @Test
     public void overviewAccountsControllerShouldReturnOnlyCustomerId() throws Exception {
-        Integer customerId = 12212;
+        Long customerId = 12212L;
         request = registerSession(new MockHttpServletRequest(), customerId);
 
         final ModelAndView mav = processGetRequest(request, new MockHttpServletResponse());
-        Integer actualCustomerId = (Integer) getModelValue(mav, "customerId");
+        Long actualCustomerId = (Long) getModelValue(mav, "customerId");
 
         assertEquals(customerId, actualCustomerId);
     }
@@ -134,7 +134,7 @@ public class BillPayControllerSpringTest {
                 .andExpect(status().isOk())
                 .andExpect(view().name(BILLPAY_CONFIRM))
                 .andExpect(model().attribute("payeeName", "payee name"))
-                .andExpect(model().attribute("fromAccountId", 12345))
+                .andExpect(model().attribute("fromAccountId", 12345L))
                 .andExpect(model().attribute("amount", new BigDecimal("100.0")));
     }
 
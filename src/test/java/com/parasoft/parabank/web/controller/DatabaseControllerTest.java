@@ -1,6 +1,7 @@
 package com.parasoft.parabank.web.controller;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 
 import jakarta.annotation.Resource;
@@ -71,6 +72,14 @@ public class DatabaseControllerTest extends AbstractAdminOperationsTest {
         assertEquals("admin", mav.getViewName());
         assertEquals("error.invalid.action.parameter", mav.getModel().get("error"));
 
+        lRequest = new MockHttpServletRequest();
+        lRequest.setParameter("action", "STORAGE");
+        lRequest.setParameter("storageProfile", "unknown");
+        mav = processPostRequest(null, lRequest, new MockHttpServletResponse());
+        assertEquals("admin", mav.getViewName());
+        assertEquals("error.invalid.storage.profile", mav.getModel().get("error"));
+        assertNotNull(mav.getModel().get("storageReport"));
+
         assertDBClean(() -> {
             final MockHttpServletRequest lRequest1 = new MockHttpServletRequest();
             lRequest1.setParameter("action", "CLEAN");
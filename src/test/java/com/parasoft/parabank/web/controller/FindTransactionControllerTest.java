@@ -92,7 +92,7 @@ public class FindTransactionControllerTest extends AbstractValidatingBankControl
 
         form = getFindTransactionForm();
         form.getCriteria().setSearchType(SearchType.ID);
-        form.getCriteria().setTransactionId(14143);
+        form.getCriteria().setTransactionId(14143L);
         assertTransactions(form, 1);
 
         form = getFindTransactionForm();
@@ -35,7 +35,7 @@ public class OpenAccountControllerTest extends AbstractBankControllerTest<OpenAc
 //        assertEquals(11, accounts.size());
         @SuppressWarnings("unchecked")
         final List<AccountType> types = (List<AccountType>) mav.getModel().get("types");
-        final int customerId = (int) mav.getModel().get("customerId");
+        final long customerId = (Long) mav.getModel().get("customerId");
         assertEquals(2, types.size());
         assertEquals(adminManager.getParameter(AdminParameters.MINIMUM_BALANCE), mav.getModel().get("minimumBalance"));
         assertEquals(12212, customerId);
@@ -58,7 +58,7 @@ public class RequestLoanControllerTest extends AbstractBankControllerTest<Reques
     public void testOnSubmit() throws Exception {
         ModelAndView mav = processGetRequest(request, new MockHttpServletResponse());
         final RequestLoanForm form = (RequestLoanForm) mav.getModel().get(getFormName());
-        final int fromAccountId = 12345;
+        final long fromAccountId = 12345;
         form.setAmount(new BigDecimal("1000.00"));
         form.setDownPayment(new BigDecimal("100.00"));
         form.setFromAccountId(fromAccountId);
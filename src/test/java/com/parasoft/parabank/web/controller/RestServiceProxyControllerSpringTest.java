@@ -7,8 +7,11 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -58,7 +61,7 @@ public class RestServiceProxyControllerSpringTest
     @Resource(name = "bankManager")
     protected BankManager bankManager;
 
-    private final int customerId = 12212;
+    private final long customerId = 12212;
 
     @Before
     public void setUp()
@@ -89,7 +92,7 @@ public class RestServiceProxyControllerSpringTest
     {
         mockMvc
             .perform(get("/bank/accounts/12456").with(createUserToken()).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
-            .andExpect(status().isOk()).andExpect(jsonPath("$.balance", is(10.45))).andExpect(jsonPath("$.customerId", is(customerId)))
+            .andExpect(status().isOk()).andExpect(jsonPath("$.balance", is(10.45))).andExpect(jsonPath("$.customerId", is(customerId), Long.class))
             .andExpect(jsonPath("$.type", is("CHECKING")));
     }
 
@@ -105,6 +108,39 @@ public class RestServiceProxyControllerSpringTest
             .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(transactions.size())));
     }
 
+    @Test
+    public void testGetTransactionsPaged()
+        throws Exception
+    {
+        List<Transaction> transactions = bankManager.getTransactionsForAccount(bankManager.getAccount(12345));
+        assertTrue(transactions.size() > 3);
+        mockMvc.perform(get("/bank/accounts/12345/transactions").param("limit", "3").with(createUserToken())
+            .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(3))).andExpect(jsonPath("$[0].id", is(transactions.get(0).getId()), Long.class));
+        mockMvc.perform(get("/bank/accounts/12345/transactions").param("cursor", String.valueOf(transactions.get(2).getId()))
+            .param("limit", "3").with(createUserToken()).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk()).andExpect(jsonPath("$[0].id", is(transactions.get(3).getId()), Long.class));
+        // transaction 13033 belongs to account 12900
+        mockMvc.perform(get("/bank/accounts/12345/transactions").param("cursor", "13033")
+            .param("limit", "3").with(createUserToken()).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void testExportTransactions()
+        throws Exception
+    {
+        List<Transaction> transactions = bankManager.getTransactionsForAccount(bankManager.getAccount(12345));
+        mockMvc.perform(get("/bank/transactions/export").param("accountId", "12345").param("format", "json")
+            .with(createUserToken())).andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$", hasSize(transactions.size())))
+            .andExpect(jsonPath("$[0].id", is(transactions.get(0).getId()), Long.class));
+        mockMvc.perform(get("/bank/transactions/export").param("accountId", "12345", "12456").with(createUserToken()))
+            .andExpect(status().isOk()).andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.csv\""));
+    }
+
     @Test
     public void testTransferAndGetTransactionByMonthAndType()
         throws Exception
@@ -211,7 +247,7 @@ public class RestServiceProxyControllerSpringTest
         mockMvc
             .perform(post("/bank/createAccount").with(createUserToken()).contentType(MediaType.APPLICATION_JSON).param("customerId", "" + customerId)
                 .param("newAccountType", "0").param("fromAccountId", "13122").content("").accept(MediaType.APPLICATION_JSON))
-            .andExpect(status().isOk()).andExpect(jsonPath("$.balance", is(0))).andExpect(jsonPath("$.customerId", is(customerId)))
+            .andExpect(status().isOk()).andExpect(jsonPath("$.balance", is(0))).andExpect(jsonPath("$.customerId", is(customerId), Long.class))
             .andExpect(jsonPath("$.type", is("CHECKING")));
     }
 
@@ -229,17 +265,17 @@ public class RestServiceProxyControllerSpringTest
     public void testGetTransaction()
         throws Exception
     {
-        int accountId = 12567;
+        long accountId = 12567;
         Transaction deposit = bankManager.deposit(accountId, BigDecimal.valueOf(1000.00), "Funds Transfer Received");
         mockMvc.perform(get("/bank/transactions/" + deposit.getId()).with(createUserToken()).contentType(MediaType.APPLICATION_JSON)
-            .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andExpect(jsonPath("$.id", is(deposit.getId())));
+            .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andExpect(jsonPath("$.id", is(deposit.getId()), Long.class));
     }
 
     @Test
     public void testGetTransactionsByAmount()
         throws Exception
     {
-        int accountId = 12567;
+        long accountId = 12567;
         BigDecimal amount = new BigDecimal(2000);
         Transaction deposit = bankManager.deposit(accountId, amount, "Funds Transfer Received");
         mockMvc
@@ -252,7 +288,7 @@ public class RestServiceProxyControllerSpringTest
     public void testGetTransactionsOnDate()
         throws Exception
     {
-        int accountId = 12567;
+        long accountId = 12567;
         BigDecimal amount = new BigDecimal(2000);
         String date = TransactionCriteria.DATE_FORMATTER.get().format(new Date());
         Transaction deposit = bankManager.deposit(accountId, amount, "Funds Transfer Received");